@@ -215,8 +215,8 @@ StrategyUpdate<DecisionAlternative_XNEWARRAY>> {
                 try {
                     final Expression currentLayerLengthZero = (Expression) calc.push(currentLayerLength).eq(calc.valInt(0)).pop();
                     final Expression currentLayerLengthNonzero = (Expression) calc.push(currentLayerLengthZero).not().pop();
-                    zeroBreak = this.ctx.decisionProcedure.isSat(currentLayerLengthZero); 
-                    zeroBreak = zeroBreak && !this.ctx.decisionProcedure.isSat(currentLayerLengthNonzero);
+                    zeroBreak = this.ctx.decisionProcedure.checkSat(currentLayerLengthZero); 
+                    zeroBreak = zeroBreak && !this.ctx.decisionProcedure.checkSat(currentLayerLengthNonzero);
                 } catch (ClassCastException | InvalidOperandException | 
                          InvalidTypeException | InvalidInputException e) {
                     //this should never happen
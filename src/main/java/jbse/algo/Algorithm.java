@@ -16,7 +16,9 @@ import jbse.common.exc.InvalidInputException;
 import jbse.dec.DecisionProcedureAlgorithms.Outcome;
 import jbse.dec.exc.DecisionException;
 import jbse.jvm.exc.FailureException;
+import jbse.mem.DecisionVector;
 import jbse.mem.State;
+import jbse.mem.State.Phase;
 import jbse.mem.exc.ContradictionException;
 import jbse.mem.exc.FastArrayAccessNotAllowedException;
 import jbse.mem.exc.InvalidNumberOfOperandsException;
@@ -255,6 +257,10 @@ UP extends StrategyUpdate<R>> implements Action {
         	throw e;
         }
         
+        //when replaying, keeps only the alternative that was chosen
+        final boolean replaying = (this.ctx.isReplaying() && state.phase() == Phase.POST_INITIAL);
+        final DecisionVector replayed = (replaying ? replayDecision(decisionResults) : null);
+        
         //checks if at least one alternative is satisfiable
         final int tot = decisionResults.size();
         if (tot == 0) {
@@ -262,9 +268,19 @@ UP extends StrategyUpdate<R>> implements Action {
         }
 
         //generates the next states
-        final boolean shouldRefine = outcome.shouldRefine();
-        final boolean branchingDecision = outcome.branchingDecision();
-        final boolean branchAdded = possiblyAddBranchPoint(decisionResults);
+        final boolean shouldRefine = (replayed == null ? outcome.shouldRefine() : replayed.shouldRefine());
+        final boolean branchingDecision = (replayed == null ? outcome.branchingDecision() : replayed.branchingDecision());
+        final boolean branchAdded;
+        if (replaying) {
+            //the branch was created when the decision was first taken
+            branchAdded = (replayed != null && replayed.createdBranch());
+            if (branchAdded) {
+                this.ctx.setReplayedBranch();
+            }
+        } else {
+            branchAdded = possiblyAddBranchPoint(decisionResults);
+        }
+        final boolean recordDecision = (replayed != null || (state.phase() == Phase.POST_INITIAL && (branchAdded || !decisionResults.first().trivial())));
         for (R result : decisionResults) {
             final State stateCurrent = (tot > 1 ? state.lazyClone() : state);
 
@@ -320,9 +336,14 @@ UP extends StrategyUpdate<R>> implements Action {
 
             //is the state the result of a branching decision?
             stateCurrent.setBranchingDecision(branchingDecision);
+            
+            //records the decision
+            if (recordDecision) {
+                stateCurrent.addDecision(result.getBranchNumber(), result.getIdentifier(), shouldRefine, branchingDecision, branchAdded);
+            }
 
             //adds the created state to the tree, if on a new branch
-            if (branchAdded) {
+            if (branchAdded && !replaying) {
                 this.ctx.stateTree.addState(stateCurrent, result.getBranchNumber(), result.getIdentifier());
             }
         }
@@ -332,6 +353,40 @@ UP extends StrategyUpdate<R>> implements Action {
         }
     }
 
+    /**
+     * Takes the next replayed decision, if the 
+     * decision alternatives are the outcome of a
+     * recorded decision, and keeps only the alternative
+     * chosen by it.
+     * 
+     * @param decisionResults the {@link SortedSet} of the
+     *        decision alternatives. 
+     * @return the {@link DecisionVector} whose last decision
+     *         is the replayed one, or {@code null} if the 
+     *         decision was not recorded (i.e., it is trivial 
+     *         and it does not create a branch).
+     * @throws InvalidInputException if the replayed decisions
+     *         do not match the decision alternatives.
+     */
+    private DecisionVector replayDecision(SortedSet<R> decisionResults) throws InvalidInputException {
+        if (decisionResults.isEmpty()) {
+            return null;
+        }
+        final DecisionAlternative d = decisionResults.first();
+        if (d.trivial() && !this.ctx.stateTree.wouldAddBranchPoint(decisionResults.size() > 1, true, d.concrete(), d.noDecision())) {
+            //trivial alternatives are not checked for satisfiability, 
+            //so this is the same outcome as when the decision was
+            //first taken
+            return null;
+        }
+        final DecisionVector retVal = this.ctx.nextReplayedDecision();
+        decisionResults.removeIf(r -> !retVal.chose(r.getBranchNumber(), r.getIdentifier()));
+        if (decisionResults.size() != 1) {
+            throw new InvalidInputException("The replayed decision with branch number " + retVal.getBranchNumber() + " does not match exactly one decision alternative.");
+        }
+        return retVal;
+    }
+
     private boolean possiblyAddBranchPoint(Collection<R> decisionResults) {
         final boolean moreThanOneResult = (decisionResults.size() > 1);
         final DecisionAlternative d = decisionResults.iterator().next();
@@ -581,6 +581,7 @@ import jbse.bc.exc.InvalidClassFileFactoryClassException;
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.DecisionProcedureAlgorithms;
+import jbse.mem.DecisionVector;
 import jbse.mem.State;
 import jbse.rules.TriggerRulesRepo;
 import jbse.tree.DecisionAlternative;
@@ -687,6 +688,21 @@ public final class ExecutionContext {
     /** The initial state. */
     public State stateInitial = null;
 
+    /** 
+     * The decisions that are being replayed, or {@code null} 
+     * when not replaying. 
+     */
+    private DecisionVector[] replayedDecisions = null;
+
+    /** The position in {@link #replayedDecisions} of the next decision to replay. */
+    private int replayedDecisionsNext = 0;
+
+    /** 
+     * Set when a replayed decision creates a branch in 
+     * the original symbolic execution. 
+     */
+    private boolean replayedBranch = false;
+
     /**
      * Constructor.
      * 
@@ -1148,6 +1164,87 @@ public final class ExecutionContext {
         return (this.stateInitial == null ? null : this.stateInitial.clone());
     }
 
+    /**
+     * Starts replaying a sequence of decisions. While
+     * replaying, the {@link Algorithm}s do not add
+     * branches to the state tree, and choose the 
+     * alternatives recorded in the replayed decisions
+     * without checking their satisfiability. 
+     * 
+     * @param decisions the {@link DecisionVector} to replay.
+     */
+    public void startReplay(DecisionVector decisions) {
+        this.replayedDecisions = decisions.decisions();
+        this.replayedDecisionsNext = 0;
+        this.replayedBranch = false;
+        this.decisionProcedure.setReplaying(true);
+    }
+
+    /**
+     * Stops replaying decisions.
+     */
+    public void stopReplay() {
+        this.replayedDecisions = null;
+        this.decisionProcedure.setReplaying(false);
+    }
+
+    /**
+     * Checks whether decisions are being replayed.
+     * 
+     * @return {@code true} iff {@link #startReplay(DecisionVector)}
+     *         was invoked and {@link #stopReplay()} was not invoked
+     *         afterwards.
+     */
+    public boolean isReplaying() {
+        return this.replayedDecisions != null;
+    }
+
+    /**
+     * Checks whether all the replayed decisions were taken.
+     * 
+     * @return {@code true} iff {@link #isReplaying()} and 
+     *         no decision remains to be replayed.
+     */
+    public boolean replayCompleted() {
+        return isReplaying() && this.replayedDecisionsNext == this.replayedDecisions.length;
+    }
+
+    /**
+     * Returns the next decision to replay.
+     * 
+     * @return a {@link DecisionVector} whose last decision is
+     *         the decision to replay.
+     * @throws InvalidInputException if no decision remains to 
+     *         be replayed.
+     */
+    DecisionVector nextReplayedDecision() throws InvalidInputException {
+        if (!isReplaying() || replayCompleted()) {
+            throw new InvalidInputException("The path takes more decisions than those replayed.");
+        }
+        return this.replayedDecisions[this.replayedDecisionsNext++];
+    }
+
+    /**
+     * Records that a replayed decision created
+     * a branch in the original symbolic execution.
+     */
+    void setReplayedBranch() {
+        this.replayedBranch = true;
+    }
+
+    /**
+     * Checks whether a replayed decision created a branch
+     * in the original symbolic execution since the last 
+     * invocation of this method.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean replayedBranch() {
+        final boolean retVal = this.replayedBranch;
+        this.replayedBranch = false;
+        return retVal;
+    }
+
     /**
      * Allows to customize the behavior of the invocations to a method 
      * by specifying another method that implements it.
@@ -91,8 +91,11 @@ public final class Overrides {
     public static final String ALGO_JAVA_PROCESSENVIRONMENT_ENVIRON                = internalClassName(jbse.algo.meta.Algo_JAVA_PROCESSENVIRONMENT_ENVIRON.class.getName());
     public static final String ALGO_JAVA_RANDOMACCESSFILE_OPEN0                    = internalClassName(jbse.algo.meta.Algo_JAVA_RANDOMACCESSFILE_OPEN0.class.getName());
     public static final String ALGO_JAVA_REFLECT_ARRAY_NEWARRAY                    = internalClassName(jbse.algo.meta.Algo_JAVA_REFLECT_ARRAY_NEWARRAY.class.getName());
+    public static final String ALGO_JAVA_STRING_EQUALS                             = internalClassName(jbse.algo.meta.Algo_JAVA_STRING_EQUALS.class.getName());
     public static final String ALGO_JAVA_STRING_HASHCODE                           = internalClassName(jbse.algo.meta.Algo_JAVA_STRING_HASHCODE.class.getName());
+    public static final String ALGO_JAVA_STRING_INDEXOF                            = internalClassName(jbse.algo.meta.Algo_JAVA_STRING_INDEXOF.class.getName());
     public static final String ALGO_JAVA_STRING_INTERN                             = internalClassName(jbse.algo.meta.Algo_JAVA_STRING_INTERN.class.getName());
+    public static final String ALGO_JAVA_STRING_LENGTH                             = internalClassName(jbse.algo.meta.Algo_JAVA_STRING_LENGTH.class.getName());
     public static final String ALGO_JAVA_STRINGBUILDER_APPEND                      = internalClassName(jbse.algo.meta.Algo_JAVA_STRINGBUILDER_APPEND.class.getName());
     public static final String ALGO_JAVA_SYSTEM_ARRAYCOPY                          = internalClassName(jbse.algo.meta.Algo_JAVA_SYSTEM_ARRAYCOPY.class.getName());
     public static final String ALGO_JAVA_SYSTEM_IDENTITYHASHCODE                   = internalClassName(jbse.algo.meta.Algo_JAVA_SYSTEM_IDENTITYHASHCODE.class.getName());
@@ -194,6 +197,8 @@ public final class Overrides {
     public static final String ALGO_JBSE_JAVA_MAP_REFINEONKEYANDBRANCH                       = internalClassName(jbse.algo.meta.Algo_JBSE_JAVA_MAP_REFINEONKEYANDBRANCH.class.getName());
     public static final String ALGO_JBSE_JAVA_MAP_REFINEONKEYCOMBINATIONSANDBRANCH           = internalClassName(jbse.algo.meta.Algo_JBSE_JAVA_MAP_REFINEONKEYCOMBINATIONSANDBRANCH.class.getName());
     public static final String ALGO_JBSE_JAVA_MAP_REFINEONVALUEANDBRANCH                     = internalClassName(jbse.algo.meta.Algo_JBSE_JAVA_MAP_REFINEONVALUEANDBRANCH.class.getName());
+    public static final String ALGO_JBSE_JAVA_XMAP_CONTAINSKEY                               = internalClassName(jbse.algo.meta.Algo_JBSE_JAVA_XMAP_CONTAINSKEY.class.getName());
+    public static final String ALGO_JBSE_JAVA_XMAP_GET                                       = internalClassName(jbse.algo.meta.Algo_JBSE_JAVA_XMAP_GET.class.getName());
     public static final String ALGO_JBSE_JAVA_XMAP_MAKEINITIAL                               = internalClassName(jbse.algo.meta.Algo_JBSE_JAVA_XMAP_MAKEINITIAL.class.getName());
     public static final String ALGO_JBSE_JAVA_XMAP_METATHROWUNEXPECTEDINTERNALEXCEPTION      = internalClassName(jbse.algo.meta.Algo_JBSE_JAVA_XMAP_METATHROWUNEXPECTEDINTERNALEXCEPTION.class.getName());
     public static final String ALGO_JBSE_JAVA_XMAP_NOTIFYMETHODEXECUTION                     = internalClassName(jbse.algo.meta.Algo_JBSE_JAVA_XMAP_NOTIFYMETHODEXECUTION.class.getName());
@@ -0,0 +1,55 @@
+package jbse.algo.meta;
+
+import static jbse.algo.UtilControlFlow.continueWithBaseLevelImpl;
+import static jbse.algo.meta.Util.symbolicStringOrigin;
+import static jbse.bc.Signatures.JAVA_STRING_EQUALS;
+import static jbse.common.Type.INT;
+
+import java.util.function.Supplier;
+
+import jbse.algo.Algo_INVOKEMETA_Nonbranching;
+import jbse.algo.InterruptException;
+import jbse.algo.StrategyUpdate;
+import jbse.common.exc.InvalidInputException;
+import jbse.mem.State;
+import jbse.mem.exc.FrozenStateException;
+import jbse.tree.DecisionAlternative_NONE;
+import jbse.val.Primitive;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.exc.InvalidTypeException;
+
+/**
+ * Meta-level implementation of {@link java.lang.String#equals(Object)}.
+ * When both strings are symbolic and still have their initial content
+ * it returns a term of the strings theory, that the decision procedure
+ * links to the lengths and characters of the strings; otherwise it
+ * executes the base-level implementation.
+ */
+public final class Algo_JAVA_STRING_EQUALS extends Algo_INVOKEMETA_Nonbranching {
+    @Override
+    protected Supplier<Integer> numOperands() {
+        return () -> 2;
+    }
+
+    private Primitive equals; //set by cookMore
+
+    @Override
+    protected void cookMore(State state) 
+    throws InterruptException, FrozenStateException, InvalidTypeException, InvalidInputException {
+        final ReferenceSymbolic thisOrigin = symbolicStringOrigin(state, this.data.operand(0));
+        final ReferenceSymbolic otherOrigin = symbolicStringOrigin(state, this.data.operand(1));
+        if (thisOrigin == null || otherOrigin == null || thisOrigin.equals(otherOrigin)) {
+            //executes the String.equals implementation
+            continueWithBaseLevelImpl(state, this.isInterface, this.isSpecial, this.isStatic); 
+        } else {
+            this.equals = this.ctx.getCalculator().applyFunctionPrimitive(INT, state.getHistoryPoint(), JAVA_STRING_EQUALS.toString(), thisOrigin, otherOrigin).pop();
+        }
+    }
+
+    @Override
+    protected StrategyUpdate<DecisionAlternative_NONE> updater() {
+        return (state, alt) -> {
+            state.pushOperand(this.equals);
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package jbse.algo.meta;
+
+import static jbse.algo.UtilControlFlow.continueWithBaseLevelImpl;
+import static jbse.algo.UtilControlFlow.exitFromAlgorithm;
+import static jbse.algo.UtilControlFlow.throwVerifyError;
+import static jbse.algo.meta.Util.symbolicStringOrigin;
+import static jbse.bc.Signatures.JAVA_STRING_INDEXOF_INT;
+import static jbse.common.Type.INT;
+
+import java.util.function.Supplier;
+
+import jbse.algo.Algo_INVOKEMETA_Nonbranching;
+import jbse.algo.InterruptException;
+import jbse.algo.StrategyUpdate;
+import jbse.common.exc.ClasspathException;
+import jbse.common.exc.InvalidInputException;
+import jbse.mem.State;
+import jbse.mem.exc.FrozenStateException;
+import jbse.tree.DecisionAlternative_NONE;
+import jbse.val.Primitive;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.exc.InvalidTypeException;
+
+/**
+ * Meta-level implementation of {@link java.lang.String#indexOf(int)}.
+ * When the string is symbolic and still has its initial content it
+ * returns a term of the strings theory, that the decision procedure
+ * links to the length and characters of the string; otherwise it
+ * executes the base-level implementation.
+ */
+public final class Algo_JAVA_STRING_INDEXOF extends Algo_INVOKEMETA_Nonbranching {
+    @Override
+    protected Supplier<Integer> numOperands() {
+        return () -> 2;
+    }
+
+    private Primitive index; //set by cookMore
+
+    @Override
+    protected void cookMore(State state) 
+    throws InterruptException, ClasspathException, FrozenStateException, 
+    InvalidTypeException, InvalidInputException {
+        try {
+            final ReferenceSymbolic thisOrigin = symbolicStringOrigin(state, this.data.operand(0));
+            final Primitive ch = (Primitive) this.data.operand(1);
+            if (thisOrigin == null) {
+                //executes the String.indexOf implementation
+                continueWithBaseLevelImpl(state, this.isInterface, this.isSpecial, this.isStatic); 
+            } else {
+                this.index = this.ctx.getCalculator().applyFunctionPrimitive(INT, state.getHistoryPoint(), JAVA_STRING_INDEXOF_INT.toString(), thisOrigin, ch).pop();
+            }
+        } catch (ClassCastException e) {
+            throwVerifyError(state, this.ctx.getCalculator());
+            exitFromAlgorithm();
+        }
+    }
+
+    @Override
+    protected StrategyUpdate<DecisionAlternative_NONE> updater() {
+        return (state, alt) -> {
+            state.pushOperand(this.index);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package jbse.algo.meta;
+
+import jbse.algo.StrategyUpdate;
+import jbse.tree.DecisionAlternative_NONE;
+
+/**
+ * Meta-level implementation of {@link jbse.base.JAVA_MAP#containsKey(Object)} and 
+ * {@link jbse.base.JAVA_CONCURRENTMAP#containsKey(Object)}.
+ */
+public final class Algo_JBSE_JAVA_XMAP_CONTAINSKEY extends Algo_JBSE_JAVA_XMAP_LOOKUP {
+    @Override
+    protected StrategyUpdate<DecisionAlternative_NONE> updater() {
+        return (state, alt) -> {
+            state.pushOperand(this.ctx.getCalculator().valInt(this.found ? 1 : 0));
+        };
+    }
+}
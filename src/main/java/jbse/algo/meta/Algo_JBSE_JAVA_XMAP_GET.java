@@ -0,0 +1,18 @@
+package jbse.algo.meta;
+
+import jbse.algo.StrategyUpdate;
+import jbse.tree.DecisionAlternative_NONE;
+import jbse.val.Null;
+
+/**
+ * Meta-level implementation of {@link jbse.base.JAVA_MAP#get(Object)} and 
+ * {@link jbse.base.JAVA_CONCURRENTMAP#get(Object)}.
+ */
+public final class Algo_JBSE_JAVA_XMAP_GET extends Algo_JBSE_JAVA_XMAP_LOOKUP {
+    @Override
+    protected StrategyUpdate<DecisionAlternative_NONE> updater() {
+        return (state, alt) -> {
+            state.pushOperand(this.found ? this.valueFound : Null.getInstance());
+        };
+    }
+}
@@ -0,0 +1,347 @@
+package jbse.algo.meta;
+
+import static jbse.algo.UtilControlFlow.continueWithBaseLevelImpl;
+import static jbse.algo.UtilControlFlow.exitFromAlgorithm;
+import static jbse.algo.UtilControlFlow.throwVerifyError;
+import static jbse.bc.Signatures.JAVA_ARRAYLIST;
+import static jbse.bc.Signatures.JAVA_BOOLEAN;
+import static jbse.bc.Signatures.JAVA_BYTE;
+import static jbse.bc.Signatures.JAVA_CHARACTER;
+import static jbse.bc.Signatures.JAVA_INTEGER;
+import static jbse.bc.Signatures.JAVA_LONG;
+import static jbse.bc.Signatures.JAVA_SHORT;
+import static jbse.bc.Signatures.JAVA_STRING;
+import static jbse.bc.Signatures.JAVA_STRING_VALUE;
+
+import java.util.function.Supplier;
+
+import jbse.algo.Algo_INVOKEMETA_Nonbranching;
+import jbse.algo.InterruptException;
+import jbse.apps.run.DecisionProcedureGuidanceJDI;
+import jbse.common.exc.ClasspathException;
+import jbse.common.exc.InvalidInputException;
+import jbse.mem.Array;
+import jbse.mem.Array.AccessOutcomeInValue;
+import jbse.mem.Objekt;
+import jbse.mem.State;
+import jbse.mem.exc.FastArrayAccessNotAllowedException;
+import jbse.mem.exc.FrozenStateException;
+import jbse.val.Calculator;
+import jbse.val.Reference;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
+import jbse.val.Value;
+import jbse.val.exc.InvalidTypeException;
+
+/**
+ * Abstract meta-level implementation of the key lookup methods
+ * of {@link jbse.base.JAVA_MAP} and {@link jbse.base.JAVA_CONCURRENTMAP}.
+ * When the map is not initial, all its keys have a concrete hash code,
+ * and the hash code of the looked up key can be calculated at the meta
+ * level, it looks up the key in the bucket of the map with no
+ * base-level execution; otherwise it executes the base-level
+ * implementation.
+ */
+abstract class Algo_JBSE_JAVA_XMAP_LOOKUP extends Algo_INVOKEMETA_Nonbranching {
+    /** Set by {@link #cookMore(State)}: whether the key is in the map. */
+    protected boolean found;
+
+    /**
+     * Set by {@link #cookMore(State)}: the value associated
+     * to the key, if {@link #found} is {@code true}.
+     */
+    protected Value valueFound;
+
+    @Override
+    protected final Supplier<Integer> numOperands() {
+        return () -> 2;
+    }
+
+    @Override
+    protected final void cookMore(State state)
+    throws InterruptException, ClasspathException, FrozenStateException,
+    InvalidTypeException, InvalidInputException {
+        try {
+            if (this.ctx.decisionProcedure instanceof DecisionProcedureGuidanceJDI || !lookup(state)) {
+                //executes the model implementation
+                continueWithBaseLevelImpl(state, this.isInterface, this.isSpecial, this.isStatic);
+            }
+        } catch (ClassCastException e) {
+            throwVerifyError(state, this.ctx.getCalculator());
+            exitFromAlgorithm();
+        }
+    }
+
+    /**
+     * Looks up the key in the map.
+     *
+     * @param state the current {@link State}.
+     * @return {@code true} iff the lookup succeeded
+     *         at the meta level and {@link #found}
+     *         and {@link #valueFound} are set.
+     * @throws FrozenStateException if {@code state} is frozen.
+     * @throws InvalidInputException never.
+     * @throws InvalidTypeException never.
+     */
+    private boolean lookup(State state) throws FrozenStateException, InvalidInputException, InvalidTypeException {
+        final Objekt map = objectOf(state, this.data.operand(0));
+        if (map == null) {
+            return false;
+        }
+        final String mapClass = map.getType().getClassName();
+
+        //the map must not be initial, and its keys must all
+        //have concrete hash code
+        final Value isInitial = map.getFieldValue("isInitial", mapClass);
+        final Value numNodes = map.getFieldValue("numNodes", mapClass);
+        final Value numNodesConcreteHash = map.getFieldValue("numNodesConcreteHash", mapClass);
+        if (!(isInitial instanceof Simplex) || !((Simplex) isInitial).isZeroOne(true) ||
+            !(numNodes instanceof Simplex) || !numNodes.equals(numNodesConcreteHash)) {
+            return false;
+        }
+
+        //calculates the hash code of the key
+        final Value key = this.data.operand(1);
+        final Long hash = hash(state, key);
+        if (hash == null) {
+            return false;
+        }
+
+        //checks if the key is in the list of absent keys
+        final Objekt absentKeys = objectOf(state, map.getFieldValue("absentKeys", mapClass));
+        if (absentKeys == null || !JAVA_ARRAYLIST.equals(absentKeys.getType().getClassName())) {
+            return false;
+        }
+        final Value absentKeysSize = absentKeys.getFieldValue("size", JAVA_ARRAYLIST);
+        final Objekt absentKeysElements = objectOf(state, absentKeys.getFieldValue("elementData", JAVA_ARRAYLIST));
+        if (!(absentKeysSize instanceof Simplex) || !(absentKeysElements instanceof Array)) {
+            return false;
+        }
+        final int size = ((Integer) ((Simplex) absentKeysSize).getActualValue()).intValue();
+        for (int i = 0; i < size; ++i) {
+            final Value absentKey = element(state, (Array) absentKeysElements, i);
+            final Boolean eq = (absentKey == null ? null : keyEquals(state, key, absentKey));
+            if (eq == null) {
+                return false;
+            } else if (eq.booleanValue()) {
+                this.found = false;
+                return true;
+            }
+        }
+
+        //looks up the key in its bucket
+        final Objekt buckets = objectOf(state, map.getFieldValue("buckets", mapClass));
+        if (!(buckets instanceof Array) || !(((Array) buckets).getLength() instanceof Simplex)) {
+            return false;
+        }
+        final int numBuckets = ((Integer) ((Simplex) ((Array) buckets).getLength()).getActualValue()).intValue();
+        final int h = (int) hash.longValue();
+        Value nodeRef = element(state, (Array) buckets, (h ^ (h >>> 16)) & (numBuckets - 1));
+        while (true) {
+            if (!(nodeRef instanceof Reference)) {
+                return false;
+            }
+            if (state.isNull((Reference) nodeRef)) {
+                break;
+            }
+            final Objekt node = objectOf(state, nodeRef);
+            if (node == null) {
+                return false;
+            }
+            final String nodeClass = node.getType().getClassName();
+            final Value nodeHash = node.getFieldValue("hash", nodeClass);
+            if (!(nodeHash instanceof Simplex)) {
+                return false;
+            }
+            if (hash.equals(((Simplex) nodeHash).getActualValue())) {
+                final Value nodeKey = node.getFieldValue("key", nodeClass);
+                final Boolean eq = (nodeKey == null ? null : keyEquals(state, key, nodeKey));
+                if (eq == null) {
+                    return false;
+                } else if (eq.booleanValue()) {
+                    this.found = true;
+                    this.valueFound = node.getFieldValue("value", nodeClass);
+                    return (this.valueFound != null);
+                }
+            }
+            nodeRef = node.getFieldValue("nextInBucket", nodeClass);
+        }
+
+        //not found: if the map is backed by an initial map
+        //the key might be there
+        final Value initialMap = map.getFieldValue("initialMap", mapClass);
+        if (!(initialMap instanceof Reference) || !state.isNull((Reference) initialMap)) {
+            return false;
+        }
+        this.found = false;
+        return true;
+    }
+
+    private static Objekt objectOf(State state, Value ref) throws FrozenStateException {
+        if (!(ref instanceof Reference) || state.isNull((Reference) ref)) {
+            return null;
+        }
+        if (ref instanceof ReferenceSymbolic && !state.resolved((ReferenceSymbolic) ref)) {
+            return null;
+        }
+        return state.getObject((Reference) ref);
+    }
+
+    private Value element(State state, Array array, int index) throws InvalidInputException, InvalidTypeException {
+        try {
+            final Calculator calc = this.ctx.getCalculator();
+            return ((AccessOutcomeInValue) array.getFast(calc, calc.valInt(index))).getValue();
+        } catch (FastArrayAccessNotAllowedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calculates at the meta level the hash code of a
+     * key with concrete content whose class is {@link String}
+     * or a box class of an integral type.
+     *
+     * @param state the current {@link State}.
+     * @param key a {@link Value}.
+     * @return the hash code of {@code key} as a {@link Long},
+     *         or {@code null} if it cannot be calculated at
+     *         the meta level.
+     * @throws FrozenStateException if {@code state} is frozen.
+     * @throws InvalidInputException never.
+     * @throws InvalidTypeException never.
+     */
+    private Long hash(State state, Value key) throws FrozenStateException, InvalidInputException, InvalidTypeException {
+        if (key instanceof Reference && state.isNull((Reference) key)) {
+            return Long.valueOf(0);
+        }
+        final Object[] content = content(state, key);
+        if (content == null) {
+            return null;
+        }
+        final String className = (String) content[0];
+        if (JAVA_STRING.equals(className)) {
+            int h = 0;
+            for (int i = 1; i < content.length; ++i) {
+                h = 31 * h + ((Character) content[i]).charValue();
+            }
+            return Long.valueOf(h);
+        } else if (JAVA_LONG.equals(className)) {
+            final long l = ((Long) content[1]).longValue();
+            return Long.valueOf((int) (l ^ (l >>> 32)));
+        } else if (JAVA_BOOLEAN.equals(className)) {
+            return Long.valueOf(((Boolean) content[1]).booleanValue() ? 1231 : 1237);
+        } else if (JAVA_CHARACTER.equals(className)) {
+            return Long.valueOf(((Character) content[1]).charValue());
+        } else {
+            return Long.valueOf(((Number) content[1]).intValue());
+        }
+    }
+
+    /**
+     * Checks at the meta level whether {@code key.equals(other)}.
+     *
+     * @param state the current {@link State}.
+     * @param key a {@link Value} whose hash code could be
+     *        calculated by {@link #hash(State, Value)}.
+     * @param other a {@link Value}.
+     * @return the result of {@code key.equals(other)}, or
+     *         {@code null} if it cannot be calculated at the
+     *         meta level.
+     * @throws FrozenStateException if {@code state} is frozen.
+     * @throws InvalidInputException never.
+     * @throws InvalidTypeException never.
+     */
+    private Boolean keyEquals(State state, Value key, Value other) throws FrozenStateException, InvalidInputException, InvalidTypeException {
+        if (!(other instanceof Reference)) {
+            return null;
+        }
+        final boolean keyNull = state.isNull((Reference) key);
+        final boolean otherNull = state.isNull((Reference) other);
+        if (keyNull || otherNull) {
+            return Boolean.valueOf(keyNull && otherNull);
+        }
+        if (other instanceof ReferenceSymbolic && !state.resolved((ReferenceSymbolic) other)) {
+            return null;
+        }
+        final Objekt keyObject = state.getObject((Reference) key);
+        final Objekt otherObject = state.getObject((Reference) other);
+        if (keyObject == otherObject) {
+            return Boolean.TRUE;
+        }
+        if (otherObject == null) {
+            return null;
+        }
+        if (!keyObject.getType().getClassName().equals(otherObject.getType().getClassName())) {
+            //the class of the key is final
+            return Boolean.FALSE;
+        }
+        final Object[] keyContent = content(state, key);
+        final Object[] otherContent = content(state, other);
+        if (otherContent == null) {
+            return null;
+        }
+        if (keyContent.length != otherContent.length) {
+            return Boolean.FALSE;
+        }
+        for (int i = 1; i < keyContent.length; ++i) {
+            if (!keyContent[i].equals(otherContent[i])) {
+                return Boolean.FALSE;
+            }
+        }
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Returns the concrete content of a {@link String} or of
+     * an integral box object.
+     *
+     * @param state the current {@link State}.
+     * @param ref a {@link Value}.
+     * @return an {@code Object[]} whose first element is the
+     *         class name of the object referred by {@code ref},
+     *         and whose other elements are the {@link Character}s
+     *         in the string or the boxed value, or {@code null}
+     *         if {@code ref} does not refer to such an object
+     *         or the content of the object is not concrete.
+     * @throws FrozenStateException if {@code state} is frozen.
+     * @throws InvalidInputException never.
+     * @throws InvalidTypeException never.
+     */
+    private Object[] content(State state, Value ref) throws FrozenStateException, InvalidInputException, InvalidTypeException {
+        final Objekt o = objectOf(state, ref);
+        if (o == null || o.isSymbolic()) {
+            return null;
+        }
+        final String className = o.getType().getClassName();
+        if (JAVA_STRING.equals(className)) {
+            final Objekt value = objectOf(state, o.getFieldValue(JAVA_STRING_VALUE));
+            if (!(value instanceof Array) || !(((Array) value).getLength() instanceof Simplex)) {
+                return null;
+            }
+            final int length = ((Integer) ((Simplex) ((Array) value).getLength()).getActualValue()).intValue();
+            final Object[] retVal = new Object[length + 1];
+            retVal[0] = className;
+            for (int i = 0; i < length; ++i) {
+                final Value c = element(state, (Array) value, i);
+                if (!(c instanceof Simplex)) {
+                    return null;
+                }
+                retVal[i + 1] = ((Simplex) c).getActualValue();
+            }
+            return retVal;
+        } else if (JAVA_INTEGER.equals(className) || JAVA_LONG.equals(className) ||
+                   JAVA_SHORT.equals(className) || JAVA_BYTE.equals(className) ||
+                   JAVA_CHARACTER.equals(className) || JAVA_BOOLEAN.equals(className)) {
+            final Value value = o.getFieldValue("value", className);
+            if (!(value instanceof Simplex)) {
+                return null;
+            }
+            final Object actualValue = (JAVA_BOOLEAN.equals(className) ?
+                                        Boolean.valueOf(!((Simplex) value).isZeroOne(true)) :
+                                        ((Simplex) value).getActualValue());
+            return new Object[] { className, actualValue };
+        } else {
+            return null;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package jbse.algo.meta;
 
 import static jbse.algo.UtilControlFlow.failExecution;
+import static jbse.bc.Signatures.JAVA_STRING;
+import static jbse.bc.Signatures.JAVA_STRING_VALUE;
 import static jbse.common.Type.INT;
 
 import jbse.algo.InterruptException;
@@ -8,10 +10,14 @@ import jbse.algo.exc.SymbolicValueNotAllowedException;
 import jbse.common.exc.ClasspathException;
 import jbse.mem.Array;
 import jbse.mem.Instance;
+import jbse.mem.Objekt;
 import jbse.mem.State;
 import jbse.mem.exc.FrozenStateException;
 import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolicMemberArrayLength;
 import jbse.val.Reference;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.ReferenceSymbolicMemberField;
 import jbse.val.Value;
 
 class Util {
@@ -96,6 +102,47 @@ class Util {
 		return thePrimitive;
 	}
 
+	/**
+	 * Checks whether a reference refers to a symbolic string 
+	 * whose content is still the initial, unknown one, so that
+	 * the string can be represented by a term in the strings 
+	 * theory.
+	 * 
+	 * @param state a {@link State}.
+	 * @param ref a {@link Value}.
+	 * @return the origin of the string referred by {@code ref}
+	 *         if it is a symbolic {@code java.lang.String} whose
+	 *         {@code value} field is the initial symbolic reference,
+	 *         and this reference is either unresolved or expanded 
+	 *         to an array with symbolic length; otherwise {@code null}.
+	 * @throws FrozenStateException if {@code state} is frozen.
+	 */
+	static ReferenceSymbolic symbolicStringOrigin(State state, Value ref) throws FrozenStateException {
+		if (!(ref instanceof Reference) || state.isNull((Reference) ref)) {
+			return null;
+		}
+		final Objekt theString = state.getObject((Reference) ref);
+		if (theString == null || !theString.isSymbolic() || !JAVA_STRING.equals(theString.getType().getClassName())) {
+			return null;
+		}
+		final ReferenceSymbolic origin = theString.getOrigin();
+		final Value value = theString.getFieldValue(JAVA_STRING_VALUE);
+		if (!(value instanceof ReferenceSymbolicMemberField) || !origin.equals(((ReferenceSymbolicMemberField) value).getContainer())) {
+			return null;
+		}
+		final ReferenceSymbolicMemberField valueReference = (ReferenceSymbolicMemberField) value;
+		if (state.resolved(valueReference)) {
+			if (state.isNull(valueReference)) {
+				return null;
+			}
+			final Array theValue = (Array) state.getObject(valueReference);
+			if (!valueReference.equals(theValue.getOrigin()) || !(theValue.getLength() instanceof PrimitiveSymbolicMemberArrayLength)) {
+				return null;
+			}
+		}
+		return origin;
+	}
+
     //do not instantiate!
     private Util() {
         throw new AssertionError();
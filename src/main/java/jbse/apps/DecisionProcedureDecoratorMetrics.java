@@ -0,0 +1,138 @@
+package jbse.apps;
+
+import java.util.Collection;
+import java.util.Map;
+
+import jbse.bc.ClassFile;
+import jbse.common.Metrics;
+import jbse.common.Metrics.Histogram;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.DecisionProcedure;
+import jbse.dec.DecisionProcedureDecorator;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
+import jbse.mem.Objekt;
+import jbse.mem.exc.ContradictionException;
+import jbse.val.Expression;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
+
+/**
+ * A {@link DecisionProcedureDecorator} that records in the
+ * {@link Metrics} registry a latency histogram for each
+ * family of queries to its component.
+ */
+public class DecisionProcedureDecoratorMetrics extends DecisionProcedureDecorator {
+    private final Histogram isSat = Metrics.histogram("dec.isSat");
+    private final Histogram isSatNull = Metrics.histogram("dec.isSatNull");
+    private final Histogram isSatAliases = Metrics.histogram("dec.isSatAliases");
+    private final Histogram isSatExpands = Metrics.histogram("dec.isSatExpands");
+    private final Histogram isSatInitialized = Metrics.histogram("dec.isSatInitialized");
+    private final Histogram isSatNotInitialized = Metrics.histogram("dec.isSatNotInitialized");
+    private final Histogram pushAssumption = Metrics.histogram("dec.pushAssumption");
+    private final Histogram setAssumptions = Metrics.histogram("dec.setAssumptions");
+    private final Histogram getModel = Metrics.histogram("dec.getModel");
+
+    public DecisionProcedureDecoratorMetrics(DecisionProcedure component) throws InvalidInputException {
+        super(component);
+    }
+
+    @Override
+    public void pushAssumption(Clause c)
+    throws InvalidInputException, DecisionException, ContradictionException {
+        final long start = Metrics.start();
+        try {
+            super.pushAssumption(c);
+        } finally {
+            this.pushAssumption.stop(start);
+        }
+    }
+
+    @Override
+    public void setAssumptions(Collection<Clause> newAssumptions)
+    throws InvalidInputException, DecisionException, ContradictionException {
+        final long start = Metrics.start();
+        try {
+            super.setAssumptions(newAssumptions);
+        } finally {
+            this.setAssumptions.stop(start);
+        }
+    }
+
+    @Override
+    public boolean isSat(Expression exp)
+    throws InvalidInputException, DecisionException {
+        final long start = Metrics.start();
+        try {
+            return super.isSat(exp);
+        } finally {
+            this.isSat.stop(start);
+        }
+    }
+
+    @Override
+    public boolean isSatNull(ReferenceSymbolic r)
+    throws InvalidInputException, DecisionException {
+        final long start = Metrics.start();
+        try {
+            return super.isSatNull(r);
+        } finally {
+            this.isSatNull.stop(start);
+        }
+    }
+
+    @Override
+    public boolean isSatAliases(ReferenceSymbolic r, long heapPos, Objekt o)
+    throws InvalidInputException, DecisionException {
+        final long start = Metrics.start();
+        try {
+            return super.isSatAliases(r, heapPos, o);
+        } finally {
+            this.isSatAliases.stop(start);
+        }
+    }
+
+    @Override
+    public boolean isSatExpands(ReferenceSymbolic r, ClassFile classFile)
+    throws InvalidInputException, DecisionException {
+        final long start = Metrics.start();
+        try {
+            return super.isSatExpands(r, classFile);
+        } finally {
+            this.isSatExpands.stop(start);
+        }
+    }
+
+    @Override
+    public boolean isSatInitialized(ClassFile classFile)
+    throws InvalidInputException, DecisionException {
+        final long start = Metrics.start();
+        try {
+            return super.isSatInitialized(classFile);
+        } finally {
+            this.isSatInitialized.stop(start);
+        }
+    }
+
+    @Override
+    public boolean isSatNotInitialized(ClassFile classFile)
+    throws InvalidInputException, DecisionException {
+        final long start = Metrics.start();
+        try {
+            return super.isSatNotInitialized(classFile);
+        } finally {
+            this.isSatNotInitialized.stop(start);
+        }
+    }
+
+    @Override
+    public Map<PrimitiveSymbolic, Simplex> getModel() throws DecisionException {
+        final long start = Metrics.start();
+        try {
+            return super.getModel();
+        } finally {
+            this.getModel.stop(start);
+        }
+    }
+}
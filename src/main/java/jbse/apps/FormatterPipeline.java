@@ -0,0 +1,190 @@
+package jbse.apps;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.mem.State;
+
+/**
+ * A pipeline that formats {@link State}s with a {@link Formatter}
+ * and emits the result on a background thread. The requests are
+ * served in the order they are submitted, and at most a given number
+ * of them may be pending: When the queue is full, submission blocks
+ * until the background thread catches up. The submitted states are
+ * cloned, so the caller may keep on modifying them.
+ */
+public final class FormatterPipeline implements AutoCloseable {
+    /** The {@link Formatter}, used only by the background thread. */
+    private final Formatter formatter;
+
+    /** Where the formatted text is emitted. */
+    private final Consumer<String> output;
+
+    /** The pending requests. */
+    private final ArrayBlockingQueue<Runnable> queue;
+
+    /** The background thread. */
+    private final Thread worker;
+
+    /**
+     * The first {@link RuntimeException} raised by a request,
+     * or {@code null}.
+     */
+    private volatile RuntimeException failure = null;
+
+    /** Set when the pipeline is closed. */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param formatter the {@link Formatter}. It must not be
+     *        used by anybody else.
+     * @param output a {@link Consumer}{@code <}{@link String}{@code >}
+     *        that emits the formatted text.
+     * @param capacity a positive {@code int}, the maximum number
+     *        of pending requests.
+     */
+    public FormatterPipeline(Formatter formatter, Consumer<String> output, int capacity) {
+        this.formatter = formatter;
+        this.output = output;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::serve, "jbse-formatter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    private void serve() {
+        try {
+            while (true) {
+                final Runnable request = this.queue.take();
+                try {
+                    request.run();
+                } catch (RuntimeException e) {
+                    if (this.failure == null) {
+                        this.failure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            //exits
+        }
+    }
+
+    private void rethrowFailure() {
+        final RuntimeException failure = this.failure;
+        if (failure != null) {
+            this.failure = null;
+            throw (failure instanceof UnexpectedInternalException ? failure : new UnexpectedInternalException(failure));
+        }
+    }
+
+    private void submit(Runnable request) {
+        rethrowFailure();
+        try {
+            this.queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnexpectedInternalException(e);
+        }
+    }
+
+    /**
+     * Formats and emits the prologue.
+     */
+    public void formatPrologue() {
+        submit(() -> {
+            this.formatter.cleanup();
+            this.formatter.formatPrologue();
+            this.output.accept(this.formatter.emit());
+        });
+    }
+
+    /**
+     * Formats and emits a {@link State}.
+     *
+     * @param s the {@link State} to be formatted. A
+     *        clone of it is queued.
+     * @throws UnexpectedInternalException if some previous
+     *         request failed.
+     */
+    public void formatState(State s) {
+        final State snapshot = s.clone();
+        submit(() -> {
+            this.formatter.cleanup();
+            this.formatter.formatState(snapshot);
+            this.output.accept(this.formatter.emit());
+        });
+    }
+
+    /**
+     * Formats and emits the epilogue.
+     */
+    public void formatEpilogue() {
+        submit(() -> {
+            this.formatter.cleanup();
+            this.formatter.formatEpilogue();
+            this.output.accept(this.formatter.emit());
+        });
+    }
+
+    /**
+     * Emits some text after the pending requests.
+     *
+     * @param s the {@link String} to be emitted.
+     */
+    public void emit(String s) {
+        submit(() -> this.output.accept(s));
+    }
+
+    /**
+     * Performs an action after the pending requests, without
+     * waiting for it. Used to print on other streams than the 
+     * one of the formatted text, keeping the order of the 
+     * printed text.
+     *
+     * @param action a {@link Runnable}, the action.
+     * @throws UnexpectedInternalException if some previous
+     *         request failed.
+     */
+    public void perform(Runnable action) {
+        submit(action);
+    }
+
+    /**
+     * Waits until all the pending requests are served.
+     *
+     * @throws UnexpectedInternalException if some
+     *         request failed.
+     */
+    public void drain() {
+        final CountDownLatch served = new CountDownLatch(1);
+        submit(served::countDown);
+        try {
+            served.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnexpectedInternalException(e);
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * Serves all the pending requests and
+     * stops the background thread.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            this.closed = true;
+            this.worker.interrupt();
+        }
+    }
+}
@@ -10,6 +10,14 @@ import static jbse.common.Type.isPrimitiveIntegral;
 import static jbse.common.Type.splitParametersDescriptors;
 import static jbse.common.Type.splitReturnValueDescriptor;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -17,6 +25,9 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import jbse.common.Type;
@@ -26,6 +37,7 @@ import jbse.mem.ClauseAssume;
 import jbse.mem.ClauseAssumeAliases;
 import jbse.mem.ClauseAssumeExpands;
 import jbse.mem.ClauseAssumeNull;
+import jbse.mem.ClauseAssumeReferenceSymbolic;
 import jbse.mem.Objekt;
 import jbse.mem.State;
 import jbse.mem.Variable;
@@ -49,40 +61,184 @@ import jbse.val.WideningConversion;
 
 /**
  * A {@link Formatter} that emits a JUnit test suite, with 
- * test cases covering the symbolic states.
+ * test cases covering the symbolic states. It has two modes
+ * of operation: By default the test suite is emitted 
+ * through {@link #emit()}; In streaming mode the test suite is 
+ * written to a directory by a background thread as the test 
+ * cases are produced, split in several test classes, and the
+ * duplicate test cases are discarded.
  * 
  * @author Esther Turati
  * @author Pietro Braione
  */
 public final class StateFormatterJUnitTestSuite implements Formatter {
+    /** The name of the generated test class(es). */
+    private static final String TEST_CLASS_NAME = "TestSuite";
+    
+    /** The maximum number of test cases waiting to be written in streaming mode. */
+    private static final int QUEUE_SIZE = 64;
+    
     private final Supplier<State> initialStateSupplier;
     private final Supplier<Map<PrimitiveSymbolic, Simplex>> modelSupplier;
     private StringBuilder output = new StringBuilder();
     private int testCounter = 0;
+    private int testClassCounter = 0;
+    
+    /** The {@link Writer} for streaming mode, or {@code null} in default mode. */
+    private final Writer writer;
 
+    /**
+     * Constructor (default mode).
+     * 
+     * @param initialStateSupplier a {@link Supplier}{@code <}{@link State}{@code >}
+     *        for the initial state.
+     * @param modelSupplier a {@link Supplier}{@code <}{@link Map}{@code <}{@link PrimitiveSymbolic}{@code , }{@link Simplex}{@code >>}
+     *        for the model of the current path.
+     */
     public StateFormatterJUnitTestSuite(Supplier<State> initialStateSupplier, 
                                         Supplier<Map<PrimitiveSymbolic, Simplex>> modelSupplier) {
         this.initialStateSupplier = initialStateSupplier;
         this.modelSupplier = modelSupplier;
+        this.writer = null;
+    }
+
+    /**
+     * Constructor (streaming mode).
+     * 
+     * @param initialStateSupplier a {@link Supplier}{@code <}{@link State}{@code >}
+     *        for the initial state.
+     * @param modelSupplier a {@link Supplier}{@code <}{@link Map}{@code <}{@link PrimitiveSymbolic}{@code , }{@link Simplex}{@code >>}
+     *        for the model of the current path.
+     * @param outputDirectory the {@link Path} of the directory where 
+     *        the test classes must be written. 
+     * @param testsPerClass an {@code int}, the maximum number of test
+     *        cases in a test class. If {@code testsPerClass <= 0} 
+     *        all the test cases are written in a single test class.
+     * @throws NullPointerException if {@code outputDirectory == null}.
+     */
+    public StateFormatterJUnitTestSuite(Supplier<State> initialStateSupplier, 
+                                        Supplier<Map<PrimitiveSymbolic, Simplex>> modelSupplier,
+                                        Path outputDirectory, int testsPerClass) {
+        if (outputDirectory == null) {
+            throw new NullPointerException();
+        }
+        this.initialStateSupplier = initialStateSupplier;
+        this.modelSupplier = modelSupplier;
+        this.writer = new Writer(outputDirectory, testsPerClass);
     }
 
     @Override
     public void formatPrologue() {
-        this.output.append(PROLOGUE);
+        if (this.writer == null) {
+            this.output.append(prologue(TEST_CLASS_NAME));
+        } else {
+            this.writer.start();
+        }
     }
 
     @Override
     public void formatState(State state) {
-        try {
-			new JUnitTestCase(this.output, this.initialStateSupplier.get(), state, this.modelSupplier.get(), this.testCounter++);
-		} catch (FrozenStateException e) {
-			this.output.delete(0, this.output.length());
-		}
+        if (this.writer == null) {
+            try {
+                new JUnitTestCase(this.output, this.initialStateSupplier.get(), state, this.modelSupplier.get(), this.testCounter++);
+            } catch (FrozenStateException e) {
+                this.output.delete(0, this.output.length());
+            }
+        } else {
+            final Map<PrimitiveSymbolic, Simplex> model = this.modelSupplier.get();
+            final Map<PrimitiveSymbolic, Simplex> modelCopy = (model == null ? null : new HashMap<>(model));
+            this.writer.submit(this.initialStateSupplier.get(), state.clone(), modelCopy);
+        }
+    }
+    
+    /**
+     * Checks whether this formatter is in streaming mode.
+     * 
+     * @return {@code true} iff the test suite is written
+     *         to a directory as the test cases are produced.
+     */
+    public boolean isStreaming() {
+        return this.writer != null;
+    }
+    
+    /**
+     * In streaming mode, waits until all the test cases 
+     * formatted so far are written, and closes the current 
+     * test class, so the output directory holds a complete
+     * test suite. The next test cases go to a new test class. 
+     * Does nothing in default mode.
+     * 
+     * @throws UnexpectedInternalException if writing the 
+     *         test suite failed.
+     */
+    public void sync() {
+        if (this.writer != null) {
+            final int[] counters = this.writer.sync();
+            this.testCounter = counters[0];
+            this.testClassCounter = counters[1];
+        }
+    }
+
+    /**
+     * Returns the number of test cases emitted so far. In 
+     * streaming mode it is the number of the test cases 
+     * written at the last {@link #sync()}, net of the 
+     * duplicate ones.
+     * 
+     * @return an {@code int}.
+     */
+    public int getTestCount() {
+        return this.testCounter;
+    }
+
+    /**
+     * Returns the number of test classes written at the 
+     * last {@link #sync()} in streaming mode.
+     * 
+     * @return an {@code int}, always {@code 0} in default 
+     *         mode.
+     */
+    public int getTestClassCount() {
+        return this.testClassCounter;
+    }
+
+    /**
+     * Makes this formatter continue a test suite whose 
+     * emission was interrupted, as when an exploration is 
+     * resumed from a checkpoint. The test cases are numbered
+     * starting from a given number, and in streaming mode 
+     * the test classes are numbered starting from a given
+     * number, and the test classes in the output directory
+     * from that number on, that were written after the 
+     * interruption point, are deleted. The record of the 
+     * test cases already written, used to discard the 
+     * duplicate ones, is not restored. Must be invoked 
+     * before {@link #formatPrologue()}.
+     * 
+     * @param testCount an {@code int}, the number of test 
+     *        cases emitted before the interruption, as 
+     *        returned by {@link #getTestCount()}.
+     * @param testClassCount an {@code int}, the number of 
+     *        test classes written before the interruption, 
+     *        as returned by {@link #getTestClassCount()}.
+     */
+    public void resume(int testCount, int testClassCount) {
+        this.testCounter = testCount;
+        this.testClassCounter = testClassCount;
+        if (this.writer != null) {
+            this.writer.testCounter = testCount;
+            this.writer.classCounter = testClassCount;
+            this.writer.deleteStaleClasses = true;
+        }
     }
 
     @Override
     public void formatEpilogue() {
-        this.output.append("}\n");
+        if (this.writer == null) {
+            this.output.append("}\n");
+        } else {
+            this.writer.finish();
+        }
     }
 
     @Override
@@ -95,7 +251,253 @@ public final class StateFormatterJUnitTestSuite implements Formatter {
         this.output = new StringBuilder();
     }
 
-    private static final String PROLOGUE =
+    /**
+     * A test case waiting to be written.
+     */
+    private static final class PendingTestCase {
+        final State initialState;
+        final State finalState;
+        final Map<PrimitiveSymbolic, Simplex> model;
+        
+        PendingTestCase(State initialState, State finalState, Map<PrimitiveSymbolic, Simplex> model) {
+            this.initialState = initialState;
+            this.finalState = finalState;
+            this.model = model;
+        }
+    }
+    
+    /** Marks the end of the test cases. */
+    private static final PendingTestCase END = new PendingTestCase(null, null, null);
+    
+    /** Asks the writer to close the current test class and report its counters. */
+    private static final PendingTestCase SYNC = new PendingTestCase(null, null, null);
+    
+    /**
+     * Generates and writes the test classes in streaming mode
+     * on a background thread, rotating to a new test class
+     * every {@code testsPerClass} test cases.
+     */
+    static final class Writer implements Runnable {
+        private final Path outputDirectory;
+        private final int testsPerClass;
+        private final BlockingQueue<PendingTestCase> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        private final BlockingQueue<int[]> synced = new ArrayBlockingQueue<>(1);
+        
+        /** 
+         * The digests of the test cases written so far, to discard the
+         * duplicate ones. It is not saved by the checkpoints, so after a
+         * resume the duplicates of the test cases written before the
+         * checkpoint are not discarded.
+         */
+        private final HashSet<String> written = new HashSet<>();
+        private final Thread thread;
+        private BufferedWriter out = null;
+        private int classCounter = 0;
+        private int testsInClass = 0;
+        private int testCounter = 0;
+        private boolean deleteStaleClasses = false;
+        private volatile Exception failure = null;
+        
+        Writer(Path outputDirectory, int testsPerClass) {
+            this.outputDirectory = outputDirectory;
+            this.testsPerClass = testsPerClass;
+            this.thread = new Thread(this, "JUnit test suite writer");
+            this.thread.setDaemon(true);
+        }
+        
+        void start() {
+            this.thread.start();
+        }
+        
+        void submit(State initialState, State finalState, Map<PrimitiveSymbolic, Simplex> model) {
+            if (this.failure != null) {
+                return; //the writer is dead
+            }
+            try {
+                this.queue.put(new PendingTestCase(initialState, finalState, model));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        /**
+         * Waits until all the submitted test cases are written
+         * and the current test class is closed.
+         * 
+         * @return an {@code int[]} with the number of the test 
+         *         cases and of the test classes written.
+         * @throws UnexpectedInternalException if the writer failed.
+         */
+        int[] sync() {
+            try {
+                if (this.failure == null) {
+                    this.queue.put(SYNC);
+                }
+                while (this.failure == null) {
+                    final int[] counters = this.synced.poll(100, TimeUnit.MILLISECONDS);
+                    if (counters != null) {
+                        return counters;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnexpectedInternalException(e);
+            }
+            throw new UnexpectedInternalException(this.failure);
+        }
+        
+        void finish() {
+            try {
+                if (this.failure == null) {
+                    this.queue.put(END);
+                }
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (this.failure != null) {
+                throw new UnexpectedInternalException(this.failure);
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                Files.createDirectories(this.outputDirectory);
+                if (this.deleteStaleClasses) {
+                    for (int i = this.classCounter; Files.deleteIfExists(classFile(i)); ++i) {
+                        //deletes the next one
+                    }
+                }
+                while (true) {
+                    final PendingTestCase testCase = this.queue.take();
+                    if (testCase == END) {
+                        break;
+                    } else if (testCase == SYNC) {
+                        closeClass();
+                        this.synced.put(new int[] { this.testCounter, this.classCounter });
+                    } else {
+                        write(testCase);
+                    }
+                }
+                closeClass();
+            } catch (IOException | InterruptedException e) {
+                this.failure = e;
+                this.queue.clear();
+            }
+        }
+        
+        private void write(PendingTestCase testCase) throws IOException {
+            if (!firstOccurrence(testCase.finalState.getPathCondition(), testCase.model)) {
+                return; //duplicate
+            }
+            final StringBuilder s = new StringBuilder();
+            try {
+                new JUnitTestCase(s, testCase.initialState, testCase.finalState, testCase.model, this.testCounter);
+            } catch (FrozenStateException e) {
+                return;
+            }
+            ++this.testCounter;
+            if (this.out == null) {
+                openClass();
+            }
+            this.out.append(s);
+            ++this.testsInClass;
+            if (this.testsPerClass > 0 && this.testsInClass >= this.testsPerClass) {
+                closeClass();
+            }
+        }
+        
+        private Path classFile(int classNumber) {
+            return this.outputDirectory.resolve(TEST_CLASS_NAME + "_" + classNumber + ".java");
+        }
+        
+        private void openClass() throws IOException {
+            final String className = TEST_CLASS_NAME + "_" + this.classCounter;
+            this.out = Files.newBufferedWriter(classFile(this.classCounter++), StandardCharsets.UTF_8);
+            this.out.append(prologue(className));
+            this.testsInClass = 0;
+        }
+        
+        private void closeClass() throws IOException {
+            if (this.out != null) {
+                this.out.append("}\n");
+                this.out.close();
+                this.out = null;
+            }
+        }
+        
+        /**
+         * Records a test case and checks whether it is a duplicate:
+         * Two test cases with same path condition and model are 
+         * duplicate. Only a fixed-size digest of the test case is 
+         * recorded, so two different test cases are taken as 
+         * duplicate if their digests collide.
+         * 
+         * @param pathCondition the path condition of the test case, 
+         *        a {@link Collection}{@code <}{@link Clause}{@code >}.
+         * @param model the model of the test case, a 
+         *        {@link Map}{@code <}{@link PrimitiveSymbolic}{@code , }{@link Simplex}{@code >}, 
+         *        or {@code null}.
+         * @return {@code true} iff no test case with same path condition
+         *         and model was recorded before.
+         */
+        boolean firstOccurrence(Collection<Clause> pathCondition, Map<PrimitiveSymbolic, Simplex> model) {
+            return this.written.add(digest(pathCondition, model));
+        }
+        
+        /**
+         * Computes the SHA-256 digest of a canonical encoding 
+         * of a test case: its path condition, with the 
+         * clauses in order, and its model, with the entries 
+         * sorted.
+         * 
+         * @param pathCondition the path condition of the test case, 
+         *        a {@link Collection}{@code <}{@link Clause}{@code >}.
+         * @param model the model of the test case, a 
+         *        {@link Map}{@code <}{@link PrimitiveSymbolic}{@code , }{@link Simplex}{@code >}, 
+         *        or {@code null}.
+         * @return a {@link String}.
+         */
+        private static String digest(Collection<Clause> pathCondition, Map<PrimitiveSymbolic, Simplex> model) {
+            final StringBuilder buf = new StringBuilder();
+            for (Clause c : pathCondition) {
+                buf.append(c.getClass().getSimpleName()).append(':').append(c.toString());
+                if (c instanceof ClauseAssumeReferenceSymbolic) {
+                    buf.append(" origin ").append(((ClauseAssumeReferenceSymbolic) c).getReference().asOriginString());
+                }
+                if (c instanceof ClauseAssumeExpands) {
+                    buf.append(" class ").append(((ClauseAssumeExpands) c).getObjekt().getType().getClassName());
+                }
+                buf.append('\n');
+            }
+            if (model == null) {
+                buf.append("no model\n");
+            } else {
+                final TreeSet<String> entries = new TreeSet<>();
+                for (Map.Entry<PrimitiveSymbolic, Simplex> e : model.entrySet()) {
+                    entries.add(e.getKey().asOriginString() + " " + e.getKey().toString() + " = " + e.getValue().toString());
+                }
+                buf.append("model\n");
+                for (String e : entries) {
+                    buf.append(e).append('\n');
+                }
+            }
+            try {
+                final MessageDigest md = MessageDigest.getInstance("SHA-256");
+                return new BigInteger(1, md.digest(buf.toString().getBytes(StandardCharsets.UTF_8))).toString(16);
+            } catch (NoSuchAlgorithmException e) {
+                //this should never happen
+                throw new UnexpectedInternalException(e);
+            }
+        }
+    }
+
+    private static String prologue(String className) {
+        return PROLOGUE_HEADER + "public class " + className + " {\n" + PROLOGUE_BODY;
+    }
+    
+    private static final String PROLOGUE_HEADER =
         "import static java.lang.System.identityHashCode;\n" +
         "import static org.junit.Assert.*;\n" +
         "\n" +
@@ -105,8 +507,9 @@ public final class StateFormatterJUnitTestSuite implements Formatter {
         "import sun.misc.Unsafe;\n" +
         "\n" +
         "import org.junit.Test;\n" +
-        "\n" +
-        "public class TestSuite {\n" +
+        "\n";
+    
+    private static final String PROLOGUE_BODY =
         "    private static class AccessibleObject {\n" +
         "        private final Object target;\n" +
         "        AccessibleObject(Object o) {\n" +
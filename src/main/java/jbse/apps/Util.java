@@ -1,14 +1,20 @@
 package jbse.apps;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -87,9 +93,92 @@ public class Util {
     }
 
     private static final String SOURCE_FILE_EXTENSION = ".java";
+    
+    /**
+     * A source file, read once and indexed by line.
+     */
+    private static final class SourceFile {
+        /** The content of the file. */
+        private final ByteBuffer content;
+        
+        /** 
+         * The offsets in {@code content} where the lines start, 
+         * plus the offset where the line after the last would start.
+         */
+        private final int[] lineStarts;
+        
+        SourceFile(ByteBuffer content) {
+            this.content = content;
+            
+            //line terminators are \n, \r and \r\n, 
+            //as for BufferedReader.readLine
+            int[] lineStarts = new int[64];
+            int numLines = 0;
+            lineStarts[numLines++] = 0;
+            final int limit = content.limit();
+            for (int i = 0; i < limit; ++i) {
+                final byte b = content.get(i);
+                if (b == '\n' || b == '\r') {
+                    if (b == '\r' && i + 1 < limit && content.get(i + 1) == '\n') {
+                        ++i;
+                    }
+                    if (numLines == lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, 2 * numLines);
+                    }
+                    lineStarts[numLines++] = i + 1;
+                }
+            }
+            
+            //a last line is counted only if nonempty
+            if (lineStarts[numLines - 1] < limit) {
+                if (numLines == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, numLines + 1);
+                }
+                lineStarts[numLines++] = limit;
+            }
+            this.lineStarts = Arrays.copyOf(lineStarts, numLines);
+        }
+        
+        /**
+         * Returns a line.
+         * 
+         * @param row an {@code int}, the number of the line, 
+         *        starting from 1.
+         * @return the line as a {@link String}, without line 
+         *         terminator, or {@code null} if the file has
+         *         less than {@code row} lines.
+         */
+        String line(int row) {
+            if (row < 1 || row >= this.lineStarts.length) {
+                return null;
+            }
+            final int start = this.lineStarts[row - 1];
+            int end = this.lineStarts[row];
+            while (end > start && (this.content.get(end - 1) == '\n' || this.content.get(end - 1) == '\r')) {
+                --end;
+            }
+            final byte[] bytes = new byte[end - start];
+            final ByteBuffer view = this.content.duplicate();
+            view.position(start);
+            view.get(bytes);
+            return new String(bytes, Charset.defaultCharset());
+        }
+    }
+    
+    /** Marks the source files that are not found. */
+    private static final SourceFile SOURCE_FILE_NOT_FOUND = new SourceFile(ByteBuffer.allocate(0));
+    
+    /** 
+     * Caches the source files, by source path and class name. Shared 
+     * by all the formatters. 
+     */
+    private static final ConcurrentHashMap<String, SourceFile> SOURCE_FILES = new ConcurrentHashMap<>();
 
     /**
-     * Returns a row in a source file.
+     * Returns a row in a source file. The source file is read 
+     * (memory-mapped, when it is not in a jar or zip file) the 
+     * first time it is accessed, and its lines are indexed,
+     * so the next rows are accessed in constant time. 
      * 
      * @param className a {@link String}, the signature of a class.
      * @param srcPath a {@link List}{@code <}{@link Path}{@code >}, the paths on the file system 
@@ -104,47 +193,45 @@ public class Util {
             return null;
         }
         final String sourceFileNameRelative = className.split("\\$")[0] + SOURCE_FILE_EXTENSION;
+        final SourceFile sourceFile = SOURCE_FILES.computeIfAbsent(srcPath.toString() + pathSep + sourceFileNameRelative, k -> readSourceFile(sourceFileNameRelative, srcPath));
+        return (sourceFile == SOURCE_FILE_NOT_FOUND ? null : sourceFile.line(row));
+    }
+    
+    private static SourceFile readSourceFile(String sourceFileNameRelative, List<Path> srcPath) {
         for (Path s: srcPath) {
             final File f = s.toFile();
-            BufferedReader fr = null;
             try {
-                ZipFile zf = null;
                 if (f.isDirectory()) {
                     final Path sourceFilePath = s.resolve(sourceFileNameRelative);
-                    fr = new BufferedReader(new FileReader(sourceFilePath.toFile()));
-                } else if (f.isFile()) {
-                    //let's try if it is a zipped file
-                    zf = new ZipFile(f);
-                    final ZipEntry e = zf.getEntry(sourceFileNameRelative);
-                    if (e == null) {
-                        zf.close();
+                    if (!Files.isRegularFile(sourceFilePath)) {
                         continue; //no file
                     }
-                    final InputStream zipInput = zf.getInputStream(e);
-                    fr = new BufferedReader(new InputStreamReader(zipInput));
-                } else {
-                    continue; //does not exist
-                }
-                String l;
-                for (int i = 1; ((l = fr.readLine()) != null) ; ++i) {
-                    if (i == row) {
-                        fr.close();
-                        return l;
+                    try (final FileChannel fc = FileChannel.open(sourceFilePath, StandardOpenOption.READ)) {
+                        return new SourceFile(fc.map(MapMode.READ_ONLY, 0, fc.size()));
                     }
-                }
+                } else if (f.isFile()) {
+                    //let's try if it is a zipped file
+                    try (final ZipFile zf = new ZipFile(f)) {
+                        final ZipEntry e = zf.getEntry(sourceFileNameRelative);
+                        if (e == null) {
+                            continue; //no file
+                        }
+                        try (final InputStream zipInput = zf.getInputStream(e)) {
+                            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                            final byte[] buf = new byte[8192];
+                            int n;
+                            while ((n = zipInput.read(buf)) != -1) {
+                                bytes.write(buf, 0, n);
+                            }
+                            return new SourceFile(ByteBuffer.wrap(bytes.toByteArray()));
+                        }
+                    }
+                } //else, does not exist
             } catch (IOException e) {
                 //does nothing
-            } finally {
-                try {
-                    if (fr != null) { 
-                        fr.close();
-                    }
-                } catch (IOException e) {
-                    //does nothing
-                }
             }
         }
-        return null;
+        return SOURCE_FILE_NOT_FOUND;
     }
 
     public static String formatClauses(Iterable<Clause> assumptions) {
@@ -0,0 +1,156 @@
+package jbse.apps.run;
+
+import static jbse.apps.run.DistributedCoordinator.FIELD_SEPARATOR;
+import static jbse.apps.run.DistributedCoordinator.MSG_DONE;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jbse.apps.run.DistributedCoordinator.SubtreeStats;
+import jbse.common.exc.InvalidInputException;
+import jbse.mem.DecisionVector;
+
+/**
+ * A checkpoint of an exploration, from which the exploration
+ * can be resumed. It records the statistics of the paths
+ * explored so far, the number of the emitted test cases, and
+ * the states that remain to be explored as the decisions that
+ * lead to them from the initial state.
+ *
+ * <p>The checkpoints are appended to a file, one after the
+ * other, and each one is forced to the storage device before
+ * the next one is appended. A checkpoint is a block of lines,
+ * preceded by an empty line:
+ * {@code CHECKPOINT}, the {@code DONE} line with the statistics
+ * as encoded by {@link SubtreeStats}, a {@code TESTS} line with
+ * the number of emitted test cases and of written test classes, a {@code PENDING} line with
+ * the branch identifier and the {@link DecisionVector} of each
+ * pending state, and finally a {@code COMMIT} line with the
+ * number of pending states. A block that is not terminated by a
+ * matching {@code COMMIT} line, as it happens when the run crashes
+ * while the checkpoint is written, is ignored. The fields of the
+ * lines are separated by tabs.
+ */
+final class Checkpoint {
+    static final String MSG_CHECKPOINT = "CHECKPOINT";
+    static final String MSG_TESTS = "TESTS";
+    static final String MSG_PENDING = "PENDING";
+    static final String MSG_COMMIT = "COMMIT";
+
+    /** The statistics of the paths explored so far. */
+    final SubtreeStats stats;
+
+    /** The number of the test cases emitted so far. */
+    final int testCount;
+
+    /** The number of the test classes written so far. */
+    final int testClassCount;
+
+    /**
+     * Maps the branch identifiers of the pending states
+     * to their decisions, in emission order.
+     */
+    final Map<String, DecisionVector> pending;
+
+    Checkpoint(SubtreeStats stats, int testCount, int testClassCount, LinkedHashMap<String, DecisionVector> pending) {
+        this.stats = stats;
+        this.testCount = testCount;
+        this.testClassCount = testClassCount;
+        this.pending = Collections.unmodifiableMap(pending);
+    }
+
+    /**
+     * Appends this checkpoint to a file and forces it
+     * to the storage device.
+     *
+     * @param file the {@link Path} of the file. It is
+     *        created if it does not exist.
+     * @throws IOException if writing the file fails.
+     */
+    void appendTo(Path file) throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        buf.append('\n'); //terminates the last line if the previous write was torn
+        buf.append(MSG_CHECKPOINT).append('\n');
+        buf.append(this.stats.encode()).append('\n');
+        buf.append(MSG_TESTS).append(FIELD_SEPARATOR).append(this.testCount).append(FIELD_SEPARATOR).append(this.testClassCount).append('\n');
+        for (Map.Entry<String, DecisionVector> e : this.pending.entrySet()) {
+            buf.append(MSG_PENDING).append(FIELD_SEPARATOR).append(e.getKey()).append(FIELD_SEPARATOR).append(e.getValue()).append('\n');
+        }
+        buf.append(MSG_COMMIT).append(FIELD_SEPARATOR).append(this.pending.size()).append('\n');
+        final ByteBuffer bytes = ByteBuffer.wrap(buf.toString().getBytes(StandardCharsets.UTF_8));
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads the last complete checkpoint in a file.
+     *
+     * @param file the {@link Path} of the file.
+     * @return the last {@link Checkpoint} in {@code file}
+     *         terminated by a {@code COMMIT} line, or
+     *         {@code null} if {@code file} does not exist
+     *         or contains no such checkpoint.
+     * @throws IOException if reading the file fails.
+     */
+    static Checkpoint readLast(Path file) throws IOException {
+        Checkpoint retVal = null;
+        try (final BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            SubtreeStats stats = null;
+            int testCount = -1;
+            int testClassCount = -1;
+            LinkedHashMap<String, DecisionVector> pending = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.equals(MSG_CHECKPOINT)) {
+                    stats = null;
+                    testCount = -1;
+                    testClassCount = -1;
+                    pending = new LinkedHashMap<>();
+                    continue;
+                }
+                if (pending == null) {
+                    continue; //skips to the next checkpoint
+                }
+                final String[] fields = line.split(FIELD_SEPARATOR, -1);
+                try {
+                    if (fields[0].equals(MSG_DONE) && stats == null) {
+                        stats = SubtreeStats.decode(line);
+                    } else if (fields[0].equals(MSG_TESTS) && fields.length == 3 && testCount < 0) {
+                        testCount = Integer.parseInt(fields[1]);
+                        testClassCount = Integer.parseInt(fields[2]);
+                    } else if (fields[0].equals(MSG_PENDING) && fields.length == 3 && testCount >= 0) {
+                        pending.put(fields[1], DecisionVector.valueOf(fields[2]));
+                    } else if (fields[0].equals(MSG_COMMIT) && fields.length == 2 && stats != null && testCount >= 0 &&
+                               Integer.parseInt(fields[1]) == pending.size()) {
+                        retVal = new Checkpoint(stats, testCount, testClassCount, pending);
+                        pending = null;
+                    } else {
+                        pending = null; //ill-formed block
+                    }
+                } catch (IOException | InvalidInputException | NumberFormatException e) {
+                    pending = null; //ill-formed block
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return retVal;
+    }
+}
@@ -38,6 +38,20 @@ public final class DecisionProcedureConservativeRepOk extends DecisionProcedureC
         this.checker = new InitialHeapChecker(checkerParameters, ConservativeRepOk.class, checkMethods);
     }
 
+    /**
+     * Makes this decision procedure run the repOk methods
+     * of the different objects in the heap in parallel.
+     * 
+     * @param numThreads an {@code int}, the maximum number 
+     *        of repOk methods that are run at the same time.
+     * @param workerParametersFactory a {@link Supplier}{@code <}{@link RunnerParameters}{@code >}
+     *        producing the {@link RunnerParameters} of each worker thread.
+     * @see InitialHeapChecker#setParallel(int, Supplier)
+     */
+    public void setHeapCheckParallelism(int numThreads, Supplier<RunnerParameters> workerParametersFactory) {
+        this.checker.setParallel(numThreads, workerParametersFactory);
+    }
+
     @Override
     public void setInitialStateSupplier(Supplier<State> initialStateSupplier) {
         this.checker.setInitialStateSupplier(initialStateSupplier);
@@ -90,4 +104,9 @@ public final class DecisionProcedureConservativeRepOk extends DecisionProcedureC
         }
         return this.checker.checkHeap(sIni, true);
     }
+
+    @Override
+    protected void closeLocal() throws DecisionException {
+        this.checker.close();
+    }
 }
@@ -0,0 +1,480 @@
+package jbse.apps.run;
+
+import static jbse.val.HistoryPoint.BRANCH_IDENTIFIER_SEPARATOR_COMPACT;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import jbse.apps.run.RunParameters.PathTypes;
+
+/**
+ * The coordinator of a distributed exploration. It accepts
+ * the connections of the workers and hands them the subtrees
+ * that are submitted to it, one at a time, identified by the
+ * branch identifier of their root. A subtree is completed when
+ * a worker sends back the results of all its paths and its
+ * statistics; if the connection with the worker is lost, or
+ * times out, or the worker fails, the subtree is handed to
+ * another worker, at most {@link #MAX_ATTEMPTS} times.
+ *
+ * <p>The protocol is line-based. A worker sends
+ * {@code READY} when it is ready for a subtree; the coordinator
+ * answers {@code WORK} followed by the branch identifier of the
+ * root of the subtree, or {@code END} if there are no more
+ * subtrees. While exploring the subtree the worker sends a
+ * {@code PATH} line for each path, and finally either a
+ * {@code DONE} line with the statistics or a {@code FAILED} line,
+ * after which it may send {@code READY} again. The fields of the
+ * lines are separated by tabs.
+ */
+final class DistributedCoordinator implements AutoCloseable {
+    static final String MSG_READY = "READY";
+    static final String MSG_WORK = "WORK";
+    static final String MSG_END = "END";
+    static final String MSG_PATH = "PATH";
+    static final String MSG_DONE = "DONE";
+    static final String MSG_FAILED = "FAILED";
+    static final String FIELD_SEPARATOR = "\t";
+
+    /** The maximum number of times a subtree is handed to a worker. */
+    static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * The result of a path explored by a worker.
+     */
+    static final class PathResult {
+        /** The branch identifier of the final state of the path. */
+        final String branchIdentifier;
+
+        /** The kind of the path. */
+        final PathTypes pathKind;
+
+        /** The message for the end of the path. */
+        final String message;
+
+        PathResult(String branchIdentifier, PathTypes pathKind, String message) {
+            this.branchIdentifier = branchIdentifier;
+            this.pathKind = pathKind;
+            this.message = message;
+        }
+
+        String encode() {
+            return MSG_PATH + FIELD_SEPARATOR + this.pathKind.name() + FIELD_SEPARATOR +
+                   sanitize(this.branchIdentifier) + FIELD_SEPARATOR + sanitize(this.message);
+        }
+
+        static PathResult decode(String line) throws IOException {
+            final String[] fields = line.split(FIELD_SEPARATOR, -1);
+            if (fields.length != 4 || !MSG_PATH.equals(fields[0])) {
+                throw new IOException("Malformed path line: " + line);
+            }
+            try {
+                return new PathResult(fields[2], PathTypes.valueOf(fields[1]), fields[3]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed path line: " + line);
+            }
+        }
+
+        private static String sanitize(String s) {
+            return s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        }
+    }
+
+    /**
+     * The statistics of the exploration of a subtree.
+     */
+    static final class SubtreeStats {
+        long analyzedStates;
+        long prunedStates;
+        long pathsTotal;
+        long pathsSafe;
+        long pathsUnsafe;
+        long pathsOutOfScope;
+        long pathsUnmanageable;
+        long pathsConcretizableSafe;
+        long pathsConcretizableUnsafe;
+        long pathsConcretizableOutOfScope;
+        long elapsedTimeConcretization;
+
+        void add(SubtreeStats other) {
+            this.analyzedStates += other.analyzedStates;
+            this.prunedStates += other.prunedStates;
+            this.pathsTotal += other.pathsTotal;
+            this.pathsSafe += other.pathsSafe;
+            this.pathsUnsafe += other.pathsUnsafe;
+            this.pathsOutOfScope += other.pathsOutOfScope;
+            this.pathsUnmanageable += other.pathsUnmanageable;
+            this.pathsConcretizableSafe += other.pathsConcretizableSafe;
+            this.pathsConcretizableUnsafe += other.pathsConcretizableUnsafe;
+            this.pathsConcretizableOutOfScope += other.pathsConcretizableOutOfScope;
+            this.elapsedTimeConcretization += other.elapsedTimeConcretization;
+        }
+
+        String encode() {
+            return MSG_DONE + FIELD_SEPARATOR + this.analyzedStates + FIELD_SEPARATOR + this.prunedStates +
+                   FIELD_SEPARATOR + this.pathsTotal + FIELD_SEPARATOR + this.pathsSafe +
+                   FIELD_SEPARATOR + this.pathsUnsafe + FIELD_SEPARATOR + this.pathsOutOfScope +
+                   FIELD_SEPARATOR + this.pathsUnmanageable + FIELD_SEPARATOR + this.pathsConcretizableSafe +
+                   FIELD_SEPARATOR + this.pathsConcretizableUnsafe + FIELD_SEPARATOR + this.pathsConcretizableOutOfScope +
+                   FIELD_SEPARATOR + this.elapsedTimeConcretization;
+        }
+
+        static SubtreeStats decode(String line) throws IOException {
+            final String[] fields = line.split(FIELD_SEPARATOR);
+            if (fields.length != 12 || !MSG_DONE.equals(fields[0])) {
+                throw new IOException("Malformed statistics line: " + line);
+            }
+            final SubtreeStats retVal = new SubtreeStats();
+            try {
+                retVal.analyzedStates = Long.parseLong(fields[1]);
+                retVal.prunedStates = Long.parseLong(fields[2]);
+                retVal.pathsTotal = Long.parseLong(fields[3]);
+                retVal.pathsSafe = Long.parseLong(fields[4]);
+                retVal.pathsUnsafe = Long.parseLong(fields[5]);
+                retVal.pathsOutOfScope = Long.parseLong(fields[6]);
+                retVal.pathsUnmanageable = Long.parseLong(fields[7]);
+                retVal.pathsConcretizableSafe = Long.parseLong(fields[8]);
+                retVal.pathsConcretizableUnsafe = Long.parseLong(fields[9]);
+                retVal.pathsConcretizableOutOfScope = Long.parseLong(fields[10]);
+                retVal.elapsedTimeConcretization = Long.parseLong(fields[11]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed statistics line: " + line);
+            }
+            return retVal;
+        }
+    }
+
+    /**
+     * The result of the exploration of a subtree.
+     */
+    static final class SubtreeResult {
+        /** The results of the paths, in the order they were explored. */
+        final List<PathResult> paths;
+
+        /** The statistics. */
+        final SubtreeStats stats;
+
+        SubtreeResult(List<PathResult> paths, SubtreeStats stats) {
+            this.paths = Collections.unmodifiableList(paths);
+            this.stats = stats;
+        }
+    }
+
+    /** The socket where the workers connect. */
+    private final ServerSocket serverSocket;
+
+    /** The maximum time in milliseconds a worker may stay silent (0 for no limit). */
+    private final int workerTimeout;
+
+    /** The thread that accepts the connections of the workers. */
+    private final Thread acceptor;
+
+    /** The sockets of the connected workers. */
+    private final HashSet<Socket> workerSockets = new HashSet<>();
+
+    /** The subtrees that must be handed to some worker. */
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+
+    /** The number of times each subtree was handed to some worker. */
+    private final HashMap<String, Integer> attempts = new HashMap<>();
+
+    /** The results of the completed subtrees. */
+    private final TreeMap<String, SubtreeResult> results = new TreeMap<>(DistributedCoordinator::compareBranchIdentifiers);
+
+    /** The subtrees abandoned after {@link #MAX_ATTEMPTS} failed attempts. */
+    private final TreeSet<String> failed = new TreeSet<>(DistributedCoordinator::compareBranchIdentifiers);
+
+    /** The number of submitted subtrees neither completed nor abandoned. */
+    private int outstanding = 0;
+
+    /** Whether no more subtrees will be submitted. */
+    private boolean submissionsClosed = false;
+
+    /** Whether this coordinator is closed. */
+    private boolean closed = false;
+
+    /**
+     * Constructor. Starts listening for the workers.
+     *
+     * @param port an {@code int}, the port where to listen;
+     *        if it is 0 any free port is used.
+     * @param workerTimeout a {@code long}, the maximum time
+     *        in milliseconds a worker may stay silent while
+     *        exploring a subtree; if it is less or equal to 0
+     *        there is no limit.
+     * @throws IOException if the port cannot be listened on.
+     */
+    DistributedCoordinator(int port, long workerTimeout) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.workerTimeout = (workerTimeout <= 0 ? 0 : (int) Math.min(workerTimeout, Integer.MAX_VALUE));
+        this.acceptor = new Thread(this::accept, "jbse-coordinator");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    /**
+     * Returns the port where this coordinator listens.
+     *
+     * @return an {@code int}.
+     */
+    int getLocalPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                final Socket socket = this.serverSocket.accept();
+                synchronized (this) {
+                    if (this.closed) {
+                        socket.close();
+                        return;
+                    }
+                    this.workerSockets.add(socket);
+                }
+                final Thread handler = new Thread(() -> serve(socket), "jbse-coordinator-worker");
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            //the server socket was closed: exits
+        }
+    }
+
+    private void serve(Socket socket) {
+        String subtree = null;
+        try (final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             final PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setSoTimeout(this.workerTimeout);
+            while (true) {
+                //waits for the worker to be ready
+                String line = in.readLine();
+                if (line == null) {
+                    return;
+                } else if (!MSG_READY.equals(line)) {
+                    throw new IOException("Unexpected message from worker: " + line);
+                }
+
+                //hands it a subtree, if any
+                subtree = take();
+                if (subtree == null) {
+                    out.println(MSG_END);
+                    out.flush();
+                    return;
+                }
+                out.println(MSG_WORK + FIELD_SEPARATOR + subtree);
+                out.flush();
+                if (out.checkError()) {
+                    throw new IOException("Lost connection with worker.");
+                }
+
+                //collects the results
+                final ArrayList<PathResult> paths = new ArrayList<>();
+                while (true) {
+                    line = in.readLine();
+                    if (line == null) {
+                        throw new EOFException("Lost connection with worker.");
+                    } else if (line.startsWith(MSG_PATH + FIELD_SEPARATOR)) {
+                        paths.add(PathResult.decode(line));
+                    } else if (line.startsWith(MSG_DONE + FIELD_SEPARATOR)) {
+                        complete(subtree, new SubtreeResult(paths, SubtreeStats.decode(line)));
+                        subtree = null;
+                        break;
+                    } else if (line.equals(MSG_FAILED)) {
+                        retry(subtree);
+                        subtree = null;
+                        break;
+                    } else {
+                        throw new IOException("Unexpected message from worker: " + line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (subtree != null) {
+                retry(subtree);
+            }
+        } finally {
+            synchronized (this) {
+                this.workerSockets.remove(socket);
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //does nothing
+            }
+        }
+    }
+
+    /**
+     * Submits a subtree to be explored by some worker.
+     *
+     * @param subtree a {@link String}, the branch identifier
+     *        of the root of the subtree.
+     */
+    synchronized void submit(String subtree) {
+        if (this.submissionsClosed) {
+            throw new IllegalStateException("Submitted subtree " + subtree + " after closing submissions.");
+        }
+        this.pending.add(subtree);
+        ++this.outstanding;
+        notifyAll();
+    }
+
+    /**
+     * Declares that no more subtrees will be submitted.
+     */
+    synchronized void closeSubmissions() {
+        this.submissionsClosed = true;
+        notifyAll();
+    }
+
+    /**
+     * Waits until all the submitted subtrees are either
+     * completed or abandoned. Must be invoked after
+     * {@link #closeSubmissions()}.
+     *
+     * @return a {@link SortedMap}{@code <}{@link String}{@code , }{@link SubtreeResult}{@code >}
+     *         mapping the branch identifiers of the roots of the completed
+     *         subtrees to their results, sorted by branch identifier.
+     * @throws InterruptedException if the current thread is
+     *         interrupted while waiting.
+     */
+    synchronized SortedMap<String, SubtreeResult> awaitResults() throws InterruptedException {
+        while (!finished()) {
+            wait();
+        }
+        return Collections.unmodifiableSortedMap(new TreeMap<>(this.results));
+    }
+
+    /**
+     * Returns the subtrees that were abandoned because
+     * too many attempts to explore them failed.
+     *
+     * @return a {@link SortedSet}{@code <}{@link String}{@code >}
+     *         of the branch identifiers of the roots of the abandoned
+     *         subtrees, sorted by branch identifier.
+     */
+    synchronized SortedSet<String> getFailedSubtrees() {
+        return Collections.unmodifiableSortedSet(new TreeSet<>(this.failed));
+    }
+
+    private boolean finished() {
+        return this.submissionsClosed && this.outstanding == 0;
+    }
+
+    /**
+     * Takes a subtree to be handed to a worker, waiting
+     * until one is available.
+     *
+     * @return a {@link String}, the branch identifier of
+     *         the root of the subtree, or {@code null} if
+     *         there are no more subtrees.
+     */
+    private synchronized String take() {
+        while (this.pending.isEmpty() && !finished() && !this.closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        final String retVal = this.pending.poll();
+        if (retVal != null) {
+            this.attempts.merge(retVal, 1, Integer::sum);
+        }
+        return retVal;
+    }
+
+    private synchronized void complete(String subtree, SubtreeResult result) {
+        this.results.put(subtree, result);
+        --this.outstanding;
+        notifyAll();
+    }
+
+    private synchronized void retry(String subtree) {
+        if (this.attempts.get(subtree) < MAX_ATTEMPTS) {
+            this.pending.addFirst(subtree);
+        } else {
+            this.failed.add(subtree);
+            --this.outstanding;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stops listening for the workers and closes the
+     * connections with them.
+     */
+    @Override
+    public void close() {
+        final ArrayList<Socket> sockets;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            sockets = new ArrayList<>(this.workerSockets);
+            notifyAll();
+        }
+        try {
+            this.serverSocket.close();
+        } catch (IOException e) {
+            //does nothing
+        }
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //does nothing
+            }
+        }
+    }
+
+    /**
+     * Compares two branch identifiers. The compact branch
+     * identifiers are compared branch by branch, numerically,
+     * so that, e.g., .1.2 comes before .1.10; the other are
+     * compared lexicographically.
+     *
+     * @param a a {@link String}, a branch identifier.
+     * @param b a {@link String}, a branch identifier.
+     * @return a negative, zero or positive {@code int} if
+     *         {@code a} comes before, is equal to, or comes
+     *         after {@code b}.
+     */
+    static int compareBranchIdentifiers(String a, String b) {
+        if (!a.startsWith(BRANCH_IDENTIFIER_SEPARATOR_COMPACT) || !b.startsWith(BRANCH_IDENTIFIER_SEPARATOR_COMPACT)) {
+            return a.compareTo(b);
+        }
+        final String[] aBranches = a.substring(1).split("\\.");
+        final String[] bBranches = b.substring(1).split("\\.");
+        for (int i = 0; i < Math.min(aBranches.length, bBranches.length); ++i) {
+            if (!aBranches[i].equals(bBranches[i])) {
+                try {
+                    return Long.compare(Long.parseLong(aBranches[i]), Long.parseLong(bBranches[i]));
+                } catch (NumberFormatException e) {
+                    return aBranches[i].compareTo(bBranches[i]);
+                }
+            }
+        }
+        return Integer.compare(aBranches.length, bBranches.length);
+    }
+}
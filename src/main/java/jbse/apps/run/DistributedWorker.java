@@ -0,0 +1,124 @@
+package jbse.apps.run;
+
+import static jbse.apps.run.DistributedCoordinator.FIELD_SEPARATOR;
+import static jbse.apps.run.DistributedCoordinator.MSG_END;
+import static jbse.apps.run.DistributedCoordinator.MSG_FAILED;
+import static jbse.apps.run.DistributedCoordinator.MSG_READY;
+import static jbse.apps.run.DistributedCoordinator.MSG_WORK;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import jbse.apps.run.DistributedCoordinator.PathResult;
+import jbse.apps.run.DistributedCoordinator.SubtreeStats;
+import jbse.apps.run.RunParameters.PathTypes;
+
+/**
+ * The connection of a worker of a distributed exploration
+ * with its {@link DistributedCoordinator}.
+ */
+final class DistributedWorker implements AutoCloseable {
+    /** The socket connected to the coordinator. */
+    private final Socket socket;
+
+    /** Reads the messages of the coordinator. */
+    private final BufferedReader in;
+
+    /** Writes the messages to the coordinator. */
+    private final PrintWriter out;
+
+    /**
+     * Constructor. Connects to the coordinator.
+     *
+     * @param host a {@link String}, the host of the coordinator.
+     * @param port an {@code int}, the port of the coordinator.
+     * @throws IOException if the connection fails.
+     */
+    DistributedWorker(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.in = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new PrintWriter(new OutputStreamWriter(this.socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Asks the coordinator for a subtree to explore.
+     *
+     * @return a {@link String}, the branch identifier of
+     *         the root of the subtree, or {@code null} if
+     *         there are no more subtrees to explore.
+     * @throws IOException if the communication with the
+     *         coordinator fails.
+     */
+    String nextSubtree() throws IOException {
+        send(MSG_READY);
+        final String line = this.in.readLine();
+        if (line == null) {
+            throw new EOFException("Lost connection with coordinator.");
+        } else if (line.equals(MSG_END)) {
+            return null;
+        } else if (line.startsWith(MSG_WORK + FIELD_SEPARATOR)) {
+            return line.substring(MSG_WORK.length() + FIELD_SEPARATOR.length());
+        } else {
+            throw new IOException("Unexpected message from coordinator: " + line);
+        }
+    }
+
+    /**
+     * Sends to the coordinator the result of a path.
+     * Communication failures are detected by the next
+     * invocation of {@link #subtreeDone(SubtreeStats)}
+     * or {@link #subtreeFailed()}.
+     *
+     * @param branchIdentifier a {@link String}, the branch
+     *        identifier of the final state of the path.
+     * @param pathKind a {@link PathTypes}, the kind of the path.
+     * @param message a {@link String}, the message for the end
+     *        of the path.
+     */
+    void pathEnded(String branchIdentifier, PathTypes pathKind, String message) {
+        this.out.println(new PathResult(branchIdentifier, pathKind, message).encode());
+        this.out.flush();
+    }
+
+    /**
+     * Tells the coordinator that the current subtree
+     * was explored.
+     *
+     * @param stats the {@link SubtreeStats} of the exploration.
+     * @throws IOException if the communication with the
+     *         coordinator fails.
+     */
+    void subtreeDone(SubtreeStats stats) throws IOException {
+        send(stats.encode());
+    }
+
+    /**
+     * Tells the coordinator that the exploration of the
+     * current subtree failed.
+     *
+     * @throws IOException if the communication with the
+     *         coordinator fails.
+     */
+    void subtreeFailed() throws IOException {
+        send(MSG_FAILED);
+    }
+
+    private void send(String line) throws IOException {
+        this.out.println(line);
+        this.out.flush();
+        if (this.out.checkError()) {
+            throw new IOException("Lost connection with coordinator.");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.socket.close();
+    }
+}
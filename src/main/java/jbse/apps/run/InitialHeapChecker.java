@@ -9,9 +9,21 @@ import static jbse.common.Type.internalClassName;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Target;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 import jbse.algo.exc.CannotManageStateException;
@@ -35,8 +47,12 @@ import jbse.jvm.exc.EngineStuckException;
 import jbse.jvm.exc.FailureException;
 import jbse.jvm.exc.InitializationException;
 import jbse.jvm.exc.NonexistingObservedVariablesException;
+import jbse.mem.Array;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssumeReferenceSymbolic;
 import jbse.mem.Objekt;
 import jbse.mem.State;
+import jbse.mem.Variable;
 import jbse.mem.exc.CannotRefineException;
 import jbse.mem.exc.ContradictionException;
 import jbse.mem.exc.FrozenStateException;
@@ -45,15 +61,44 @@ import jbse.mem.exc.InvalidSlotException;
 import jbse.mem.exc.ThreadStackEmptyException;
 import jbse.val.Reference;
 import jbse.val.ReferenceConcrete;
+import jbse.val.ReferenceSymbolic;
 import jbse.val.Simplex;
 import jbse.val.Value;
 import jbse.val.exc.InvalidTypeException;
 
 public final class InitialHeapChecker {
+    /** The maximum number of verdicts that are cached. */
+    private static final int VERDICT_CACHE_SIZE = 4096;
+    
     private final RunnerParameters runnerParameters;
     private final CheckMethodTable checkMethodTable;
     private Supplier<State> initialStateSupplier = null;
     private Supplier<State> currentStateSupplier = null;
+    
+    /** 
+     * The {@link ExecutorService} that runs the check methods 
+     * in parallel, or {@code null} if they are run sequentially. 
+     */
+    private ExecutorService executor = null;
+    
+    /** The {@link RunnerParameters} of the current worker thread. */
+    private ThreadLocal<RunnerParameters> workerParameters = null;
+    
+    /** The {@link RunnerParameters} of all the worker threads. */
+    private final List<RunnerParameters> allWorkerParameters = Collections.synchronizedList(new ArrayList<>());
+    
+    /** 
+     * Caches the outcomes of the check methods, so that an object 
+     * whose heap shape did not change is not checked twice. 
+     */
+    private final Map<VerdictKey, Boolean> verdicts = Collections.synchronizedMap(new LinkedHashMap<VerdictKey, Boolean>(16, 0.75f, true) {
+        private static final long serialVersionUID = 3542893513427934815L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<VerdictKey, Boolean> eldest) {
+            return size() > VERDICT_CACHE_SIZE;
+        }
+    });
 
     public InitialHeapChecker(RunnerParameters runnerParameters, 
                               Class<? extends Annotation> methodAnnotationClass,
@@ -69,6 +114,60 @@ public final class InitialHeapChecker {
     public void setCurrentStateSupplier(Supplier<State> currentStateSupplier) {
         this.currentStateSupplier = currentStateSupplier;
     }   
+    
+    /**
+     * Makes this checker run the check methods of the 
+     * different objects in the heap in parallel.
+     * 
+     * @param numThreads an {@code int}, the maximum number 
+     *        of check methods that are run at the same time.
+     *        If {@code numThreads <= 1} the check methods
+     *        are run sequentially.
+     * @param workerParametersFactory a {@link Supplier}{@code <}{@link RunnerParameters}{@code >}
+     *        that is invoked once by each worker thread to obtain the 
+     *        {@link RunnerParameters} it will use to run the check methods.
+     *        Each {@link RunnerParameters} it produces must have its own
+     *        {@link jbse.val.Calculator} and {@link jbse.dec.DecisionProcedureAlgorithms}, 
+     *        that will be closed by {@link #close()}.
+     */
+    public void setParallel(int numThreads, Supplier<RunnerParameters> workerParametersFactory) {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+        if (numThreads > 1) {
+            this.executor = Executors.newFixedThreadPool(numThreads, r -> {
+                final Thread t = new Thread(r, "Heap checker worker");
+                t.setDaemon(true);
+                return t;
+            });
+            this.workerParameters = ThreadLocal.withInitial(() -> {
+                final RunnerParameters p = workerParametersFactory.get();
+                this.allWorkerParameters.add(p);
+                return p;
+            });
+        }
+    }
+    
+    /**
+     * Releases the worker threads and closes their 
+     * decision procedures.
+     * 
+     * @throws DecisionException if closing some decision 
+     *         procedure fails.
+     */
+    public void close() throws DecisionException {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+        synchronized (this.allWorkerParameters) {
+            for (RunnerParameters p : this.allWorkerParameters) {
+                p.getDecisionProcedure().close();
+            }
+            this.allWorkerParameters.clear();
+        }
+    }
 
     public boolean checkHeap(boolean scopeExhaustionMeansSuccess) {
         final State sIni = makeInitialState();
@@ -77,7 +176,9 @@ public final class InitialHeapChecker {
 
     public boolean checkHeap(State sIni, boolean scopeExhaustionMeansSuccess) {
         try {
-        	//runs the check methods on all the instances in the heap 
+        	//determines the instances in the heap that must be checked
+        	//and have no cached verdict
+        	final ArrayList<CheckTask> tasks = new ArrayList<>();
         	for (long heapPos : sIni.getHeap().keySet()) {
         		final Reference objectRef = new ReferenceConcrete(heapPos);
         		final Objekt obj = sIni.getObject(objectRef);
@@ -86,15 +187,30 @@ public final class InitialHeapChecker {
         			if (methodSignature == null) {
         				//nothing to check
         			} else {
-        				final State sRun = sIni.clone();
-        				final boolean repOk = 
-        						runCheckMethod(sRun, objectRef, obj.getType(), methodSignature, this.runnerParameters, scopeExhaustionMeansSuccess);
-        				if (!repOk) {
-        					return false; 
+        				final VerdictKey key = new VerdictKey(obj.getOrigin(), heapShape(sIni, heapPos), scopeExhaustionMeansSuccess);
+        				final Boolean verdict = this.verdicts.get(key);
+        				if (verdict == null) {
+        					tasks.add(new CheckTask(objectRef, obj.getType(), methodSignature, key));
+        				} else if (!verdict.booleanValue()) {
+        					return false;
         				}
         			}
         		}
         	}
+        	
+        	//runs the check methods
+        	if (this.executor == null || tasks.size() <= 1) {
+        		for (CheckTask task : tasks) {
+        			final boolean repOk = 
+        					runCheckMethod(sIni.lazyClone(), task.objectRef, task.classFile, task.methodSignature, this.runnerParameters, scopeExhaustionMeansSuccess, null);
+        			this.verdicts.put(task.key, repOk);
+        			if (!repOk) {
+        				return false; 
+        			}
+        		}
+        	} else {
+        		return checkHeapParallel(sIni, tasks, scopeExhaustionMeansSuccess);
+        	}
         } catch (DecisionException | FrozenStateException |
                 InitializationException | InvalidClassFileFactoryClassException | 
                 NonexistingObservedVariablesException |  
@@ -108,6 +224,219 @@ public final class InitialHeapChecker {
        }
         return true;
     }
+    
+    /**
+     * Runs a set of check methods in parallel, each on a 
+     * lazy clone of a state. Stops at the first 
+     * check method that fails.
+     * 
+     * @param sIni the initial {@link State}. It will not
+     *        be modified.
+     * @param tasks a {@link List}{@code <}{@link CheckTask}{@code >}, 
+     *        the check methods to run.
+     * @param scopeExhaustionMeansSuccess {@code true} iff a path that exhausts
+     *        the execution scope must be interpreted as a successful 
+     *        execution of the method that returns {@code true}. 
+     * @return {@code true} iff all the check methods succeed.
+     */
+    private boolean checkHeapParallel(State sIni, List<CheckTask> tasks, boolean scopeExhaustionMeansSuccess) {
+    	final AtomicBoolean failed = new AtomicBoolean(false);
+    	final ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(this.executor);
+    	for (CheckTask task : tasks) {
+    		completionService.submit(() -> {
+    			if (failed.get()) {
+    				return null; //another check failed, no need to run this one
+    			}
+    			final boolean repOk = 
+    					runCheckMethod(sIni.lazyClone(), task.objectRef, task.classFile, task.methodSignature, this.workerParameters.get(), scopeExhaustionMeansSuccess, failed);
+    			if (failed.get() && repOk == false) {
+    				return null; //interrupted by the failure of another check
+    			}
+    			this.verdicts.put(task.key, repOk);
+    			if (!repOk) {
+    				failed.set(true);
+    			}
+    			return repOk;
+    		});
+    	}
+    	
+    	//waits for all the tasks, so no worker is still 
+    	//reading sIni when this method returns
+    	Throwable failure = null;
+    	for (int i = 0; i < tasks.size(); ++i) {
+    		try {
+    			completionService.take().get();
+    		} catch (ExecutionException e) {
+    			failed.set(true);
+    			failure = e.getCause();
+    		} catch (InterruptedException e) {
+    			failed.set(true);
+    			failure = e;
+    		}
+    	}
+    	if (failure != null) {
+    		//TODO check and filter exceptions and blame caller when necessary
+    		throw new UnexpectedInternalException(failure);
+    	}
+    	return !failed.get();
+    }
+    
+    /** Describes a missing value in a heap shape. */
+    private static final Object SHAPE_NO_VALUE = new Object();
+
+    /** Describes the null reference in a heap shape. */
+    private static final Object SHAPE_NULL = new Object();
+
+    /** Describes a reference to an object that is not in the heap. */
+    private static final Object SHAPE_MISSING_OBJECT = new Object();
+
+    /**
+     * Builds a canonical description of the shape of the portion of 
+     * the heap that may affect the outcome of the check method of an 
+     * object, i.e., the objects reachable from it and how the symbolic 
+     * references they contain are resolved, the clauses in the path 
+     * condition that do not resolve symbolic references, and the number
+     * of symbolic objects of each class (that are the candidate aliases 
+     * of the unresolved symbolic references).
+     * 
+     * @param s a {@link State}.
+     * @param heapPos a {@code long}, the heap position of the object 
+     *        in {@code s}.
+     * @return a {@link List}{@code <}{@link Object}{@code >}. Two 
+     *         descriptions are {@link Object#equals(Object) equal} 
+     *         iff they describe the same shape.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    private static List<Object> heapShape(State s, long heapPos) throws FrozenStateException {
+        //the objects, by identity
+        final HashMap<Object, List<Object>> objects = new HashMap<>();
+        final HashSet<Long> visited = new HashSet<>();
+        final ArrayDeque<Long> toVisit = new ArrayDeque<>();
+        visited.add(heapPos);
+        toVisit.add(heapPos);
+        while (!toVisit.isEmpty()) {
+            final long pos = toVisit.remove();
+            final Objekt o = s.getObject(new ReferenceConcrete(pos));
+            final HashMap<Signature, Object> fields = new HashMap<>();
+            for (Map.Entry<Signature, Variable> field : o.fields().entrySet()) {
+                fields.put(field.getKey(), valueShape(s, field.getValue().getValue(), visited, toVisit));
+            }
+            final ArrayList<Object> entries = new ArrayList<>();
+            if (o instanceof Array) {
+                for (Array.AccessOutcomeIn entry : ((Array) o).values()) {
+                    final Value v;
+                    if (entry instanceof Array.AccessOutcomeInInitialArray) {
+                        v = ((Array.AccessOutcomeInInitialArray) entry).getInitialArray();
+                    } else { //(entry instanceof Array.AccessOutcomeInValue) 
+                        v = ((Array.AccessOutcomeInValue) entry).getValue();
+                    }
+                    entries.add(entry.getAccessCondition());
+                    entries.add(valueShape(s, v, visited, toVisit));
+                }
+            }
+            objects.put(objectIdentity(o, pos), Arrays.asList(o.getType().getClassName(), fields, entries));
+        }
+        
+        //the clauses
+        final ArrayList<Clause> clauses = new ArrayList<>();
+        for (Clause c : s.getPathCondition()) {
+            if (!(c instanceof ClauseAssumeReferenceSymbolic)) {
+                clauses.add(c);
+            }
+        }
+        
+        //the number of symbolic objects of each class
+        final HashMap<String, Integer> symbolicObjects = new HashMap<>();
+        for (Objekt o : s.objectsSymbolic()) {
+            symbolicObjects.merge(o.getType().getClassName(), 1, Integer::sum);
+        }
+        return Arrays.asList(objects, clauses, symbolicObjects);
+    }
+    
+    private static Object objectIdentity(Objekt o, long pos) {
+        return (o.isSymbolic() ? o.getOrigin() : Long.valueOf(pos));
+    }
+    
+    private static Object valueShape(State s, Value v, HashSet<Long> visited, ArrayDeque<Long> toVisit) 
+    throws FrozenStateException {
+        if (v == null) {
+            return SHAPE_NO_VALUE;
+        }
+        if (v instanceof Reference) {
+            final Reference ref = (Reference) v;
+            if (s.isNull(ref)) {
+                return SHAPE_NULL;
+            }
+            final long pos;
+            if (ref instanceof ReferenceConcrete) {
+                pos = ((ReferenceConcrete) ref).getHeapPosition();
+            } else if (ref instanceof ReferenceSymbolic && s.resolved((ReferenceSymbolic) ref)) {
+                pos = s.getResolution((ReferenceSymbolic) ref);
+            } else {
+                return ref; //unresolved
+            }
+            if (visited.add(pos)) {
+                toVisit.add(pos);
+            }
+            final Objekt target = s.getObject(new ReferenceConcrete(pos));
+            return Collections.singletonList(target == null ? SHAPE_MISSING_OBJECT : objectIdentity(target, pos));
+        }
+        return v;
+    }
+    
+    /**
+     * The key of a cached check method verdict.
+     */
+    private static final class VerdictKey {
+        private final ReferenceSymbolic origin;
+        private final List<Object> heapShape;
+        private final boolean scopeExhaustionMeansSuccess;
+        private final int hashCode;
+        
+        VerdictKey(ReferenceSymbolic origin, List<Object> heapShape, boolean scopeExhaustionMeansSuccess) {
+            this.origin = origin;
+            this.heapShape = heapShape;
+            this.scopeExhaustionMeansSuccess = scopeExhaustionMeansSuccess;
+            this.hashCode = Objects.hash(origin, heapShape, scopeExhaustionMeansSuccess);
+        }
+        
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final VerdictKey other = (VerdictKey) obj;
+            return this.hashCode == other.hashCode && 
+                   this.scopeExhaustionMeansSuccess == other.scopeExhaustionMeansSuccess &&
+                   Objects.equals(this.origin, other.origin) &&
+                   this.heapShape.equals(other.heapShape);
+        }
+    }
+    
+    /**
+     * A check method to be run on an object.
+     */
+    private static final class CheckTask {
+        final Reference objectRef;
+        final ClassFile classFile;
+        final Signature methodSignature;
+        final VerdictKey key;
+        
+        CheckTask(Reference objectRef, ClassFile classFile, Signature methodSignature, VerdictKey key) {
+            this.objectRef = objectRef;
+            this.classFile = classFile;
+            this.methodSignature = methodSignature;
+            this.key = key;
+        }
+    }
 
     public State makeInitialState() {
     	final State sIni;
@@ -235,6 +564,10 @@ public final class InitialHeapChecker {
      * @param scopeExhaustionMeansSuccess {@code true} iff a path that exhausts
      *        the execution scope must be interpreted as a successful 
      *        execution of the method that returns {@code true}. 
+     * @param abort an {@link AtomicBoolean}; if it is not {@code null}
+     *        the execution of the method is interrupted as soon as 
+     *        it is set to {@code true}, in which case the method 
+     *        returns {@code false}.
      * @return {@code true} iff there is at least one successful execution
      *         of the method that returns {@code true}. 
      * @throws CannotBuildEngineException
@@ -256,7 +589,7 @@ public final class InitialHeapChecker {
      */
     //TODO handle and convert all these exceptions and raise the abstraction level of the operation
     private static boolean 
-    runCheckMethod(State s, Reference r, ClassFile classFile, Signature methodSignatureImpl, RunnerParameters p, boolean scopeExhaustionMeansSuccess) 
+    runCheckMethod(State s, Reference r, ClassFile classFile, Signature methodSignatureImpl, RunnerParameters p, boolean scopeExhaustionMeansSuccess, AtomicBoolean abort) 
     throws CannotBuildEngineException, InitializationException, 
     InvalidClassFileFactoryClassException, InvalidProgramCounterException, 
     NullMethodReceiverException, InvalidSlotException, NonexistingObservedVariablesException, 
@@ -269,7 +602,7 @@ public final class InitialHeapChecker {
             return true; //TODO ugly way to cope with nonexistent methods; possibly handle the situation in the constructor of CheckMethodTable
         }
         p.setStartingState(s);
-        final RepOkRunnerActions actions = new RepOkRunnerActions(scopeExhaustionMeansSuccess);
+        final RepOkRunnerActions actions = new RepOkRunnerActions(scopeExhaustionMeansSuccess, abort);
         p.setActions(actions);
 
         //runs
@@ -281,10 +614,21 @@ public final class InitialHeapChecker {
 
     private static class RepOkRunnerActions extends Runner.Actions {
         final boolean scopeExhaustionMeansSuccess;
+        final AtomicBoolean abort;
         boolean repOk = false;
 
-        public RepOkRunnerActions(boolean scopeExhaustionMeansSuccess) { 
+        public RepOkRunnerActions(boolean scopeExhaustionMeansSuccess, AtomicBoolean abort) { 
             this.scopeExhaustionMeansSuccess = scopeExhaustionMeansSuccess;
+            this.abort = abort;
+        }
+        
+        @Override
+        public boolean atStepPost() {
+            if (this.abort != null && this.abort.get()) {
+                this.repOk = false;
+                return true;
+            }
+            return super.atStepPost();
         }
 
         //TODO log differently!
@@ -2,11 +2,27 @@ package jbse.apps.run;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import jbse.JBSE;
 import jbse.algo.exc.CannotInvokeNativeException;
@@ -14,33 +30,43 @@ import jbse.algo.exc.CannotManageStateException;
 import jbse.algo.exc.MetaUnsupportedException;
 import jbse.algo.exc.NotYetImplementedException;
 import jbse.algo.exc.UninterpretedUnsupportedException;
+import jbse.apps.DecisionProcedureDecoratorMetrics;
 import jbse.apps.DecisionProcedureDecoratorPrint;
 import jbse.apps.DecisionProcedureDecoratorTimer;
 import jbse.apps.IO;
 import jbse.apps.Formatter;
+import jbse.apps.FormatterPipeline;
 import jbse.apps.StateFormatterGraphviz;
 import jbse.apps.StateFormatterJUnitTestSuite;
 import jbse.apps.StateFormatterText;
 import jbse.apps.StateFormatterPath;
 import jbse.apps.Timer;
 import jbse.apps.Util;
+import jbse.apps.run.DistributedCoordinator.PathResult;
+import jbse.apps.run.DistributedCoordinator.SubtreeResult;
+import jbse.apps.run.DistributedCoordinator.SubtreeStats;
 import jbse.apps.run.RunParameters.DecisionProcedureCreationStrategy;
 import jbse.apps.run.RunParameters.DecisionProcedureType;
+import jbse.apps.run.RunParameters.DistributedMode;
 import jbse.apps.run.RunParameters.GuidanceType;
 import jbse.apps.run.RunParameters.InteractionMode;
 import jbse.apps.run.RunParameters.StateFormatMode;
 import jbse.apps.run.RunParameters.StepShowMode;
 import jbse.apps.run.RunParameters.TextMode;
+import jbse.apps.run.RunParameters.UndecidedQueryTreatment;
 import jbse.apps.run.RunParameters.PathTypes;
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
+import jbse.common.Metrics;
 import jbse.common.exc.ClasspathException;
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.DecisionProcedure;
 import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.dec.DecisionProcedureAlwSat;
+import jbse.dec.DecisionProcedureBoundsAnalysis;
 import jbse.dec.DecisionProcedureClassInit;
 import jbse.dec.DecisionProcedureEquality;
+import jbse.dec.DecisionProcedureExternal;
 import jbse.dec.DecisionProcedureLICS;
 import jbse.dec.DecisionProcedureSignAnalysis;
 import jbse.dec.DecisionProcedureSMTLIB2_AUFNIRA;
@@ -56,7 +82,9 @@ import jbse.jvm.exc.EngineStuckException;
 import jbse.jvm.exc.FailureException;
 import jbse.jvm.exc.InitializationException;
 import jbse.jvm.exc.NonexistingObservedVariablesException;
+import jbse.mem.DecisionVector;
 import jbse.mem.State;
+import jbse.mem.State.Phase;
 import jbse.mem.exc.CannotRefineException;
 import jbse.mem.exc.ContradictionException;
 import jbse.mem.exc.FrozenStateException;
@@ -119,8 +147,21 @@ public final class Run {
     /** The {@link Formatter} to output states. */
     private Formatter formatter = null;
 
+    /** 
+     * The {@link FormatterPipeline} that formats the states 
+     * in background, or {@code null} if they are formatted 
+     * synchronously.
+     */
+    private FormatterPipeline formatterPipeline = null;
+
     /** The {@link Timer} for the decision procedure. */
     private Timer timer = null;
+    
+    /** 
+     * The {@link DecisionProcedureExternal}s created by this 
+     * {@link Run}, for the statistics of their queries. 
+     */
+    private final List<DecisionProcedureExternal> decisionProceduresExternal = new CopyOnWriteArrayList<>();
 
     /** The {@link DecisionProcedureGuidance}, whenever this method is chosen for stepping the {@link Engine}. */
     private DecisionProcedureGuidance guidance = null;
@@ -131,6 +172,31 @@ public final class Run {
     /** The concretization checker. */
     private InitialHeapChecker checker = null;
 
+    /** 
+     * The maximum number of final states, per concretization 
+     * thread, that may wait for their concretization check.
+     */
+    private static final int CONCRETIZATION_BACKLOG = 4;
+
+    /** 
+     * The {@link ExecutorService} that checks the concretizability 
+     * of the final states in background, or {@code null} if they 
+     * are checked synchronously. 
+     */
+    private ExecutorService concretizationExecutor = null;
+
+    /** The concretization checker of the current background thread. */
+    private ThreadLocal<InitialHeapChecker> concretizationCheckers = null;
+
+    /** The {@link RunnerParameters} of the concretization checkers of all the background threads. */
+    private final List<RunnerParameters> allConcretizationParameters = Collections.synchronizedList(new ArrayList<>());
+
+    /** 
+     * The background concretization checks whose outcome has not 
+     * been accounted yet, in submission order. 
+     */
+    private final ArrayDeque<Future<ConcretizationOutcome>> concretizationsPending = new ArrayDeque<>();
+
     /** Counter for the number of analyzed paths that are safe (do not violate assertions). */
     private long pathsSafe = 0;
 
@@ -164,14 +230,74 @@ public final class Run {
     /** The number of states traversed during the pre-initial phase. */
     private long preInitialStateCount = 0;
 
+    /** The executor periodically writing the metrics snapshots, or {@code null}. */
+    private ScheduledExecutorService metricsDumper = null;
+
+    /** Whether the header of the CSV metrics file was already written. */
+    private boolean metricsHeaderWritten = false;
+
+    /** 
+     * The {@link DistributedCoordinator} the subtrees below the
+     * split depth are submitted to, or {@code null} if this run
+     * is not the coordinator of a distributed exploration.
+     */
+    private DistributedCoordinator coordinator = null;
+
+    /** 
+     * The {@link DistributedWorker} the results of the paths are
+     * sent to, or {@code null} if this run does not explore a 
+     * subtree on behalf of a worker.
+     */
+    private final DistributedWorker worker;
+
+    /** The number of paths that were stopped because their subtree was submitted to the coordinator. */
+    private long pathsDelegated = 0;
+
+    /** The number of out of scope paths that were stopped because their subtree was submitted to the coordinator. */
+    private long pathsDelegatedOutOfScope = 0;
+
+    /** The statistics of the subtrees explored by the workers, or {@code null}. */
+    private SubtreeStats remoteStats = null;
+
+    /** 
+     * The {@link Checkpoint} this run resumes the exploration 
+     * from, or {@code null} if this run starts from scratch.
+     */
+    private Checkpoint checkpointResumed = null;
+
+    /** The timestamp of the last checkpoint. */
+    private long timestampLastCheckpoint = 0;
+
+    /** Whether the checkpoints are disabled because they cannot be taken. */
+    private boolean checkpointsDisabled = false;
+
     /**
      * Constructor.
      */
     public Run(RunParameters parameters) {
         this.parameters = parameters;
+        this.worker = null;
         //TODO this should build! Eliminate numeric error codes!
     }
 
+    /**
+     * Constructor for the runs that explore a subtree
+     * on behalf of a worker.
+     * 
+     * @param parameters the {@link RunParameters}.
+     * @param worker the {@link DistributedWorker}.
+     * @param out the {@link PrintStream}s for the output.
+     * @param log the {@link PrintStream}s for log information.
+     * @param err the {@link PrintStream}s for errors. 
+     */
+    private Run(RunParameters parameters, DistributedWorker worker, PrintStream[] out, PrintStream[] log, PrintStream[] err) {
+        this.parameters = parameters;
+        this.worker = worker;
+        this.out = out;
+        this.log = log;
+        this.err = err;
+    }
+
     /**
      * Enum listing which counter must be incremented for stats.
      * 
@@ -187,10 +313,56 @@ public final class Run {
         INC_OUT_OF_SCOPE
     }
 
+    /**
+     * The outcome of the concretization check of a final state.
+     */
+    private static final class ConcretizationOutcome {
+        /** The branch identifier of the final state. */
+        final String branchIdentifier;
+
+        /** The counter of the concretizable paths to be incremented. */
+        final CounterKind ctr;
+
+        /** Whether the final state is concretizable. */
+        final boolean concretizable;
+
+        /** The time spent during the check. */
+        final long elapsedTime;
+
+        ConcretizationOutcome(String branchIdentifier, CounterKind ctr, boolean concretizable, long elapsedTime) {
+            this.branchIdentifier = branchIdentifier;
+            this.ctr = ctr;
+            this.concretizable = concretizable;
+            this.elapsedTime = elapsedTime;
+        }
+    }
+
     private class ActionsRun extends Runner.Actions {
         private String endOfPathMessage;
         private PathTypes pathKind;
         private boolean mayPrint;
+        private boolean delegated;
+        private boolean resumed;
+
+        /**
+         * Submits the subtree rooted at the current state to the
+         * coordinator and stops the current path, if this is the 
+         * coordinator of a distributed exploration and the current 
+         * state is below the split depth.
+         */
+        private void possiblyDelegate() {
+            this.delegated = false;
+            if (Run.this.coordinator == null) {
+                return;
+            }
+            final State currentState = Run.this.engine.getCurrentState();
+            if (currentState.phase() == Phase.POST_INITIAL && 
+                currentState.getHistoryPoint().getBranchDepth() > Run.this.parameters.getDistributedSplitDepth()) {
+                Run.this.coordinator.submit(currentState.getBranchIdentifier());
+                Run.this.engine.stopCurrentPath();
+                this.delegated = true;
+            }
+        }
 
         /**
          * Determines whether the stack size of the current state 
@@ -211,7 +383,7 @@ public final class Run {
          * @return {@code true} iff the user told to stop execution.
          */
         private boolean printAndAsk() {
-            if (this.endOfPathMessage == null && this.pathKind != PathTypes.CONTRADICTORY && this.stackSizeAcceptable() && this.mayPrint) {
+            if (this.endOfPathMessage == null && this.pathKind != PathTypes.CONTRADICTORY && !this.delegated && this.stackSizeAcceptable() && this.mayPrint) {
                 try {
                     final State currentState = Run.this.getCurrentState();
                     Run.this.emitState(currentState);
@@ -254,6 +426,23 @@ public final class Run {
         	Run.this.atPreInitialPhase = false;
         	Run.this.timestampPreInitialPhaseEnd = System.currentTimeMillis();
         	Run.this.preInitialStateCount = getEngine().getAnalyzedStates();
+        	if (Run.this.checkpointResumed != null) {
+        		//the subtrees of the checkpoint replace the initial state
+        		try {
+        			Run.this.engine.resume(Run.this.checkpointResumed.pending);
+        		} catch (InvalidInputException | CannotManageStateException | ClasspathException | 
+        		         ContradictionException | DecisionException | ThreadStackEmptyException | 
+        		         FailureException e) {
+        			Run.this.err(ERROR_CHECKPOINT_RESUME);
+        			Run.this.err(e);
+        			return true;
+        		}
+        		Run.this.engine.stopCurrentPath();
+        		this.resumed = true;
+        		if (Run.this.parameters.getShowInfo()) {
+        			Run.this.log(MSG_CHECKPOINT_RESUMED + Run.this.checkpointResumed.pending.size() + MSG_CHECKPOINT_RESUMED_PENDING);
+        		}
+        	}
         	return super.atInitial();
         }
         
@@ -264,10 +453,15 @@ public final class Run {
 
             //path initially assumed to be safe
             this.pathKind = PathTypes.SAFE;
+            
+            //possibly hands the path to a worker
+            possiblyDelegate();
 
             //exits if user wants
             boolean stop = false;
-            if (Run.this.parameters.getStepShowMode() == StepShowMode.ALL ||
+            if (this.delegated) {
+                //nothing to show
+            } else if (Run.this.parameters.getStepShowMode() == StepShowMode.ALL ||
                 Run.this.parameters.getStepShowMode() == StepShowMode.ROOT_BRANCHES_LEAVES) {
                 stop = printAndAsk();
             }
@@ -277,8 +471,13 @@ public final class Run {
 
         @Override
         public boolean atBranch(BranchPoint bp) {
+            //possibly hands the path to a worker
+            possiblyDelegate();
+            
             boolean stop = false;
-            if (Run.this.parameters.getStepShowMode() == StepShowMode.ROOT_BRANCHES_LEAVES) {
+            if (this.delegated) {
+                //nothing to show
+            } else if (Run.this.parameters.getStepShowMode() == StepShowMode.ROOT_BRANCHES_LEAVES) {
                 stop = printAndAsk();
             } 
             return stop;
@@ -419,6 +618,21 @@ public final class Run {
 
         @Override
         public boolean atPathEnd() {
+            if (this.resumed) {
+                //the initial state was not explored, the path 
+                //is accounted for by the resumed statistics
+                this.resumed = false;
+                return false;
+            }
+            if (this.delegated) {
+                //the path is accounted for by the worker
+                ++Run.this.pathsDelegated;
+                if (this.pathKind == PathTypes.OUT_OF_SCOPE) {
+                    ++Run.this.pathsDelegatedOutOfScope;
+                }
+                this.delegated = false;
+                return false;
+            }
             try {
                 final State currentState = Run.this.engine.getCurrentState();
                 //prints the leaf state if the case
@@ -474,9 +688,13 @@ public final class Run {
                 if (Run.this.parameters.getShowWarnings()) {
                     Run.this.log(currentState.getBranchIdentifier() + "[" + currentState.getSequenceNumber() + "]" + this.endOfPathMessage);
                 }
+                if (Run.this.worker != null) {
+                    Run.this.worker.pathEnded(currentState.getBranchIdentifier(), this.pathKind, this.endOfPathMessage);
+                }
                 if (Run.this.parameters.getDoConcretization()) {
                     checkFinalStateIsConcretizable(counterKind);
                 }
+                Run.this.possiblyCheckpoint();
 
             } catch (CannotRefineException | FrozenStateException e) {
                 throw new UnexpectedInternalException(e);
@@ -554,25 +772,96 @@ public final class Run {
             if (ctr == null) {
                 return;
             }
+            final String branchIdentifier = Run.this.engine.getCurrentState().getBranchIdentifier();
+            if (Run.this.concretizationExecutor == null) {
+                final long startTime = System.currentTimeMillis();
+                final boolean concretizable = Run.this.checker.checkHeap(false);
+                final long elapsedTime = System.currentTimeMillis() - startTime;
+                Run.this.accountConcretization(new ConcretizationOutcome(branchIdentifier, ctr, concretizable, elapsedTime));
+            } else {
+                Run.this.submitConcretization(Run.this.checker.makeInitialState(), branchIdentifier, ctr);
+            }
+        }
+    }
+
+    /**
+     * Submits the concretization check of a final state 
+     * to the background threads, and accounts the outcomes 
+     * of the checks that are done. If too many final states 
+     * wait for their check, waits for the oldest ones.
+     * 
+     * @param sIni the initial {@link State} refined on the 
+     *        final state, as produced by {@link InitialHeapChecker#makeInitialState()}. 
+     *        It will be owned by the background thread. It is a clone
+     *        with its own {@link jbse.bc.ClassHierarchy}, so the background 
+     *        threads share with each other and with the engine only 
+     *        the {@link jbse.bc.ClassFile}s, whose lazily built metadata 
+     *        are thread-safe.
+     * @param branchIdentifier a {@link String}, the branch 
+     *        identifier of the final state.
+     * @param ctr the {@link CounterKind} of the final state.
+     */
+    private void submitConcretization(State sIni, String branchIdentifier, CounterKind ctr) {
+        final int backlog = CONCRETIZATION_BACKLOG * this.parameters.getConcretizationParallelism();
+        while (this.concretizationsPending.size() >= backlog) {
+            accountConcretization(outcome(this.concretizationsPending.poll()));
+        }
+        this.concretizationsPending.add(this.concretizationExecutor.submit(() -> {
             final long startTime = System.currentTimeMillis();
-            final boolean concretizable = Run.this.checker.checkHeap(false);
+            final boolean concretizable = this.concretizationCheckers.get().checkHeap(sIni, false);
             final long elapsedTime = System.currentTimeMillis() - startTime;
-            Run.this.elapsedTimeConcretization += elapsedTime;
-            if (concretizable) {
-                if (ctr == CounterKind.INC_OUT_OF_SCOPE) {
-                    ++Run.this.pathsConcretizableOutOfScope;
-                } else if (ctr == CounterKind.INC_SAFE) {
-                    ++Run.this.pathsConcretizableSafe;
-                } else { //ctr == CounterKind.INC_UNSAFE
-                    ++Run.this.pathsConcretizableUnsafe;
-                }
+            return new ConcretizationOutcome(branchIdentifier, ctr, concretizable, elapsedTime);
+        }));
+        while (!this.concretizationsPending.isEmpty() && this.concretizationsPending.peek().isDone()) {
+            accountConcretization(outcome(this.concretizationsPending.poll()));
+        }
+    }
+
+    /**
+     * Waits for the end of all the background concretization 
+     * checks, and accounts their outcomes.
+     */
+    private void awaitConcretizations() {
+        while (!this.concretizationsPending.isEmpty()) {
+            accountConcretization(outcome(this.concretizationsPending.poll()));
+        }
+    }
+
+    private static ConcretizationOutcome outcome(Future<ConcretizationOutcome> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnexpectedInternalException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnexpectedInternalException) {
+                throw (UnexpectedInternalException) e.getCause();
             }
-            if (Run.this.parameters.getShowWarnings()) {
-                final State currentState = Run.this.engine.getCurrentState();
-                Run.this.log(currentState.getBranchIdentifier() +
-                             (concretizable ? MSG_PATH_CONCRETIZABLE : MSG_PATH_NOT_CONCRETIZABLE));
+            throw new UnexpectedInternalException(e.getCause());
+        }
+    }
+
+    /**
+     * Updates the concretization statistics with the outcome
+     * of the concretization check of a final state.
+     * 
+     * @param outcome a {@link ConcretizationOutcome}.
+     */
+    private void accountConcretization(ConcretizationOutcome outcome) {
+        this.elapsedTimeConcretization += outcome.elapsedTime;
+        if (outcome.concretizable) {
+            if (outcome.ctr == CounterKind.INC_OUT_OF_SCOPE) {
+                ++this.pathsConcretizableOutOfScope;
+            } else if (outcome.ctr == CounterKind.INC_SAFE) {
+                ++this.pathsConcretizableSafe;
+            } else { //outcome.ctr == CounterKind.INC_UNSAFE
+                ++this.pathsConcretizableUnsafe;
             }
         }
+        if (this.parameters.getShowWarnings()) {
+            log(outcome.branchIdentifier +
+                (outcome.concretizable ? MSG_PATH_CONCRETIZABLE : MSG_PATH_NOT_CONCRETIZABLE));
+        }
     }
 
     /**
@@ -584,11 +873,30 @@ public final class Run {
      * of the error was internal (bugs).
      */
     public int run() {
+        // a worker explores the subtrees it is handed
+        if (this.worker == null && this.parameters.getDistributedMode() == DistributedMode.WORKER) {
+            return runWorker();
+        }
+        
         // sets up this object
         int retVal = build();
         if (retVal > 0) {
             return retVal;
         }
+        
+        // possibly starts listening for the workers
+        if (this.parameters.getDistributedMode() == DistributedMode.COORDINATOR) {
+            try {
+                this.coordinator = new DistributedCoordinator(this.parameters.getDistributedPort(), this.parameters.getDistributedWorkerTimeout());
+            } catch (IOException e) {
+                err(ERROR_DISTRIBUTED_COORDINATOR + e.getMessage());
+                close();
+                return 1;
+            }
+            if (this.parameters.getShowInfo()) {
+                log(MSG_DISTRIBUTED_COORDINATOR + this.coordinator.getLocalPort() + ".");
+            }
+        }
 
         // prints feedback
         if (this.parameters.getShowInfo()) {
@@ -611,6 +919,20 @@ public final class Run {
             err(e);
             retVal = 2;
         }
+        
+        // waits for the concretization checks still running
+        try {
+            awaitConcretizations();
+        } catch (UnexpectedInternalException e) {
+            err(ERROR_UNEXPECTED);
+            err(e);
+            retVal = 2;
+        }
+        
+        // waits for the workers to explore the subtrees
+        if (this.coordinator != null) {
+            retVal = Math.max(retVal, collectSubtrees());
+        }
 
         // prints statistics
         if (this.parameters.getShowInfo()) {
@@ -619,7 +941,112 @@ public final class Run {
         }
 
         // closes and returns the error code
-        return close();
+        return Math.max(retVal, close());
+    }
+
+    /**
+     * Connects to the coordinator of a distributed exploration,
+     * and explores the subtrees it hands until it has no more.
+     * 
+     * @return an {@code int} value representing an error code.
+     */
+    private int runWorker() {
+        setStreams();
+        if (this.parameters.getShowInfo()) {
+            log(MSG_WELCOME_TXT);
+        }
+        startMetrics();
+        
+        int retVal = 0;
+        try (final DistributedWorker worker = new DistributedWorker(this.parameters.getDistributedHost(), this.parameters.getDistributedPort())) {
+            if (this.parameters.getShowInfo()) {
+                log(MSG_DISTRIBUTED_WORKER + this.parameters.getDistributedHost() + ":" + this.parameters.getDistributedPort() + ".");
+            }
+            String subtree;
+            while ((subtree = worker.nextSubtree()) != null) {
+                final RunParameters subtreeParameters = this.parameters.clone();
+                subtreeParameters.setDistributedNone();
+                subtreeParameters.setIdentifierSubregion(subtree);
+                subtreeParameters.setMetricsOutputFile(null);
+                final Run subtreeRun = new Run(subtreeParameters, worker, this.out, this.log, this.err);
+                final int subtreeRetVal = subtreeRun.run();
+                if (subtreeRetVal == 0) {
+                    worker.subtreeDone(subtreeRun.getSubtreeStats());
+                } else {
+                    worker.subtreeFailed();
+                    retVal = Math.max(retVal, subtreeRetVal);
+                }
+            }
+        } catch (IOException e) {
+            err(ERROR_DISTRIBUTED_WORKER + e.getMessage());
+            retVal = Math.max(retVal, 1);
+        }
+        
+        stopMetrics();
+        closeStreams();
+        return retVal;
+    }
+    
+    /**
+     * Returns the statistics of this run, to be sent 
+     * to the coordinator.
+     * 
+     * @return a {@link SubtreeStats}.
+     */
+    SubtreeStats getSubtreeStats() {
+        final SubtreeStats retVal = new SubtreeStats();
+        retVal.analyzedStates = this.engine.getAnalyzedStates();
+        retVal.prunedStates = this.engine.getPrunedStates();
+        retVal.pathsTotal = this.runner.getPathsTotal();
+        retVal.pathsSafe = this.pathsSafe;
+        retVal.pathsUnsafe = this.pathsUnsafe;
+        retVal.pathsOutOfScope = this.runner.getPathsOutOfScope();
+        retVal.pathsUnmanageable = this.pathsUnmanageable;
+        retVal.pathsConcretizableSafe = this.pathsConcretizableSafe;
+        retVal.pathsConcretizableUnsafe = this.pathsConcretizableUnsafe;
+        retVal.pathsConcretizableOutOfScope = this.pathsConcretizableOutOfScope;
+        retVal.elapsedTimeConcretization = this.elapsedTimeConcretization;
+        return retVal;
+    }
+    
+    /**
+     * Waits for the workers to explore all the subtrees 
+     * submitted to the coordinator, and gathers their 
+     * results in the order of the branch identifiers, 
+     * so they do not depend on which worker explored 
+     * which subtree.
+     * 
+     * @return an {@code int} value representing an error code.
+     */
+    private int collectSubtrees() {
+        this.coordinator.closeSubmissions();
+        if (this.parameters.getShowInfo()) {
+            log(MSG_DISTRIBUTED_WAITING);
+        }
+        final SortedMap<String, SubtreeResult> results;
+        try {
+            results = this.coordinator.awaitResults();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            err(ERROR_UNEXPECTED);
+            err(e);
+            return 2;
+        }
+        this.remoteStats = new SubtreeStats();
+        for (SubtreeResult result : results.values()) {
+            if (this.parameters.getShowWarnings()) {
+                for (PathResult path : result.paths) {
+                    log(path.branchIdentifier + path.message);
+                }
+            }
+            this.remoteStats.add(result.stats);
+        }
+        int retVal = 0;
+        for (String subtree : this.coordinator.getFailedSubtrees()) {
+            err(ERROR_DISTRIBUTED_SUBTREE + subtree + ".");
+            retVal = 1;
+        }
+        return retVal;
     }
 
     /**
@@ -629,6 +1056,7 @@ public final class Run {
      * @return the read line.
      */
     public String in(String prompt) {
+        drainFormatterPipeline();
         return IO.readln(this.out, prompt);
     }
 
@@ -638,7 +1066,11 @@ public final class Run {
      * @param s the text to be printed.
      */
     public void out(String s) {
-        IO.println(this.out, s);
+        if (this.formatterPipeline == null) {
+            IO.println(this.out, s);
+        } else {
+            this.formatterPipeline.emit(s + Util.LINE_SEP);
+        }
     }
 
     /**
@@ -647,7 +1079,11 @@ public final class Run {
      * @param s the text to be printed.
      */
     public void outNoBreak(String s) {
-        IO.print(this.out, s);
+        if (this.formatterPipeline == null) {
+            IO.print(this.out, s);
+        } else {
+            this.formatterPipeline.emit(s);
+        }
     }
 
     /**
@@ -656,7 +1092,7 @@ public final class Run {
      * @param s the text to be printed.
      */
     public void log(String s) {
-        IO.println(this.log, s);
+        print(() -> IO.println(this.log, s));
     }
 
     /**
@@ -665,7 +1101,7 @@ public final class Run {
      * @param s the text to be printed.
      */
     public void err(String s) {
-        IO.println(this.err, s);
+        print(() -> IO.println(this.err, s));
     }
 
     /**
@@ -674,7 +1110,61 @@ public final class Run {
      * @param t the {@link Throwable} to be printed.
      */
     public void err(Throwable t) {
-        IO.printException(this.err, t);
+        print(() -> IO.printException(this.err, t));
+    }
+
+    /**
+     * Prints on the log or error streams. If there is a 
+     * formatter pipeline the printing is queued after the
+     * states in it, so the printed text follows them.
+     * 
+     * @param printing a {@link Runnable} that prints.
+     */
+    private void print(Runnable printing) {
+        if (this.formatterPipeline == null) {
+            printing.run();
+        } else {
+            try {
+                this.formatterPipeline.perform(printing);
+            } catch (UnexpectedInternalException e) {
+                closeFailedFormatterPipeline(e);
+                printing.run();
+            }
+        }
+    }
+
+    /**
+     * Waits until the states in the formatter 
+     * pipeline, if any, are printed, so the text 
+     * read next from the input stream follows them.
+     */
+    private void drainFormatterPipeline() {
+        if (this.formatterPipeline != null) {
+            try {
+                this.formatterPipeline.drain();
+            } catch (UnexpectedInternalException e) {
+                closeFailedFormatterPipeline(e);
+            }
+        }
+    }
+
+    /**
+     * Closes the formatter pipeline after one of its 
+     * requests failed, and reports the failure.
+     * 
+     * @param e the {@link UnexpectedInternalException}
+     *        reporting the failure.
+     */
+    private void closeFailedFormatterPipeline(UnexpectedInternalException e) {
+        final FormatterPipeline p = this.formatterPipeline;
+        this.formatterPipeline = null;
+        try {
+            p.close();
+        } catch (UnexpectedInternalException eClose) {
+            //the first failure is reported
+        }
+        err(ERROR_UNEXPECTED);
+        err(e);
     }
 
     /**
@@ -688,13 +1178,19 @@ public final class Run {
         //TODO lots of controls on parameters
         //TODO rethrow exception rather than returning an int, and centralize logging in the receiver
 
-        //sets the input, output and error streams
-        setStreams();
+        //sets the input, output and error streams, unless 
+        //they are the worker's ones
+        if (this.worker == null) {
+            setStreams();
+        }
 
         // prints a welcome message
         if (this.parameters.getShowInfo()) {
             log(MSG_WELCOME_TXT);
         }
+        
+        //possibly starts collecting metrics
+        startMetrics();
 
         //builds
         try {
@@ -710,8 +1206,11 @@ public final class Run {
             if (this.engine == null) {
                 return 1;
             }
-            createHeapChecker(this.decisionProcedureConcretization);
+            createHeapChecker(this.decisionProcedureConcretization, calc);
             createFormatter();
+            if (!readCheckpoint()) {
+                return 1;
+            }
         } catch (NonexistingObservedVariablesException e) {
             for (int i : e.getVariableIndices()) {
                 if (Run.this.parameters.getShowWarnings()) {
@@ -752,6 +1251,115 @@ public final class Run {
         return 0;
     }
 
+    /**
+     * Possibly reads the checkpoint the exploration must be 
+     * resumed from.
+     * 
+     * @return {@code false} iff reading the checkpoint failed.
+     */
+    private boolean readCheckpoint() {
+        this.timestampLastCheckpoint = System.currentTimeMillis();
+        if (this.parameters.getCheckpointFile() == null || !this.parameters.getCheckpointResume() || 
+            this.worker != null || this.parameters.getDistributedMode() != DistributedMode.NONE) {
+            return true;
+        }
+        try {
+            this.checkpointResumed = Checkpoint.readLast(this.parameters.getCheckpointFile());
+        } catch (IOException e) {
+            err(ERROR_CHECKPOINT_READ + e.getMessage());
+            return false;
+        }
+        if (this.checkpointResumed == null) {
+            if (this.parameters.getShowWarnings()) {
+                log(WARNING_CHECKPOINT_NONE);
+            }
+        } else if (this.formatter instanceof StateFormatterJUnitTestSuite) {
+            ((StateFormatterJUnitTestSuite) this.formatter).resume(this.checkpointResumed.testCount, this.checkpointResumed.testClassCount);
+        }
+        return true;
+    }
+
+    /**
+     * Appends a checkpoint of the exploration to the checkpoint
+     * file, if it is set and the checkpoint interval elapsed
+     * since the last checkpoint. To be invoked at the end of 
+     * a path.
+     */
+    private void possiblyCheckpoint() {
+        if (this.parameters.getCheckpointFile() == null || this.checkpointsDisabled || 
+            this.worker != null || this.coordinator != null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (now - this.timestampLastCheckpoint < this.parameters.getCheckpointInterval()) {
+            return;
+        }
+        final StateFormatterJUnitTestSuite testSuite = (this.formatter instanceof StateFormatterJUnitTestSuite ? (StateFormatterJUnitTestSuite) this.formatter : null);
+        if (testSuite != null && !testSuite.isStreaming()) {
+            //the test cases are emitted only at the end
+            this.checkpointsDisabled = true;
+            if (this.parameters.getShowWarnings()) {
+                log(WARNING_CHECKPOINT_TEST_SUITE);
+            }
+            return;
+        }
+        final LinkedHashMap<String, DecisionVector> pending = this.engine.getPendingDecisions();
+        if (pending == null) {
+            this.checkpointsDisabled = true;
+            if (this.parameters.getShowWarnings()) {
+                log(WARNING_CHECKPOINT_UNSUPPORTED);
+            }
+            return;
+        }
+        awaitConcretizations();
+        final SubtreeStats stats = getSubtreeStats();
+        stats.add(getResumedStats());
+        
+        //the checkpoint counts only the test cases that are
+        //written to complete test classes
+        int testCount = 0, testClassCount = 0;
+        if (testSuite != null) {
+            drainFormatterPipeline();
+            try {
+                testSuite.sync();
+            } catch (UnexpectedInternalException e) {
+                this.checkpointsDisabled = true;
+                err(ERROR_CHECKPOINT_WRITE + e.getMessage());
+                return;
+            }
+            testCount = testSuite.getTestCount();
+            testClassCount = testSuite.getTestClassCount();
+        }
+        try {
+            new Checkpoint(stats, testCount, testClassCount, pending).appendTo(this.parameters.getCheckpointFile());
+        } catch (IOException e) {
+            this.checkpointsDisabled = true;
+            err(ERROR_CHECKPOINT_WRITE + e.getMessage());
+            return;
+        }
+        this.timestampLastCheckpoint = now;
+    }
+
+    /**
+     * Returns the statistics of the exploration this run 
+     * resumes, corrected for the pre-initial phase and
+     * the path of the initial state that this run executes
+     * again, so they can be added to the statistics of 
+     * this run.
+     * 
+     * @return a {@link SubtreeStats}, all zero if this
+     *         run does not resume an exploration.
+     */
+    private SubtreeStats getResumedStats() {
+        final SubtreeStats retVal = new SubtreeStats();
+        if (this.checkpointResumed != null) {
+            retVal.add(this.checkpointResumed.stats);
+            retVal.analyzedStates -= this.preInitialStateCount;
+            retVal.pathsTotal -= 1;
+        }
+        return retVal;
+    }
+
     private void setStreams() {
         // sets the output and error streams
         // first are to standard
@@ -839,10 +1447,18 @@ public final class Run {
         } else if (type == StateFormatMode.PATH) {
             this.formatter = new StateFormatterPath();
         } else if (type == StateFormatMode.JUNIT_TEST) {
-            this.formatter = new StateFormatterJUnitTestSuite(this::getInitialState, this::getModel);
+            if (this.parameters.getJUnitOutputDirectory() == null) {
+                this.formatter = new StateFormatterJUnitTestSuite(this::getInitialState, this::getModel);
+            } else {
+                this.formatter = new StateFormatterJUnitTestSuite(this::getInitialState, this::getModel, 
+                                                                  this.parameters.getJUnitOutputDirectory(), this.parameters.getJUnitTestsPerClass());
+            }
         } else {
             throw new CannotBuildFormatterException(ERROR_UNDEF_STATE_FORMAT);
         }
+        if (type != StateFormatMode.JUNIT_TEST && this.parameters.getStateFormatQueueSize() > 0) {
+            this.formatterPipeline = new FormatterPipeline(this.formatter, s -> IO.print(this.out, s), this.parameters.getStateFormatQueueSize());
+        }
     }
 
     /**
@@ -892,6 +1508,10 @@ public final class Run {
     				log(MSG_TRY_Z3 + (path == null ? "default" : path.toString()) + ".");
     			} else if (this.parameters.getDecisionProcedureType() == DecisionProcedureType.CVC4) {
     				log(MSG_TRY_CVC4 + (path == null ? "default" : path.toString()) + ".");
+    			} else if (this.parameters.getDecisionProcedureType() == DecisionProcedureType.PORTFOLIO) {
+    				final Path z3Path = this.parameters.getPortfolioZ3Path();
+    				final Path cvc4Path = this.parameters.getPortfolioCVC4Path();
+    				log(MSG_TRY_PORTFOLIO + (z3Path == null ? "default" : z3Path.toString()) + " and " + (cvc4Path == null ? "default" : cvc4Path.toString()) + ".");
     			} else if (this.parameters.getInteractionMode() == InteractionMode.NO_INTERACTION) {
     				log(MSG_DECISION_BASIC);
     			} else {
@@ -899,61 +1519,13 @@ public final class Run {
     			}
     		}
 
-    		//initializes cores
+    		//initializes core
     		final boolean needHeapCheck = (this.parameters.getUseConservativeRepOks() || this.parameters.getDoConcretization());
-    		DecisionProcedure core = new DecisionProcedureAlwSat(calc);
-    		DecisionProcedure coreNumeric = (needHeapCheck ? new DecisionProcedureAlwSat(calc) : null);
-
-    		//wraps cores with external numeric decision procedure
-    		final DecisionProcedureType type = this.parameters.getDecisionProcedureType();
-    		try {
-    			if (type == DecisionProcedureType.ALL_SAT) {
-    				//do nothing
-    			} else if (type == DecisionProcedureType.Z3) {
-    				final String switchChar = System.getProperty("os.name").toLowerCase().contains("windows") ? "/" : "-";
-    				final ArrayList<String> z3CommandLine = new ArrayList<>();
-    				z3CommandLine.add(path == null ? "z3" : path.toString());
-    				z3CommandLine.add(switchChar + "smt2");
-    				z3CommandLine.add(switchChar + "in");
-    				z3CommandLine.add(switchChar + "t:10");
-    				core = new DecisionProcedureSMTLIB2_AUFNIRA(core, z3CommandLine);
-    				coreNumeric = (needHeapCheck ? new DecisionProcedureSMTLIB2_AUFNIRA(coreNumeric, z3CommandLine) : null);
-    			} else if (type == DecisionProcedureType.CVC4) {
-    				final ArrayList<String> cvc4CommandLine = new ArrayList<>();
-    				cvc4CommandLine.add(path == null ? "cvc4" : path.toString());
-    				cvc4CommandLine.add("--lang=smt2");
-    				cvc4CommandLine.add("--output-lang=smt2");
-    				cvc4CommandLine.add("--no-interactive");
-    				cvc4CommandLine.add("--incremental");
-    				cvc4CommandLine.add("--tlimit-per=10000");
-    				core = new DecisionProcedureSMTLIB2_AUFNIRA(core, cvc4CommandLine);
-    				coreNumeric = (needHeapCheck ? new DecisionProcedureSMTLIB2_AUFNIRA(coreNumeric, cvc4CommandLine) : null);
-    			} else {
-    				core.close();
-    				if (coreNumeric != null) {
-    					coreNumeric.close();
-    				}
-    				throw new CannotBuildDecisionProcedureException(ERROR_UNDEF_DECISION_PROCEDURE);
-    			}
-    		} catch (DecisionException e) {
-    			throw new CannotBuildDecisionProcedureException(e);
-    		}
-
-    		//further wraps cores with sign analysis, if required
-    		if (this.parameters.getDoSignAnalysis()) {
-    			core = new DecisionProcedureSignAnalysis(core);
-    			coreNumeric = (needHeapCheck ? new DecisionProcedureSignAnalysis(coreNumeric) : null);
-    		}
-
-    		//further wraps cores with equality analysis, if required
-    		if (this.parameters.getDoEqualityAnalysis()) {
-    			core = new DecisionProcedureEquality(core);
-    			coreNumeric = (needHeapCheck ? new DecisionProcedureEquality(coreNumeric) : null);
-    		}
+    		DecisionProcedure core = createDecisionProcedureNumeric(calc);
 
     		//sets the decision procedure for checkers
     		if (needHeapCheck) {
-    			this.decisionProcedureConcretization = new DecisionProcedureAlgorithms(coreNumeric);
+    			this.decisionProcedureConcretization = new DecisionProcedureAlgorithms(createDecisionProcedureNumeric(calc));
     		}
 
     		//further wraps core with LICS decision procedure
@@ -971,6 +1543,7 @@ public final class Run {
     			@SuppressWarnings("resource")
     			final DecisionProcedureConservativeRepOk dec = 
     			new DecisionProcedureConservativeRepOk(core, checkerParameters, this.parameters.getConservativeRepOks());
+    			dec.setHeapCheckParallelism(this.parameters.getHeapCheckParallelism(), () -> makeCheckerWorkerParameters(calc));
     			core = dec;
     		}
 
@@ -979,6 +1552,11 @@ public final class Run {
     			core = c.createAndWrap(core, calc);
     		}
 
+    		//wraps with metrics recorder
+    		if (Metrics.isEnabled()) {
+    			core = new DecisionProcedureDecoratorMetrics(core);
+    		}
+
     		//wraps with timer
     		final DecisionProcedureDecoratorTimer tCore = new DecisionProcedureDecoratorTimer(core);
     		this.timer = tCore;
@@ -999,7 +1577,8 @@ public final class Run {
     				if (this.parameters.getGuidanceType() == GuidanceType.JBSE) {
     					this.guidance = new DecisionProcedureGuidanceJBSE(core, calc, guidanceDriverParameters, this.parameters.getMethodSignature(), this.parameters.getGuidedNumberOfHits());
     				} else if (this.parameters.getGuidanceType() == GuidanceType.JDI) {
-    					this.guidance = new DecisionProcedureGuidanceJDI(core, calc, guidanceDriverParameters, this.parameters.getMethodSignature(), this.parameters.getGuidedNumberOfHits());
+    					this.guidance = new DecisionProcedureGuidanceJDI(core, calc, guidanceDriverParameters, this.parameters.getMethodSignature(), this.parameters.getGuidedNumberOfHits(), 
+    					                                                 this.parameters.getGuidanceJDIVMPoolSize());
     				} else {
     					throw new UnexpectedInternalException(ERROR_DECISION_PROCEDURE_GUIDANCE_UNRECOGNIZED + this.parameters.getGuidanceType().toString());
     				}
@@ -1020,13 +1599,119 @@ public final class Run {
     	}
     }
 
+    /**
+     * Creates the numeric core of a decision procedure, 
+     * i.e., the external numeric decision procedure
+     * possibly wrapped by the sign and equality analyses.
+     * 
+     * @param calc a {@link CalculatorRewriting}.
+     * @return a {@link DecisionProcedure}.
+     * @throws CannotBuildDecisionProcedureException upon failure.
+     * @throws InvalidInputException if {@code calc == null}.
+     */
+    private DecisionProcedure createDecisionProcedureNumeric(CalculatorRewriting calc) 
+    throws CannotBuildDecisionProcedureException, InvalidInputException {
+    	final Path path = this.parameters.getExternalDecisionProcedurePath();       
+    	DecisionProcedure core = new DecisionProcedureAlwSat(calc);
+
+    	//wraps core with external numeric decision procedure
+    	final DecisionProcedureType type = this.parameters.getDecisionProcedureType();
+    	try {
+    		if (type == DecisionProcedureType.ALL_SAT) {
+    			//do nothing
+    		} else if (type == DecisionProcedureType.Z3 || type == DecisionProcedureType.CVC4 || type == DecisionProcedureType.PORTFOLIO) {
+    			final ArrayList<List<String>> commandLines = new ArrayList<>();
+    			if (type == DecisionProcedureType.Z3) {
+    				commandLines.add(z3CommandLine(path));
+    			} else if (type == DecisionProcedureType.CVC4) {
+    				commandLines.add(cvc4CommandLine(path));
+    			} else {
+    				commandLines.add(z3CommandLine(this.parameters.getPortfolioZ3Path()));
+    				commandLines.add(cvc4CommandLine(this.parameters.getPortfolioCVC4Path()));
+    			}
+    			final DecisionProcedureSMTLIB2_AUFNIRA external = 
+    			new DecisionProcedureSMTLIB2_AUFNIRA(core, commandLines, this.parameters.getUseStringTheory(), 
+    			                                     this.parameters.getDecisionProcedureQueryTimeout(), 
+    			                                     this.parameters.getUndecidedQueryTreatment() == UndecidedQueryTreatment.SAT);
+    			this.decisionProceduresExternal.add(external);
+    			core = external;
+    		} else {
+    			core.close();
+    			throw new CannotBuildDecisionProcedureException(ERROR_UNDEF_DECISION_PROCEDURE);
+    		}
+    	} catch (DecisionException e) {
+    		throw new CannotBuildDecisionProcedureException(e);
+    	}
+
+    	//further wraps core with bounds analysis, if required
+    	if (this.parameters.getDoBoundsAnalysis()) {
+    		core = new DecisionProcedureBoundsAnalysis(core);
+    	}
+
+    	//further wraps core with sign analysis, if required
+    	if (this.parameters.getDoSignAnalysis()) {
+    		core = new DecisionProcedureSignAnalysis(core);
+    	}
+
+    	//further wraps core with equality analysis, if required
+    	if (this.parameters.getDoEqualityAnalysis()) {
+    		core = new DecisionProcedureEquality(core);
+    	}
+    	
+    	return core;
+    }
+    
+    private static List<String> z3CommandLine(Path path) {
+    	final String switchChar = System.getProperty("os.name").toLowerCase().contains("windows") ? "/" : "-";
+    	final ArrayList<String> retVal = new ArrayList<>();
+    	retVal.add(path == null ? "z3" : path.toString());
+    	retVal.add(switchChar + "smt2");
+    	retVal.add(switchChar + "in");
+    	retVal.add(switchChar + "t:10");
+    	return retVal;
+    }
+    
+    private static List<String> cvc4CommandLine(Path path) {
+    	final ArrayList<String> retVal = new ArrayList<>();
+    	retVal.add(path == null ? "cvc4" : path.toString());
+    	retVal.add("--lang=smt2");
+    	retVal.add("--output-lang=smt2");
+    	retVal.add("--no-interactive");
+    	retVal.add("--incremental");
+    	retVal.add("--tlimit-per=10000");
+    	return retVal;
+    }
+    
+    /**
+     * Creates the {@link RunnerParameters} for a worker 
+     * thread of a heap checker, with its own calculator
+     * and decision procedure.
+     * 
+     * @param calc the {@link CalculatorRewriting} used by 
+     *        the symbolic execution. It will be copied.
+     * @return a {@link RunnerParameters}.
+     */
+    private RunnerParameters makeCheckerWorkerParameters(CalculatorRewriting calc) {
+    	final CalculatorRewriting calcWorker = new CalculatorRewriting(calc);
+    	final RunnerParameters retVal = this.parameters.getConcretizationDriverParameters();
+    	retVal.setCalculator(calcWorker);
+    	try {
+    		retVal.setDecisionProcedure(new DecisionProcedureAlgorithms(createDecisionProcedureNumeric(calcWorker)));
+    	} catch (CannotBuildDecisionProcedureException | InvalidInputException e) {
+    		throw new UnexpectedInternalException(e);
+    	}
+    	return retVal;
+    }
+
     /**
      * Creates the heap checker into {@code this.checker}.
      * 
      * @param decisionProcedureConcretization the {@link DecisionProcedureAlgorithms}
      *        to be used by the heap checker.
+     * @param calc the {@link CalculatorRewriting} used by the
+     *        symbolic execution.
      */
-    private void createHeapChecker(DecisionProcedureAlgorithms decisionProcedureConcretization) {
+    private void createHeapChecker(DecisionProcedureAlgorithms decisionProcedureConcretization, CalculatorRewriting calc) {
         if (this.parameters.getDoConcretization()) {
             final RunnerParameters checkerParameters = this.parameters.getConcretizationDriverParameters();
             checkerParameters.setDecisionProcedure(decisionProcedureConcretization);
@@ -1034,6 +1719,20 @@ public final class Run {
                 new InitialHeapChecker(checkerParameters, ConcretizationCheck.class, this.parameters.getConcretizationMethods());
             this.checker.setInitialStateSupplier(this::getInitialState); 
             this.checker.setCurrentStateSupplier(this::getCurrentState); 
+            this.checker.setParallel(this.parameters.getHeapCheckParallelism(), () -> makeCheckerWorkerParameters(calc));
+            final int concretizationParallelism = this.parameters.getConcretizationParallelism();
+            if (concretizationParallelism > 1) {
+                this.concretizationExecutor = Executors.newFixedThreadPool(concretizationParallelism, r -> {
+                    final Thread t = new Thread(r, "Concretization checker");
+                    t.setDaemon(true);
+                    return t;
+                });
+                this.concretizationCheckers = ThreadLocal.withInitial(() -> {
+                    final RunnerParameters p = makeCheckerWorkerParameters(calc);
+                    this.allConcretizationParameters.add(p);
+                    return new InitialHeapChecker(p, ConcretizationCheck.class, this.parameters.getConcretizationMethods());
+                });
+            }
         }
     }
 
@@ -1041,6 +1740,10 @@ public final class Run {
      * Emits the prologue of the symbolic execution.
      */
     private void emitPrologue() {
+        if (this.formatterPipeline != null) {
+            this.formatterPipeline.formatPrologue();
+            return;
+        }
         this.formatter.cleanup();
         this.formatter.formatPrologue();
         outNoBreak(this.formatter.emit());
@@ -1054,6 +1757,10 @@ public final class Run {
      *        {@code s} is at a branch point.
      */
     private void emitState(State s) {
+        if (this.formatterPipeline != null) {
+            this.formatterPipeline.formatState(s);
+            return;
+        }
         this.formatter.cleanup();
         this.formatter.formatState(s);
         outNoBreak(this.formatter.emit());
@@ -1063,6 +1770,10 @@ public final class Run {
      * Emits the epilogue of the symbolic execution.
      */
     private void emitEpilogue() {
+        if (this.formatterPipeline != null) {
+            this.formatterPipeline.formatEpilogue();
+            return;
+        }
         this.formatter.cleanup();
         this.formatter.formatEpilogue();
         outNoBreak(this.formatter.emit());
@@ -1072,48 +1783,76 @@ public final class Run {
      * Prints statistics.
      */
     private void printFinalStats() {
+        final SubtreeStats remote = getResumedStats();
+        if (this.remoteStats != null) {
+            remote.add(this.remoteStats);
+        }
+        final long analyzedStates = this.engine.getAnalyzedStates() + remote.analyzedStates;
+        final long prunedStates = this.engine.getPrunedStates() + remote.prunedStates;
+        final long pathsTotal = this.runner.getPathsTotal() - this.pathsDelegated + remote.pathsTotal;
+        final long pathsSafe = this.pathsSafe + remote.pathsSafe;
+        final long pathsUnsafe = this.pathsUnsafe + remote.pathsUnsafe;
+        final long pathsOutOfScope = this.runner.getPathsOutOfScope() - this.pathsDelegatedOutOfScope + remote.pathsOutOfScope;
+        final long pathsUnmanageable = this.pathsUnmanageable + remote.pathsUnmanageable;
+        final long pathsConcretizableSafe = this.pathsConcretizableSafe + remote.pathsConcretizableSafe;
+        final long pathsConcretizableUnsafe = this.pathsConcretizableUnsafe + remote.pathsConcretizableUnsafe;
+        final long pathsConcretizableOutOfScope = this.pathsConcretizableOutOfScope + remote.pathsConcretizableOutOfScope;
+        final long elapsedTimeConcretization = this.elapsedTimeConcretization + remote.elapsedTimeConcretization;
         final long elapsedTime = this.runner.getStopTime() - this.runner.getStartTime();
         final long elapsedTimePreInitialPhase = (this.timestampPreInitialPhaseEnd - this.runner.getStartTime());
         final long elapsedTimeDecisionProcedure = (this.timer == null ? 0 : this.timer.getTime());
-        final long speed = this.engine.getAnalyzedStates() * 1000 / elapsedTime;
-        final long speedPostInitialPhase = (elapsedTime == elapsedTimePreInitialPhase) ? 0 : (this.engine.getAnalyzedStates() - this.preInitialStateCount) * 1000 / (elapsedTime - elapsedTimePreInitialPhase);
+        final long speed = analyzedStates * 1000 / elapsedTime;
+        final long speedPostInitialPhase = (elapsedTime == elapsedTimePreInitialPhase) ? 0 : (analyzedStates - this.preInitialStateCount) * 1000 / (elapsedTime - elapsedTimePreInitialPhase);
         final long pathsViolatingAssumptions = 
-            this.runner.getPathsTotal() -
-            this.pathsSafe - 
-            this.pathsUnsafe -
-            this.runner.getPathsOutOfScope() -
-            this.pathsUnmanageable;
-        log(MSG_END_STATES + this.engine.getAnalyzedStates() + ", " +
+            pathsTotal -
+            pathsSafe - 
+            pathsUnsafe -
+            pathsOutOfScope -
+            pathsUnmanageable;
+        log(MSG_END_STATES + analyzedStates + ", " +
         	MSG_END_STATES_PREINITIAL + this.preInitialStateCount + ", " +
-            MSG_END_PATHS_TOT + this.runner.getPathsTotal() + ", " +
-            MSG_END_PATHS_SAFE + this.pathsSafe + 
+            (Run.this.parameters.getPruneSubsumedStates() ? 
+             MSG_END_STATES_PRUNED + prunedStates + ", " :
+             "") +
+            MSG_END_PATHS_TOT + pathsTotal + ", " +
+            MSG_END_PATHS_SAFE + pathsSafe + 
             (Run.this.parameters.getDoConcretization() ? 
-             " (" + this.pathsConcretizableSafe + " concretizable)" :
+             " (" + pathsConcretizableSafe + " concretizable)" :
              "") +
             ", " +
-            MSG_END_PATHS_UNSAFE + this.pathsUnsafe + 
+            MSG_END_PATHS_UNSAFE + pathsUnsafe + 
             (Run.this.parameters.getDoConcretization() ? 
-             " (" + this.pathsConcretizableUnsafe + " concretizable)" :
+             " (" + pathsConcretizableUnsafe + " concretizable)" :
              "") +
             ", " +
-            MSG_END_PATHS_OUT_OF_SCOPE + this.runner.getPathsOutOfScope() +
+            MSG_END_PATHS_OUT_OF_SCOPE + pathsOutOfScope +
             (Run.this.parameters.getDoConcretization() ? 
-             " (" + this.pathsConcretizableOutOfScope + " concretizable)" :  
+             " (" + pathsConcretizableOutOfScope + " concretizable)" :  
              "") +
             ", " +
             MSG_END_PATHS_VIOLATING_ASSUMPTION + pathsViolatingAssumptions +
             ", " +
-            MSG_END_PATHS_UNMANAGEABLE + this.pathsUnmanageable + ".");
+            MSG_END_PATHS_UNMANAGEABLE + pathsUnmanageable + ".");
         log(MSG_END_ELAPSED + Util.formatTime(elapsedTime) + ", " +
         	MSG_END_ELAPSED_PREINITIAL + Util.formatTime(elapsedTimePreInitialPhase) + ", " +
             MSG_END_SPEED + speed + " states/sec, " +
             MSG_END_SPEED_POSTINITIAL + speedPostInitialPhase + " states/sec" +
             (Run.this.parameters.getDoConcretization() ? 
-             ", " + MSG_END_ELAPSED_CONCRETIZATION + Util.formatTime(this.elapsedTimeConcretization) + " (" + Util.formatTimePercent(this.elapsedTimeConcretization, elapsedTime) + " of total)" :
+             ", " + MSG_END_ELAPSED_CONCRETIZATION + Util.formatTime(elapsedTimeConcretization) + " (" + Util.formatTimePercent(elapsedTimeConcretization, elapsedTime) + " of total)" :
              "") +
             (this.timer == null ? 
              "." :
              ", " + MSG_END_DECISION + Util.formatTime(elapsedTimeDecisionProcedure) + " (" + Util.formatTimePercent(elapsedTimeDecisionProcedure, elapsedTime) + " of total)."));
+        if (!this.decisionProceduresExternal.isEmpty()) {
+            long queriesTimedOut = 0, queriesUnknown = 0;
+            for (DecisionProcedureExternal dec : this.decisionProceduresExternal) {
+                queriesTimedOut += dec.getQueriesTimedOut();
+                queriesUnknown += dec.getQueriesUnknown();
+            }
+            log(MSG_END_QUERIES_TIMED_OUT + queriesTimedOut + ", " + 
+                MSG_END_QUERIES_UNKNOWN + queriesUnknown + 
+                (this.parameters.getUndecidedQueryTreatment() == UndecidedQueryTreatment.SAT ? MSG_END_QUERIES_AS_SAT : MSG_END_QUERIES_AS_KILL_PATH));
+        }
     }
 
     /**
@@ -1123,10 +1862,47 @@ public final class Run {
      */
     private int close() {
         int retVal = 0;
+        
+        // prints the states still in the formatter pipeline
+        if (this.formatterPipeline != null) {
+            final FormatterPipeline p = this.formatterPipeline;
+            this.formatterPipeline = null;
+            try {
+                p.close();
+            } catch (UnexpectedInternalException e) {
+                err(ERROR_UNEXPECTED);
+                err(e);
+                retVal = 2;
+            }
+        }
+        
+        // writes the last metrics snapshot
+        stopMetrics();
+
+        // quits the background concretization checkers
+        if (this.concretizationExecutor != null) {
+            this.concretizationExecutor.shutdownNow();
+            this.concretizationExecutor = null;
+            try {
+                synchronized (this.allConcretizationParameters) {
+                    for (RunnerParameters p : this.allConcretizationParameters) {
+                        p.getDecisionProcedure().close();
+                    }
+                    this.allConcretizationParameters.clear();
+                }
+            } catch (DecisionException e) {
+                err(ERROR_ENGINE_QUIT_DECISION_PROCEDURE);
+                err(e);
+                retVal = 1;
+            }
+        }
 
         // quits the numeric decision procedure for the checker
         if (this.decisionProcedureConcretization != null) {
             try {
+                if (this.checker != null) {
+                    this.checker.close();
+                }
                 this.decisionProcedureConcretization.close();
                 this.decisionProcedureConcretization = null;
                 this.checker = null;
@@ -1150,8 +1926,25 @@ public final class Run {
             retVal = 2;
         }
 
-        // closes all the output streams with the exception of
-        // stdout/err
+        // stops listening for the workers
+        if (this.coordinator != null) {
+            this.coordinator.close();
+            this.coordinator = null;
+        }
+
+        // closes the streams, unless they are the worker's ones
+        if (this.worker == null) {
+            closeStreams();
+        }
+
+        return retVal;
+    }
+
+    /**
+     * Closes all the output streams with the 
+     * exception of stdout/err.
+     */
+    private void closeStreams() {
         for (PrintStream p : this.out) {
             if (p != null && p != System.out) {
                 p.close();
@@ -1162,8 +1955,76 @@ public final class Run {
                 p.close();
             }
         }
+    }
 
-        return retVal;
+    /**
+     * Starts collecting metrics, if a metrics output file
+     * is set, and possibly schedules the periodic writing 
+     * of the snapshots.
+     */
+    private void startMetrics() {
+        if (this.parameters.getMetricsOutputFile() == null) {
+            return;
+        }
+        Metrics.enable();
+        if (this.parameters.getMetricsFlightRecorderEvents() && !Metrics.enableFlightRecorderEvents()) {
+            err(WARNING_METRICS_FLIGHT_RECORDER);
+        }
+        final long interval = this.parameters.getMetricsDumpInterval();
+        if (interval > 0) {
+            this.metricsDumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread t = new Thread(r, "jbse-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            this.metricsDumper.scheduleAtFixedRate(this::dumpMetrics, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops collecting metrics and writes the
+     * last snapshot.
+     */
+    private void stopMetrics() {
+        if (this.parameters.getMetricsOutputFile() == null || !Metrics.isEnabled()) {
+            return;
+        }
+        if (this.metricsDumper != null) {
+            this.metricsDumper.shutdownNow();
+            try {
+                this.metricsDumper.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.metricsDumper = null;
+        }
+        dumpMetrics();
+        Metrics.disable();
+    }
+
+    /**
+     * Writes a snapshot of the metrics to the metrics 
+     * output file, in CSV format (appending) if the file
+     * name ends with {@code .csv}, otherwise in JSON 
+     * format (overwriting).
+     */
+    private synchronized void dumpMetrics() {
+        final Path file = this.parameters.getMetricsOutputFile();
+        try {
+            if (file.getFileName().toString().toLowerCase().endsWith(".csv")) {
+                final String snapshot = Metrics.snapshotCSV();
+                if (this.metricsHeaderWritten) {
+                    Files.write(file, snapshot.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } else {
+                    Files.write(file, (Metrics.CSV_HEADER + snapshot).getBytes(StandardCharsets.UTF_8));
+                    this.metricsHeaderWritten = true;
+                }
+            } else {
+                Files.write(file, Metrics.snapshotJSON().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            err(ERROR_METRICS_FILE_WRITE + file.toString());
+        }
     }
 
     // Private constants.
@@ -1177,6 +2038,9 @@ public final class Run {
     /** Message: trying to connect to CVC4. */
     private static final String MSG_TRY_CVC4 = "Connecting to CVC4 at ";
 
+    /** Message: trying to connect to a portfolio of Z3 and CVC4. */
+    private static final String MSG_TRY_PORTFOLIO = "Connecting to a portfolio of Z3 and CVC4 at ";
+
     /** Message: trying to initialize guidance. */
     private static final String MSG_TRY_GUIDANCE = "Initializing guidance by driver method ";
 
@@ -1198,6 +2062,21 @@ public final class Run {
     /** Message: the path is not concretizable. */
     private static final String MSG_PATH_NOT_CONCRETIZABLE = " path has not a concretizable final state.";
 
+    /** Message: listening for the workers. */
+    private static final String MSG_DISTRIBUTED_COORDINATOR = "Listening for workers on port ";
+
+    /** Message: connected to the coordinator. */
+    private static final String MSG_DISTRIBUTED_WORKER = "Connected to coordinator at ";
+
+    /** Message: waiting for the workers. */
+    private static final String MSG_DISTRIBUTED_WAITING = "Waiting for workers to explore the remaining subtrees.";
+
+    /** Message: resumed the exploration from a checkpoint (part 1). */
+    private static final String MSG_CHECKPOINT_RESUMED = "Resumed exploration from checkpoint with ";
+
+    /** Message: resumed the exploration from a checkpoint (part 2). */
+    private static final String MSG_CHECKPOINT_RESUMED_PENDING = " pending states.";
+
     /** Message: end of symbolic execution. */
     private static final String MSG_END = "Symbolic execution finished at ";
 
@@ -1213,6 +2092,18 @@ public final class Run {
     /** Message: elapsed time in the decision procedure. */
     private static final String MSG_END_DECISION = "Elapsed time in decision procedure: ";
 
+    /** Message: decision procedure queries timed out. */
+    private static final String MSG_END_QUERIES_TIMED_OUT = "Decision procedure queries timed out: ";
+
+    /** Message: decision procedure queries answered unknown. */
+    private static final String MSG_END_QUERIES_UNKNOWN = "answered unknown: ";
+
+    /** Message: undecided decision procedure queries treated as sat. */
+    private static final String MSG_END_QUERIES_AS_SAT = " (treated as satisfiable).";
+
+    /** Message: undecided decision procedure queries treated as unsat. */
+    private static final String MSG_END_QUERIES_AS_KILL_PATH = " (paths killed).";
+
     /** Message: average speed. */
     private static final String MSG_END_SPEED = "Average speed: ";
 
@@ -1225,6 +2116,9 @@ public final class Run {
     /** Message: analyzed pre-initial states. */
     private static final String MSG_END_STATES_PREINITIAL = "Analyzed pre-initial states: ";
 
+    /** Message: pruned states. */
+    private static final String MSG_END_STATES_PRUNED = "Pruned subsumed states: ";
+
     /** Message: total paths. */
     private static final String MSG_END_PATHS_TOT = "Analyzed paths: ";
 
@@ -1256,6 +2150,15 @@ public final class Run {
     private static final String WARNING_PARTIAL_REFERENCE_RESOLUTION = " not expanded, because no concrete, compatible, pre-initialized " + 
     "class was found.";
 
+    /** Warning: no checkpoint to resume from. */
+    private static final String WARNING_CHECKPOINT_NONE = "No checkpoint to resume from, starting exploration from scratch.";
+
+    /** Warning: checkpoints cannot be taken. */
+    private static final String WARNING_CHECKPOINT_UNSUPPORTED = "Checkpoints disabled, since some pending state cannot be rebuilt from its decisions.";
+
+    /** Warning: checkpoints cannot be taken because of the JUnit test suite. */
+    private static final String WARNING_CHECKPOINT_TEST_SUITE = "Checkpoints disabled, since the JUnit test suite is not written to a directory as it is produced.";
+
     /** Warning: timeout. */
     private static final String WARNING_TIMEOUT = "Timeout.";
 
@@ -1280,6 +2183,30 @@ public final class Run {
     /** Warning: a method call cannot be treated as returning an uninterpreted function value. */
     private static final String WARNING_UNINTERPRETED_UNSUPPORTED = " method call cannot be treated as returning an uninterpreted function symbolic value: ";
 
+    /** Warning: unable to emit Java Flight Recorder events. */
+    private static final String WARNING_METRICS_FLIGHT_RECORDER = "Java Flight Recorder is not available, metrics will be written to the metrics file only.";
+
+    /** Error: unable to write the metrics file. */
+    private static final String ERROR_METRICS_FILE_WRITE = "Could not write the metrics file ";
+
+    /** Error: cannot listen for the workers. */
+    private static final String ERROR_DISTRIBUTED_COORDINATOR = "Cannot listen for workers, cause: ";
+
+    /** Error: failed communication with the coordinator. */
+    private static final String ERROR_DISTRIBUTED_WORKER = "Failed communication with coordinator, cause: ";
+
+    /** Error: a subtree was abandoned. */
+    private static final String ERROR_DISTRIBUTED_SUBTREE = "No worker could explore the subtree rooted at ";
+
+    /** Error: cannot read the checkpoint file. */
+    private static final String ERROR_CHECKPOINT_READ = "Cannot read checkpoint file, cause: ";
+
+    /** Error: cannot write the checkpoint file. */
+    private static final String ERROR_CHECKPOINT_WRITE = "Cannot write checkpoint file, checkpoints disabled, cause: ";
+
+    /** Error: cannot resume the exploration from the checkpoint. */
+    private static final String ERROR_CHECKPOINT_RESUME = "Cannot resume exploration from checkpoint.";
+
     /** Error: unable to open dump file. */
     private static final String ERROR_DUMP_FILE_OPEN = "Could not open the dump file. The session will be displayed on console only.";
 
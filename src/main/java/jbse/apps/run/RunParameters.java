@@ -14,6 +14,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -29,6 +30,7 @@ import jbse.jvm.EngineParameters;
 import jbse.jvm.ExecutionObserver;
 import jbse.jvm.RunnerParameters;
 import jbse.jvm.EngineParameters.BreadthMode;
+import jbse.jvm.EngineParameters.ExplorationStrategy;
 import jbse.jvm.EngineParameters.StateIdentificationMode;
 import jbse.mem.State;
 import jbse.rewr.CalculatorRewriting;
@@ -94,7 +96,33 @@ public final class RunParameters implements Cloneable {
         Z3,
 
         /** Uses CVC4. */
-        CVC4
+        CVC4,
+        
+        /** 
+         * Uses Z3 and CVC4 in parallel, and takes the first 
+         * definite answer. 
+         */
+        PORTFOLIO
+    }
+
+    /**
+     * Enumeration of the possible ways to treat the queries 
+     * that the external decision procedure cannot decide, 
+     * either because it answers unknown or because it does 
+     * not answer in time.
+     */
+    public static enum UndecidedQueryTreatment {
+        /** 
+         * The query is considered satisfiable (conservative, 
+         * may produce infeasible paths).
+         */
+        SAT,
+        
+        /** 
+         * The query is considered unsatisfiable, and the 
+         * corresponding path is killed. 
+         */
+        KILL_PATH
     }
 
     /**
@@ -299,6 +327,28 @@ public final class RunParameters implements Cloneable {
         JUNIT_TEST
     }
 
+    /**
+     * Enumeration of the possible roles of a {@link Run} in 
+     * a distributed exploration.
+     */
+    public enum DistributedMode {
+        /** The whole state space is explored by the {@link Run}. */
+        NONE,
+
+        /** 
+         * The {@link Run} explores the state space down to the 
+         * split depth, and hands the subtrees below it to the
+         * workers that connect to it.
+         */
+        COORDINATOR,
+
+        /** 
+         * The {@link Run} connects to a coordinator and explores
+         * the subtrees it is handed, sending back the results.
+         */
+        WORKER
+    }
+
     /** The runner parameters. */
     private RunnerParameters runnerParameters;
 
@@ -314,8 +364,33 @@ public final class RunParameters implements Cloneable {
     /** The decision procedure for guidance. */
     private GuidanceType guidanceType = GuidanceType.JBSE;
     
+    /** 
+     * The number of target VMs launched in advance 
+     * by the JDI guidance (0 means none). 
+     */
+    private int guidanceJDIVMPoolSize = 0;
+    
     /** The {@link Path} where the executable of the external decision procedure is. */
     private Path externalDecisionProcedurePath = null;
+    
+    /** 
+     * The {@link Path}s where the executables of Z3 and CVC4 
+     * are, when the decision procedure is a 
+     * {@link DecisionProcedureType#PORTFOLIO}. 
+     */
+    private Path portfolioZ3Path = null, portfolioCVC4Path = null;
+    
+    /** 
+     * The maximum time in milliseconds the external decision 
+     * procedure may spend on a query (0 for no limit).
+     */
+    private long decisionProcedureQueryTimeout = 0;
+    
+    /** 
+     * How the queries the external decision procedure 
+     * cannot decide are treated. 
+     */
+    private UndecidedQueryTreatment undecidedQueryTreatment = UndecidedQueryTreatment.KILL_PATH;
 
     /** 
      * Whether the engine should use its sign analysis 
@@ -326,6 +401,12 @@ public final class RunParameters implements Cloneable {
     /** Whether the engine should do sign analysis before invoking the decision procedure. */
     private boolean doEqualityAnalysis = false;
 
+    /** 
+     * Whether the engine should use its interval and 
+     * difference bounds decision support.
+     */
+    private boolean doBoundsAnalysis = false;
+
     /** 
      * Whether the engine should use the LICS decision procedure.
      * Set to true by default because the LICS decision procedure
@@ -360,6 +441,12 @@ public final class RunParameters implements Cloneable {
     /** The count scope for conservative repOK and concretization execution. */
     private int concretizationCountScope = 0;
 
+    /** The maximum number of conservative repOK and concretization methods run in parallel. */
+    private int heapCheckParallelism = 1;
+
+    /** The number of path-end states whose concretization is checked in background. */
+    private int concretizationParallelism = 1;
+
     /** The {@link DecisionProcedureCreationStrategy} list. */
     private ArrayList<DecisionProcedureCreationStrategy> creationStrategies = new ArrayList<>();
 
@@ -387,6 +474,48 @@ public final class RunParameters implements Cloneable {
     /** The format mode. */
     private StateFormatMode stateFormatMode = StateFormatMode.FULLTEXT;
 
+    /** The maximum number of states waiting to be formatted in background (0 for no background formatting). */
+    private int stateFormatQueueSize = 0;
+
+    /** The directory where the JUnit test suite is streamed, or {@code null} for no streaming. */
+    private Path junitOutputDirectory = null;
+
+    /** The maximum number of test cases in a streamed JUnit test class (0 for no limit). */
+    private int junitTestsPerClass = 0;
+
+    /** The file where the metrics snapshots are written, or {@code null} for no metrics. */
+    private Path metricsOutputFile = null;
+
+    /** The interval in milliseconds between metrics snapshots (0 for a snapshot at the end only). */
+    private long metricsDumpInterval = 0;
+
+    /** Whether the metrics must also be emitted as Java Flight Recorder events. */
+    private boolean metricsFlightRecorderEvents = false;
+
+    /** The role in a distributed exploration. */
+    private DistributedMode distributedMode = DistributedMode.NONE;
+
+    /** The host of the coordinator, when the role is {@link DistributedMode#WORKER}. */
+    private String distributedHost = null;
+
+    /** The port of the coordinator. */
+    private int distributedPort = 0;
+
+    /** The depth of the branches below which the coordinator hands the subtrees to the workers. */
+    private int distributedSplitDepth = 0;
+
+    /** The maximum time in milliseconds a worker may stay silent (0 for no limit). */
+    private long distributedWorkerTimeout = 0;
+
+    /** The file where the checkpoints of the exploration are appended, or {@code null} for no checkpoints. */
+    private Path checkpointFile = null;
+
+    /** The minimum interval in milliseconds between two checkpoints. */
+    private long checkpointInterval = 0;
+
+    /** Whether the exploration must be resumed from the last checkpoint in the checkpoint file. */
+    private boolean checkpointResume = false;
+
     /** 
      * Maximum stack depth to which we show code;
      * if 0 we show at any depth (default).
@@ -510,6 +639,51 @@ public final class RunParameters implements Cloneable {
         return this.runnerParameters.getBreadthMode();
     }
 
+    /**
+     * Sets the exploration strategy, i.e., which 
+     * pending state will be resumed upon backtrack.
+     * 
+     * @param explorationStrategy an {@link ExplorationStrategy}.
+     * @throws NullPointerException if {@code explorationStrategy == null}.
+     */
+    public void setExplorationStrategy(ExplorationStrategy explorationStrategy) {
+        this.runnerParameters.setExplorationStrategy(explorationStrategy);
+    }
+
+    /**
+     * Gets the exploration strategy.
+     * 
+     * @return the {@link ExplorationStrategy} set by the
+     *         last call to {@link #setExplorationStrategy(ExplorationStrategy)}.
+     */
+    public ExplorationStrategy getExplorationStrategy() {
+        return this.runnerParameters.getExplorationStrategy();
+    }
+
+    /**
+     * Sets the exploration heuristic, that is used
+     * by {@link ExplorationStrategy#BEST_FIRST}.
+     * 
+     * @param explorationHeuristic a {@link ToDoubleFunction}{@code <}{@link State}{@code >}
+     *        evaluating the pending states; those with lesser 
+     *        value are resumed first.
+     * @throws NullPointerException if {@code explorationHeuristic == null}.
+     */
+    public void setExplorationHeuristic(ToDoubleFunction<State> explorationHeuristic) {
+        this.runnerParameters.setExplorationHeuristic(explorationHeuristic);
+    }
+
+    /**
+     * Gets the exploration heuristic.
+     * 
+     * @return the {@link ToDoubleFunction}{@code <}{@link State}{@code >} set by the
+     *         last call to {@link #setExplorationHeuristic(ToDoubleFunction)}, or
+     *         {@code null} if none was set.
+     */
+    public ToDoubleFunction<State> getExplorationHeuristic() {
+        return this.runnerParameters.getExplorationHeuristic();
+    }
+
     /** 
      * Adds an {@link ExecutionObserver} performing additional
      * actions when a field changes its value.
@@ -1152,6 +1326,145 @@ public final class RunParameters implements Cloneable {
         return this.runnerParameters.getMaxHeapSize();
     }
     
+    /**
+     * Sets the heap collection threshold. When it is positive, 
+     * during the symbolic execution the heap objects that were
+     * allocated since the last collection and became unreachable 
+     * are disposed, when a frame returns and at least this number 
+     * of objects were allocated, or anyway when four times this 
+     * number of objects were allocated. By default it is 0, i.e., 
+     * the heap is collected only at the initial state.
+     * 
+     * @param heapCollectionThreshold an {@code int}.
+     */
+    public void setHeapCollectionThreshold(int heapCollectionThreshold) {
+        this.runnerParameters.setHeapCollectionThreshold(heapCollectionThreshold);
+    }
+    
+    /**
+     * Returns the heap collection threshold.
+     * 
+     * @return an {@code int}.
+     */
+    public int getHeapCollectionThreshold() {
+        return this.runnerParameters.getHeapCollectionThreshold();
+    }
+    
+    /**
+     * Sets the maximum number of differing primitive values
+     * that two states reaching the same program point may have 
+     * to be merged into a single state. When it is positive, 
+     * after each step the current state is merged, if possible, 
+     * with a state that remains to be explored and is at the 
+     * same program point; The differing values are replaced by 
+     * fresh values constrained by the disjunction of the (numeric)
+     * path condition clauses of the two states. By default it is 0, 
+     * i.e., no state is merged.
+     * 
+     * @param stateMergeMaxValues an {@code int}.
+     */
+    public void setStateMergeMaxValues(int stateMergeMaxValues) {
+        this.runnerParameters.setStateMergeMaxValues(stateMergeMaxValues);
+    }
+    
+    /**
+     * Returns the maximum number of differing primitive 
+     * values of two states that can be merged.
+     * 
+     * @return an {@code int}.
+     */
+    public int getStateMergeMaxValues() {
+        return this.runnerParameters.getStateMergeMaxValues();
+    }
+    
+    /**
+     * Sets the frontier memory threshold, a percentage of the 
+     * maximum heap size of the virtual machine. When it is positive,
+     * and the heap occupancy exceeds it, until the occupancy falls
+     * below the threshold the pending post-initial states are stored
+     * as the decisions that lead to them, and are rebuilt by replaying
+     * these decisions when they are resumed (see 
+     * {@link #setFrontierReplay(boolean)}). This is what frees memory, 
+     * under every exploration strategy, depth-first included. Moreover,
+     * the pending states are resumed depth-first independently on 
+     * the exploration strategy: This bounds the number of pending 
+     * states, but has no effect under the depth-first strategy. 
+     * By default it is 0, i.e., the exploration strategy is always 
+     * followed and the pending states are always stored as they are.
+     * 
+     * @param frontierMemoryThreshold an {@code int}.
+     */
+    public void setFrontierMemoryThreshold(int frontierMemoryThreshold) {
+        this.runnerParameters.setFrontierMemoryThreshold(frontierMemoryThreshold);
+    }
+    
+    /**
+     * Returns the frontier memory threshold.
+     * 
+     * @return an {@code int}.
+     */
+    public int getFrontierMemoryThreshold() {
+        return this.runnerParameters.getFrontierMemoryThreshold();
+    }
+    
+    /**
+     * Sets whether the pending states may be stored as the 
+     * sequence of the decisions that lead to them from the 
+     * initial state, rather than as states. When it is set and
+     * the heap occupancy exceeds the frontier memory threshold
+     * (see {@link #setFrontierMemoryThreshold(int)}), the pending
+     * post-initial states are dropped and are rebuilt by replaying 
+     * their decisions, without querying the decision procedure 
+     * for satisfiability, when they are resumed. It has no effect
+     * when the states are merged (see {@link #setStateMergeMaxValues(int)})
+     * or the execution is guided. By default it is set: Since the 
+     * pending states are stored as decisions only when the frontier 
+     * memory threshold is positive, and the latter is 0 by default, 
+     * this does not change how the pending states are stored unless
+     * a threshold is set. Unset it to keep the pending states as 
+     * they are also under memory pressure.
+     * 
+     * @param frontierReplay a {@code boolean}.
+     */
+    public void setFrontierReplay(boolean frontierReplay) {
+        this.runnerParameters.setFrontierReplay(frontierReplay);
+    }
+    
+    /**
+     * Returns whether the pending states may be rebuilt 
+     * by replaying their decisions.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getFrontierReplay() {
+        return this.runnerParameters.getFrontierReplay();
+    }
+    
+    /**
+     * Sets whether the states that are subsumed by a previously 
+     * explored state, i.e., that are at the same program point 
+     * with an isomorphic heap and a path condition that implies 
+     * the path condition of the previous state, must be pruned. 
+     * A state is not pruned because of a state with greater depth 
+     * or count, and the states are never pruned when the execution
+     * is guided, since the guided path might be pruned. By default
+     * they are not pruned.
+     * 
+     * @param pruneSubsumedStates a {@code boolean}.
+     */
+    public void setPruneSubsumedStates(boolean pruneSubsumedStates) {
+        this.runnerParameters.setPruneSubsumedStates(pruneSubsumedStates);
+    }
+    
+    /**
+     * Returns whether the subsumed states must be pruned.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getPruneSubsumedStates() {
+        return this.runnerParameters.getPruneSubsumedStates();
+    }
+    
     /**
      * Sets whether the classes created during
      * the pre-initialization phase shall be (pedantically)
@@ -1200,6 +1513,32 @@ public final class RunParameters implements Cloneable {
     public boolean getUseHashMapModel() {
     	return this.runnerParameters.getUseHashMapModel();
     }
+    
+    /**
+     * Sets whether some methods of {@code java.lang.String}
+     * must be executed at the meta-level on symbolic strings, 
+     * by representing their results as terms in the SMT-LIB 
+     * strings theory.
+     * 
+     * @param useStringTheory a {@code boolean}. If {@code true}
+     *        {@code equals} and {@code indexOf} on symbolic strings
+     *        will not branch on the characters of the strings, 
+     *        and the SMT solver will be configured to use the 
+     *        strings theory.
+     */
+    public void setUseStringTheory(boolean useStringTheory) {
+    	this.runnerParameters.setUseStringTheory(useStringTheory);
+    }
+    
+    /**
+     * Returns whether some methods of {@code java.lang.String}
+     * must be executed at the meta-level on symbolic strings.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getUseStringTheory() {
+    	return this.runnerParameters.getUseStringTheory();
+    }
 
     /**
      * Sets a timeout for execution.
@@ -1507,6 +1846,90 @@ public final class RunParameters implements Cloneable {
         return this.externalDecisionProcedurePath;
     }
 
+    /**
+     * Sets the pathnames of the executables of the 
+     * decision procedures raced by a 
+     * {@link DecisionProcedureType#PORTFOLIO}.
+     * 
+     * @param z3Path a {@link Path} to the Z3 executable, 
+     *        or {@code null} to use the default one.
+     * @param cvc4Path a {@link Path} to the CVC4 executable, 
+     *        or {@code null} to use the default one.
+     */
+    public void setPortfolioPaths(Path z3Path, Path cvc4Path) {
+        this.portfolioZ3Path = z3Path;
+        this.portfolioCVC4Path = cvc4Path;
+    }
+
+    /**
+     * Gets the pathname of the Z3 executable set with 
+     * {@link #setPortfolioPaths(Path, Path)}.
+     * 
+     * @return a {@link Path}, or {@code null} for the default.
+     */
+    public Path getPortfolioZ3Path() {
+        return this.portfolioZ3Path;
+    }
+
+    /**
+     * Gets the pathname of the CVC4 executable set with 
+     * {@link #setPortfolioPaths(Path, Path)}.
+     * 
+     * @return a {@link Path}, or {@code null} for the default.
+     */
+    public Path getPortfolioCVC4Path() {
+        return this.portfolioCVC4Path;
+    }
+
+    /**
+     * Sets the maximum time the external decision procedure 
+     * may spend on a satisfiability query. When it is exceeded 
+     * the solver process is killed and restarted, and the query 
+     * is treated as set with {@link #setUndecidedQueryTreatment(UndecidedQueryTreatment)}.
+     * 
+     * @param decisionProcedureQueryTimeout a {@code long}, the 
+     *        time in milliseconds; if it is less or equal to 0
+     *        (default) there is no limit.
+     */
+    public void setDecisionProcedureQueryTimeout(long decisionProcedureQueryTimeout) {
+        this.decisionProcedureQueryTimeout = decisionProcedureQueryTimeout;
+    }
+
+    /**
+     * Gets the maximum time the external decision procedure 
+     * may spend on a satisfiability query.
+     * 
+     * @return a {@code long}, the time in milliseconds.
+     */
+    public long getDecisionProcedureQueryTimeout() {
+        return this.decisionProcedureQueryTimeout;
+    }
+
+    /**
+     * Sets how the satisfiability queries that the external
+     * decision procedure answers unknown, or does not answer 
+     * in time, are treated.
+     * 
+     * @param undecidedQueryTreatment an {@link UndecidedQueryTreatment}. 
+     *        The default is {@link UndecidedQueryTreatment#KILL_PATH}.
+     * @throws NullPointerException if {@code undecidedQueryTreatment == null}.
+     */
+    public void setUndecidedQueryTreatment(UndecidedQueryTreatment undecidedQueryTreatment) {
+        if (undecidedQueryTreatment == null) {
+            throw new NullPointerException();
+        }
+        this.undecidedQueryTreatment = undecidedQueryTreatment;
+    }
+
+    /**
+     * Gets how the undecided satisfiability queries are treated.
+     * 
+     * @return an {@link UndecidedQueryTreatment}.
+     */
+    public UndecidedQueryTreatment getUndecidedQueryTreatment() {
+        return this.undecidedQueryTreatment;
+    }
+
     /**
      * Adds a creation strategy to the strategies 
      * for creating the {@link DecisionProcedure}.
@@ -1561,6 +1984,29 @@ public final class RunParameters implements Cloneable {
         return this.doSignAnalysis;
     }
 
+    /**
+     * Sets whether the engine should perform interval and
+     * difference bounds analysis for deciding inequations 
+     * before invoking the decision procedure
+     * set with {@link #setDecisionProcedureType(DecisionProcedureType)}.
+     * 
+     * @param doBoundsAnalysis {@code true} iff the engine must do 
+     *        bounds analysis.
+     */
+    public void setDoBoundsAnalysis(boolean doBoundsAnalysis) {
+        this.doBoundsAnalysis = doBoundsAnalysis;
+    }
+
+    /**
+     * Gets whether the engine should perform interval and
+     * difference bounds analysis for deciding inequations.
+     * 
+     * @return {@code true} iff the engine must do bounds analysis.
+     */
+    public boolean getDoBoundsAnalysis() {
+        return this.doBoundsAnalysis;
+    }
+
     /**
      * Sets whether the engine should decide equality with a
      * simple closure algorithm. 
@@ -1724,6 +2170,52 @@ public final class RunParameters implements Cloneable {
         this.concretizationCountScope = 0; 
     }
 
+    /**
+     * Sets the maximum number of concretization or conservative 
+     * repOk methods that are run in parallel when checking a heap. 
+     * By default they are run sequentially.
+     * 
+     * @param heapCheckParallelism an {@code int}; if it is 
+     *        less or equal to 1 the methods are run sequentially.
+     */
+    public void setHeapCheckParallelism(int heapCheckParallelism) { 
+        this.heapCheckParallelism = heapCheckParallelism; 
+    }
+
+    /**
+     * Gets the maximum number of concretization or conservative 
+     * repOk methods that are run in parallel when checking a heap. 
+     * 
+     * @return an {@code int}.
+     */
+    public int getHeapCheckParallelism() { 
+        return this.heapCheckParallelism; 
+    }
+
+    /**
+     * Sets the number of final states whose concretizability 
+     * is checked at the same time, in background, while the 
+     * symbolic execution goes on. By default the check of a 
+     * final state is done synchronously at the end of its path.
+     * 
+     * @param concretizationParallelism an {@code int}; if it is 
+     *        less or equal to 1 the final states are checked 
+     *        synchronously.
+     */
+    public void setConcretizationParallelism(int concretizationParallelism) { 
+        this.concretizationParallelism = concretizationParallelism; 
+    }
+
+    /**
+     * Gets the number of final states whose concretizability 
+     * is checked at the same time, in background. 
+     * 
+     * @return an {@code int}.
+     */
+    public int getConcretizationParallelism() { 
+        return this.concretizationParallelism; 
+    }
+
     /**
      * Sets whether the engine should use LICS rules
      * to decide on references resolution. By default
@@ -2303,6 +2795,363 @@ public final class RunParameters implements Cloneable {
     public StateFormatMode getStateFormatMode() {
         return this.stateFormatMode;
     }
+
+    /**
+     * Sets the size of the state formatting queue. When it is 
+     * positive, the states are formatted and printed by a background 
+     * thread, and at most this number of states wait to be formatted;
+     * when the queue is full the symbolic execution waits. This does 
+     * not apply to the {@link StateFormatMode#JUNIT_TEST} format mode,
+     * that needs the decision procedure at formatting time. By default 
+     * it is 0, i.e., the states are formatted synchronously.
+     * 
+     * @param stateFormatQueueSize an {@code int}.
+     */
+    public void setStateFormatQueueSize(int stateFormatQueueSize) {
+        this.stateFormatQueueSize = stateFormatQueueSize;
+    }
+
+    /**
+     * Gets the size of the state formatting queue.
+     * 
+     * @return an {@code int}.
+     */
+    public int getStateFormatQueueSize() {
+        return this.stateFormatQueueSize;
+    }
+
+    /**
+     * Sets the directory where the JUnit test suite must 
+     * be written. When set and the state format mode is 
+     * {@link StateFormatMode#JUNIT_TEST} the test cases are 
+     * written to this directory as soon as they are produced, 
+     * rather than emitted on the output, and duplicate test 
+     * cases are discarded.
+     * 
+     * @param junitOutputDirectory a {@link Path}, or {@code null}
+     *        to emit the test suite on the output (default).
+     */
+    public void setJUnitOutputDirectory(Path junitOutputDirectory) { 
+        this.junitOutputDirectory = junitOutputDirectory; 
+    }
+
+    /**
+     * Gets the directory where the JUnit test suite must 
+     * be written.
+     * 
+     * @return a {@link Path}, or {@code null} if the test 
+     *         suite must be emitted on the output.
+     */
+    public Path getJUnitOutputDirectory() {
+        return this.junitOutputDirectory;
+    }
+
+    /**
+     * Sets the maximum number of test cases in each test
+     * class written to the JUnit output directory (see 
+     * {@link #setJUnitOutputDirectory(Path)}). 
+     * 
+     * @param junitTestsPerClass an {@code int}; if it is 
+     *        less or equal to 0 (default) all the test cases 
+     *        are written in one test class.
+     */
+    public void setJUnitTestsPerClass(int junitTestsPerClass) { 
+        this.junitTestsPerClass = junitTestsPerClass; 
+    }
+
+    /**
+     * Gets the maximum number of test cases in each test
+     * class written to the JUnit output directory. 
+     * 
+     * @return an {@code int}.
+     */
+    public int getJUnitTestsPerClass() {
+        return this.junitTestsPerClass;
+    }
+
+    /**
+     * Sets the file where the snapshots of the engine and 
+     * decision procedure metrics must be written. When set, 
+     * the metrics are collected during the run; the snapshots 
+     * are in CSV format (appended) if the file name ends
+     * with {@code .csv}, otherwise in JSON format (overwritten).
+     * 
+     * @param metricsOutputFile a {@link Path}, or {@code null}
+     *        for no metrics (default).
+     */
+    public void setMetricsOutputFile(Path metricsOutputFile) { 
+        this.metricsOutputFile = metricsOutputFile; 
+    }
+
+    /**
+     * Gets the file where the snapshots of the metrics
+     * must be written.
+     * 
+     * @return a {@link Path}, or {@code null} if no 
+     *         metrics must be collected.
+     */
+    public Path getMetricsOutputFile() {
+        return this.metricsOutputFile;
+    }
+
+    /**
+     * Sets the interval between two snapshots of the 
+     * metrics (see {@link #setMetricsOutputFile(Path)}). 
+     * 
+     * @param metricsDumpInterval a {@code long}, the interval
+     *        in milliseconds; if it is less or equal to 0 
+     *        (default) only one snapshot is written at the 
+     *        end of the run.
+     */
+    public void setMetricsDumpInterval(long metricsDumpInterval) { 
+        this.metricsDumpInterval = metricsDumpInterval; 
+    }
+
+    /**
+     * Gets the interval between two snapshots of the 
+     * metrics. 
+     * 
+     * @return a {@code long}, the interval in milliseconds.
+     */
+    public long getMetricsDumpInterval() {
+        return this.metricsDumpInterval;
+    }
+
+    /**
+     * Sets whether the latencies collected as metrics 
+     * must also be emitted as Java Flight Recorder events.
+     * It has effect only if the JVM supports Java Flight
+     * Recorder and a metrics output file is set (see 
+     * {@link #setMetricsOutputFile(Path)}).
+     * 
+     * @param metricsFlightRecorderEvents a {@code boolean}.
+     */
+    public void setMetricsFlightRecorderEvents(boolean metricsFlightRecorderEvents) { 
+        this.metricsFlightRecorderEvents = metricsFlightRecorderEvents; 
+    }
+
+    /**
+     * Gets whether the latencies collected as metrics 
+     * must also be emitted as Java Flight Recorder events.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getMetricsFlightRecorderEvents() {
+        return this.metricsFlightRecorderEvents;
+    }
+
+    /**
+     * Sets this run as the coordinator of a distributed 
+     * exploration. The coordinator explores the state space
+     * down to the branches at a given depth, listens on a port
+     * for the workers (see {@link #setDistributedWorker(String, int)}), 
+     * and hands each of them the subtrees rooted at the branches 
+     * at that depth, one at a time. The workers must be run
+     * with the same parameters as the coordinator, and the 
+     * branch identifiers must not depend on which states were
+     * explored before, thus the states should not be merged 
+     * (see {@link #setStateMergeMaxValues(int)}) nor pruned 
+     * (see {@link #setPruneSubsumedStates(boolean)}).
+     * 
+     * @param port an {@code int}, the port where the coordinator
+     *        listens for the workers.
+     * @param splitDepth a positive {@code int}, the depth of the 
+     *        branches below which the subtrees are handed to the 
+     *        workers; e.g., if it is 2 the subtrees are those 
+     *        rooted at .1.1.1, .1.1.2, .1.2.1...
+     * @throws InvalidInputException if {@code splitDepth <= 0}.
+     */
+    public void setDistributedCoordinator(int port, int splitDepth) throws InvalidInputException {
+        if (splitDepth <= 0) {
+            throw new InvalidInputException("Tried to set a nonpositive split depth for a distributed exploration.");
+        }
+        this.distributedMode = DistributedMode.COORDINATOR;
+        this.distributedHost = null;
+        this.distributedPort = port;
+        this.distributedSplitDepth = splitDepth;
+    }
+
+    /**
+     * Sets this run as a worker of a distributed exploration 
+     * (see {@link #setDistributedCoordinator(int, int)}). 
+     * The worker connects to the coordinator and, for each 
+     * subtree it is handed, replays the path to the root of 
+     * the subtree and explores the subtree, streaming back 
+     * the results of the paths and, at the end, the statistics.
+     * It stops when the coordinator has no more subtrees.
+     * 
+     * @param host a {@link String}, the host of the coordinator.
+     * @param port an {@code int}, the port of the coordinator.
+     * @throws NullPointerException if {@code host == null}.
+     */
+    public void setDistributedWorker(String host, int port) {
+        if (host == null) {
+            throw new NullPointerException();
+        }
+        this.distributedMode = DistributedMode.WORKER;
+        this.distributedHost = host;
+        this.distributedPort = port;
+        this.distributedSplitDepth = 0;
+    }
+
+    /**
+     * Sets this run to explore the whole state space
+     * by itself, cancelling the effect of any previous 
+     * invocation of {@link #setDistributedCoordinator(int, int)}
+     * or {@link #setDistributedWorker(String, int)}. This 
+     * is the default.
+     */
+    public void setDistributedNone() {
+        this.distributedMode = DistributedMode.NONE;
+        this.distributedHost = null;
+        this.distributedPort = 0;
+        this.distributedSplitDepth = 0;
+    }
+
+    /**
+     * Gets the role in a distributed exploration.
+     * 
+     * @return a {@link DistributedMode}.
+     */
+    public DistributedMode getDistributedMode() {
+        return this.distributedMode;
+    }
+
+    /**
+     * Gets the host of the coordinator of a 
+     * distributed exploration.
+     * 
+     * @return a {@link String}, or {@code null} if 
+     *         {@link #getDistributedMode()} {@code != }{@link DistributedMode#WORKER}.
+     */
+    public String getDistributedHost() {
+        return this.distributedHost;
+    }
+
+    /**
+     * Gets the port of the coordinator of a 
+     * distributed exploration.
+     * 
+     * @return an {@code int}.
+     */
+    public int getDistributedPort() {
+        return this.distributedPort;
+    }
+
+    /**
+     * Gets the depth of the branches below which the 
+     * coordinator hands the subtrees to the workers.
+     * 
+     * @return an {@code int}, {@code 0} if 
+     *         {@link #getDistributedMode()} {@code != }{@link DistributedMode#COORDINATOR}.
+     */
+    public int getDistributedSplitDepth() {
+        return this.distributedSplitDepth;
+    }
+
+    /**
+     * Sets the maximum time the coordinator of a distributed
+     * exploration waits for a message from a worker. When the
+     * time elapses, or the connection with the worker is lost,
+     * the subtree the worker was exploring is handed to another
+     * worker. 
+     * 
+     * @param distributedWorkerTimeout a {@code long}, the time 
+     *        in milliseconds; if it is less or equal to 0 
+     *        (default) the coordinator waits indefinitely.
+     */
+    public void setDistributedWorkerTimeout(long distributedWorkerTimeout) {
+        this.distributedWorkerTimeout = distributedWorkerTimeout;
+    }
+
+    /**
+     * Gets the maximum time the coordinator of a distributed
+     * exploration waits for a message from a worker.
+     * 
+     * @return a {@code long}, the time in milliseconds.
+     */
+    public long getDistributedWorkerTimeout() {
+        return this.distributedWorkerTimeout;
+    }
+
+    /**
+     * Sets the file where the checkpoints of the exploration 
+     * are written. A checkpoint records the pending branches 
+     * of the symbolic execution tree as the decisions that lead 
+     * to them, the counters of the paths and the number of the
+     * emitted test cases. The checkpoints are appended to the 
+     * file, so a crash while a checkpoint is written does not 
+     * corrupt the previous ones. Checkpoints are not taken 
+     * when the states are merged, when the execution is guided,
+     * in distributed explorations, and when a JUnit test suite
+     * is emitted but not streamed to a directory. When it is 
+     * streamed, every checkpoint closes the current test class, 
+     * so the test classes written before it are complete.
+     * 
+     * @param checkpointFile a {@link Path}, or {@code null}
+     *        for no checkpoints (default).
+     */
+    public void setCheckpointFile(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Gets the file where the checkpoints of the exploration 
+     * are written.
+     * 
+     * @return a {@link Path}, or {@code null} if no 
+     *         checkpoints must be taken.
+     */
+    public Path getCheckpointFile() {
+        return this.checkpointFile;
+    }
+
+    /**
+     * Sets the minimum interval between two checkpoints
+     * (see {@link #setCheckpointFile(Path)}). Checkpoints
+     * are taken at the end of the paths.
+     * 
+     * @param checkpointInterval a {@code long}, the interval
+     *        in milliseconds; if it is less or equal to 0 
+     *        (default) a checkpoint is taken at the end of 
+     *        every path.
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Gets the minimum interval between two checkpoints.
+     * 
+     * @return a {@code long}, the interval in milliseconds.
+     */
+    public long getCheckpointInterval() {
+        return this.checkpointInterval;
+    }
+
+    /**
+     * Sets whether the exploration must be resumed from the
+     * last checkpoint in the checkpoint file (see 
+     * {@link #setCheckpointFile(Path)}), so that the subtrees 
+     * explored before the checkpoint are not explored again. 
+     * If the file contains no checkpoint the exploration 
+     * starts from scratch.
+     * 
+     * @param checkpointResume a {@code boolean}.
+     */
+    public void setCheckpointResume(boolean checkpointResume) {
+        this.checkpointResume = checkpointResume;
+    }
+
+    /**
+     * Gets whether the exploration must be resumed from 
+     * the last checkpoint.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getCheckpointResume() {
+        return this.checkpointResume;
+    }
     
     /**
      * Sets the path of the source files.
@@ -2485,6 +3334,32 @@ public final class RunParameters implements Cloneable {
         this.guidanceType = guidanceType;
     }
 
+    /**
+     * Sets the number of target VMs that the JDI guidance 
+     * launches in advance, and keeps suspended at the entry 
+     * of the method under analysis, to evaluate the 
+     * uninterpreted functions. By default it is {@code 0}, 
+     * i.e., a target VM is launched whenever an uninterpreted
+     * function must be evaluated.
+     * 
+     * @param guidanceJDIVMPoolSize an {@code int}. If 
+     *        {@code guidanceJDIVMPoolSize < 0} it is set 
+     *        to {@code 0}.
+     */
+    public void setGuidanceJDIVMPoolSize(int guidanceJDIVMPoolSize) {
+        this.guidanceJDIVMPoolSize = Math.max(0, guidanceJDIVMPoolSize);
+    }
+    
+    /**
+     * Returns the number of target VMs that the JDI guidance 
+     * launches in advance.
+     * 
+     * @return a nonnegative {@code int}.
+     */
+    public int getGuidanceJDIVMPoolSize() {
+        return this.guidanceJDIVMPoolSize;
+    }
+    
     /**
      * Sets ordinary symbolic execution, not guided by a concrete one.
      * This is the default behaviour.
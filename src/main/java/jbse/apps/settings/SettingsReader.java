@@ -106,6 +106,18 @@ public class SettingsReader {
         }        
     }
 
+    public void fillDecisionProcedures(RunParameters params) {
+        for (String name : this.parser.decisionProcedures) {
+            if ("bounds".equals(name)) {
+                params.setDoBoundsAnalysis(true);
+            } else if ("sign".equals(name)) {
+                params.setDoSignAnalysis(true);
+            } else if ("equality".equals(name)) {
+                params.setDoEqualityAnalysis(true);
+            }
+        }
+    }
+
     /**
      * Fills an {@link EngineParameters} object with the data read 
      * from the settings file.
@@ -141,5 +153,6 @@ public class SettingsReader {
         fillRunnerParameters(params.getRunnerParameters());
         fillRulesLICS(params.getLICSRulesRepo());
         fillRulesClassInit(params.getClassInitRulesRepo());
+        fillDecisionProcedures(params);
     }
 }
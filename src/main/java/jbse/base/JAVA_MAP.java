@@ -37,6 +37,8 @@ implements Map<K, V>, Cloneable, Serializable {
 		KK key;
 		VV value;
 		NNode next;
+		long hash;
+		NNodePair<KK, VV> nextInBucket;
 
 		public int pairHashCode() {
 			return (this.key == null ? 0 : this.key.hashCode()) ^
@@ -95,6 +97,27 @@ implements Map<K, V>, Cloneable, Serializable {
 	 */
 	private int numNodes;
 
+	/**
+	 * The nodes in root.(next)* whose key has a concrete hash
+	 * code, bucketed by hash code and chained through nextInBucket. 
+	 * The nodes whose key has a symbolic hash code are only
+	 * reachable from root.
+	 */
+	private NNodePair<K, V>[] buckets;
+
+	/** 
+	 * The number of nodes in root.(next)* whose key has
+	 * a concrete hash code.
+	 */
+	private int numNodesConcreteHash;
+
+	/**
+	 * The hash of the nodes whose key has a symbolic hash code. 
+	 */
+	private static final long SYMBOLIC_HASH = Long.MIN_VALUE;
+
+	private static final int BUCKETS_INITIAL_CAPACITY = 1 << 4;
+
 	// Constructors
 
 	private static final int MAXIMUM_CAPACITY = 1 << 30;
@@ -119,6 +142,8 @@ implements Map<K, V>, Cloneable, Serializable {
 		this.size = 0;
 		this.root = new NNodeEmpty();
 		this.numNodes = 0;
+		this.buckets = newBuckets(BUCKETS_INITIAL_CAPACITY);
+		this.numNodesConcreteHash = 0;
 	}
 
 	public JAVA_MAP(int initialCapacity) {
@@ -146,22 +171,137 @@ implements Map<K, V>, Cloneable, Serializable {
 		return (size() == 0);
 	}
 	
-	@SuppressWarnings("unchecked")
-	private static <KK, VV> JAVA_MAP.NNodePair<KK, VV> findNodeKey(JAVA_MAP.NNode root, KK key) {
+	/**
+	 * Returns the hash code of a key, if it is concrete. Only the
+	 * hash codes of the {@link String}s and of the boxes of the
+	 * integral types are calculated, after checking that doing so
+	 * does not branch on their content; the keys of the other 
+	 * classes might have symbolic fields, and their 
+	 * {@code hashCode} might branch or throw on them.
+	 * 
+	 * @param key a key.
+	 * @return the hash code of {@code key} if {@code key} is
+	 *         not symbolic and its hash code is concrete, 
+	 *         otherwise {@link #SYMBOLIC_HASH}.
+	 */
+	private static long concreteHash(Object key) {
 		if (key == null) {
-			for (JAVA_MAP.NNode nInitial = root; nInitial instanceof JAVA_MAP.NNodePair; nInitial = ((JAVA_MAP.NNodePair<KK, VV>) nInitial).next) {
-				final JAVA_MAP.NNodePair<KK, VV> npInitial = (JAVA_MAP.NNodePair<KK, VV>) nInitial;
-				if (npInitial.key == null) {
-					return npInitial;
+			return 0;
+		}
+		if (isSymbolic(key)) {
+			return SYMBOLIC_HASH;
+		}
+		final Class<?> keyClass = key.getClass();
+		if (keyClass == String.class) {
+			if (isSymbolic(((String) key).length())) {
+				return SYMBOLIC_HASH; //String.hashCode would branch on the length
+			}
+		} else if (keyClass == Boolean.class) {
+			if (isSymbolic(((Boolean) key).booleanValue())) {
+				return SYMBOLIC_HASH; //Boolean.hashCode would branch on the value
+			}
+		} else if (keyClass != Integer.class && keyClass != Long.class && keyClass != Short.class && 
+				   keyClass != Byte.class && keyClass != Character.class) {
+			return SYMBOLIC_HASH;
+		}
+		final int hash = key.hashCode();
+		return (isSymbolic(hash) ? SYMBOLIC_HASH : hash);
+	}
+
+	private static int bucketIndex(long hash, int numBuckets) {
+		final int h = (int) hash;
+		return (h ^ (h >>> 16)) & (numBuckets - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <KK, VV> JAVA_MAP.NNodePair<KK, VV>[] newBuckets(int numBuckets) {
+		return (JAVA_MAP.NNodePair<KK, VV>[]) new JAVA_MAP.NNodePair<?, ?>[numBuckets];
+	}
+
+	/**
+	 * Adds a node to the buckets, if the hash code of its key 
+	 * is concrete. Must be invoked before linking the node
+	 * in root.(next)*.
+	 * 
+	 * @param p the node.
+	 */
+	@SuppressWarnings("unchecked")
+	private void indexNode(JAVA_MAP.NNodePair<K, V> p) {
+		if (p.hash == SYMBOLIC_HASH) {
+			return;
+		}
+		if (this.numNodesConcreteHash >= this.buckets.length) {
+			//rehashes
+			this.buckets = newBuckets(this.buckets.length * 2);
+			for (JAVA_MAP.NNode n = this.root; n instanceof JAVA_MAP.NNodePair; n = ((JAVA_MAP.NNodePair<K, V>) n).next) {
+				final JAVA_MAP.NNodePair<K, V> np = (JAVA_MAP.NNodePair<K, V>) n;
+				if (np.hash != SYMBOLIC_HASH) {
+					final int i = bucketIndex(np.hash, this.buckets.length);
+					np.nextInBucket = this.buckets[i];
+					this.buckets[i] = np;
 				}
 			}
+		}
+		final int i = bucketIndex(p.hash, this.buckets.length);
+		p.nextInBucket = this.buckets[i];
+		this.buckets[i] = p;
+		++this.numNodesConcreteHash;
+	}
+
+	/**
+	 * Removes a node from the buckets.
+	 * 
+	 * @param p the node.
+	 */
+	private void unindexNode(JAVA_MAP.NNodePair<K, V> p) {
+		if (p.hash == SYMBOLIC_HASH) {
+			return;
+		}
+		final int i = bucketIndex(p.hash, this.buckets.length);
+		if (this.buckets[i] == p) {
+			this.buckets[i] = p.nextInBucket;
 		} else {
-			for (JAVA_MAP.NNode nInitial = root; nInitial instanceof JAVA_MAP.NNodePair; nInitial = ((JAVA_MAP.NNodePair<KK, VV>) nInitial).next) {
-				final JAVA_MAP.NNodePair<KK, VV> npInitial = (JAVA_MAP.NNodePair<KK, VV>) nInitial;
-				if (key.equals(npInitial.key)) {
-					return npInitial;
+			JAVA_MAP.NNodePair<K, V> q = this.buckets[i];
+			while (q.nextInBucket != p) {
+				q = q.nextInBucket;
+			}
+			q.nextInBucket = p.nextInBucket;
+		}
+		p.nextInBucket = null;
+		--this.numNodesConcreteHash;
+	}
+
+	/**
+	 * Finds the node of a key in root.(next)*. If the key has a 
+	 * concrete hash code, it is compared only with the keys in its 
+	 * bucket and with the keys that have a symbolic hash code, so 
+	 * the lookup does not branch on the other keys.
+	 * 
+	 * @param key the key.
+	 * @return the matching node, or {@code null} if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	private JAVA_MAP.NNodePair<K, V> findNodeKey(Object key) {
+		final long hash = concreteHash(key);
+		if (hash != SYMBOLIC_HASH) {
+			for (JAVA_MAP.NNodePair<K, V> np = this.buckets[bucketIndex(hash, this.buckets.length)]; np != null; np = np.nextInBucket) {
+				if (np.hash == hash && (key == null ? np.key == null : key.equals(np.key))) {
+					return np;
 				}
 			}
+			if (this.numNodesConcreteHash == this.numNodes) {
+				//no key with symbolic hash code may match
+				return null;
+			}
+		}
+		for (JAVA_MAP.NNode n = this.root; n instanceof JAVA_MAP.NNodePair; n = ((JAVA_MAP.NNodePair<K, V>) n).next) {
+			final JAVA_MAP.NNodePair<K, V> np = (JAVA_MAP.NNodePair<K, V>) n;
+			if (hash != SYMBOLIC_HASH && np.hash != SYMBOLIC_HASH) {
+				continue; //already checked in the bucket
+			}
+			if (key == null ? np.key == null : key.equals(np.key)) {
+				return np;
+			}
 		}
 		return null;
 	}
@@ -197,7 +337,7 @@ implements Map<K, V>, Cloneable, Serializable {
 		}
 
 		//if not absent, checks in the nodes
-		if (findNodeKey(this.root, key) != null) {
+		if (findNodeKey(key) != null) {
 			return true;
 		}
 
@@ -255,7 +395,7 @@ implements Map<K, V>, Cloneable, Serializable {
 		}
 
 		//if not absent, checks in the nodes
-		final JAVA_MAP.NNodePair<K, V> np = (JAVA_MAP.NNodePair<K, V>) findNodeKey(this.root, key);
+		final JAVA_MAP.NNodePair<K, V> np = findNodeKey(key);
 		if (np != null) {
 			return np.value;
 		}
@@ -280,6 +420,8 @@ implements Map<K, V>, Cloneable, Serializable {
 		final JAVA_MAP.NNodePair<K, V> p = new JAVA_MAP.NNodePair<>();
 		p.key = key;
 		p.value = value;
+		p.hash = concreteHash(key);
+		indexNode(p);
 		JAVA_MAP.NNode n;
 		for (n = this.root; n instanceof JAVA_MAP.NNodePair<?, ?>; n = ((JAVA_MAP.NNodePair<?, ?>) n).next) {
 			if (((JAVA_MAP.NNodePair<?, ?>) n).next instanceof JAVA_MAP.NNodeEmpty) {
@@ -308,7 +450,7 @@ implements Map<K, V>, Cloneable, Serializable {
 		}
 
 		//looks for a matching NodePair in this.root.(next)*
-		final JAVA_MAP.NNodePair<K, V> matchingPair = (JAVA_MAP.NNodePair<K, V>) findNodeKey(this.root, key);
+		final JAVA_MAP.NNodePair<K, V> matchingPair = findNodeKey(key);
 
 		if (matchingPair == null) {
 			//no matching NodePair
@@ -339,7 +481,7 @@ implements Map<K, V>, Cloneable, Serializable {
 				//key surely is in the initial map, adds a new mapping to the 
 				//current map that overrides that in the initial map, and 
 				//returns the value it had in the initial map
-				final JAVA_MAP.NNodePair<K, V> npInitial = (JAVA_MAP.NNodePair<K, V>) findNodeKey(this.initialMap.root, key);
+				final JAVA_MAP.NNodePair<K, V> npInitial = this.initialMap.findNodeKey(key);
 				if (npInitial != null) {
 					addNode(key, value);
 					return npInitial.value;
@@ -375,24 +517,12 @@ implements Map<K, V>, Cloneable, Serializable {
 		}
 
 		//looks for a matching NodePair in this.root.(next)*
-		JAVA_MAP.NNodePair<K, V> matchingPairPrev = null, matchingPair = null;
-		if (key == null) {
-			for (JAVA_MAP.NNode nPrev = null, n = this.root; n instanceof JAVA_MAP.NNodePair; nPrev = n, n = ((JAVA_MAP.NNodePair<K, V>) n).next) {
-				final JAVA_MAP.NNodePair<K, V> np = (JAVA_MAP.NNodePair<K, V>) n;
-				if (np.key == null) {
-					matchingPairPrev = (JAVA_MAP.NNodePair<K, V>) nPrev;
-					matchingPair = np;
-					break;
-				}
-			}
-		} else {
-			for (JAVA_MAP.NNode nPrev = null, n = this.root; n instanceof JAVA_MAP.NNodePair; nPrev = n, n = ((JAVA_MAP.NNodePair<K, V>) n).next) {
-				final JAVA_MAP.NNodePair<K, V> np = (JAVA_MAP.NNodePair<K, V>) n;
-				if (key.equals(np.key)) {
-					matchingPairPrev = (JAVA_MAP.NNodePair<K, V>) nPrev;
-					matchingPair = np;
-					break;
-				}
+		//and for its predecessor
+		final JAVA_MAP.NNodePair<K, V> matchingPair = findNodeKey(key);
+		JAVA_MAP.NNodePair<K, V> matchingPairPrev = null;
+		if (matchingPair != null) {
+			for (JAVA_MAP.NNode n = this.root; n != matchingPair; n = ((JAVA_MAP.NNodePair<K, V>) n).next) {
+				matchingPairPrev = (JAVA_MAP.NNodePair<K, V>) n;
 			}
 		}
 
@@ -414,7 +544,7 @@ implements Map<K, V>, Cloneable, Serializable {
 
 				//if the key surely is in the initial map, adjust size and
 				//return the associated value
-				final JAVA_MAP.NNodePair<K, V> npInitial = (JAVA_MAP.NNodePair<K, V>) findNodeKey(this.initialMap.root, key);
+				final JAVA_MAP.NNodePair<K, V> npInitial = this.initialMap.findNodeKey(key);
 				if (npInitial != null) {
 					this.absentKeys.add((K) key);						
 					--this.size;
@@ -429,6 +559,7 @@ implements Map<K, V>, Cloneable, Serializable {
 			//matching NodePair found: remove it, adjust
 			//size and return the value
 			this.absentKeys.add((K) key);						
+			unindexNode(matchingPair);
 			if (matchingPairPrev == null) {
 				this.root = matchingPair.next;
 			} else {
@@ -466,6 +597,8 @@ implements Map<K, V>, Cloneable, Serializable {
 		this.size = 0;
 		this.root = new NNodeEmpty();
 		this.numNodes = 0;
+		this.buckets = newBuckets(BUCKETS_INITIAL_CAPACITY);
+		this.numNodesConcreteHash = 0;
 		this.initialMap = null; //my, that's rough! But it works.
 	}
 
@@ -812,23 +945,9 @@ implements Map<K, V>, Cloneable, Serializable {
 						skipOverriddenEntries:
 						while (this.nextNodeIterator instanceof JAVA_MAP.NNodePair) {
 							final JAVA_MAP.NNodePair<K, V> npCurrent = (JAVA_MAP.NNodePair<K, V>) this.nextNodeIterator;
-							final K keyCurrent = npCurrent.key;
-							if (keyCurrent == null) {
-								for (JAVA_MAP.NNode n = JAVA_MAP.this.root; n instanceof JAVA_MAP.NNodePair; n = ((JAVA_MAP.NNodePair<K, V>) n).next) {
-									final JAVA_MAP.NNodePair<K, V> np = (JAVA_MAP.NNodePair<K, V>) n;
-									if (np.key == null) {
-										this.nextNodeIterator = npCurrent.next;
-										continue skipOverriddenEntries;
-									}
-								}
-							} else {
-								for (JAVA_MAP.NNode n = JAVA_MAP.this.root; n instanceof JAVA_MAP.NNodePair; n = ((JAVA_MAP.NNodePair<K, V>) n).next) {
-									final JAVA_MAP.NNodePair<K, V> np = (JAVA_MAP.NNodePair<K, V>) n;
-									if (keyCurrent.equals(np.key)) {
-										this.nextNodeIterator = npCurrent.next;
-										continue skipOverriddenEntries;
-									}
-								}
+							if (JAVA_MAP.this.findNodeKey(npCurrent.key) != null) {
+								this.nextNodeIterator = npCurrent.next;
+								continue skipOverriddenEntries;
 							}
 							break;
 						}
@@ -1097,7 +1216,7 @@ implements Map<K, V>, Cloneable, Serializable {
 				if (this.initialMap.absentKeys.contains(np.key)) {
 					continue findNotRefinedNodes;
 				}
-				if (findNodeKey(this.initialMap.root, np.key) != null) {
+				if (this.initialMap.findNodeKey(np.key) != null) {
 					continue findNotRefinedNodes;
 				}
 				notRefined.add(np.key);
@@ -1207,11 +1326,15 @@ implements Map<K, V>, Cloneable, Serializable {
 		}
         result.absentKeys = new ArrayList<>(this.absentKeys);
         result.root = new NNodeEmpty();
+        result.buckets = newBuckets(this.buckets.length);
+        result.numNodesConcreteHash = 0;
         NNodePair<K, V> dest = null;
         for (NNode src = this.root; src instanceof NNodePair<?, ?>; src = ((NNodePair<K, V>) src).next) {
         	final NNodePair<K, V> newNodePair = new NNodePair<>();
         	newNodePair.key = ((NNodePair<K, V>) src).key;
         	newNodePair.value = ((NNodePair<K, V>) src).value;
+        	newNodePair.hash = ((NNodePair<K, V>) src).hash;
+        	result.indexNode(newNodePair);
         	if (dest == null) {
         		newNodePair.next = result.root;
         		result.root = newNodePair;
@@ -1265,6 +1388,8 @@ implements Map<K, V>, Cloneable, Serializable {
 		tthis.size = tthis.initialMap.size;
 		tthis.root = new NNodeEmpty();
 		tthis.numNodes = 0;
+		tthis.buckets = newBuckets(BUCKETS_INITIAL_CAPACITY);
+		tthis.numNodesConcreteHash = 0;
 
 		tthis.initialMap.makeInitial();
 		tthis.initialMap.isInitial = true;
@@ -1276,6 +1401,8 @@ implements Map<K, V>, Cloneable, Serializable {
 		assume(tthis.initialMap.size >= 0);
 		tthis.initialMap.root = new NNodeEmpty();
 		tthis.initialMap.numNodes = 0;
+		tthis.initialMap.buckets = newBuckets(BUCKETS_INITIAL_CAPACITY);
+		tthis.initialMap.numNodesConcreteHash = 0;
 	}
 
 	/**
@@ -1406,7 +1533,7 @@ implements Map<K, V>, Cloneable, Serializable {
 		if (!this.isInitial) {
 			metaThrowUnexpectedInternalException("Tried to refine a JAVA_MAP that is not initial.");
 		}
-		if (findNodeKey(this.root, key) != null) {
+		if (findNodeKey(key) != null) {
 			ignore(); //contradiction found
 		}
 		this.absentKeys.add(key);
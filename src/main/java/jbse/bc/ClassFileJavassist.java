@@ -87,10 +87,27 @@ public class ClassFileJavassist extends ClassFile {
     private final ClassFile hostClass;
     private String className; //nonfinal because of classfile renaming
     private byte[] bytecode; //only for dummy classes, nonfinal because of classfile renaming
-    private ArrayList<Signature> fieldsStatic; //lazily initialized, but actually final
-    private ArrayList<Signature> fieldsObject; //lazily initialized, but actually final
-    private ArrayList<Signature> methods; //lazily initialized, but actually final
-    private ArrayList<Signature> constructors; //lazily initialized, but actually final
+    private volatile ArrayList<Signature> fieldsStatic; //lazily initialized, but actually final
+    private volatile ArrayList<Signature> fieldsObject; //lazily initialized, but actually final
+    private volatile ArrayList<Signature> methods; //lazily initialized, but actually final
+    private volatile ArrayList<Signature> constructors; //lazily initialized, but actually final
+    private volatile HashMap<Signature, MethodMetadata> methodIndex; //lazily initialized, reset by classfile renaming
+    
+    /**
+     * The metadata of a method declared in the classfile, built 
+     * lazily and shared by all the frames of the method.
+     */
+    private static final class MethodMetadata {
+        final MethodInfo methodInfo;
+        volatile LineNumberTable lineNumberTable; //lazily initialized
+        volatile LocalVariableTable localVariableTable; //lazily initialized
+        volatile LocalVariableTable localVariableTypeTable; //lazily initialized
+        volatile ExceptionTable exceptionTable; //lazily initialized
+        
+        MethodMetadata(MethodInfo methodInfo) {
+            this.methodInfo = methodInfo;
+        }
+    }
     
     /**
      * Constructor for nonanonymous classes.
@@ -399,6 +416,7 @@ public class ClassFileJavassist extends ClassFile {
         }
         this.cf.renameClass(renames);
         this.cf.compact();
+        this.methodIndex = null;
         this.className = internalClassName(this.cf.getName());
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
@@ -685,19 +703,46 @@ public class ClassFileJavassist extends ClassFile {
      *         is ignored.
      */
     private MethodInfo findMethodDeclarationNonSignaturePolymorphic(Signature methodSignature) {
-        if ("<clinit>".equals(methodSignature.getName())) {
-            return this.cf.getStaticInitializer();
-        }
+        final MethodMetadata md = findMethodMetadata(methodSignature);
+        return (md == null ? null : md.methodInfo);
+    }
 
-        final List<MethodInfo> ms = this.cf.getMethods();
-        for (MethodInfo m : ms) {
-            final String internalName = m.getName();
-            if (internalName.equals(methodSignature.getName()) &&
-                m.getDescriptor().equals(methodSignature.getDescriptor())) {
-                return m;
+    /**
+     * Finds the metadata of a method declared in this classfile.
+     * 
+     * @param methodSignature a {@link Signature}.
+     * @return {@code null} if no method with {@code methodSignature} 
+     *         signature is declared in this classfile, otherwise the 
+     *         {@link MethodMetadata} for it; the class name in {@code methodSignature}
+     *         is ignored.
+     */
+    private MethodMetadata findMethodMetadata(Signature methodSignature) {
+        HashMap<Signature, MethodMetadata> methodIndex = this.methodIndex;
+        if (methodIndex == null) {
+            methodIndex = new HashMap<>();
+            for (MethodInfo m : this.cf.getMethods()) {
+                methodIndex.put(new Signature(null, m.getDescriptor(), m.getName()), new MethodMetadata(m));
             }
+            this.methodIndex = methodIndex;
         }
-        return null;
+        
+        //the static initializer is found by name only
+        final String descriptor = ("<clinit>".equals(methodSignature.getName()) ? "()V" : methodSignature.getDescriptor());
+        return methodIndex.get(new Signature(null, descriptor, methodSignature.getName()));
+    }
+    
+    private MethodMetadata findMethodMetadataWithCode(Signature methodSignature) 
+    throws MethodNotFoundException, MethodCodeNotFoundException {
+        final MethodInfo m = findMethodDeclaration(methodSignature);
+        if (m.getCodeAttribute() == null) {
+            throw new MethodCodeNotFoundException(methodSignature.toString()); 
+        }
+        final MethodMetadata md = findMethodMetadata(new Signature(null, m.getDescriptor(), m.getName()));
+        if (md == null) {
+            //this should never happen
+            throw new UnexpectedInternalException("Method " + methodSignature + " has no metadata.");
+        }
+        return md;
     }
 
     @Override
@@ -1137,7 +1182,15 @@ public class ClassFileJavassist extends ClassFile {
     @Override
     public ExceptionTable getExceptionTable(Signature methodSignature)
     throws MethodNotFoundException, MethodCodeNotFoundException, InvalidIndexException {
-        final javassist.bytecode.ExceptionTable et = getMethodCodeAttribute(methodSignature).getExceptionTable();
+        final MethodMetadata md = findMethodMetadataWithCode(methodSignature);
+        if (md.exceptionTable == null) {
+            md.exceptionTable = makeExceptionTable(md.methodInfo.getCodeAttribute());
+        }
+        return md.exceptionTable;
+    }
+    
+    private ExceptionTable makeExceptionTable(CodeAttribute ca) throws InvalidIndexException {
+        final javassist.bytecode.ExceptionTable et = ca.getExceptionTable();
 
         final ExceptionTable retVal = new ExceptionTable(et.size());
         for (int i = 0; i < et.size(); ++i) {
@@ -1152,7 +1205,15 @@ public class ClassFileJavassist extends ClassFile {
     @Override
     public LocalVariableTable getLocalVariableTable(Signature methodSignature) 
     throws MethodNotFoundException, MethodCodeNotFoundException  {
-        final CodeAttribute ca = getMethodCodeAttribute(methodSignature);
+        final MethodMetadata md = findMethodMetadataWithCode(methodSignature);
+        if (md.localVariableTable == null) {
+            md.localVariableTable = makeLocalVariableTable(methodSignature, md.methodInfo.getCodeAttribute());
+        }
+        return md.localVariableTable;
+    }
+    
+    private LocalVariableTable makeLocalVariableTable(Signature methodSignature, CodeAttribute ca) 
+    throws MethodNotFoundException, MethodCodeNotFoundException  {
         final LocalVariableAttribute lvtJA = (LocalVariableAttribute) ca.getAttribute(LocalVariableAttribute.tag);
 
         if (lvtJA == null) {
@@ -1172,7 +1233,14 @@ public class ClassFileJavassist extends ClassFile {
     @Override
     public LocalVariableTable getLocalVariableTypeTable(Signature methodSignature)
     throws MethodNotFoundException, MethodCodeNotFoundException {
-        final CodeAttribute ca = getMethodCodeAttribute(methodSignature);
+        final MethodMetadata md = findMethodMetadataWithCode(methodSignature);
+        if (md.localVariableTypeTable == null) {
+            md.localVariableTypeTable = makeLocalVariableTypeTable(md.methodInfo.getCodeAttribute());
+        }
+        return md.localVariableTypeTable;
+    }
+    
+    private LocalVariableTable makeLocalVariableTypeTable(CodeAttribute ca) {
         final LocalVariableTypeAttribute lvttJA = (LocalVariableTypeAttribute) ca.getAttribute(LocalVariableTypeAttribute.tag);
 
         if (lvttJA == null) {
@@ -1192,7 +1260,14 @@ public class ClassFileJavassist extends ClassFile {
     @Override
     public LineNumberTable getLineNumberTable(Signature methodSignature) 
     throws MethodNotFoundException, MethodCodeNotFoundException {
-        final CodeAttribute ca = getMethodCodeAttribute(methodSignature);
+        final MethodMetadata md = findMethodMetadataWithCode(methodSignature);
+        if (md.lineNumberTable == null) {
+            md.lineNumberTable = makeLineNumberTable(md.methodInfo.getCodeAttribute());
+        }
+        return md.lineNumberTable;
+    }
+    
+    private LineNumberTable makeLineNumberTable(CodeAttribute ca) {
         final LineNumberAttribute lna = (LineNumberAttribute) ca.getAttribute(LineNumberAttribute.tag);
 
         if (lna == null) {
@@ -1324,16 +1399,20 @@ public class ClassFileJavassist extends ClassFile {
     }
     
     private void fillMethodsAndConstructors() {
-        this.methods = new ArrayList<>();
-        this.constructors = new ArrayList<>();
+        //fills local lists and then publishes them, so 
+        //concurrent readers never see them partially filled
+        final ArrayList<Signature> methods = new ArrayList<>();
+        final ArrayList<Signature> constructors = new ArrayList<>();
         final List<MethodInfo> ms = this.cf.getMethods();
         for (MethodInfo m : ms) {
             final Signature sig = new Signature(getClassName(), m.getDescriptor(), m.getName());
-            this.methods.add(sig);
+            methods.add(sig);
             if (m.isConstructor()) {
-                this.constructors.add(sig);
+                constructors.add(sig);
             }
         }
+        this.methods = methods;
+        this.constructors = constructors;
     }
 
     @Override
@@ -2120,6 +2120,7 @@ public final class ClassHierarchy implements Cloneable {
         //in a future, expansionBackdoor may possibly be cloned
         
         o.cfs = o.cfs.clone();
+        o.systemPackages = new HashMap<>(o.systemPackages);
         
         return o;
     }
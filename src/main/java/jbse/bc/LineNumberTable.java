@@ -1,5 +1,7 @@
 package jbse.bc;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -21,6 +23,7 @@ public class LineNumberTable implements Iterable<LineNumberTable.Row> {
 
     private final Row[] rows;
     private int next;
+    private volatile Row[] rowsSorted; //lazily initialized, reset by addRow
 
     public LineNumberTable(int rowsNumber) {
         this.rows = new Row[rowsNumber];
@@ -35,6 +38,40 @@ public class LineNumberTable implements Iterable<LineNumberTable.Row> {
         
         this.rows[this.next] = new Row(start, lineNumber);
         this.next++;
+        this.rowsSorted = null;
+    }
+
+    /**
+     * Returns the source line number of a bytecode.
+     * 
+     * @param programCounter an {@code int}, the offset 
+     *        of the bytecode.
+     * @param unknownLineNumber an {@code int}, the value 
+     *        to return when the line number is unknown.
+     * @return the line number of the last row whose start 
+     *         is less or equal to {@code programCounter}, 
+     *         or {@code unknownLineNumber} if no such row exists.
+     */
+    public int getLineNumber(int programCounter, int unknownLineNumber) {
+        Row[] sorted = this.rowsSorted;
+        if (sorted == null) {
+            //stable sort, so rows with same start keep their order
+            sorted = Arrays.copyOf(this.rows, this.next);
+            Arrays.sort(sorted, Comparator.comparingInt((Row r) -> r.start));
+            this.rowsSorted = sorted;
+        }
+        
+        //binary search of the first row with start > programCounter
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (sorted[mid].start > programCounter) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return (lo == 0 ? unknownLineNumber : sorted[lo - 1].lineNumber);
     }
 
     public Iterator<Row> iterator() {
@@ -567,8 +567,12 @@ public final class Signatures {
         new Signature(JAVA_STRING, "(" + REFERENCE + JAVA_OBJECT + TYPEEND + ")" + BOOLEAN, "equals");
     public static final Signature JAVA_STRING_HASHCODE = 
         new Signature(JAVA_STRING, "()" + INT, "hashCode");
+    public static final Signature JAVA_STRING_INDEXOF_INT = 
+        new Signature(JAVA_STRING, "(" + INT + ")" + INT, "indexOf");
     public static final Signature JAVA_STRING_INTERN =
         new Signature(JAVA_STRING, "()" + REFERENCE + JAVA_STRING + TYPEEND, "intern");
+    public static final Signature JAVA_STRING_LENGTH =
+        new Signature(JAVA_STRING, "()" + INT, "length");
     public static final Signature JAVA_STRINGBUILDER_APPEND_BOOLEAN =
         new Signature(JAVA_STRINGBUILDER, "(" + BOOLEAN + ")" + REFERENCE + JAVA_STRINGBUILDER + TYPEEND, "append");
     public static final Signature JAVA_STRINGBUILDER_APPEND_CHAR =
@@ -777,6 +781,10 @@ public final class Signatures {
         new Signature(JBSE_BASE, "(" + INT + REFERENCE + JAVA_STRING + TYPEEND +")" + VOID, "makeKlassSymbolic");
     public static final Signature JBSE_BASE_MAKEKLASSSYMBOLIC_DO = 
         new Signature(JBSE_BASE, "(" + INT + REFERENCE + JAVA_STRING + TYPEEND +")" + VOID, "makeKlassSymbolic_do");
+    public static final Signature JBSE_JAVA_CONCURRENTMAP_CONTAINSKEY = 
+    	new Signature(JAVA_CONCURRENTHASHMAP, "(" + REFERENCE + JAVA_OBJECT + TYPEEND + ")" + BOOLEAN, "containsKey");
+    public static final Signature JBSE_JAVA_CONCURRENTMAP_GET = 
+    	new Signature(JAVA_CONCURRENTHASHMAP, "(" + REFERENCE + JAVA_OBJECT + TYPEEND + ")" + REFERENCE + JAVA_OBJECT + TYPEEND, "get");
     public static final Signature JBSE_JAVA_CONCURRENTMAP_INITSYMBOLIC = 
 		new Signature(JAVA_CONCURRENTHASHMAP, "(" + REFERENCE + JAVA_CONCURRENTHASHMAP + TYPEEND + ")" + VOID, "initSymbolic");
     public static final Signature JBSE_JAVA_CONCURRENTMAP_MAKEINITIAL = 
@@ -837,6 +845,10 @@ public final class Signatures {
     	new Signature(JAVA_LINKEDHASHMAP, "(" + REFERENCE + JAVA_OBJECT + TYPEEND + ")" + VOID, "refineOutKey");
     public static final Signature JBSE_JAVA_LINKEDMAP_REFINEOUTVALUE = 
     	new Signature(JAVA_LINKEDHASHMAP, "(" + REFERENCE + JAVA_OBJECT + TYPEEND + ")" + VOID, "refineOutValue");
+    public static final Signature JBSE_JAVA_MAP_CONTAINSKEY = 
+    	new Signature(JAVA_HASHMAP, "(" + REFERENCE + JAVA_OBJECT + TYPEEND + ")" + BOOLEAN, "containsKey");
+    public static final Signature JBSE_JAVA_MAP_GET = 
+    	new Signature(JAVA_HASHMAP, "(" + REFERENCE + JAVA_OBJECT + TYPEEND + ")" + REFERENCE + JAVA_OBJECT + TYPEEND, "get");
     public static final Signature JBSE_JAVA_MAP_INITSYMBOLIC = 
     	new Signature(JAVA_HASHMAP, "(" + REFERENCE + JAVA_HASHMAP + TYPEEND + ")" + VOID, "initSymbolic");
     public static final Signature JBSE_JAVA_MAP_MAKEINITIAL = 
@@ -0,0 +1,398 @@
+package jbse.common;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A process-wide registry of counters, gauges and nanosecond
+ * histograms for monitoring the performance of the engine and
+ * of the decision procedures. It is disabled by default, and
+ * while it is disabled the recording methods return immediately,
+ * so the instrumented code pays just a field read. When enabled,
+ * it can also emit the timed events as JDK Flight Recorder
+ * events, if the running JVM supports them.
+ */
+public final class Metrics {
+    /**
+     * A monotonically increasing counter.
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        private Counter() { }
+
+        /**
+         * Adds to this counter, if metrics are enabled.
+         *
+         * @param delta a {@code long}.
+         */
+        public void add(long delta) {
+            if (enabled) {
+                this.value.add(delta);
+            }
+        }
+
+        /**
+         * Increments this counter, if metrics are enabled.
+         */
+        public void increment() {
+            add(1L);
+        }
+
+        public long get() {
+            return this.value.sum();
+        }
+    }
+
+    /**
+     * A value that goes up and down, with its maximum.
+     */
+    public static final class Gauge {
+        private final AtomicLong value = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private Gauge() { }
+
+        /**
+         * Sets this gauge, if metrics are enabled.
+         *
+         * @param value a {@code long}.
+         */
+        public void set(long value) {
+            if (enabled) {
+                this.value.set(value);
+                this.max.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        public long get() {
+            return this.value.get();
+        }
+
+        public long getMax() {
+            return this.max.get();
+        }
+    }
+
+    /**
+     * A histogram of durations in nanoseconds, with
+     * power-of-two buckets.
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records a duration, if metrics are enabled.
+         *
+         * @param nanos a {@code long}, the duration
+         *        in nanoseconds.
+         */
+        public void record(long nanos) {
+            if (enabled) {
+                final long n = Math.max(0L, nanos);
+                this.buckets.incrementAndGet(n == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(n));
+                this.count.increment();
+                this.sum.add(n);
+                this.max.accumulateAndGet(n, Math::max);
+                final FlightRecorderBridge bridge = flightRecorder;
+                if (bridge != null) {
+                    bridge.emit(this.name, n);
+                }
+            }
+        }
+
+        /**
+         * Records the time elapsed since a start time,
+         * if metrics are enabled.
+         *
+         * @param start a {@code long}, as returned by
+         *        {@link Metrics#start()}.
+         */
+        public void stop(long start) {
+            if (enabled && start != 0L) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public long getSum() {
+            return this.sum.sum();
+        }
+
+        public long getMax() {
+            return this.max.get();
+        }
+
+        /**
+         * Estimates a percentile.
+         *
+         * @param q a {@code double} between 0 and 1.
+         * @return a {@code long}, the upper bound of the
+         *         bucket where the {@code q}-th percentile
+         *         falls, capped by the maximum.
+         */
+        public long percentile(double q) {
+            final long total = getCount();
+            if (total == 0) {
+                return 0L;
+            }
+            final long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                seen += this.buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(i >= BUCKETS - 2 ? Long.MAX_VALUE : (1L << (i + 1)), getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+
+    /**
+     * Emits JDK Flight Recorder events through reflection,
+     * so JBSE still runs on JVMs without the
+     * {@code jdk.jfr} API.
+     */
+    private static final class FlightRecorderBridge {
+        private final Object factory;
+        private final Method newEvent;
+        private final Method set;
+        private final Method commit;
+
+        FlightRecorderBridge() throws ReflectiveOperationException {
+            final Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+            final Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+            final Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+            final Class<?> event = Class.forName("jdk.jfr.Event");
+            final Constructor<?> annotationElementConstructor = annotationElement.getConstructor(Class.class, Object.class);
+            final List<Object> annotations = Arrays.asList(
+                annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Name"), "jbse.Metric"),
+                annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Label"), "JBSE Metric"),
+                annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Category"), new String[] { "JBSE" }));
+            final Constructor<?> valueDescriptorConstructor = valueDescriptor.getConstructor(Class.class, String.class);
+            final List<Object> fields = Arrays.asList(
+                valueDescriptorConstructor.newInstance(String.class, "metric"),
+                valueDescriptorConstructor.newInstance(long.class, "nanos"));
+            this.factory = eventFactory.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+            this.newEvent = eventFactory.getMethod("newEvent");
+            this.set = event.getMethod("set", int.class, Object.class);
+            this.commit = event.getMethod("commit");
+        }
+
+        void emit(String metric, long nanos) {
+            try {
+                final Object e = this.newEvent.invoke(this.factory);
+                this.set.invoke(e, 0, metric);
+                this.set.invoke(e, 1, nanos);
+                this.commit.invoke(e);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                flightRecorder = null; //gives up
+            }
+        }
+    }
+
+    private static volatile boolean enabled = false;
+    private static volatile FlightRecorderBridge flightRecorder = null;
+    private static final ConcurrentHashMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Enables the recording of metrics.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * Disables the recording of metrics and
+     * of Flight Recorder events.
+     */
+    public static void disable() {
+        enabled = false;
+        flightRecorder = null;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Also emits a JDK Flight Recorder event for each
+     * recorded duration. Has an effect only while
+     * metrics are enabled.
+     *
+     * @return {@code true} iff the running JVM supports
+     *         Flight Recorder events.
+     */
+    public static boolean enableFlightRecorderEvents() {
+        try {
+            flightRecorder = new FlightRecorderBridge();
+            return true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            flightRecorder = null;
+            return false;
+        }
+    }
+
+    /**
+     * Returns a {@link Counter}, creating it if it does not exist.
+     *
+     * @param name a {@link String}, the name of the counter.
+     * @return the {@link Counter} with name {@code name}.
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new Counter());
+    }
+
+    /**
+     * Returns a {@link Gauge}, creating it if it does not exist.
+     *
+     * @param name a {@link String}, the name of the gauge.
+     * @return the {@link Gauge} with name {@code name}.
+     */
+    public static Gauge gauge(String name) {
+        return GAUGES.computeIfAbsent(name, k -> new Gauge());
+    }
+
+    /**
+     * Returns a {@link Histogram}, creating it if it does not exist.
+     *
+     * @param name a {@link String}, the name of the histogram.
+     * @return the {@link Histogram} with name {@code name}.
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, Histogram::new);
+    }
+
+    /**
+     * Returns a start time for {@link Histogram#stop(long)}.
+     *
+     * @return {@link System#nanoTime()} if metrics are
+     *         enabled, otherwise {@code 0}.
+     */
+    public static long start() {
+        return (enabled ? System.nanoTime() : 0L);
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the
+     * current thread, if metrics are enabled and the JVM
+     * supports it.
+     *
+     * @return a {@code long}, or {@code -1} if the number is
+     *         not available.
+     */
+    public static long allocatedBytes() {
+        if (enabled && THREADS instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Returns a snapshot of all the metrics in JSON format.
+     *
+     * @return a {@link String}.
+     */
+    public static String snapshotJSON() {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("{\"timestamp\": ").append(System.currentTimeMillis());
+        buf.append(", \"counters\": {");
+        boolean first = true;
+        for (Map.Entry<String, Counter> e : new TreeMap<>(COUNTERS).entrySet()) {
+            buf.append(first ? "" : ", ").append(quote(e.getKey())).append(": ").append(e.getValue().get());
+            first = false;
+        }
+        buf.append("}, \"gauges\": {");
+        first = true;
+        for (Map.Entry<String, Gauge> e : new TreeMap<>(GAUGES).entrySet()) {
+            buf.append(first ? "" : ", ").append(quote(e.getKey()))
+            .append(": {\"value\": ").append(e.getValue().get())
+            .append(", \"max\": ").append(e.getValue().getMax()).append("}");
+            first = false;
+        }
+        buf.append("}, \"histograms\": {");
+        first = true;
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            final Histogram h = e.getValue();
+            buf.append(first ? "" : ", ").append(quote(e.getKey()))
+            .append(": {\"count\": ").append(h.getCount())
+            .append(", \"sumNanos\": ").append(h.getSum())
+            .append(", \"maxNanos\": ").append(h.getMax())
+            .append(", \"p50Nanos\": ").append(h.percentile(0.5))
+            .append(", \"p90Nanos\": ").append(h.percentile(0.9))
+            .append(", \"p99Nanos\": ").append(h.percentile(0.99)).append("}");
+            first = false;
+        }
+        buf.append("}}\n");
+        return buf.toString();
+    }
+
+    /** The header of the rows produced by {@link #snapshotCSV()}. */
+    public static final String CSV_HEADER = "timestamp,kind,name,count,sum,max,p50,p90,p99\n";
+
+    /**
+     * Returns a snapshot of all the metrics in CSV format,
+     * one row per metric with columns {@link #CSV_HEADER}.
+     *
+     * @return a {@link String}.
+     */
+    public static String snapshotCSV() {
+        final long timestamp = System.currentTimeMillis();
+        final StringBuilder buf = new StringBuilder();
+        for (Map.Entry<String, Counter> e : new TreeMap<>(COUNTERS).entrySet()) {
+            buf.append(timestamp).append(",counter,").append(e.getKey()).append(',')
+            .append(e.getValue().get()).append(",,,,,\n");
+        }
+        for (Map.Entry<String, Gauge> e : new TreeMap<>(GAUGES).entrySet()) {
+            buf.append(timestamp).append(",gauge,").append(e.getKey()).append(',')
+            .append(e.getValue().get()).append(",,").append(e.getValue().getMax()).append(",,,\n");
+        }
+        for (Map.Entry<String, Histogram> e : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            final Histogram h = e.getValue();
+            buf.append(timestamp).append(",histogram,").append(e.getKey()).append(',')
+            .append(h.getCount()).append(',').append(h.getSum()).append(',').append(h.getMax()).append(',')
+            .append(h.percentile(0.5)).append(',').append(h.percentile(0.9)).append(',').append(h.percentile(0.99)).append('\n');
+        }
+        return buf.toString();
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Do not instantiate it!
+     */
+    private Metrics() {
+        //intentionally empty
+    }
+}
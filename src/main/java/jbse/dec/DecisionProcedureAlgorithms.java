@@ -257,6 +257,12 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
     protected Supplier<State> currentStateSupplier;
     protected final Calculator calc;
 
+    /** 
+     * Set when the decisions are replayed, and thus
+     * the decision alternatives are known to be satisfiable. 
+     */
+    private boolean replaying = false;
+
     public DecisionProcedureAlgorithms(DecisionProcedure component) 
     throws InvalidInputException {
         super(component);
@@ -268,6 +274,63 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
         this.currentStateSupplier = currentStateSupplier;
     }
 
+    /**
+     * Sets whether the decisions are replayed. While replaying, 
+     * the satisfiability checks for the decision alternatives 
+     * ({@link #isSat(Expression) isSat}, {@link #isSatNull(ReferenceSymbolic) isSatNull}, 
+     * {@link #isSatAliases(ReferenceSymbolic, long, Objekt) isSatAliases}
+     * and {@link #isSatExpands(ReferenceSymbolic, ClassFile) isSatExpands})
+     * succeed without querying the component decision procedure, 
+     * as the caller will keep only the alternatives that were 
+     * chosen when the decisions were first taken. 
+     * 
+     * @param replaying a {@code boolean}.
+     */
+    public void setReplaying(boolean replaying) {
+        this.replaying = replaying;
+    }
+
+    @Override
+    public boolean isSat(Expression exp) 
+    throws InvalidInputException, DecisionException {
+        return this.replaying || super.isSat(exp);
+    }
+
+    @Override
+    public boolean isSatNull(ReferenceSymbolic r) 
+    throws InvalidInputException, DecisionException {
+        return this.replaying || super.isSatNull(r);
+    }
+
+    @Override
+    public boolean isSatAliases(ReferenceSymbolic r, long heapPos, Objekt o) 
+    throws InvalidInputException, DecisionException {
+        return this.replaying || super.isSatAliases(r, heapPos, o);
+    }
+
+    @Override
+    public boolean isSatExpands(ReferenceSymbolic r, ClassFile classFile) 
+    throws InvalidInputException, DecisionException {
+        return this.replaying || super.isSatExpands(r, classFile);
+    }
+
+    /**
+     * Checks the satisfiability of an expression also while 
+     * the decisions are replayed. To be used by the checks 
+     * that do not select a decision alternative.
+     * 
+     * @param exp an {@link Expression}.
+     * @return {@code true} iff {@code exp} is satisfiable
+     *         under the current assumptions.
+     * @throws InvalidInputException if {@code exp == null}.
+     * @throws DecisionException upon failure.
+     * @see #setReplaying(boolean)
+     */
+    public final boolean checkSat(Expression exp) 
+    throws InvalidInputException, DecisionException {
+        return super.isSat(exp);
+    }
+
     /**
      * Decides a condition for "branch if integer comparison" bytecodes.
      * 
@@ -1100,7 +1163,7 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
                 final Primitive secondConjunctSimplified = deleteRedundantConjuncts(pExpr.getSecondOperand());
                 return this.calc.push(firstConjunctSimplified).and(secondConjunctSimplified).pop();
             } else {
-                final boolean subExpressionRedundant = !isSat((Expression) this.calc.push(pExpr).not().pop());
+                final boolean subExpressionRedundant = !checkSat((Expression) this.calc.push(pExpr).not().pop());
                 if (subExpressionRedundant) {
                     return this.calc.valBoolean(true);
                 } else {
@@ -1676,14 +1739,14 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
                 if (indexInRange instanceof Simplex) {
                     entryAffected = indexInRange.surelyTrue();
                 } else {
-                    entryAffected = isSat((Expression) indexInRange);
+                    entryAffected = checkSat((Expression) indexInRange);
                 }
 
                 //if the entry is affected, it is constrained and possibly removed
                 if (entryAffected) {
                     e.excludeIndexFromAccessCondition(this.calc, index);
                     final Expression accessCondition = e.getAccessCondition();
-                    if (isSat(accessCondition)) {
+                    if (checkSat(accessCondition)) {
                         //do nothing
                     } else {
                         entries.remove();
@@ -1723,7 +1786,7 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
         while (entries.hasNext()) {
             final Array.AccessOutcomeIn e = entries.next();
             final Expression accessCondition = e.getAccessCondition();
-            if (isSat(accessCondition)) {
+            if (checkSat(accessCondition)) {
                 //do nothing
             } else {
                 entries.remove();
@@ -0,0 +1,681 @@
+package jbse.dec;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jbse.common.Type;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.mem.exc.ContradictionException;
+import jbse.val.Expression;
+import jbse.val.Operator;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolicAtomic;
+import jbse.val.Simplex;
+import jbse.val.Term;
+
+/**
+ * Decides conjunctions of predicates with shape {@code x - y rel_op c}
+ * or {@code x rel_op c}, where {@code x} and {@code y} are integral
+ * values and {@code c} is a number (intervals and difference bounds).
+ * It refutes the queries that contradict the bounds implied by the
+ * current assumptions, e.g., {@code i < a.length && i >= a.length + 1},
+ * and decides that a query is satisfiable without querying the next
+ * decision procedure when both the query and the current assumptions
+ * are completely inside the theory. The bounds are stored as a
+ * constraint graph with an undo trail, so assumptions can be popped
+ * rather than cleared and pushed again.
+ */
+public final class DecisionProcedureBoundsAnalysis extends DecisionProcedureChainOfResponsibility {
+	/**
+	 * The maximum absolute value of a coefficient or of a constant
+	 * that is handled; bigger numbers put a predicate out of the theory.
+	 */
+	private static final long MAX_CONSTANT = 1L << 30;
+
+	/** The index of the node that stands for the value zero. */
+	private static final int ZERO = 0;
+
+	/** The possible answers to a query. */
+	private enum Verdict { UNSAT, SAT, UNKNOWN }
+
+	/** The possible kinds of a {@link Constraint}. */
+	private enum Kind { TRUE, FALSE, BOUND, EQUALITY, DISEQUALITY, UNKNOWN }
+
+	/**
+	 * A predicate {@code first - second rel_op constant}, where
+	 * {@code rel_op} is {@code <=} for {@link Kind#BOUND},
+	 * {@code ==} for {@link Kind#EQUALITY} and {@code !=} for
+	 * {@link Kind#DISEQUALITY}, and a {@code null} operand stands
+	 * for zero.
+	 */
+	private static final class Constraint {
+		static final Constraint TRUE = new Constraint(Kind.TRUE, null, null, 0, true);
+		static final Constraint FALSE = new Constraint(Kind.FALSE, null, null, 0, true);
+		static final Constraint UNKNOWN = new Constraint(Kind.UNKNOWN, null, null, 0, false);
+
+		final Kind kind;
+		final Primitive first;
+		final Primitive second;
+		final long constant;
+
+		/**
+		 * Whether the operands are free variables, so that
+		 * the constraint captures the predicate exactly.
+		 */
+		final boolean exact;
+
+		Constraint(Kind kind, Primitive first, Primitive second, long constant, boolean exact) {
+			this.kind = kind;
+			this.first = first;
+			this.second = second;
+			this.constant = constant;
+			this.exact = exact;
+		}
+	}
+
+	/**
+	 * An edge {@code from -> to} of the constraint graph, standing
+	 * for the constraint {@code to - from <= bound}.
+	 */
+	private static final class Edge {
+		final int from;
+		final int to;
+		final long bound;
+
+		Edge(int from, int to, long bound) {
+			this.from = from;
+			this.to = to;
+			this.bound = bound;
+		}
+	}
+
+	/**
+	 * A disequality {@code first - second != constant} between
+	 * nodes of the constraint graph.
+	 */
+	private static final class Disequality {
+		final int first;
+		final int second;
+		final long constant;
+
+		Disequality(int first, int second, long constant) {
+			this.first = first;
+			this.second = second;
+			this.constant = constant;
+		}
+	}
+
+	/**
+	 * The sizes of the trails at some point in time.
+	 */
+	private static final class Checkpoint {
+		final int numNodes;
+		final int numEdges;
+		final int numDisequalities;
+		final int numInexact;
+
+		Checkpoint(int numNodes, int numEdges, int numDisequalities, int numInexact) {
+			this.numNodes = numNodes;
+			this.numEdges = numEdges;
+			this.numDisequalities = numDisequalities;
+			this.numInexact = numInexact;
+		}
+	}
+
+	/** Maps the operands to the indices of their nodes. */
+	private final HashMap<Primitive, Integer> nodes = new HashMap<>();
+
+	/** The operands of all the nodes, in order of index. */
+	private final ArrayList<Primitive> operands = new ArrayList<>();
+
+	/** The outgoing edges of all the nodes, in order of index. */
+	private final ArrayList<ArrayList<Edge>> successors = new ArrayList<>();
+
+	/**
+	 * A solution of the constraint graph: For every edge
+	 * {@code potentials[to] <= potentials[from] + bound}.
+	 * It stays a solution after the removal of edges, so
+	 * it needs not be restored upon rollback.
+	 */
+	private long[] potentials = new long[16];
+
+	/** All the edges, in order of insertion. */
+	private final ArrayList<Edge> edges = new ArrayList<>();
+
+	/** All the disequalities, in order of insertion. */
+	private final ArrayList<Disequality> disequalities = new ArrayList<>();
+
+	/** The number of pushed assumptions that are not captured exactly. */
+	private int numInexact = 0;
+
+	/** The assumptions pushed so far, before their local simplification. */
+	private final ArrayList<Clause> assumptions = new ArrayList<>();
+
+	/** The checkpoints before the push of each clause in {@code assumptions}. */
+	private final ArrayList<Checkpoint> checkpoints = new ArrayList<>();
+
+	/** Whether the last query was decided satisfiable locally. */
+	private boolean lastQueryDefinite = false;
+
+	public DecisionProcedureBoundsAnalysis(DecisionProcedure next) throws InvalidInputException {
+		super(next);
+		this.operands.add(null); //ZERO
+		this.successors.add(new ArrayList<>());
+	}
+
+	@Override
+	protected void pushAssumptionLocal(Clause c, Clause cSimpl) 
+	throws DecisionException, ContradictionException {
+		this.assumptions.add(c);
+		this.checkpoints.add(checkpoint());
+		super.pushAssumptionLocal(c, cSimpl);
+	}
+
+	@Override
+	protected void pushAssumptionLocal(ClauseAssume c) {
+		final ArrayList<Constraint> constraints = new ArrayList<>();
+		toConjunction(c.getCondition(), true, constraints);
+		boolean exact = true;
+		for (Constraint constraint : constraints) {
+			exact = exact && constraint.exact;
+			switch (constraint.kind) {
+			case TRUE:
+				break;
+			case BOUND:
+				exact = addBound(constraint) && exact;
+				break;
+			case EQUALITY:
+				exact = addEquality(constraint) && exact;
+				break;
+			case DISEQUALITY:
+				addDisequality(constraint);
+				break;
+			default: //FALSE, UNKNOWN
+				exact = false;
+			}
+		}
+		if (!exact) {
+			++this.numInexact;
+		}
+	}
+
+	@Override
+	protected void clearAssumptionsLocal() {
+		rollback(new Checkpoint(1, 0, 0, 0));
+		this.assumptions.clear();
+		this.checkpoints.clear();
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		final int last = this.checkpoints.size() - 1;
+		if (last < 0) {
+			throw new DecisionException("Attempted to pop an assumption from an empty set of assumptions.");
+		}
+		rollback(this.checkpoints.remove(last));
+		this.assumptions.remove(last);
+	}
+
+	@Override
+	protected List<Clause> getAssumptionsLocal() {
+		return Collections.unmodifiableList(this.assumptions);
+	}
+
+	@Override
+	protected boolean isSatLocal(Expression exp, Expression expSimpl) {
+		final Verdict verdict = evaluate(expSimpl, true);
+		this.lastQueryDefinite = (verdict == Verdict.SAT);
+		return (verdict != Verdict.UNSAT);
+	}
+
+	@Override
+	protected boolean isSatLocalDefinite(Expression exp, Expression expSimpl) {
+		return this.lastQueryDefinite;
+	}
+
+	/**
+	 * Decides a query.
+	 *
+	 * @param p a boolean {@link Primitive}.
+	 * @param positive {@code true} if the query is {@code p},
+	 *        {@code false} if it is its negation.
+	 * @return a {@link Verdict}.
+	 */
+	private Verdict evaluate(Primitive p, boolean positive) {
+		if (p instanceof Expression) {
+			final Expression e = (Expression) p;
+			final Operator operator = e.getOperator();
+			if (operator == Operator.NOT) {
+				return evaluate(e.getOperand(), !positive);
+			} else if ((operator == Operator.OR && positive) || (operator == Operator.AND && !positive)) {
+				final Verdict first = evaluate(e.getFirstOperand(), positive);
+				if (first == Verdict.SAT) {
+					return Verdict.SAT;
+				}
+				final Verdict second = evaluate(e.getSecondOperand(), positive);
+				if (first == Verdict.UNSAT) {
+					return second;
+				}
+				return (second == Verdict.SAT ? Verdict.SAT : Verdict.UNKNOWN);
+			}
+		}
+		final ArrayList<Constraint> constraints = new ArrayList<>();
+		toConjunction(p, positive, constraints);
+		return evaluateConjunction(constraints);
+	}
+
+	/**
+	 * Decides a conjunction of {@link Constraint}s by temporarily
+	 * adding them to the current ones.
+	 *
+	 * @param constraints a {@link List}{@code <}{@link Constraint}{@code >}.
+	 * @return a {@link Verdict}.
+	 */
+	private Verdict evaluateConjunction(List<Constraint> constraints) {
+		final Checkpoint checkpoint = checkpoint();
+		try {
+			boolean exact = (this.numInexact == 0);
+			for (Constraint constraint : constraints) {
+				exact = exact && constraint.exact;
+				switch (constraint.kind) {
+				case TRUE:
+					break;
+				case FALSE:
+					return Verdict.UNSAT;
+				case BOUND:
+					if (!addBound(constraint)) {
+						return Verdict.UNSAT;
+					}
+					break;
+				case EQUALITY:
+					if (!addEquality(constraint)) {
+						return Verdict.UNSAT;
+					}
+					break;
+				case DISEQUALITY:
+					addDisequality(constraint);
+					break;
+				default: //UNKNOWN
+					exact = false;
+				}
+			}
+			for (Disequality d : this.disequalities) {
+				if (violated(d) && forcedEqual(d)) {
+					return Verdict.UNSAT;
+				}
+			}
+			if (exact) {
+				//the potentials are an integral solution
+				//of the bounds, that might also satisfy
+				//all the disequalities
+				for (Disequality d : this.disequalities) {
+					if (violated(d)) {
+						return Verdict.UNKNOWN;
+					}
+				}
+				return Verdict.SAT;
+			}
+			return Verdict.UNKNOWN;
+		} finally {
+			rollback(checkpoint);
+		}
+	}
+
+	/**
+	 * Translates a predicate to a conjunction of {@link Constraint}s.
+	 *
+	 * @param p a boolean {@link Primitive}.
+	 * @param positive {@code true} to translate {@code p},
+	 *        {@code false} to translate its negation.
+	 * @param constraints a {@link List}{@code <}{@link Constraint}{@code >}
+	 *        where the translation is added. The predicates
+	 *        that cannot be translated are added as
+	 *        {@link Constraint#UNKNOWN}.
+	 */
+	private static void toConjunction(Primitive p, boolean positive, List<Constraint> constraints) {
+		if (p instanceof Simplex) {
+			constraints.add(((Simplex) p).surelyTrue() == positive ? Constraint.TRUE : Constraint.FALSE);
+			return;
+		}
+		if (p instanceof Expression) {
+			final Expression e = (Expression) p;
+			final Operator operator = e.getOperator();
+			if (operator == Operator.NOT) {
+				toConjunction(e.getOperand(), !positive, constraints);
+				return;
+			} else if ((operator == Operator.AND && positive) || (operator == Operator.OR && !positive)) {
+				toConjunction(e.getFirstOperand(), positive, constraints);
+				toConjunction(e.getSecondOperand(), positive, constraints);
+				return;
+			} else if (operator == Operator.EQ || operator == Operator.NE ||
+			           operator == Operator.LT || operator == Operator.LE ||
+			           operator == Operator.GT || operator == Operator.GE) {
+				constraints.add(toConstraint(positive ? operator : negate(operator), e.getFirstOperand(), e.getSecondOperand()));
+				return;
+			}
+		}
+		constraints.add(Constraint.UNKNOWN);
+	}
+
+	private static Operator negate(Operator operator) {
+		switch (operator) {
+		case EQ:
+			return Operator.NE;
+		case NE:
+			return Operator.EQ;
+		case LT:
+			return Operator.GE;
+		case LE:
+			return Operator.GT;
+		case GT:
+			return Operator.LE;
+		default: //GE
+			return Operator.LT;
+		}
+	}
+
+	/**
+	 * A linear combination of operands with integer coefficients,
+	 * plus an integer constant.
+	 */
+	private static final class LinearForm {
+		final LinkedHashMap<Primitive, Long> coefficients = new LinkedHashMap<>();
+		long constant = 0;
+		boolean exact = true;
+
+		boolean addConstant(long scale, long value) {
+			try {
+				this.constant = Math.addExact(this.constant, Math.multiplyExact(scale, value));
+			} catch (ArithmeticException e) {
+				return false;
+			}
+			return inRange(this.constant);
+		}
+
+		boolean addOperand(Primitive operand, long scale) {
+			final Long coefficient = this.coefficients.get(operand);
+			final long newCoefficient = (coefficient == null ? 0 : coefficient) + scale;
+			if (!inRange(newCoefficient)) {
+				return false;
+			}
+			if (newCoefficient == 0) {
+				this.coefficients.remove(operand);
+			} else {
+				this.coefficients.put(operand, newCoefficient);
+			}
+			this.exact = this.exact && (operand instanceof PrimitiveSymbolicAtomic || operand instanceof Term);
+			return true;
+		}
+
+		void negate() {
+			for (Map.Entry<Primitive, Long> entry : this.coefficients.entrySet()) {
+				entry.setValue(-entry.getValue());
+			}
+			this.constant = -this.constant;
+		}
+	}
+
+	private static boolean inRange(long value) {
+		return -MAX_CONSTANT <= value && value <= MAX_CONSTANT;
+	}
+
+	/**
+	 * Adds {@code scale * p} to a {@link LinearForm}, treating
+	 * the nonlinear subterms of {@code p} as operands.
+	 *
+	 * @param p a {@link Primitive}.
+	 * @param scale a {@code long}.
+	 * @param form a {@link LinearForm}.
+	 * @return {@code false} if {@code p} is not integral or
+	 *         some number is out of range, in which case
+	 *         {@code form} must be discarded.
+	 */
+	private static boolean linearize(Primitive p, long scale, LinearForm form) {
+		if (!Type.isPrimitiveIntegralOpStack(p.getType()) || !inRange(scale)) {
+			return false;
+		}
+		if (p instanceof Simplex) {
+			return form.addConstant(scale, ((Number) ((Simplex) p).getActualValue()).longValue());
+		}
+		if (p instanceof Expression) {
+			final Expression e = (Expression) p;
+			switch (e.getOperator()) {
+			case ADD:
+				return linearize(e.getFirstOperand(), scale, form) && linearize(e.getSecondOperand(), scale, form);
+			case SUB:
+				return linearize(e.getFirstOperand(), scale, form) && linearize(e.getSecondOperand(), -scale, form);
+			case NEG:
+				return linearize(e.getOperand(), -scale, form);
+			case MUL:
+				if (e.getFirstOperand() instanceof Simplex) {
+					final long value = ((Number) ((Simplex) e.getFirstOperand()).getActualValue()).longValue();
+					return inRange(value) && linearize(e.getSecondOperand(), scale * value, form); //no overflow, both are in range
+				} else if (e.getSecondOperand() instanceof Simplex) {
+					final long value = ((Number) ((Simplex) e.getSecondOperand()).getActualValue()).longValue();
+					return inRange(value) && linearize(e.getFirstOperand(), scale * value, form); //no overflow, both are in range
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		return form.addOperand(p, scale);
+	}
+
+	/**
+	 * Translates a comparison to a {@link Constraint}.
+	 *
+	 * @param operator the comparison {@link Operator}.
+	 * @param first the first operand of the comparison.
+	 * @param second the second operand of the comparison.
+	 * @return a {@link Constraint}.
+	 */
+	private static Constraint toConstraint(Operator operator, Primitive first, Primitive second) {
+		final LinearForm form = new LinearForm();
+		if (!linearize(first, 1, form) || !linearize(second, -1, form)) {
+			return Constraint.UNKNOWN;
+		}
+
+		//normalizes to form rel_op 0, with rel_op in {<=, ==, !=}
+		final Kind kind;
+		switch (operator) {
+		case LT: //form < 0 iff form + 1 <= 0
+			++form.constant;
+			kind = Kind.BOUND;
+			break;
+		case LE:
+			kind = Kind.BOUND;
+			break;
+		case GT: //form > 0 iff -form + 1 <= 0
+			form.negate();
+			++form.constant;
+			kind = Kind.BOUND;
+			break;
+		case GE: //form >= 0 iff -form <= 0
+			form.negate();
+			kind = Kind.BOUND;
+			break;
+		case EQ:
+			kind = Kind.EQUALITY;
+			break;
+		default: //NE
+			kind = Kind.DISEQUALITY;
+		}
+
+		//determines x, y, k, c such that form is k * (x - y) + c, with k > 0
+		final Primitive x, y;
+		final long k, c = form.constant;
+		final ArrayList<Map.Entry<Primitive, Long>> entries = new ArrayList<>(form.coefficients.entrySet());
+		if (entries.size() == 0) {
+			final boolean holds = (kind == Kind.BOUND ? c <= 0 : kind == Kind.EQUALITY ? c == 0 : c != 0);
+			return (holds ? Constraint.TRUE : Constraint.FALSE);
+		} else if (entries.size() == 1) {
+			final long coefficient = entries.get(0).getValue();
+			x = (coefficient > 0 ? entries.get(0).getKey() : null);
+			y = (coefficient > 0 ? null : entries.get(0).getKey());
+			k = Math.abs(coefficient);
+		} else if (entries.size() == 2 && entries.get(0).getValue() == -entries.get(1).getValue()) {
+			final long coefficient = entries.get(0).getValue();
+			x = (coefficient > 0 ? entries.get(0).getKey() : entries.get(1).getKey());
+			y = (coefficient > 0 ? entries.get(1).getKey() : entries.get(0).getKey());
+			k = Math.abs(coefficient);
+		} else {
+			return Constraint.UNKNOWN;
+		}
+
+		//k * (x - y) + c rel_op 0 iff x - y rel_op -c / k
+		if (kind == Kind.BOUND) {
+			return new Constraint(Kind.BOUND, x, y, Math.floorDiv(-c, k), form.exact);
+		} else if (c % k != 0) {
+			return (kind == Kind.EQUALITY ? Constraint.FALSE : Constraint.TRUE);
+		} else {
+			return new Constraint(kind, x, y, -c / k, form.exact);
+		}
+	}
+
+	private Checkpoint checkpoint() {
+		return new Checkpoint(this.operands.size(), this.edges.size(), this.disequalities.size(), this.numInexact);
+	}
+
+	private void rollback(Checkpoint checkpoint) {
+		for (int i = this.edges.size() - 1; i >= checkpoint.numEdges; --i) {
+			final Edge edge = this.edges.remove(i);
+			final ArrayList<Edge> edgesFrom = this.successors.get(edge.from);
+			edgesFrom.remove(edgesFrom.size() - 1);
+		}
+		for (int i = this.disequalities.size() - 1; i >= checkpoint.numDisequalities; --i) {
+			this.disequalities.remove(i);
+		}
+		for (int i = this.operands.size() - 1; i >= checkpoint.numNodes; --i) {
+			this.nodes.remove(this.operands.remove(i));
+			this.successors.remove(i);
+		}
+		this.numInexact = checkpoint.numInexact;
+	}
+
+	private int node(Primitive operand) {
+		if (operand == null) {
+			return ZERO;
+		}
+		final Integer index = this.nodes.get(operand);
+		if (index != null) {
+			return index;
+		}
+		final int retVal = this.operands.size();
+		this.nodes.put(operand, retVal);
+		this.operands.add(operand);
+		this.successors.add(new ArrayList<>());
+		if (retVal >= this.potentials.length) {
+			final long[] newPotentials = new long[this.potentials.length * 2];
+			System.arraycopy(this.potentials, 0, newPotentials, 0, this.potentials.length);
+			this.potentials = newPotentials;
+		}
+		this.potentials[retVal] = 0;
+		return retVal;
+	}
+
+	private boolean addBound(Constraint constraint) {
+		return addEdge(node(constraint.second), node(constraint.first), constraint.constant);
+	}
+
+	private boolean addEquality(Constraint constraint) {
+		final int first = node(constraint.first);
+		final int second = node(constraint.second);
+		return addEdge(second, first, constraint.constant) && addEdge(first, second, -constraint.constant);
+	}
+
+	private void addDisequality(Constraint constraint) {
+		this.disequalities.add(new Disequality(node(constraint.first), node(constraint.second), constraint.constant));
+	}
+
+	/**
+	 * Adds an edge to the constraint graph, unless it
+	 * makes the constraints unsatisfiable. Updates the
+	 * potentials by propagating from the target of the
+	 * edge; the constraints are unsatisfiable iff the
+	 * propagation reaches back the source of the edge.
+	 *
+	 * @param from the index of the source node.
+	 * @param to the index of the target node.
+	 * @param bound a {@code long}.
+	 * @return {@code true} iff the edge was added,
+	 *         {@code false} iff the constraints with
+	 *         the edge are unsatisfiable.
+	 */
+	private boolean addEdge(int from, int to, long bound) {
+		if (from == to) {
+			return (bound >= 0);
+		}
+		if (this.potentials[from] + bound < this.potentials[to]) {
+			final HashMap<Integer, Long> previousPotentials = new HashMap<>();
+			final ArrayDeque<Integer> toPropagate = new ArrayDeque<>();
+			previousPotentials.put(to, this.potentials[to]);
+			this.potentials[to] = this.potentials[from] + bound;
+			toPropagate.add(to);
+			while (!toPropagate.isEmpty()) {
+				final int node = toPropagate.poll();
+				for (Edge edge : this.successors.get(node)) {
+					final long candidate = this.potentials[node] + edge.bound;
+					if (candidate < this.potentials[edge.to]) {
+						if (edge.to == from) {
+							for (Map.Entry<Integer, Long> entry : previousPotentials.entrySet()) {
+								this.potentials[entry.getKey()] = entry.getValue();
+							}
+							return false;
+						}
+						previousPotentials.putIfAbsent(edge.to, this.potentials[edge.to]);
+						this.potentials[edge.to] = candidate;
+						toPropagate.add(edge.to);
+					}
+				}
+			}
+		}
+		final Edge edge = new Edge(from, to, bound);
+		this.successors.get(from).add(edge);
+		this.edges.add(edge);
+		return true;
+	}
+
+	/**
+	 * Checks whether the potentials violate a disequality.
+	 *
+	 * @param d a {@link Disequality}.
+	 * @return {@code true} iff the potentials violate {@code d}.
+	 */
+	private boolean violated(Disequality d) {
+		return this.potentials[d.first] - this.potentials[d.second] == d.constant;
+	}
+
+	/**
+	 * Checks whether the constraint graph forces the
+	 * negation of a disequality.
+	 *
+	 * @param d a {@link Disequality}.
+	 * @return {@code true} iff every solution of the
+	 *         constraint graph violates {@code d}.
+	 */
+	private boolean forcedEqual(Disequality d) {
+		final Checkpoint checkpoint = checkpoint();
+		final boolean canBeLess = addEdge(d.second, d.first, d.constant - 1);
+		rollback(checkpoint);
+		if (canBeLess) {
+			return false;
+		}
+		final boolean canBeGreater = addEdge(d.first, d.second, -d.constant - 1);
+		rollback(checkpoint);
+		return !canBeGreater;
+	}
+}
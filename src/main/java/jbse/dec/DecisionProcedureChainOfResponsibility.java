@@ -150,12 +150,30 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
             throw new InvalidInputException("pushAssumption invoked with a null parameter.");
         }
         final Clause cSimpl = simplifyLocal(c);
-        pushAssumptionLocal(cSimpl);
+        pushAssumptionLocal(c, cSimpl);
         if (hasNext()) {
             this.next.pushAssumption(cSimpl);
         }
     }
 
+    /**
+     * Must be overridden by subclasses that need to know the 
+     * {@link Clause} that was added before its local simplification, 
+     * e.g., because they implement {@link #getAssumptionsLocal()}, 
+     * that must return the clauses as they were received.
+     * The default implementation invokes {@link #pushAssumptionLocal(Clause)}
+     * with {@code cSimpl}.
+     * 
+     * @param c the {@link Clause} to be added, as it was received.
+     * @param cSimpl {@code c} locally simplified.
+     * @throws DecisionException see {@link #pushAssumption(Clause)}.
+     * @throws ContradictionException see {@link #pushAssumption(Clause)}.
+     */
+    protected void pushAssumptionLocal(Clause c, Clause cSimpl) 
+    throws DecisionException, ContradictionException {
+        pushAssumptionLocal(cSimpl);
+    }
+
     /**
      * Must be overridden by subclasses if they need to locally add an 
      * assumption. The default implementation redispatches on the
@@ -347,7 +365,11 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
         final int common = numCommonAssumptions(currentAssumptions, newAssumptions);
         final int toPop = currentAssumptions.size() - common;
         final int toPush = newAssumptions.size() - common;
-        if (canPopAssumptions() && toPop < common) { //TODO toPop < common is a guess! Implement better heuristics
+        //pushing a clause (simplification plus assertion) costs much more
+        //than popping it, so the common prefix is kept whenever it is not
+        //empty, also when the new assumptions are not a sibling of the
+        //current ones (e.g., with non depth-first exploration strategies)
+        if (canPopAssumptions() && common > 0) {
             setAssumptionsLocalConservatively(newAssumptions, toPop, toPush);
         } else {
             setAssumptionsLocalDestructively(newAssumptions);
@@ -398,7 +420,7 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
         for (Clause c : newAssumptions) {
             if (i > common) {
                 final Clause cSimpl = simplifyLocal(c);
-                pushAssumptionLocal(cSimpl);
+                pushAssumptionLocal(c, cSimpl);
             }
             ++i;
         }
@@ -421,7 +443,7 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
         clearAssumptionsLocal();
         for (Clause c : newAssumptions) {
             final Clause cSimpl = simplifyLocal(c);
-            pushAssumptionLocal(cSimpl);
+            pushAssumptionLocal(c, cSimpl);
         }
     }
 
@@ -465,7 +487,11 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
      * Must be overridden by subclasses to implement 
      * {@link #getAssumptions()} in the case they store
      * locally. It will only be invoked when this decision
-     * procedure is the last in the chain of responsibility. 
+     * procedure is the last in the chain of responsibility, 
+     * or by {@link #setAssumptions(Collection)} to find the 
+     * assumptions that need not be popped, in which case the
+     * returned clauses must be as they were received, before
+     * their local simplification. 
      * The default implementation throws a {@link DecisionException}.
      * 
      * @return see {@link #getAssumptions()}.
@@ -492,7 +518,7 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
             return ((Simplex) expSimpl).surelyTrue();
         } else { // (expSimpl instanceof Expression)
             final boolean localDecidesSat = isSatLocal(expression, (Expression) expSimpl);
-            if (localDecidesSat && hasNext()) {
+            if (localDecidesSat && hasNext() && !isSatLocalDefinite(expression, (Expression) expSimpl)) {
                 //tries the delegate, that could have a more restrictive answer
                 return delegateIsSat(expression);  //TODO shouldn't we pass expSimpl instead? do we really need to pass the original exp to the next in chain?
             }
@@ -519,6 +545,25 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
         return true;
     }
 
+    /**
+     * May be overridden by subclasses that are able to decide
+     * some queries completely, to avoid querying the next 
+     * decision procedure in the chain. It is invoked right
+     * after {@link #isSatLocal(Expression, Expression) isSatLocal}
+     * returned {@code true}, with the same parameters.
+     * The default implementation answers {@code false}.
+     *  
+     * @param exp see {@link #isSatLocal(Expression, Expression) isSatLocal}. 
+     * @param expSimpl see {@link #isSatLocal(Expression, Expression) isSatLocal}.
+     * @return {@code true} iff {@code exp} is surely satisfiable 
+     *         under the current assumptions, so the next decision
+     *         procedure need not be queried.
+     * @throws DecisionException upon failure.
+     */
+    protected boolean isSatLocalDefinite(Expression exp, Expression expSimpl) throws DecisionException {
+        return false;
+    }
+
     /**
      * Queries the next decision procedure in the chain for 
      * satisfiability of an {@link Expression}.
@@ -1,9 +1,15 @@
 package jbse.dec;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
 import jbse.mem.ClauseAssume;
+import jbse.mem.exc.ContradictionException;
 import jbse.val.Any;
 import jbse.val.Expression;
 import jbse.val.PrimitiveSymbolicApply;
@@ -21,13 +27,25 @@ import jbse.val.exc.NoResultException;
 
 /**
  * A poor man decision procedure for equalities and inequalities 
- * (not really congruence closure).
+ * (not really congruence closure). It records the 
+ * equivalence classes in a backtrackable partition, 
+ * so it can pop assumptions rather than clearing and 
+ * pushing them all again.
  * 
  * @author Pietro Braione
  *
  */
 public final class DecisionProcedureEquality extends DecisionProcedureChainOfResponsibility {
 	private final Partition<Primitive> equivalence = new Partition<>();
+	
+	/** The assumptions pushed so far, before their local simplification. */
+	private final ArrayList<Clause> assumptions = new ArrayList<>();
+	
+	/** 
+	 * The checkpoints of {@code equivalence} before the
+	 * push of each clause in {@code assumptions}. 
+	 */
+	private final ArrayList<Integer> checkpoints = new ArrayList<>();
 
 	public DecisionProcedureEquality(DecisionProcedure component) 
 	throws InvalidInputException {
@@ -35,6 +53,14 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 		this.rewriters = new Rewriter[] { new RewriterUnify() }; //explicit assignment: no constructor call is allowed before super()
 	}
 
+	@Override
+	protected void pushAssumptionLocal(Clause c, Clause cSimpl) 
+	throws DecisionException, ContradictionException {
+		this.assumptions.add(c);
+		this.checkpoints.add(this.equivalence.checkpoint());
+		super.pushAssumptionLocal(c, cSimpl);
+	}
+
 	@Override
 	protected void pushAssumptionLocal(ClauseAssume c) {
 		final Primitive p = c.getCondition();
@@ -53,6 +79,28 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 	@Override
 	protected void clearAssumptionsLocal() {
 		this.equivalence.reset();
+		this.assumptions.clear();
+		this.checkpoints.clear();
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		final int last = this.checkpoints.size() - 1;
+		if (last < 0) {
+			throw new DecisionException("Attempted to pop an assumption from an empty set of assumptions.");
+		}
+		this.equivalence.rollback(this.checkpoints.remove(last));
+		this.assumptions.remove(last);
+	}
+
+	@Override
+	protected List<Clause> getAssumptionsLocal() {
+		return Collections.unmodifiableList(this.assumptions);
 	}
 
 	@Override
@@ -318,6 +318,26 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
         }
     }
 
+    /**
+     * Returns the number of satisfiability queries that the 
+     * external decision procedure did not answer in time.
+     * 
+     * @return a {@code long}.
+     */
+    public final long getQueriesTimedOut() {
+        return this.extIf.getQueriesTimedOut();
+    }
+
+    /**
+     * Returns the number of satisfiability queries that the 
+     * external decision procedure answered unknown.
+     * 
+     * @return a {@code long}.
+     */
+    public final long getQueriesUnknown() {
+        return this.extIf.getQueriesUnknown();
+    }
+
     @Override
     protected final void closeLocal() throws DecisionException {
         if (this.extIf.isWorking()) {
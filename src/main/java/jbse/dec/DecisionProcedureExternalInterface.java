@@ -212,6 +212,28 @@ public abstract class DecisionProcedureExternalInterface {
     public abstract void clear() 
     throws ExternalProtocolInterfaceException, IOException;
 
+    /**
+     * Returns the number of satisfiability queries that the 
+     * external decision procedure did not answer in time.
+     * 
+     * @return a {@code long}. This implementation returns 
+     *         {@code 0}.
+     */
+    public long getQueriesTimedOut() {
+        return 0L;
+    }
+
+    /**
+     * Returns the number of satisfiability queries that the 
+     * external decision procedure answered unknown.
+     * 
+     * @return a {@code long}. This implementation returns 
+     *         {@code 0}.
+     */
+    public long getQueriesUnknown() {
+        return 0L;
+    }
+
     /**
      * Quits the decision procedure.
      * 
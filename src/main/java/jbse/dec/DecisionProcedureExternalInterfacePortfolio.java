@@ -0,0 +1,397 @@
+package jbse.dec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jbse.common.Metrics;
+import jbse.common.Metrics.Counter;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+import jbse.dec.exc.NoModelException;
+import jbse.mem.Objekt;
+import jbse.val.Calculator;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
+
+/**
+ * {@link DecisionProcedureExternalInterface} to a portfolio of SMTLIB 2
+ * solvers. All the solvers receive the same assumptions, and the
+ * satisfiability queries are raced: The first definite (sat or unsat)
+ * answer is taken, and the solvers that are still working on the query
+ * are killed and restarted in background. A solver that fails is dropped
+ * from the portfolio, that goes on with the remaining ones.
+ */
+final class DecisionProcedureExternalInterfacePortfolio extends DecisionProcedureExternalInterface {
+    private static final Counter QUERIES_TIMEOUT = Metrics.counter("smt.portfolio.timeout");
+    private static final Counter QUERIES_UNKNOWN = Metrics.counter("smt.portfolio.unknown");
+    private static final Counter MEMBERS_DROPPED = Metrics.counter("smt.portfolio.dropped");
+
+    @FunctionalInterface
+    private interface MemberOperation {
+        void apply(DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA member)
+        throws ExternalProtocolInterfaceException, IOException;
+    }
+
+    /** The solvers in the portfolio, in order of preference for models. */
+    private final DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA[] members;
+
+    /** Whether the corresponding member is still in the portfolio. */
+    private final boolean[] alive;
+
+    /**
+     * The last query raced by the corresponding member, if
+     * it might be still running, otherwise {@code null}.
+     */
+    private final Future<?>[] pending;
+
+    /** The threads that race the queries. */
+    private final ExecutorService racers;
+
+    private final boolean undecidedIsSat;
+    private long queriesTimedOut;
+    private long queriesUnknown;
+
+    /**
+     * Constructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param solverCommandLines a {@link List} of the command lines
+     *        to launch the external processes of the solvers.
+     * @param useStringTheory a {@code boolean}, see
+     *        {@link DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA#DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(Calculator, List, boolean, long, boolean)}.
+     * @param queryTimeout a {@code long}, the maximum time in milliseconds
+     *        every solver may spend on a satisfiability query (0 for no limit).
+     * @param undecidedIsSat a {@code boolean}, the answer to the satisfiability
+     *        queries that no solver decides.
+     * @throws ExternalProtocolInterfaceException if a solver does not
+     *         accept its prologue.
+     * @throws IOException if launching a solver fails.
+     */
+    DecisionProcedureExternalInterfacePortfolio(Calculator calc, List<List<String>> solverCommandLines, boolean useStringTheory, long queryTimeout, boolean undecidedIsSat)
+    throws ExternalProtocolInterfaceException, IOException {
+        final int n = solverCommandLines.size();
+        this.members = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA[n];
+        this.alive = new boolean[n];
+        this.pending = new Future<?>[n];
+        for (int i = 0; i < n; ++i) {
+            try {
+                this.members[i] = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(calc, solverCommandLines.get(i), useStringTheory, queryTimeout, false);
+            } catch (ExternalProtocolInterfaceException | IOException e) {
+                for (int j = 0; j < i; ++j) {
+                    this.members[j].fail();
+                }
+                throw e;
+            }
+            this.alive[i] = true;
+        }
+        this.racers = Executors.newFixedThreadPool(n, r -> {
+            final Thread t = new Thread(r, "jbse-smt-portfolio");
+            t.setDaemon(true);
+            return t;
+        });
+        this.undecidedIsSat = undecidedIsSat;
+    }
+
+    @Override
+    public boolean isWorking() {
+        for (int i = 0; i < this.members.length; ++i) {
+            if (this.alive[i] && this.members[i].isWorking()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for a member to finish the last query
+     * it raced.
+     *
+     * @param i an {@code int}, the index of the member.
+     * @throws ExternalProtocolInterfaceException if the
+     *         member failed the query but it is still working.
+     * @throws IOException if the member failed the query but
+     *         it is still working.
+     */
+    private void awaitPending(int i) throws ExternalProtocolInterfaceException, IOException {
+        final Future<?> f = this.pending[i];
+        if (f == null) {
+            return;
+        }
+        this.pending[i] = null;
+        try {
+            f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExternalProtocolInterfaceException(e);
+        } catch (ExecutionException e) {
+            //the member lost the race and then failed
+            rethrowIfWorking(i, e.getCause());
+        }
+    }
+
+    /**
+     * Handles the failure of a member: If the member still
+     * works the failure is rethrown, otherwise the member
+     * is dropped.
+     *
+     * @param i an {@code int}, the index of the member.
+     * @param failure the {@link Throwable} raised by the member.
+     * @throws ExternalProtocolInterfaceException if {@code failure} is one
+     *         and the member still works.
+     * @throws IOException if {@code failure} is one and the member still works.
+     */
+    private void rethrowIfWorking(int i, Throwable failure)
+    throws ExternalProtocolInterfaceException, IOException {
+        if (this.members[i].isWorking()) {
+            if (failure instanceof ExternalProtocolInterfaceException) {
+                throw (ExternalProtocolInterfaceException) failure;
+            } else if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else {
+                throw new UnexpectedInternalException(failure);
+            }
+        }
+        this.alive[i] = false;
+        this.members[i].fail();
+        MEMBERS_DROPPED.increment();
+    }
+
+    /**
+     * Applies an operation to all the members in the portfolio,
+     * dropping the ones that fail.
+     *
+     * @param op the {@link MemberOperation} to apply.
+     * @throws ExternalProtocolInterfaceException if a member still
+     *         working fails the operation, or all the members fail.
+     * @throws IOException if a member still working fails the operation,
+     *         or all the members fail.
+     */
+    private void forEach(MemberOperation op)
+    throws ExternalProtocolInterfaceException, IOException {
+        Exception lastFailure = null;
+        for (int i = 0; i < this.members.length; ++i) {
+            if (!this.alive[i]) {
+                continue;
+            }
+            try {
+                awaitPending(i);
+                if (this.alive[i]) {
+                    op.apply(this.members[i]);
+                }
+            } catch (ExternalProtocolInterfaceException | IOException e) {
+                rethrowIfWorking(i, e);
+                lastFailure = e;
+            }
+        }
+        throwIfNoneAlive(lastFailure);
+    }
+
+    private void throwIfNoneAlive(Exception lastFailure)
+    throws ExternalProtocolInterfaceException, IOException {
+        for (boolean a : this.alive) {
+            if (a) {
+                return;
+            }
+        }
+        if (lastFailure instanceof IOException) {
+            throw (IOException) lastFailure;
+        } else if (lastFailure == null) {
+            throw new ExternalProtocolInterfaceException("All the solvers in the portfolio failed.");
+        } else {
+            throw new ExternalProtocolInterfaceException(lastFailure);
+        }
+    }
+
+    @Override
+    public void sendClauseAssume(Primitive predicate)
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.sendClauseAssume(predicate));
+    }
+
+    @Override
+    public void sendClauseAssumeAliases(ReferenceSymbolic r, long heapPos, Objekt o)
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.sendClauseAssumeAliases(r, heapPos, o));
+    }
+
+    @Override
+    public void sendClauseAssumeExpands(ReferenceSymbolic r, String className)
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.sendClauseAssumeExpands(r, className));
+    }
+
+    @Override
+    public void sendClauseAssumeNull(ReferenceSymbolic r)
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.sendClauseAssumeNull(r));
+    }
+
+    @Override
+    public void sendClauseAssumeClassInitialized(String className)
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.sendClauseAssumeClassInitialized(className));
+    }
+
+    @Override
+    public void sendClauseAssumeClassNotInitialized(String className)
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.sendClauseAssumeClassNotInitialized(className));
+    }
+
+    @Override
+    public void retractClause()
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.retractClause());
+    }
+
+    @Override
+    public boolean checkSat(boolean positive)
+    throws ExternalProtocolInterfaceException, IOException {
+        //starts the race
+        final ExecutorCompletionService<Boolean> race = new ExecutorCompletionService<>(this.racers);
+        final HashMap<Future<Boolean>, Integer> racing = new HashMap<>();
+        Exception lastFailure = null;
+        for (int i = 0; i < this.members.length; ++i) {
+            if (!this.alive[i]) {
+                continue;
+            }
+            try {
+                awaitPending(i);
+            } catch (ExternalProtocolInterfaceException | IOException e) {
+                rethrowIfWorking(i, e);
+                lastFailure = e;
+                continue;
+            }
+            if (this.alive[i]) {
+                final DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA member = this.members[i];
+                member.beginQuery(); //so it can be aborted even before it starts
+                final Future<Boolean> f = race.submit(() -> member.checkSatDefinite(positive));
+                this.pending[i] = f;
+                racing.put(f, i);
+            }
+        }
+
+        //waits for the first definite answer
+        Boolean isSat = null;
+        boolean timedOut = false;
+        try {
+            while (isSat == null && !racing.isEmpty()) {
+                final Future<Boolean> f = race.take();
+                final int i = racing.remove(f);
+                this.pending[i] = null;
+                try {
+                    isSat = f.get();
+                    timedOut = timedOut || (isSat == null && this.members[i].timedOut());
+                } catch (ExecutionException e) {
+                    rethrowIfWorking(i, e.getCause());
+                    lastFailure = (e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExternalProtocolInterfaceException(e);
+        } finally {
+            //stops the losers; they restart in background, and
+            //the next operation on them waits for the restart
+            for (int i : racing.values()) {
+                this.members[i].abort();
+            }
+        }
+        throwIfNoneAlive(lastFailure);
+
+        if (isSat == null) {
+            if (timedOut) {
+                ++this.queriesTimedOut;
+                QUERIES_TIMEOUT.increment();
+            } else {
+                ++this.queriesUnknown;
+                QUERIES_UNKNOWN.increment();
+            }
+            return this.undecidedIsSat;
+        }
+        return isSat;
+    }
+
+    @Override
+    public long getQueriesTimedOut() {
+        return this.queriesTimedOut;
+    }
+
+    @Override
+    public long getQueriesUnknown() {
+        return this.queriesUnknown;
+    }
+
+    @Override
+    public Map<PrimitiveSymbolic, Simplex> getModel()
+    throws NoModelException, ExternalProtocolInterfaceException, IOException {
+        //the first member that produces a model wins
+        final ArrayList<Map<PrimitiveSymbolic, Simplex>> model = new ArrayList<>();
+        forEach(m -> {
+            if (model.isEmpty() && m.isWorking()) {
+                try {
+                    model.add(m.getModel());
+                } catch (NoModelException e) {
+                    //tries with the next member
+                }
+            }
+        });
+        if (model.isEmpty()) {
+            throw new NoModelException();
+        }
+        return model.get(0);
+    }
+
+    @Override
+    public void pushAssumption(boolean positive)
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.pushAssumption(positive));
+    }
+
+    @Override
+    public void popAssumption()
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.popAssumption());
+    }
+
+    @Override
+    public void clear()
+    throws ExternalProtocolInterfaceException, IOException {
+        forEach(m -> m.clear());
+    }
+
+    @Override
+    public void quit()
+    throws ExternalProtocolInterfaceException, IOException {
+        try {
+            forEach(m -> m.quit());
+        } finally {
+            this.racers.shutdown();
+        }
+    }
+
+    @Override
+    public void fail() {
+        for (int i = 0; i < this.members.length; ++i) {
+            if (this.alive[i]) {
+                this.members[i].kill();
+                this.members[i].fail();
+            }
+        }
+        this.racers.shutdownNow();
+    }
+}
@@ -1,5 +1,10 @@
 package jbse.dec;
 
+import static jbse.bc.Signatures.JAVA_STRING_EQUALS;
+import static jbse.bc.Signatures.JAVA_STRING_INDEXOF_INT;
+import static jbse.bc.Signatures.JAVA_STRING_LENGTH;
+import static jbse.bc.Signatures.JAVA_STRING_VALUE;
+
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -8,14 +13,21 @@ import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import jbse.common.Metrics;
+import jbse.common.Metrics.Counter;
+import jbse.common.Metrics.Histogram;
 import jbse.common.Type;
-import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.SMTLIB2Tokenizer.Token;
 import jbse.dec.exc.ExternalProtocolInterfaceException;
 import jbse.dec.exc.NoModelException;
 import jbse.mem.Objekt;
@@ -28,8 +40,11 @@ import jbse.val.NarrowingConversion;
 import jbse.val.Operator;
 import jbse.val.Primitive;
 import jbse.val.PrimitiveSymbolic;
+import jbse.val.PrimitiveSymbolicMemberArray;
+import jbse.val.PrimitiveSymbolicMemberArrayLength;
 import jbse.val.PrimitiveVisitor;
 import jbse.val.ReferenceSymbolic;
+import jbse.val.ReferenceSymbolicMemberField;
 import jbse.val.Simplex;
 import jbse.val.Term;
 import jbse.val.Value;
@@ -45,11 +60,13 @@ import jbse.val.WideningConversion;
 //TODO simplify implementation
 final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedureExternalInterface {
     //commands
-    private static final String PROLOGUE = 
+    private static final String PROLOGUE_BEGIN = 
         "(set-option :print-success true)\n" +
         "(set-option :interactive-mode true)\n" +
-        "(set-option :produce-models true)\n" +
-        "(set-logic AUFNIRA)\n" +
+        "(set-option :produce-models true)\n";
+    private static final String LOGIC_AUFNIRA = "(set-logic AUFNIRA)\n";
+    private static final String LOGIC_ALL = "(set-logic ALL)\n";
+    private static final String PROLOGUE_END = 
         "(define-fun round_to_zero ((x Real)) Int (ite (>= x 0.0) (to_int x) (- (to_int (- x)))))\n";
     private static final String PUSH_1 = "(push 1)\n";
     private static final String POP_BEGIN = "(pop ";
@@ -68,19 +85,79 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
     
     //etc
     private static final String OTHER = "";
+    private static final String STRING_PREFIX = "STR_";
+    private static final String OPERATOR_STRING_EQUALS = JAVA_STRING_EQUALS.toString();
+    private static final String OPERATOR_STRING_INDEXOF = JAVA_STRING_INDEXOF_INT.toString();
+    private static final String OPERATOR_STRING_LENGTH = JAVA_STRING_LENGTH.toString();
+    
+    //metrics
+    private static final Histogram ROUNDTRIP_COMMAND = Metrics.histogram("smt.roundtrip.command");
+    private static final Histogram ROUNDTRIP_CHECKSAT = Metrics.histogram("smt.roundtrip.checksat");
+    private static final Histogram ROUNDTRIP_GETVALUE = Metrics.histogram("smt.roundtrip.getvalue");
+    private static final Counter QUERIES_TIMEOUT = Metrics.counter("smt.timeout");
+    private static final Counter QUERIES_UNKNOWN = Metrics.counter("smt.unknown");
+    private static final Counter SOLVER_RESTARTS = Metrics.counter("smt.restart");
+    
+    //states of a query
+    private static final int QUERY_PENDING = 0;
+    private static final int QUERY_ANSWERED = 1;
+    private static final int QUERY_KILLED = 2;
+    
+    /** 
+     * The watchdog that kills the solvers that exceed the time 
+     * budget of a query, shared by all the interfaces and
+     * lazily created.
+     */
+    private static ScheduledExecutorService watchdog = null;
 
     private final Calculator calc;
+    private final boolean useStringTheory;
     private final ExpressionMangler m;
+    private final List<String> solverCommandLine;
+    private final long queryTimeout;
+    private final boolean undecidedIsSat;
     private boolean working;
-    private Process solver;
+    private volatile Process solver;
+    
+    /** Set when the solver process is killed while it works on a query. */
+    private volatile boolean killed;
+    
+    /** Set when the solver process is killed because it exceeded the query time budget. */
+    private volatile boolean timedOut;
+    
+    /** Set when this interface is quit or failed, so the solver must not be restarted. */
+    private volatile boolean closed;
+    
+    /** 
+     * The state of the last query. The watchdog and {@link #abort()}
+     * kill the solver only if they move it from {@code QUERY_PENDING}, 
+     * so they have no effect once the answer is in.
+     */
+    private volatile AtomicInteger query = new AtomicInteger(QUERY_ANSWERED);
+    
+    /** 
+     * Run after the solver answers a check-sat and before 
+     * the answer is settled; only for testing. 
+     */
+    volatile Runnable afterAnswer = null;
+    
+    private long queriesTimedOut;
+    private long queriesUnknown;
     private BufferedReader solverIn;
     private BufferedWriter solverOut;
+    private SMTLIB2Tokenizer tokenizer;
     private String currentQueryPositive;
     private String currentQueryNegative;
     private boolean hasCurrentClause;
     private SMTLIB2ExpressionVisitor v;
     private ArrayList<Boolean> pushedClauseIsOutsideTheory;
     private ArrayList<Integer> nSymPushed; 
+    
+    /** 
+     * The queries that pushed the current assumptions, 
+     * replayed when the solver is restarted. 
+     */
+    private ArrayList<String> pushedQueries;
     private int nSymCurrent;
     private int nTotalSymbols;
     
@@ -92,19 +169,142 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
      *        command line to launch the external process for the decision procedure.
      */
     public DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(Calculator calc, List<String> solverCommandLine) 
+    throws ExternalProtocolInterfaceException, IOException {
+        this(calc, solverCommandLine, false);
+    }
+    
+    /** 
+     * Costructor.
+     * 
+     * @param calc a {@link Calculator}.
+     * @param solverCommandLine a {@link List}{@code <}{@link String}{@code >}, the
+     *        command line to launch the external process for the decision procedure.
+     * @param useStringTheory a {@code boolean}, whether the applications of 
+     *        {@link java.lang.String} methods produced by the meta-level 
+     *        algorithms must be translated to the SMT-LIB strings theory. 
+     *        In this case the solver must support the {@code ALL} logic.
+     */
+    public DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(Calculator calc, List<String> solverCommandLine, boolean useStringTheory) 
+    throws ExternalProtocolInterfaceException, IOException {
+        this(calc, solverCommandLine, useStringTheory, 0, false);
+    }
+    
+    /** 
+     * Costructor.
+     * 
+     * @param calc a {@link Calculator}.
+     * @param solverCommandLine a {@link List}{@code <}{@link String}{@code >}, the
+     *        command line to launch the external process for the decision procedure.
+     * @param useStringTheory a {@code boolean}, whether the applications of 
+     *        {@link java.lang.String} methods produced by the meta-level 
+     *        algorithms must be translated to the SMT-LIB strings theory. 
+     *        In this case the solver must support the {@code ALL} logic.
+     * @param queryTimeout a {@code long}, the maximum time in milliseconds
+     *        the solver may spend on a satisfiability query. When it is 
+     *        exceeded the solver process is killed and restarted with the
+     *        current assumptions. If it is less or equal to 0 there is no
+     *        limit.
+     * @param undecidedIsSat a {@code boolean}, the answer to the satisfiability
+     *        queries that the solver answers unknown or does not answer in time.
+     */
+    public DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(Calculator calc, List<String> solverCommandLine, boolean useStringTheory, long queryTimeout, boolean undecidedIsSat) 
     throws ExternalProtocolInterfaceException, IOException {
         this.calc = calc;
+        this.useStringTheory = useStringTheory;
         this.m = new ExpressionMangler("X", "", calc);
+        this.solverCommandLine = new ArrayList<>(solverCommandLine);
+        this.queryTimeout = queryTimeout;
+        this.undecidedIsSat = undecidedIsSat;
+        start();
+        clear();
+    }
+    
+    /**
+     * Launches the solver process and sends it the prologue.
+     * 
+     * @throws ExternalProtocolInterfaceException if the solver 
+     *         does not accept the prologue.
+     * @throws IOException if launching or communicating with
+     *         the solver fails.
+     */
+    private void start() throws ExternalProtocolInterfaceException, IOException {
         this.working = true;
-        final ProcessBuilder pb = new ProcessBuilder(solverCommandLine);
+        final ProcessBuilder pb = new ProcessBuilder(this.solverCommandLine);
         pb.redirectErrorStream(true);
         this.solver = pb.start();
         this.solverIn = new BufferedReader(new InputStreamReader(this.solver.getInputStream()));
         this.solverOut = new BufferedWriter(new OutputStreamWriter(this.solver.getOutputStream()));
+        this.tokenizer = new SMTLIB2Tokenizer(this.solverIn);
         
-        final String query = PROLOGUE + PUSH_1;
+        final String query = PROLOGUE_BEGIN + (this.useStringTheory ? LOGIC_ALL : LOGIC_AUFNIRA) + PROLOGUE_END + PUSH_1;
         sendAndCheckAnswer(query);
-        clear();
+    }
+    
+    /**
+     * Restarts a killed solver process, and pushes 
+     * again the current assumptions. The current 
+     * clause, if any, is not sent again.
+     * 
+     * @throws ExternalProtocolInterfaceException if the solver 
+     *         does not accept the restart.
+     * @throws IOException if launching or communicating with
+     *         the solver fails.
+     */
+    private void restart() throws ExternalProtocolInterfaceException, IOException {
+        this.killed = false;
+        this.solver.destroyForcibly();
+        if (this.closed) {
+            this.working = false;
+            throw new IOException("Attempted to restart a closed solver.");
+        }
+        SOLVER_RESTARTS.increment();
+        start();
+        for (String query : this.pushedQueries) {
+            sendAndCheckAnswer(query);
+        }
+    }
+    
+    private static synchronized ScheduledExecutorService watchdog() {
+        if (watchdog == null) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread t = new Thread(r, "jbse-smt-watchdog");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return watchdog;
+    }
+    
+    /**
+     * Starts a query, that can be aborted from now on 
+     * until the solver answers it. Must be invoked 
+     * before {@link #checkSatDefinite(boolean)}.
+     */
+    void beginQuery() {
+        this.query = new AtomicInteger(QUERY_PENDING);
+    }
+    
+    /**
+     * Kills the solver process, if the current query
+     * is not answered yet. The query is left undecided, 
+     * and the solver is restarted before the next command.
+     */
+    void abort() {
+        if (this.query.compareAndSet(QUERY_PENDING, QUERY_KILLED)) {
+            kill(this.solver);
+        }
+    }
+    
+    /**
+     * Kills the solver process, whatever it is doing.
+     */
+    void kill() {
+        kill(this.solver);
+    }
+    
+    private void kill(Process p) {
+        this.killed = true;
+        p.destroyForcibly();
     }
 
     @Override
@@ -220,6 +420,31 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
 
     @Override
     public boolean checkSat(boolean value) 
+    throws ExternalProtocolInterfaceException, IOException {
+        beginQuery();
+        final Boolean isSat = checkSatDefinite(value);
+        if (isSat == null) {
+            countUndecided(this.timedOut);
+            return this.undecidedIsSat;
+        }
+        return isSat;
+    }
+    
+    /**
+     * Checks the satisfiability of the current clause, 
+     * as {@link #checkSat(boolean)}, without treating 
+     * the undecided queries.
+     * 
+     * @param value a {@code boolean}, see {@link #checkSat(boolean)}.
+     * @return {@link Boolean#TRUE} if the solver answers sat, 
+     *         {@link Boolean#FALSE} if it answers unsat, 
+     *         {@code null} if it answers unknown or the
+     *         query is aborted or timed out (in the latter 
+     *         case {@link #timedOut()} returns {@code true}).
+     * @throws ExternalProtocolInterfaceException as {@link #checkSat(boolean)}.
+     * @throws IOException as {@link #checkSat(boolean)}.
+     */
+    Boolean checkSatDefinite(boolean value) 
     throws ExternalProtocolInterfaceException, IOException {
         if (!this.hasCurrentClause) {
             throw new ExternalProtocolInterfaceException("Attempted to check satisfiability with no current clause.");
@@ -227,177 +452,182 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
         
         final String smtlib2Query = (value ? this.currentQueryPositive : this.currentQueryNegative);
         if (smtlib2Query == null) {
-            return true;
+            return Boolean.TRUE;
+        }
+        this.timedOut = false;
+        final AtomicInteger query = this.query;
+        Boolean isSat = null;
+        if (query.get() != QUERY_PENDING) {
+            //aborted before it started
+            if (this.killed) {
+                restart();
+            }
+            return isSat;
+        }
+        try {
+            sendAndCheckAnswer(smtlib2Query);
+            isSat = sendAndCheckAnswerChecksat(query);
+            if (!this.killed) {
+                //otherwise the restart pops the query
+                sendAndCheckAnswer(POP_1);
+            }
+        } catch (ExternalProtocolInterfaceException | IOException e) {
+            if (!this.killed) {
+                throw e;
+            }
+        }
+        if (this.killed) {
+            //the pop is implicit in the restart
+            restart();
         }
-        sendAndCheckAnswer(smtlib2Query);
-        final boolean isSat = sendAndCheckAnswerChecksat();
-        sendAndCheckAnswer(POP_1);
         return isSat;
     }
     
+    /**
+     * Checks whether the last query was killed 
+     * because it exceeded its time budget.
+     * 
+     * @return a {@code boolean}.
+     */
+    boolean timedOut() {
+        return this.timedOut;
+    }
+    
+    /**
+     * Counts a query that was treated as undecided.
+     * 
+     * @param timedOut a {@code boolean}, whether the 
+     *        query timed out (otherwise it was answered 
+     *        unknown).
+     */
+    void countUndecided(boolean timedOut) {
+        if (timedOut) {
+            ++this.queriesTimedOut;
+            QUERIES_TIMEOUT.increment();
+        } else {
+            ++this.queriesUnknown;
+            QUERIES_UNKNOWN.increment();
+        }
+    }
+    
+    @Override
+    public long getQueriesTimedOut() {
+        return this.queriesTimedOut;
+    }
+    
+    @Override
+    public long getQueriesUnknown() {
+        return this.queriesUnknown;
+    }
+    
     @Override
     public Map<PrimitiveSymbolic, Simplex> getModel() 
     throws NoModelException, ExternalProtocolInterfaceException, IOException {
-        sendAndCheckAnswerChecksat(); //always need a checksat before reading a model
-        final String smtlib2Model = sendAndCheckAnswerGetmodel();
-        if (smtlib2Model == null || smtlib2Model.startsWith("(error")) {
+        //always need a checksat before reading a model
+        try {
+            this.timedOut = false;
+            beginQuery();
+            sendAndCheckAnswerChecksat(this.query);
+        } catch (ExternalProtocolInterfaceException | IOException e) {
+            if (!this.killed) {
+                throw e;
+            }
+        }
+        if (this.killed) {
+            restart();
             throw new NoModelException();
         }
         
-        final HashMap<PrimitiveSymbolic, Simplex> model = new HashMap<>();
-        String smtlib2Symbol = null;
-        LinkedList<LinkedList<Object>> smtlib2ParseStack = new LinkedList<>();
-        smtlib2ParseStack.push(new LinkedList<>());
-        int nestingLevel = 0;
-        boolean scanningSymbol = false;
-        final String[] smtlib2ModelTokens = smtlib2Model.replace("(", " ( ").replace(")", " ) ").trim().split("\\s+"); //thanks for the idea Peter Norvig!
-        for (String token : smtlib2ModelTokens) {
-            final int prevNestingLevel = nestingLevel;
-            if (token.equals("(")) {
-                ++nestingLevel;
-            } else if (token.equals(")")) {
-                --nestingLevel;
+        //only the values of the symbols that remap to numeric
+        //JBSE symbols are queried, the other ones are useless
+        final ArrayList<String> smtlib2Symbols = new ArrayList<>();
+        for (Map.Entry<String, Primitive> e : this.v.smtlib2VarsToJBSESymbols.entrySet()) {
+            if (e.getValue() instanceof PrimitiveSymbolic) {
+                smtlib2Symbols.add(e.getKey());
             }
-            if (prevNestingLevel == 1 && nestingLevel == 2) {
-                scanningSymbol = true;
-            } else if (nestingLevel == 2 && scanningSymbol) {
-                smtlib2Symbol = token;
-                scanningSymbol = false;
-            } else if (nestingLevel >= 2 && !scanningSymbol) {
-                if (token.equals("(")) {
-                    smtlib2ParseStack.push(new LinkedList<>());
-                } else if (token.equals(")")) {
-                    final LinkedList<Object> list = smtlib2ParseStack.pop();
-                    smtlib2ParseStack.peek().add(list);
-                } else {
-                    smtlib2ParseStack.peek().add(token);
-                }
-            } else if (prevNestingLevel == 2 && nestingLevel == 1) {
-                final Primitive jbseSymbol = this.v.smtlib2VarsToJBSESymbols.get(smtlib2Symbol);
-                if (jbseSymbol != null && jbseSymbol instanceof PrimitiveSymbolic) {
-                    final Number value = smtlib2Interpret(smtlib2ParseStack.pop());
-                    if (value == null) {
-                        //unable to interpret the SMTLIB2 expression
-                        throw new NoModelException(); //TODO possibly throw a different exception
-                    } else {
-                        try {
-							model.put((PrimitiveSymbolic) jbseSymbol, (Simplex) this.calc.val_(value));
-						} catch (InvalidInputException e) {
-							//this should never happen
-							throw new UnexpectedInternalException(e);
-						}
-                    }
-                }   
-                smtlib2Symbol = null;
-                smtlib2ParseStack = new LinkedList<>();
-                smtlib2ParseStack.push(new LinkedList<>());
+        }
+        final HashMap<PrimitiveSymbolic, Simplex> model = new HashMap<>();
+        if (smtlib2Symbols.isEmpty()) {
+            return model;
+        }
+        
+        final StringBuilder query = new StringBuilder(GETVALUE_BEGIN);
+        for (String smtlib2Symbol : smtlib2Symbols) {
+            query.append(smtlib2Symbol);
+            query.append(' ');
+        }
+        query.append(GETVALUE_END);
+        final long start = Metrics.start();
+        send(query.toString());
+        try {
+            if (!readModel(smtlib2Symbols, model)) {
+                throw new NoModelException(); //TODO possibly throw a different exception
             }
+        } catch (IOException e) {
+            this.working = false;
+            throw e;
+        } finally {
+            ROUNDTRIP_GETVALUE.stop(start);
         }
         return model;
     }
     
-    private Number smtlib2Interpret(Object smtlib2ParsedExpression) {
-        if (smtlib2ParsedExpression == null) {
-            return null;
+    /**
+     * Reads from the solver the answer to a {@code get-value}
+     * command, up to the end of the line where it ends. 
+     * 
+     * @param smtlib2Symbols the {@link List} of the SMTLIB2 
+     *        symbols whose values were queried, in query order.
+     * @param model the {@link Map} where the values must be put.
+     * @return {@code true} iff the answer is well-formed and 
+     *         all the values are numbers.
+     * @throws IOException if reading from the solver fails.
+     */
+    private boolean readModel(List<String> smtlib2Symbols, Map<PrimitiveSymbolic, Simplex> model) throws IOException {
+        final SMTLIB2Tokenizer t = this.tokenizer;
+        if (t.next() != Token.OPEN) {
+            t.skipLine();
+            return false;
         }
-        if (smtlib2ParsedExpression instanceof String) {
-            // <constant>
-            final String constant = (String) smtlib2ParsedExpression;
-            try {
-                final Long l = Long.parseLong(constant);
-                return l;
-            } catch (NumberFormatException e1) {
-                try {
-                    final Double d = Double.parseDouble(constant);
-                    return d;
-                } catch (NumberFormatException e2) {
-                    return null;
-                }
+        boolean retVal = true;
+        int i = 0;
+        Token token;
+        while ((token = t.next()) == Token.OPEN) {
+            if (t.next() != Token.ATOM) {
+                t.pushBack();
+                t.skipList(2);
+                retVal = false;
+                break;
             }
-        }
-        if (smtlib2ParsedExpression instanceof LinkedList<?>) {
-            // ( ... )
-            final LinkedList<?> exprList = (LinkedList<?>) smtlib2ParsedExpression;
-            if (exprList.isEmpty()) {
-                // ()
-                return null;
+            
+            //solvers answer in query order, so usually there 
+            //is no need to look up the symbol
+            final String smtlib2Symbol;
+            if (i < smtlib2Symbols.size() && t.atomEquals(smtlib2Symbols.get(i))) {
+                smtlib2Symbol = smtlib2Symbols.get(i);
+            } else {
+                smtlib2Symbol = t.atom();
             }
-            final Object head = exprList.pollFirst();
-            if (exprList.isEmpty()) {
-                // (<subexpression>)
-                return smtlib2Interpret(head);
-            } else if (head instanceof String) {
-                final String headString = (String) head;
-                final Number firstOperand, secondOperand;
-                switch (headString) {
-                case "+":
-                    firstOperand = smtlib2Interpret(exprList.pollFirst());
-                    if (exprList.isEmpty()) {
-                        // (+ <firstOperand>)
-                        return firstOperand;
-                    } else {
-                        // (+ <firstOperand> <secondOperand>)
-                        secondOperand = smtlib2Interpret(exprList.pollFirst());
-                        if (firstOperand == null || secondOperand == null) {
-                            return null;
-                        } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
-                        secondOperand instanceof Float || secondOperand instanceof Double) {
-                            return firstOperand.doubleValue() + secondOperand.doubleValue();
-                        } else {
-                            return firstOperand.longValue() + secondOperand.longValue();
-                        }
-                    }
-                case "-":
-                    firstOperand = smtlib2Interpret(exprList.pollFirst());
-                    if (exprList.isEmpty()) {
-                        // (- <firstOperand>)
-                        if (firstOperand == null) {
-                            return null;
-                        } else if (firstOperand instanceof Float || firstOperand instanceof Double) {
-                            return - firstOperand.doubleValue();
-                        } else {
-                            return - firstOperand.longValue();
-                        }
-                    } else {
-                        // (- <firstOperand> <secondOperand>)
-                        secondOperand = smtlib2Interpret(exprList.pollFirst());
-                        if (firstOperand == null || secondOperand == null) {
-                            return null;
-                        } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
-                        secondOperand instanceof Float || secondOperand instanceof Double) {
-                            return firstOperand.doubleValue() - secondOperand.doubleValue();
-                        } else {
-                            return firstOperand.longValue() - secondOperand.longValue();
-                        }
-                    }
-                case "*":
-                    // (* <firstOperand> <secondOperand>)
-                    firstOperand = smtlib2Interpret(exprList.pollFirst());
-                    secondOperand = smtlib2Interpret(exprList.pollFirst());
-                    if (firstOperand == null || secondOperand == null) {
-                        return null;
-                    } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
-                    secondOperand instanceof Float || secondOperand instanceof Double) {
-                        return firstOperand.doubleValue() * secondOperand.doubleValue();
-                    } else {
-                        return firstOperand.longValue() * secondOperand.longValue();
-                    }
-                case "/":
-                    // (/ <firstOperand> <secondOperand>)
-                    firstOperand = smtlib2Interpret(exprList.pollFirst());
-                    secondOperand = smtlib2Interpret(exprList.pollFirst());
-                    if (firstOperand == null || secondOperand == null) {
-                        return null;
-                    } else if (firstOperand instanceof Float || firstOperand instanceof Double ||
-                    secondOperand instanceof Float || secondOperand instanceof Double) {
-                        return firstOperand.doubleValue() / secondOperand.doubleValue();
-                    } else {
-                        return firstOperand.longValue() / secondOperand.longValue();
-                    }
-                }
+            ++i;
+            final Primitive jbseSymbol = this.v.smtlib2VarsToJBSESymbols.get(smtlib2Symbol);
+            final Simplex value = t.readValue(this.calc);
+            if (value == null) {
+                //unable to interpret the SMTLIB2 expression
+                retVal = false;
+            } else if (jbseSymbol instanceof PrimitiveSymbolic) {
+                model.put((PrimitiveSymbolic) jbseSymbol, value);
             }
+            t.skipList(1);
+        }
+        if (token == Token.ATOM) {
+            //(error ...) or other unexpected answer
+            t.skipList(1);
+            retVal = false;
+        } else if (token == Token.EOF) {
+            throw new IOException("Failed read of solver output, premature end of stream reached, process alive: " + this.solver.isAlive());
         }
-        return null;
+        t.skipLine();
+        return retVal;
     }
 
     @Override
@@ -414,6 +644,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
         } else {
         	this.pushedClauseIsOutsideTheory.add(false);
             rememberPushedDeclarations();
+            this.pushedQueries.add(smtlib2Query);
             sendAndCheckAnswer(smtlib2Query);
         }
     }
@@ -427,6 +658,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
         	//do nothing
         } else {
             forgetPoppedDeclarations();
+            this.pushedQueries.remove(this.pushedQueries.size() - 1);
         	sendAndCheckAnswer(POP_1);
         }
     }
@@ -443,9 +675,14 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
         forgetAllDeclarations();
     }
     
-    private void send(String query) throws IOException {
+    private void send(String query) throws ExternalProtocolInterfaceException, IOException {
         //System.err.print("--->SMTLIB2: " + query); //TODO log differently!
     	
+        if (this.killed) {
+            //killed while sending a query, that the caller 
+            //must treat as undecided
+            throw new IOException("The solver was killed.");
+        }
         try {
             this.solverOut.write(query);
             this.solverOut.flush();
@@ -456,6 +693,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
     }
     
     private void sendAndCheckAnswer(String query) throws IOException, ExternalProtocolInterfaceException {
+        final long start = Metrics.start();
         send(query);
         for (int i = 0; i < query.length(); ++i) {
             if (query.charAt(i) == '\n') {
@@ -470,6 +708,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
                 }
             }
         }
+        ROUNDTRIP_COMMAND.stop(start);
     }
     
     private String read() throws IOException {
@@ -482,48 +721,71 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
         }
         if (answer == null) {
             this.working = false;
-            throw new IOException("Failed read of solver output, premature end of stream reached, process alive: " + this.solver.isAlive() + ", exit value: " + this.solver.exitValue());
+            final boolean alive = this.solver.isAlive();
+            throw new IOException("Failed read of solver output, premature end of stream reached, process alive: " + alive + (alive ? "" : ", exit value: " + this.solver.exitValue()));
         }
 
         //System.err.println("<---SMTLIB2: " + answer); //TODO log differently!
         return answer;
     }
     
-    private boolean sendAndCheckAnswerChecksat() throws IOException, ExternalProtocolInterfaceException {
+    /**
+     * Sends a {@code check-sat} to the solver and reads
+     * the answer, killing the solver if the answer does
+     * not come within the query time budget.
+     * 
+     * @param query the {@link AtomicInteger} state of the 
+     *        current query.
+     * @return {@link Boolean#TRUE} for sat, {@link Boolean#FALSE}
+     *         for unsat, {@code null} for unknown.
+     * @throws IOException if communication with the solver 
+     *         fails, e.g., because it was killed.
+     * @throws ExternalProtocolInterfaceException if the
+     *         answer is not recognized.
+     */
+    private Boolean sendAndCheckAnswerChecksat(AtomicInteger query) throws IOException, ExternalProtocolInterfaceException {
+        final long start = Metrics.start();
         send(CHECKSAT);
-        final String answer = read();
-        if (!answer.equals(SAT) && !answer.equals(UNSAT) && !answer.equals(UNKNOWN)) {
+        final String answer;
+        final ScheduledFuture<?> alarm;
+        if (this.queryTimeout > 0) {
+            final Process p = this.solver;
+            alarm = watchdog().schedule(() -> {
+                if (query.compareAndSet(QUERY_PENDING, QUERY_KILLED)) {
+                    this.timedOut = true;
+                    kill(p);
+                }
+            }, this.queryTimeout, TimeUnit.MILLISECONDS);
+        } else {
+            alarm = null;
+        }
+        try {
+            answer = read();
+            final Runnable afterAnswer = this.afterAnswer;
+            if (afterAnswer != null) {
+                afterAnswer.run();
+            }
+        } finally {
+            if (alarm != null) {
+                alarm.cancel(false);
+            }
+            ROUNDTRIP_CHECKSAT.stop(start);
+        }
+        if (!query.compareAndSet(QUERY_PENDING, QUERY_ANSWERED)) {
+            //the answer came while the solver was being killed:
+            //the answer is good, but the solver must be restarted
+            this.killed = true;
+        }
+        if (answer.equals(SAT)) {
+            return Boolean.TRUE;
+        } else if (answer.equals(UNSAT)) {
+            return Boolean.FALSE;
+        } else if (answer.equals(UNKNOWN)) {
+            return null;
+        } else {
             this.working = false;
             throw new ExternalProtocolInterfaceException("Unrecognized answer from solver when checking satisfiability. Message: " + answer);
         }
-        return answer.equals(SAT); //conservatively returns false if answer is unknown
-    }
-    
-    private String sendAndCheckAnswerGetmodel() 
-    throws IOException, ExternalProtocolInterfaceException {
-        final StringBuilder query = new StringBuilder(GETVALUE_BEGIN);
-        for (String symbol : this.v.smtlib2DeclaredSymbols) {
-            query.append(symbol);
-            query.append(' ');
-        }
-        query.append(GETVALUE_END);
-        send(query.toString());
-        //answer can be multiline, we count parentheses to
-        //determine when the answer is over
-        final StringBuilder retVal = new StringBuilder();
-        int nestingLevel = 0;
-        do {
-            final String answer = read();
-            retVal.append(answer);
-            for (char c : answer.toCharArray()) {
-                if (c == '(') {
-                    ++nestingLevel;
-                } else if (c == ')') {
-                    --nestingLevel;
-                }
-            }
-        } while (nestingLevel > 0);
-        return retVal.toString();
     }
     
     private void rememberPushedDeclarations() {
@@ -548,6 +810,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
         this.v = new SMTLIB2ExpressionVisitor();
         this.pushedClauseIsOutsideTheory = new ArrayList<>();
         this.nSymPushed = new ArrayList<>();
+        this.pushedQueries = new ArrayList<>();
         this.nSymCurrent = 0;
         this.nTotalSymbols = 0;
     }
@@ -733,6 +996,22 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
             } else if (x.getType() != Type.BOOLEAN && this.isBooleanExpression) {
                 throw new UnexpectedInternalException("Error while parsing expression (expected a numeric expression but it is not): " + x.toString());
             }
+            if (useStringTheory && OPERATOR_STRING_EQUALS.equals(x.getOperator())) {
+                final String firstString = putString((ReferenceSymbolic) x.getArgs()[0]);
+                final String secondString = putString((ReferenceSymbolic) x.getArgs()[1]);
+                this.clauseStack.push("(ite (= " + firstString + " " + secondString + ") 1 0)");
+                return;
+            } else if (useStringTheory && OPERATOR_STRING_INDEXOF.equals(x.getOperator())) {
+                final String string = putString((ReferenceSymbolic) x.getArgs()[0]);
+                ((Primitive) x.getArgs()[1]).accept(new SMTLIB2ExpressionVisitor(this, false));
+                final String ch = this.clauseStack.pop();
+                this.clauseStack.push("(ite (and (<= 0 " + ch + ") (<= " + ch + " 65535)) (str.indexof " + string + " (str.from_code " + ch + ") 0) (- 1))");
+                return;
+            } else if (useStringTheory && OPERATOR_STRING_LENGTH.equals(x.getOperator())) {
+                final String string = putString((ReferenceSymbolic) x.getArgs()[0]);
+                this.clauseStack.push("(str.len " + string + ")");
+                return;
+            }
             boolean allArgsPrimitive = true;
             for (Value v : x.getArgs()) {
                 if (!(v instanceof Primitive)) {
@@ -822,7 +1101,9 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
             if (mytype == Type.BYTE || mytype == Type.SHORT ||
                 mytype == Type.INT || mytype == Type.LONG ||
                 mytype == Type.CHAR) {
-                if (obj instanceof Number && ((Number) obj).doubleValue() < 0) {
+                if (obj instanceof Character) {
+                    this.clauseStack.push(Integer.toString((Character) obj));
+                } else if (obj instanceof Number && ((Number) obj).doubleValue() < 0) {
                     this.clauseStack.push("(- " + obj.toString().substring(1) + ")");
                 } else {
                     this.clauseStack.push(obj.toString());
@@ -879,16 +1160,16 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
         }
 
         @Override
-        public void visitPrimitiveSymbolicAtomic(PrimitiveSymbolicAtomic s) {
+        public void visitPrimitiveSymbolicAtomic(PrimitiveSymbolicAtomic s) throws Exception {
             putSymbol(s);
         }
 
         @Override
-        public void visitTerm(Term x) {
+        public void visitTerm(Term x) throws Exception {
             putSymbol(x);
         }
 
-        private void putSymbol(Primitive symbol) {
+        private void putSymbol(Primitive symbol) throws Exception {
             final char type = symbol.getType();
             final String symbolToString = symbol.toString();
             final String smtlib2Variable = (symbolToString.charAt(0) == '{' ? 
@@ -902,9 +1183,97 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
                 this.queryDeclarations.append("(declare-fun " + smtlib2Variable + " () " + toSMTLIB2Type(type) + ")\n");
                 ++nSymCurrent;
                 ++nTotalSymbols;
+                if (useStringTheory) {
+                    final ReferenceSymbolic string = stringOf(symbol);
+                    if (string != null && this.smtlib2DeclaredSymbols.contains(toSMTLIB2String(string))) {
+                        putStringAxiom(smtlib2Variable, symbol, toSMTLIB2String(string));
+                    }
+                }
             }
             this.clauseStack.push(smtlib2Variable);
         }
+
+        /**
+         * Declares, if not yet declared, the SMTLIB2 string variable 
+         * for a symbolic {@code java.lang.String}, and links it with 
+         * the already declared symbols for the length and the characters
+         * of the string.
+         * 
+         * @param string the {@link ReferenceSymbolic} origin of the string.
+         * @return a {@link String}, the name of the SMTLIB2 string variable.
+         * @throws Exception if the visit of some array index fails.
+         */
+        private String putString(ReferenceSymbolic string) throws Exception {
+            final String smtlib2String = toSMTLIB2String(string);
+            if (!this.smtlib2DeclaredSymbols.contains(smtlib2String)) {
+                this.smtlib2DeclaredSymbols.add(smtlib2String);
+                this.queryDeclarations.append("(declare-fun " + smtlib2String + " () String)\n");
+                ++nSymCurrent;
+                ++nTotalSymbols;
+                final ArrayList<Map.Entry<String, Primitive>> members = new ArrayList<>();
+                for (Map.Entry<String, Primitive> e : this.smtlib2VarsToJBSESymbols.entrySet()) {
+                    if (string.equals(stringOf(e.getValue()))) {
+                        members.add(e);
+                    }
+                }
+                for (Map.Entry<String, Primitive> e : members) {
+                    putStringAxiom(e.getKey(), e.getValue(), smtlib2String);
+                }
+            }
+            return smtlib2String;
+        }
+
+        /**
+         * Asserts that a symbol is the length or a character
+         * of a string variable.
+         */
+        private void putStringAxiom(String smtlib2Variable, Primitive symbol, String smtlib2String) throws Exception {
+            if (symbol instanceof PrimitiveSymbolicMemberArrayLength) {
+                this.queryDeclarations.append("(assert (= " + smtlib2Variable + " (str.len " + smtlib2String + ")))\n");
+            } else {
+                ((PrimitiveSymbolicMemberArray) symbol).getIndex().accept(new SMTLIB2ExpressionVisitor(this, false));
+                final String index = this.clauseStack.pop();
+                this.queryDeclarations.append("(assert (=> (and (<= 0 " + index + ") (< " + index + " (str.len " + smtlib2String + "))) " + 
+                                              "(= " + smtlib2Variable + " (str.to_code (str.at " + smtlib2String + " " + index + ")))))\n");
+            }
+        }
+
+        /**
+         * Returns the string a symbol is the length or 
+         * a character of.
+         * 
+         * @param symbol a {@link Primitive}.
+         * @return the {@link ReferenceSymbolic} origin of the 
+         *         {@code java.lang.String} whose {@code value} 
+         *         array has {@code symbol} as its length or as 
+         *         one of its elements, or {@code null} if 
+         *         {@code symbol} is not such a value.
+         */
+        private ReferenceSymbolic stringOf(Primitive symbol) {
+            final ReferenceSymbolic array;
+            if (symbol instanceof PrimitiveSymbolicMemberArrayLength) {
+                array = ((PrimitiveSymbolicMemberArrayLength) symbol).getContainer();
+            } else if (symbol instanceof PrimitiveSymbolicMemberArray) {
+                array = ((PrimitiveSymbolicMemberArray) symbol).getContainer();
+            } else {
+                return null;
+            }
+            if (array instanceof ReferenceSymbolicMemberField) {
+                final ReferenceSymbolicMemberField field = (ReferenceSymbolicMemberField) array;
+                if (JAVA_STRING_VALUE.getName().equals(field.getFieldName()) && 
+                    JAVA_STRING_VALUE.getClassName().equals(field.getFieldClass())) {
+                    return field.getContainer();
+                }
+            }
+            return null;
+        }
+
+        private String toSMTLIB2String(ReferenceSymbolic string) {
+            final String stringToString = string.toString();
+            return STRING_PREFIX + (stringToString.charAt(0) == '{' ? 
+                                    stringToString.substring(1, stringToString.length() - 1) :
+                                    stringToString);
+        }
     }
 
     /**
@@ -913,6 +1282,13 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
     @Override
     public void quit() 
     throws ExternalProtocolInterfaceException, IOException {
+        this.closed = true;
+        if (this.killed) {
+            //no need to restart it just to quit it
+            this.working = false;
+            this.solver.destroyForcibly();
+            return;
+        }
         this.working = false;
         send(EXIT);
         while (this.solverIn.readLine() != null) {
@@ -934,6 +1310,7 @@ final class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionPr
      */
     @Override
     public void fail() {
+        this.closed = true;
         this.working = false;
         try {
 			while (this.solverIn.readLine() != null) {
@@ -11,7 +11,10 @@ import java.util.List;
 /**
  * A decision procedure for solvers compatible with SMTLIB 2 specification
  * supporting the AUFNIRA logic and interactive mode. Tested and working with
- * Z3 and CVC4, models only work for Z3.
+ * Z3 and CVC4, models only work for Z3. Optionally, the solver is
+ * configured to use the strings theory for the symbolic 
+ * {@code java.lang.String}s, the satisfiability queries are given 
+ * a time budget, and a portfolio of solvers is raced on every query.
  * 
  * @author Pietro Braione
  * @author Diego Piazza
@@ -19,10 +22,52 @@ import java.util.List;
  */
 public final class DecisionProcedureSMTLIB2_AUFNIRA extends DecisionProcedureExternal {
 	public DecisionProcedureSMTLIB2_AUFNIRA(DecisionProcedure next, List<String> solverCommandLine) 
+	throws InvalidInputException, DecisionException {
+		this(next, solverCommandLine, false);
+	}
+	
+	public DecisionProcedureSMTLIB2_AUFNIRA(DecisionProcedure next, List<String> solverCommandLine, boolean useStringTheory) 
 	throws InvalidInputException, DecisionException {
 		super(next);
 		try {
-			this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(getCalculator(), solverCommandLine);
+			this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(getCalculator(), solverCommandLine, useStringTheory);
+		} catch (ExternalProtocolInterfaceException | IOException e) {
+			throw new DecisionException(e);
+		}
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param next the next {@link DecisionProcedure} in the chain.
+	 * @param solverCommandLines a {@link List} of the command lines
+	 *        of the solvers. If it has more than one element, the 
+	 *        solvers are raced on every satisfiability query, and 
+	 *        the first definite answer is taken.
+	 * @param useStringTheory a {@code boolean}, whether the solvers 
+	 *        must use the strings theory.
+	 * @param queryTimeout a {@code long}, the maximum time in 
+	 *        milliseconds a solver may spend on a satisfiability
+	 *        query before being killed and restarted (0 for no limit).
+	 * @param undecidedIsSat a {@code boolean}, the answer to the 
+	 *        satisfiability queries that the solvers answer unknown 
+	 *        or do not answer in time.
+	 * @throws InvalidInputException if {@code next == null} or 
+	 *         {@code solverCommandLines} is empty.
+	 * @throws DecisionException if launching the solvers fails.
+	 */
+	public DecisionProcedureSMTLIB2_AUFNIRA(DecisionProcedure next, List<List<String>> solverCommandLines, boolean useStringTheory, long queryTimeout, boolean undecidedIsSat) 
+	throws InvalidInputException, DecisionException {
+		super(next);
+		if (solverCommandLines.isEmpty()) {
+			throw new InvalidInputException("Attempted to build a " + getClass().getName() + " with no solver command line.");
+		}
+		try {
+			if (solverCommandLines.size() == 1) {
+				this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(getCalculator(), solverCommandLines.get(0), useStringTheory, queryTimeout, undecidedIsSat);
+			} else {
+				this.extIf = new DecisionProcedureExternalInterfacePortfolio(getCalculator(), solverCommandLines, useStringTheory, queryTimeout, undecidedIsSat);
+			}
 		} catch (ExternalProtocolInterfaceException | IOException e) {
 			throw new DecisionException(e);
 		}
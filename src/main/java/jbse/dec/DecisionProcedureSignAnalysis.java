@@ -1,12 +1,17 @@
 package jbse.dec;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import jbse.common.Type;
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
 import jbse.mem.ClauseAssume;
+import jbse.mem.exc.ContradictionException;
 import jbse.val.Any;
 import jbse.val.Expression;
 import jbse.val.PrimitiveSymbolicApply;
@@ -30,6 +35,9 @@ import jbse.val.exc.NoResultException;
  * {@code number rel_op expr}. In the cases it may infer something
  * on the sign of expr from the sign of it subexpressions it
  * may detect whether the predicate contradicts this fact.
+ * The discovered sign predicates are stored together with an
+ * undo trail, so assumptions can be popped rather than 
+ * cleared and pushed again.
  * 
  * @author Pietro Braione
  *
@@ -480,12 +488,50 @@ public final class DecisionProcedureSignAnalysis extends DecisionProcedureChainO
 	
 	/** Caches the {@link SignPredicate}s of all the discovered path predicates. */
 	private HashMap<Primitive, SignPredicate> preds = new HashMap<Primitive, SignPredicate>();
+	
+	/**
+	 * An update of {@code preds}, recorded on the trail.
+	 */
+	private static final class Update {
+		final Primitive operand;
+		
+		/** 
+		 * The previous {@link SignPredicate} of {@code operand}, 
+		 * or {@code null} if it had none.
+		 */
+		final SignPredicate previous;
+		
+		Update(Primitive operand, SignPredicate previous) {
+			this.operand = operand;
+			this.previous = previous;
+		}
+	}
+	
+	/** The updates of {@code preds}, in order. */
+	private final ArrayList<Update> trail = new ArrayList<>();
+	
+	/** The assumptions pushed so far, before their local simplification. */
+	private final ArrayList<Clause> assumptions = new ArrayList<>();
+	
+	/** 
+	 * The sizes of {@code trail} before the push of 
+	 * each clause in {@code assumptions}. 
+	 */
+	private final ArrayList<Integer> checkpoints = new ArrayList<>();
 
 	public DecisionProcedureSignAnalysis(DecisionProcedure next) throws InvalidInputException {
 		super(next);
 		this.rewriters = new Rewriter[] { new RewriterSimplifyTrivialExpressions() }; //explicit assignment because the super constructor must be invoked before the rewriter's constructor
 	}
 
+	@Override
+	protected void pushAssumptionLocal(Clause c, Clause cSimpl) 
+	throws DecisionException, ContradictionException {
+		this.assumptions.add(c);
+		this.checkpoints.add(this.trail.size());
+		super.pushAssumptionLocal(c, cSimpl);
+	}
+
 	@Override
 	protected void pushAssumptionLocal(ClauseAssume c) {
 		final Primitive p = c.getCondition();
@@ -496,7 +542,7 @@ public final class DecisionProcedureSignAnalysis extends DecisionProcedureChainO
 				final SignPredicate predicateOperand = fetch(operand);
 				final SignPredicate predicateRange = bestApproxRange(exp);
 				final SignPredicate bestPredicate = predicateOperand.and(predicateRange);
-				this.preds.put(operand, bestPredicate);
+				this.trail.add(new Update(operand, this.preds.put(operand, bestPredicate)));
 			}
 		}
 	}
@@ -504,6 +550,37 @@ public final class DecisionProcedureSignAnalysis extends DecisionProcedureChainO
 	@Override
 	protected void clearAssumptionsLocal() {
 		this.preds.clear();
+		this.trail.clear();
+		this.assumptions.clear();
+		this.checkpoints.clear();
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		final int last = this.checkpoints.size() - 1;
+		if (last < 0) {
+			throw new DecisionException("Attempted to pop an assumption from an empty set of assumptions.");
+		}
+		final int checkpoint = this.checkpoints.remove(last);
+		for (int i = this.trail.size() - 1; i >= checkpoint; --i) {
+			final Update u = this.trail.remove(i);
+			if (u.previous == null) {
+				this.preds.remove(u.operand);
+			} else {
+				this.preds.put(u.operand, u.previous);
+			}
+		}
+		this.assumptions.remove(last);
+	}
+
+	@Override
+	protected List<Clause> getAssumptionsLocal() {
+		return Collections.unmodifiableList(this.assumptions);
 	}
 	
 	@Override
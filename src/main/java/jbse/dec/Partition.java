@@ -1,10 +1,18 @@
 package jbse.dec;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 
 /**
- * Union-find partition data structure.
- * 
+ * Backtrackable union-find partition data structure.
+ * All the changes are recorded on a trail, so the
+ * partition can be brought back to any previous
+ * {@link #checkpoint() checkpoint} in time proportional
+ * to the number of changes made after it. To keep
+ * the trail short, {@link #find(Object) find} does not
+ * compress paths, and union by rank alone keeps the
+ * trees logarithmic in height.
+ *
  * @author Pietro Braione
  */
 class Partition<X> {
@@ -12,20 +20,54 @@ class Partition<X> {
 		private final X element;
 		private PartitionNode parent;
 		private int rank;
-		
+
 		PartitionNode(X element) {
 			this.element = element;
 			this.parent = this;
 			this.rank = 0;
 		}
-		
+
 		@Override
 		public String toString() {
 			return ">" + this.parent.element.toString() +"(r" + this.rank + ")";
 		}
 	}
+
+	/**
+	 * A change to the partition, recorded on the trail.
+	 */
+	private final class Change {
+		/** The node that was changed. */
+		private final PartitionNode node;
+
+		/**
+		 * The previous parent of {@code node}, or {@code null}
+		 * if {@code node} was created by the change.
+		 */
+		private final PartitionNode previousParent;
+
+		/** The previous rank of {@code node}. */
+		private final int previousRank;
+
+		Change(PartitionNode node, PartitionNode previousParent, int previousRank) {
+			this.node = node;
+			this.previousParent = previousParent;
+			this.previousRank = previousRank;
+		}
+
+		void undo() {
+			if (this.previousParent == null) {
+				Partition.this.nodes.remove(this.node.element);
+			} else {
+				this.node.parent = this.previousParent;
+				this.node.rank = this.previousRank;
+			}
+		}
+	}
+
 	private final LinkedHashMap<X, PartitionNode> nodes = new LinkedHashMap<>();
-	
+	private final ArrayList<Change> trail = new ArrayList<>();
+
 	void union(X elemFirst, X elemSecond) {
 		if (elemFirst.equals(elemSecond)) {
 			return;
@@ -35,46 +77,80 @@ class Partition<X> {
 		final boolean firstShorter = (firstLength < secondLength);
 		final PartitionNode partitionFirst = (firstShorter ? rootNode(elemFirst) : rootNode(elemSecond));
 		final PartitionNode partitionSecond = (firstShorter ? rootNode(elemSecond) : rootNode(elemFirst));
-		final PartitionNode partitionLower, partitionHigher; 
+		if (partitionFirst == partitionSecond) {
+			return;
+		}
+		final PartitionNode partitionLower, partitionHigher;
 		if (partitionFirst.rank < partitionSecond.rank) {
 			partitionLower = partitionFirst;
 			partitionHigher = partitionSecond;
-		} else { 
+		} else {
 			partitionLower = partitionSecond;
 			partitionHigher = partitionFirst;
 			if (partitionLower.rank == partitionHigher.rank) {
+				this.trail.add(new Change(partitionHigher, partitionHigher.parent, partitionHigher.rank));
 				++partitionHigher.rank;
 			}
 		}
+		this.trail.add(new Change(partitionLower, partitionLower.parent, partitionLower.rank));
 		partitionLower.parent = partitionHigher;
 	}
-	
+
 	X find (X elem) {
-		PartitionNode node = this.nodes.get(elem);
+		final PartitionNode node = this.nodes.get(elem);
 		if (node == null) {
 			return elem;
 		}
-		return findRootAndCompress(node).element;
+		return findRoot(node).element;
+	}
+
+	/**
+	 * Returns a checkpoint for the current state
+	 * of the partition.
+	 *
+	 * @return an {@code int}, to be passed to
+	 *         {@link #rollback(int)}.
+	 */
+	int checkpoint() {
+		return this.trail.size();
+	}
+
+	/**
+	 * Undoes all the changes made to the partition
+	 * after a checkpoint.
+	 *
+	 * @param checkpoint an {@code int} previously returned
+	 *        by {@link #checkpoint()}, and not invalidated
+	 *        by a rollback to an earlier checkpoint or by a
+	 *        {@link #reset()}.
+	 */
+	void rollback(int checkpoint) {
+		for (int i = this.trail.size() - 1; i >= checkpoint; --i) {
+			this.trail.remove(i).undo();
+		}
 	}
-	
+
 	void reset() {
 		this.nodes.clear();
+		this.trail.clear();
 	}
 
-	private PartitionNode findRootAndCompress(PartitionNode node) {
-		if (node.parent != node) {
-			node.parent = findRootAndCompress(node.parent);
+	private PartitionNode findRoot(PartitionNode node) {
+		PartitionNode retVal = node;
+		while (retVal.parent != retVal) {
+			retVal = retVal.parent;
 		}
-		return node.parent;
+		return retVal;
 	}
-	
+
 	private PartitionNode rootNode(X elem) {
 		PartitionNode elemNode = this.nodes.get(elem);
 		if (elemNode == null) {
 			elemNode = new PartitionNode(elem);
 			this.nodes.put(elem, elemNode);
+			this.trail.add(new Change(elemNode, null, 0));
 		}
-		return findRootAndCompress(elemNode);
+		return findRoot(elemNode);
 	}
-	
+
 }
@@ -0,0 +1,326 @@
+package jbse.dec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import jbse.val.Calculator;
+import jbse.val.Simplex;
+
+/**
+ * A tokenizer for the SMT-LIB 2 s-expressions produced by a
+ * solver, that reads them directly from the solver output
+ * stream, without buffering whole lines. The characters of
+ * the last read atom are kept in a reused buffer, so that they
+ * can be compared and converted to numbers without creating
+ * {@link String}s.
+ */
+final class SMTLIB2Tokenizer {
+    /** The kinds of tokens. */
+    enum Token { OPEN, CLOSE, ATOM, EOF }
+
+    private final Reader in;
+
+    /** The characters of the last read atom. */
+    private char[] atom = new char[64];
+
+    /** The number of characters of the last read atom. */
+    private int atomLength = 0;
+
+    /** The character read ahead, or {@code -2} if none. */
+    private int lookahead = -2;
+
+    /** The last read token. */
+    private Token last = null;
+
+    /** Whether {@link #last} must be returned by the next {@link #next()}. */
+    private boolean pushedBack = false;
+
+    /** Whether the last number read by {@link #readNumber()} is real. */
+    private boolean numberReal;
+
+    /** The last integral number read by {@link #readNumber()}. */
+    private long numberLong;
+
+    /** The last real number read by {@link #readNumber()}. */
+    private double numberDouble;
+
+    /**
+     * Constructor.
+     *
+     * @param in the {@link Reader} of the solver output stream.
+     */
+    SMTLIB2Tokenizer(Reader in) {
+        this.in = in;
+    }
+
+    private int read() throws IOException {
+        if (this.lookahead != -2) {
+            final int retVal = this.lookahead;
+            this.lookahead = -2;
+            return retVal;
+        }
+        return this.in.read();
+    }
+
+    private void append(int c) {
+        if (this.atomLength == this.atom.length) {
+            this.atom = Arrays.copyOf(this.atom, 2 * this.atom.length);
+        }
+        this.atom[this.atomLength++] = (char) c;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return the {@link Token} read. If it is {@link Token#ATOM}
+     *         its characters can be accessed with
+     *         {@link #atomEquals(String)} and {@link #atom()}.
+     * @throws IOException if reading from the stream fails.
+     */
+    Token next() throws IOException {
+        if (this.pushedBack) {
+            this.pushedBack = false;
+            return this.last;
+        }
+        int c = read();
+        while (c >= 0 && Character.isWhitespace(c)) {
+            c = read();
+        }
+        if (c < 0) {
+            this.last = Token.EOF;
+        } else if (c == '(') {
+            this.last = Token.OPEN;
+        } else if (c == ')') {
+            this.last = Token.CLOSE;
+        } else {
+            this.atomLength = 0;
+            if (c == '|' || c == '"') {
+                //quoted symbol or string literal, up to the closing quote
+                final int quote = c;
+                append(c);
+                while (true) {
+                    c = read();
+                    if (c < 0) {
+                        throw new EOFException("Premature end of stream in SMT-LIB 2 atom.");
+                    }
+                    append(c);
+                    if (c == quote) {
+                        c = read();
+                        if (quote == '"' && c == '"') {
+                            append(c); //escaped double quote
+                        } else {
+                            this.lookahead = c;
+                            break;
+                        }
+                    }
+                }
+            } else {
+                while (c >= 0 && c != '(' && c != ')' && !Character.isWhitespace(c)) {
+                    append(c);
+                    c = read();
+                }
+                this.lookahead = c;
+            }
+            this.last = Token.ATOM;
+        }
+        return this.last;
+    }
+
+    /**
+     * Makes the next invocation of {@link #next()} return
+     * the last read token again.
+     */
+    void pushBack() {
+        this.pushedBack = true;
+    }
+
+    /**
+     * Checks whether the last read atom is equal to a string.
+     *
+     * @param s a {@link String}.
+     * @return {@code true} iff the characters of the
+     *         last read atom are the characters of {@code s}.
+     */
+    boolean atomEquals(String s) {
+        if (s.length() != this.atomLength) {
+            return false;
+        }
+        for (int i = 0; i < this.atomLength; ++i) {
+            if (s.charAt(i) != this.atom[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the last read atom.
+     *
+     * @return a {@link String}.
+     */
+    String atom() {
+        return new String(this.atom, 0, this.atomLength);
+    }
+
+    /**
+     * Skips the tokens up to the end of the current list.
+     *
+     * @param depth an {@code int}, the nesting level of
+     *        the current position in the list to skip
+     *        ({@code 1} to skip the rest of the list).
+     * @throws IOException if reading from the stream fails
+     *         or the stream ends.
+     */
+    void skipList(int depth) throws IOException {
+        while (depth > 0) {
+            final Token t = next();
+            if (t == Token.OPEN) {
+                ++depth;
+            } else if (t == Token.CLOSE) {
+                --depth;
+            } else if (t == Token.EOF) {
+                throw new EOFException("Premature end of stream in SMT-LIB 2 list.");
+            }
+        }
+    }
+
+    /**
+     * Skips the characters up to the end of the current
+     * line, included.
+     *
+     * @throws IOException if reading from the stream fails.
+     */
+    void skipLine() throws IOException {
+        int c = read();
+        while (c >= 0 && c != '\n') {
+            c = read();
+        }
+    }
+
+    /**
+     * Reads an s-expression denoting a number, i.e., a numeral,
+     * a decimal, or an application of {@code +}, {@code -},
+     * {@code *} or {@code /} to such s-expressions. The whole
+     * s-expression is consumed even if it does not denote a
+     * number.
+     *
+     * @param calc a {@link Calculator}.
+     * @return a {@link Simplex}, with type {@code long} if
+     *         the number is integral, {@code double} otherwise,
+     *         or {@code null} if the s-expression does not
+     *         denote a number.
+     * @throws IOException if reading from the stream fails
+     *         or the stream ends.
+     */
+    Simplex readValue(Calculator calc) throws IOException {
+        if (!readNumber()) {
+            return null;
+        }
+        return (this.numberReal ? calc.valDouble(this.numberDouble) : calc.valLong(this.numberLong));
+    }
+
+    private boolean readNumber() throws IOException {
+        final Token t = next();
+        if (t == Token.ATOM) {
+            return atomToNumber();
+        } else if (t == Token.CLOSE) {
+            pushBack();
+            return false;
+        } else if (t == Token.EOF) {
+            throw new EOFException("Premature end of stream in SMT-LIB 2 value.");
+        }
+
+        //t == Token.OPEN
+        if (next() != Token.ATOM || this.atomLength != 1) {
+            pushBack();
+            skipList(1);
+            return false;
+        }
+        final char operator = this.atom[0];
+        if (operator != '+' && operator != '-' && operator != '*' && operator != '/') {
+            skipList(1);
+            return false;
+        }
+        if (!readNumber()) {
+            skipList(1);
+            return false;
+        }
+        if (next() == Token.CLOSE) {
+            //unary application
+            if (operator == '-') {
+                this.numberLong = -this.numberLong;
+                this.numberDouble = -this.numberDouble;
+                return true;
+            }
+            return (operator == '+');
+        }
+        pushBack();
+        while (true) {
+            final boolean firstReal = this.numberReal;
+            final long firstLong = this.numberLong;
+            final double firstDouble = this.numberDouble;
+            if (!readNumber()) {
+                skipList(1);
+                return false;
+            }
+            if (firstReal || this.numberReal) {
+                final double first = (firstReal ? firstDouble : firstLong);
+                final double second = (this.numberReal ? this.numberDouble : this.numberLong);
+                this.numberReal = true;
+                this.numberDouble = (operator == '+' ? first + second : operator == '-' ? first - second : operator == '*' ? first * second : first / second);
+            } else {
+                this.numberLong = (operator == '+' ? firstLong + this.numberLong : operator == '-' ? firstLong - this.numberLong : operator == '*' ? firstLong * this.numberLong : firstLong / this.numberLong);
+            }
+            final Token u = next();
+            if (u == Token.CLOSE) {
+                return true;
+            } else if (u == Token.EOF) {
+                throw new EOFException("Premature end of stream in SMT-LIB 2 value.");
+            }
+            pushBack();
+        }
+    }
+
+    private boolean atomToNumber() {
+        if (this.atomLength == 0) {
+            return false;
+        }
+        long value = 0;
+        boolean overflow = false;
+        for (int i = 0; i < this.atomLength; ++i) {
+            final char c = this.atom[i];
+            if (c == '.') {
+                return atomToDouble();
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+            if (!overflow) {
+                try {
+                    value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+                } catch (ArithmeticException e) {
+                    overflow = true;
+                }
+            }
+        }
+        if (overflow) {
+            return atomToDouble();
+        }
+        this.numberReal = false;
+        this.numberLong = value;
+        this.numberDouble = value;
+        return true;
+    }
+
+    private boolean atomToDouble() {
+        try {
+            this.numberDouble = Double.parseDouble(atom());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        this.numberReal = true;
+        this.numberLong = (long) this.numberDouble;
+        return true;
+    }
+}
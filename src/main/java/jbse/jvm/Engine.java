@@ -10,9 +10,13 @@ import static jbse.bc.Opcodes.OP_INVOKESTATIC;
 import static jbse.bc.Opcodes.OP_INVOKEVIRTUAL;
 import static jbse.bc.Opcodes.OP_IRETURN;
 import static jbse.bc.Opcodes.OP_RETURN;
+import static jbse.bc.Opcodes.opcodeName;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import jbse.algo.Algorithm;
 import jbse.algo.ExecutionContext;
@@ -22,6 +26,8 @@ import jbse.algo.Action_START;
 import jbse.algo.exc.CannotManageStateException;
 import jbse.apps.run.DecisionProcedureGuidance;
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
+import jbse.common.Metrics;
+import jbse.common.Metrics.Histogram;
 import jbse.common.exc.ClasspathException;
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
@@ -33,12 +39,15 @@ import jbse.jvm.exc.FailureException;
 import jbse.jvm.exc.InitializationException;
 import jbse.jvm.exc.NonexistingObservedVariablesException;
 import jbse.mem.Clause;
+import jbse.mem.DecisionVector;
 import jbse.mem.State;
 import jbse.mem.State.Phase;
+import jbse.mem.StateMerger;
 import jbse.mem.exc.ContradictionException;
 import jbse.mem.exc.FrozenStateException;
 import jbse.mem.exc.ThreadStackEmptyException;
 import jbse.tree.StateTree.BranchPoint;
+import jbse.val.HistoryPoint;
 import jbse.val.ReferenceSymbolic;
 
 /**
@@ -100,6 +109,24 @@ public final class Engine implements AutoCloseable {
      * in current method.
      */
     private int preStepStackSize;
+    
+    /** 
+     * The number of allocated objects that triggers a 
+     * heap collection (0 for no collection).
+     */
+    private int heapCollectionThreshold = 0;
+    
+    /** 
+     * The maximum number of pending states that are 
+     * considered for merging with the current state.
+     */
+    private static final int MERGE_LOOKAHEAD = 8;
+    
+    /** Cache of the step latency histograms, indexed by opcode. */
+    private static final Histogram[] BYTECODE_HISTOGRAMS = new Histogram[256];
+    
+    /** The {@link StateMerger}, or {@code null} for no state merging. */
+    private StateMerger stateMerger = null;
 
     //Execution statistics
 
@@ -117,6 +144,27 @@ public final class Engine implements AutoCloseable {
         this.ctx = ctx;
         this.vom = vom;
     }
+    
+    /**
+     * Sets the heap collection threshold. Used by the builder.
+     * 
+     * @param heapCollectionThreshold an {@code int}.
+     * @see EngineParameters#setHeapCollectionThreshold(int)
+     */
+    void setHeapCollectionThreshold(int heapCollectionThreshold) {
+        this.heapCollectionThreshold = heapCollectionThreshold;
+    }
+    
+    /**
+     * Sets the state merger. Used by the builder.
+     * 
+     * @param stateMerger a {@link StateMerger}, or {@code null} 
+     *        for no state merging.
+     * @see EngineParameters#setStateMergeMaxValues(int)
+     */
+    void setStateMerger(StateMerger stateMerger) {
+        this.stateMerger = stateMerger;
+    }
 
     /**
      * Steps the engine in a suitable start state from which execution can be continued
@@ -252,6 +300,23 @@ public final class Engine implements AutoCloseable {
         return !(this.currentState.isStuck());
     }
 
+    /**
+     * Returns the step latency histogram for a bytecode.
+     * 
+     * @param opcode a {@code byte}, the opcode of the bytecode.
+     * @return the {@link Histogram} named {@code "algo."}
+     *         followed by the mnemonic of {@code opcode}.
+     */
+    private static Histogram bytecodeHistogram(byte opcode) {
+        final int index = (opcode & 0xFF);
+        Histogram retVal = BYTECODE_HISTOGRAMS[index];
+        if (retVal == null) {
+            retVal = Metrics.histogram("algo." + opcodeName(opcode));
+            BYTECODE_HISTOGRAMS[index] = retVal;
+        }
+        return retVal;
+    }
+
     /**
      * Steps the execution.
      * 
@@ -301,8 +366,13 @@ public final class Engine implements AutoCloseable {
         	//updates the information about the state before the step
         	this.preStepStackSize = this.currentState.getStackSize();
         	this.preStepSourceRow = (this.preStepStackSize == 0 ? -1 : this.currentState.getSourceRow());
+        	this.ctx.stateTree.recordCoverage(this.currentState);
 
         	//steps
+        	final Histogram stepHistogram = (!Metrics.isEnabled() ? null : 
+        	                                 atLastPreInitialState ? Metrics.histogram("algo.<init>") : 
+        	                                 bytecodeHistogram(this.currentState.getInstruction()));
+        	final long stepStart = Metrics.start();
         	Action action = (atLastPreInitialState ? 
   				             this.ctx.dispatcher.selectInit() :
   				             this.ctx.dispatcher.select(this.currentState.getInstruction()));
@@ -324,6 +394,9 @@ public final class Engine implements AutoCloseable {
         			throw e;
         		} 
         	} while (hasContinuation);
+        	if (stepHistogram != null) {
+        		stepHistogram.stop(stepStart);
+        	}
 
         	//possibly gets information about symbolic references that were not expanded
         	if (action instanceof Algorithm<?, ?, ?, ?, ?>) {
@@ -347,15 +420,19 @@ public final class Engine implements AutoCloseable {
         		this.currentState = this.ctx.stateTree.nextState();
         	} else {
         		this.currentState.incSequenceNumber();
+        		
+        		//possibly collects the young heap objects
+        		possiblyCollectYoung(this.currentState, this.preStepStackSize);
+        		
+        		//possibly merges the current state with a pending one
+        		if (this.stateMerger != null && this.currentState.phase() == Phase.POST_INITIAL && !this.currentState.isStuck() &&
+        		    this.ctx.stateTree.mergeWithPendingState(this.currentState, this.stateMerger, MERGE_LOOKAHEAD)) {
+        			this.ctx.decisionProcedure.setAssumptions(this.currentState.getPathCondition());
+        		}
         	}
         	
         	//updates the counters for depth/count scope
-        	if (this.currentState.branchingDecision() && !this.currentState.stutters()) {
-        		this.currentState.incDepth();
-        		this.currentState.resetCount();
-        	} else {
-        		this.currentState.incCount();
-        	}
+        	updateCounters(this.currentState);
 
         	//synchronizes the decision procedure with the current path condition
         	if (this.currentState.areThereNewPathConditionClauses()) {
@@ -381,6 +458,43 @@ public final class Engine implements AutoCloseable {
         }
     }
 
+    /**
+     * Collects the young heap objects of a state after a 
+     * step, if the heap collection threshold is reached.
+     * 
+     * @param s the {@link State} after the step.
+     * @param preStepStackSize an {@code int}, the stack size
+     *        of {@code s} before the step.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    private void possiblyCollectYoung(State s, int preStepStackSize) throws FrozenStateException {
+    	if (this.heapCollectionThreshold > 0 && 
+    	    s.phase() == Phase.POST_INITIAL && !s.isStuck()) {
+    		final int youngAllocations = s.getHeapYoungAllocations();
+    		final boolean frameReturned = (s.getStackSize() < preStepStackSize);
+    		if ((frameReturned && youngAllocations >= this.heapCollectionThreshold) ||
+    		    youngAllocations >= 4 * this.heapCollectionThreshold) {
+    			s.gcYoung();
+    		}
+    	}
+    }
+
+    /**
+     * Updates the counters for depth/count scope of 
+     * a state after a step.
+     * 
+     * @param s the {@link State} after the step.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    private static void updateCounters(State s) throws FrozenStateException {
+    	if (s.branchingDecision() && !s.stutters()) {
+    		s.incDepth();
+    		s.resetCount();
+    	} else {
+    		s.incCount();
+    	}
+    }
+
     /**
      * Returns the engine's current JVM state 
      * (<em>not</em> a copy).
@@ -401,6 +515,16 @@ public final class Engine implements AutoCloseable {
         return this.analyzedStates;
     }
 
+    /**
+     * Returns the number of states pruned because 
+     * subsumed by previously explored states.
+     * 
+     * @return a {@code long}.
+     */
+    public long getPrunedStates() {
+        return this.ctx.stateTree.getNumPrunedStates();
+    }
+
     /**
      * Returns the number of assumed object of a given class.
      * 
@@ -479,6 +603,10 @@ public final class Engine implements AutoCloseable {
             throw new CannotBacktrackException();
         }
 
+        //with non depth-first exploration strategies the decision procedure 
+        //pops the clauses of the current state up to the common prefix with 
+        //the path condition of the resumed state, and pushes the remaining ones
+        this.ctx.stateTree.prioritize();
         final BranchPoint bp = this.ctx.stateTree.nextBranch();
         final boolean isLast = (getNumOfStatesAtBranch(bp) == 1);
 
@@ -510,6 +638,195 @@ public final class Engine implements AutoCloseable {
         return bp;
     }
 
+    /**
+     * Rebuilds a post-initial state by replaying from the initial 
+     * state the decisions that lead to it. The decision alternatives
+     * are not checked for satisfiability, since they were when the
+     * decisions were first taken. The current state and the 
+     * state tree are not affected. Replay is not supported for the
+     * states produced by state merging or by guided execution.
+     * 
+     * @param historyPoint the {@link HistoryPoint} of the state 
+     *        to be rebuilt. It is used to label the branches of the
+     *        rebuilt state.
+     * @param decisions the {@link DecisionVector} of the state 
+     *        to be rebuilt, i.e., {@link State#getDecisions()}. 
+     * @return the {@link State} right after the last decision in 
+     *         {@code decisions} is taken, i.e., as it was when 
+     *         it was added to the state tree if the last decision
+     *         created a branch. If {@code decisions} is empty, the 
+     *         initial state is returned.
+     * @throws InvalidInputException if the initial state is not 
+     *         available, or {@code decisions} do not match the 
+     *         path from the initial state, or {@code historyPoint}
+     *         does not match {@code decisions}.
+     * @throws CannotManageStateException iff the engine is unable to calculate 
+     *         some state of the path because of some engine limitations.
+     * @throws ClasspathException in case any of the indispensable standard Java 8 
+     *         Runtime Environment classes is missing from the bootstrap classpath, 
+     *         or is ill-formed.
+     * @throws ContradictionException iff some step of the path violates 
+     *         some assumption.
+     * @throws DecisionException iff the decision procedure fails for any reason.
+     * @throws ThreadStackEmptyException when the execution of a step is attempted
+     *         on a state with an empty thread stack.
+     * @throws FailureException iff some step of the path violates 
+     *         some assertion.
+     */
+    public State replay(HistoryPoint historyPoint, DecisionVector decisions) 
+    throws InvalidInputException, CannotManageStateException, ClasspathException, 
+    ContradictionException, DecisionException, ThreadStackEmptyException, FailureException {
+    	final State s = this.ctx.getStateInitial();
+    	if (s == null) {
+    		throw new InvalidInputException("Cannot replay decisions without an initial state.");
+    	}
+    	s.resetDepth();
+    	s.resetCount();
+    	if (decisions.length() == 0) {
+    		return s;
+    	}
+
+    	//the initial state is emitted right after it is added to the tree
+    	updateCounters(s);
+    	this.ctx.decisionProcedure.setAssumptions(s.getPathCondition());
+    	s.resetLastPathConditionClauses();
+    	
+    	this.ctx.startReplay(decisions);
+    	try {
+    		while (true) {
+    			if (s.isStuck() || s.getStackSize() == 0) {
+    				throw new InvalidInputException("The path ends before the last decision " + decisions.getBranchNumber() + " is replayed.");
+    			}
+    			if (s.phase() == Phase.INITIAL) {
+    				s.setPhasePostInitial();
+    			}
+    			final int preStepStackSize = s.getStackSize();
+
+    			//steps
+    			Action action = this.ctx.dispatcher.select(s.getInstruction());
+    			boolean hasContinuation;
+    			do {
+    				try {
+    					action.exec(s, this.ctx);
+    					hasContinuation = false;
+    				} catch (InterruptException e) {
+    					hasContinuation = e.hasContinuation();
+    					if (hasContinuation) {
+    						action = e.getContinuation();
+    					}
+    				}
+    			} while (hasContinuation);
+
+    			//updates the history point as the state tree did
+    			final boolean createdBranch = this.ctx.replayedBranch();
+    			final int depth = s.getHistoryPoint().getBranchDepth();
+    			if (createdBranch && depth < historyPoint.getBranchDepth()) {
+    				s.addBranchToHistoryPoint(historyPoint.getBranch(depth + 1));
+    			} else if (createdBranch && !this.ctx.replayCompleted()) {
+    				throw new InvalidInputException("The history point " + historyPoint + " has less branches than the replayed decisions.");
+    			}
+    			if (this.ctx.replayCompleted()) {
+    				return s;
+    			}
+    			if (!createdBranch) {
+    				s.incSequenceNumber();
+    				possiblyCollectYoung(s, preStepStackSize);
+    			}
+    			updateCounters(s);
+
+    			//synchronizes the decision procedure with the replayed path condition
+    			if (s.areThereNewPathConditionClauses()) {
+    				this.ctx.decisionProcedure.addAssumptions(s.getLastPathConditionPushedClauses());
+    				s.resetLastPathConditionClauses();
+    			}
+    		}
+    	} finally {
+    		this.ctx.stopReplay();
+    		if (this.currentState != null) {
+    			this.ctx.decisionProcedure.setAssumptions(this.currentState.getPathCondition());
+    		}
+    	}
+    }
+
+    /**
+     * Rebuilds a pending state for the state tree.
+     * 
+     * @param historyPoint the {@link HistoryPoint} of the pending state.
+     * @param decisions the {@link DecisionVector} of the pending state.
+     * @return the rebuilt {@link State}.
+     * @see #replay(HistoryPoint, DecisionVector)
+     */
+    State replayPending(HistoryPoint historyPoint, DecisionVector decisions) {
+    	try {
+    		return replay(historyPoint, decisions);
+    	} catch (InvalidInputException | CannotManageStateException | ClasspathException | 
+    	         ContradictionException | DecisionException | ThreadStackEmptyException | 
+    	         FailureException e) {
+    		//this should never happen, since the path was already executed
+    		throw new UnexpectedInternalException(e);
+    	}
+    }
+
+    /**
+     * Returns the decisions of the states that remain to be 
+     * explored, so that the exploration can be later resumed 
+     * from them with {@link #resume(Map)}.
+     * 
+     * @return a {@link LinkedHashMap}{@code <}{@link String}{@code , }{@link DecisionVector}{@code >}
+     *         mapping the branch identifiers of the pending states
+     *         to their decisions, in emission order, or {@code null}
+     *         if the pending states cannot be rebuilt by replaying
+     *         their decisions (see {@link #replay(HistoryPoint, DecisionVector)}).
+     */
+    public LinkedHashMap<String, DecisionVector> getPendingDecisions() {
+    	if (this.stateMerger != null || this.ctx.decisionProcedure instanceof DecisionProcedureGuidance) {
+    		return null;
+    	}
+    	final LinkedHashMap<HistoryPoint, DecisionVector> pending = this.ctx.stateTree.getPendingDecisions();
+    	if (pending == null) {
+    		return null;
+    	}
+    	final LinkedHashMap<String, DecisionVector> retVal = new LinkedHashMap<>();
+    	for (Map.Entry<HistoryPoint, DecisionVector> e : pending.entrySet()) {
+    		retVal.put(e.getKey().getBranchIdentifier(), e.getValue());
+    	}
+    	return retVal;
+    }
+
+    /**
+     * Resumes an exploration that was checkpointed. Rebuilds the 
+     * states that remained to be explored by replaying their 
+     * decisions, and adds them to the state tree, so that they 
+     * are explored upon backtrack before the pending states 
+     * of the current exploration. Must be invoked when the 
+     * engine is at the initial state.
+     * 
+     * @param pending a {@link Map}{@code <}{@link String}{@code , }{@link DecisionVector}{@code >}, 
+     *        as returned by {@link #getPendingDecisions()}.
+     * @throws InvalidInputException if the engine is not at the initial
+     *         state, or some branch identifier in {@code pending} is
+     *         ill-formed or does not match its decisions.
+     * @throws CannotManageStateException as in {@link #replay(HistoryPoint, DecisionVector)}.
+     * @throws ClasspathException as in {@link #replay(HistoryPoint, DecisionVector)}.
+     * @throws ContradictionException as in {@link #replay(HistoryPoint, DecisionVector)}.
+     * @throws DecisionException as in {@link #replay(HistoryPoint, DecisionVector)}.
+     * @throws ThreadStackEmptyException as in {@link #replay(HistoryPoint, DecisionVector)}.
+     * @throws FailureException as in {@link #replay(HistoryPoint, DecisionVector)}.
+     */
+    public void resume(Map<String, DecisionVector> pending) 
+    throws InvalidInputException, CannotManageStateException, ClasspathException, 
+    ContradictionException, DecisionException, ThreadStackEmptyException, FailureException {
+    	if (!atInitialState()) {
+    		throw new InvalidInputException("Tried to resume an exploration when the engine is not at the initial state.");
+    	}
+    	final HistoryPoint initial = this.currentState.getHistoryPoint();
+    	final ArrayList<State> states = new ArrayList<>();
+    	for (Map.Entry<String, DecisionVector> e : pending.entrySet()) {
+    		states.add(replay(initial.atBranch(e.getKey()), e.getValue()));
+    	}
+    	this.ctx.stateTree.addStatesResumed(states);
+    }
+
     /**
      * Tests whether some of the references resolved by the last
      * decision procedure call were <em>partially</em>, resolved, 
@@ -1,11 +1,25 @@
 package jbse.jvm;
 
+import static jbse.algo.Overrides.ALGO_JAVA_STRING_EQUALS;
+import static jbse.algo.Overrides.ALGO_JAVA_STRING_INDEXOF;
+import static jbse.algo.Overrides.ALGO_JAVA_STRING_LENGTH;
+import static jbse.algo.Overrides.ALGO_JBSE_JAVA_XMAP_CONTAINSKEY;
+import static jbse.algo.Overrides.ALGO_JBSE_JAVA_XMAP_GET;
+import static jbse.bc.Signatures.JAVA_STRING_EQUALS;
+import static jbse.bc.Signatures.JAVA_STRING_INDEXOF_INT;
+import static jbse.bc.Signatures.JAVA_STRING_LENGTH;
+import static jbse.bc.Signatures.JBSE_JAVA_CONCURRENTMAP_CONTAINSKEY;
+import static jbse.bc.Signatures.JBSE_JAVA_CONCURRENTMAP_GET;
+import static jbse.bc.Signatures.JBSE_JAVA_MAP_CONTAINSKEY;
+import static jbse.bc.Signatures.JBSE_JAVA_MAP_GET;
+
 import java.io.IOException;
 import java.util.List;
 
 import jbse.algo.ExecutionContext;
 import jbse.algo.exc.MetaUnsupportedException;
 import jbse.algo.exc.NotYetImplementedException;
+import jbse.apps.run.DecisionProcedureGuidance;
 import jbse.bc.ClassFileFactoryJavassist;
 import jbse.bc.Signature;
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
@@ -15,8 +29,10 @@ import jbse.dec.exc.DecisionException;
 import jbse.jvm.exc.CannotBuildEngineException;
 import jbse.jvm.exc.InitializationException;
 import jbse.jvm.exc.NonexistingObservedVariablesException;
+import jbse.mem.StateMerger;
 import jbse.mem.exc.ContradictionException;
 import jbse.tree.DecisionAlternativeComparators;
+import jbse.tree.StateSubsumptionIndex;
 
 /**
  * A Builder for {@link Engine}.
@@ -94,6 +110,13 @@ public class EngineBuilder {
 	                               parameters.getTriggerRulesRepo(),
 	                               parameters.getClassInvariantAfterInitialization());
 	
+	        //sets the exploration strategy
+	        ctx.stateTree.setExplorationStrategy(parameters.getExplorationStrategy().toInternal(), parameters.getExplorationHeuristic());
+	        ctx.stateTree.setMemoryThreshold(parameters.getFrontierMemoryThreshold());
+	        if (parameters.getPruneSubsumedStates() && !(parameters.getDecisionProcedure() instanceof DecisionProcedureGuidance)) {
+	        	ctx.stateTree.setSubsumptionIndex(new StateSubsumptionIndex(parameters.getCalculator(), ctx.decisionProcedure));
+	        }
+	
 	        //sets the meta-level directives
 	        setOverrides(ctx, parameters);
 	
@@ -104,18 +127,45 @@ public class EngineBuilder {
 	
 	        //creates the engine
 	        final Engine retVal = new Engine(ctx, vom);
+	        retVal.setHeapCollectionThreshold(parameters.getHeapCollectionThreshold());
+	        if (parameters.getStateMergeMaxValues() > 0) {
+	        	retVal.setStateMerger(new StateMerger(parameters.getCalculator(), parameters.getStateMergeMaxValues()));
+	        }
+	        if (parameters.getFrontierMemoryThreshold() > 0 && parameters.getFrontierReplay() && parameters.getStateMergeMaxValues() <= 0 && 
+	            !(parameters.getDecisionProcedure() instanceof DecisionProcedureGuidance)) {
+	        	ctx.stateTree.setReplayer(retVal::replayPending);
+	        }
 	        
 	        //sets the state suppliers for the decision procedure
 	        parameters.getDecisionProcedure().setInitialStateSupplier(retVal::getInitialState);
 	        parameters.getDecisionProcedure().setCurrentStateSupplier(retVal::getCurrentState);
 	        
 	        return retVal;
-    	} catch (IOException e) {
+    	} catch (IOException | InvalidInputException e) {
     		throw new CannotBuildEngineException(e);
     	}
     }
 
     private static void setOverrides(ExecutionContext ctx, EngineParameters parameters) {
+        if (parameters.getUseStringTheory()) {
+            try {
+                ctx.addMetaOverridden(JAVA_STRING_EQUALS, ALGO_JAVA_STRING_EQUALS);
+                ctx.addMetaOverridden(JAVA_STRING_INDEXOF_INT, ALGO_JAVA_STRING_INDEXOF);
+                ctx.addMetaOverridden(JAVA_STRING_LENGTH, ALGO_JAVA_STRING_LENGTH);
+            } catch (MetaUnsupportedException e) {
+                // TODO manage the situation
+            }
+        }
+        if (parameters.getUseHashMapModel()) {
+            try {
+                ctx.addMetaOverridden(JBSE_JAVA_MAP_CONTAINSKEY, ALGO_JBSE_JAVA_XMAP_CONTAINSKEY);
+                ctx.addMetaOverridden(JBSE_JAVA_MAP_GET, ALGO_JBSE_JAVA_XMAP_GET);
+                ctx.addMetaOverridden(JBSE_JAVA_CONCURRENTMAP_CONTAINSKEY, ALGO_JBSE_JAVA_XMAP_CONTAINSKEY);
+                ctx.addMetaOverridden(JBSE_JAVA_CONCURRENTMAP_GET, ALGO_JBSE_JAVA_XMAP_GET);
+            } catch (MetaUnsupportedException e) {
+                // TODO manage the situation
+            }
+        }
         for (String[] rule : parameters.getMetaOverridden()) {
             try {
                 ctx.addMetaOverridden(new Signature(rule[0], rule[1], rule[2]), rule[3]);
@@ -13,6 +13,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 import jbse.bc.Classpath;
@@ -43,7 +44,8 @@ import jbse.val.Calculator;
  * functions, or for which there is a meta-level overriding implementation;</li>
  * <li>The signatures of the trigger instrumentation methods plus the 
  * reference resolution events that fire them;</li> 
- * <li>A {@link StateIdentificationMode} and a {@link BreadthMode};</li>
+ * <li>A {@link StateIdentificationMode}, a {@link BreadthMode} and an 
+ * {@link ExplorationStrategy};</li>
  * <li>A set of {@link ExecutionObserver}s plus the
  * specification of the variables they observe (none by default).</li> 
  * </ul> 
@@ -146,12 +148,74 @@ public final class EngineParameters implements Cloneable {
         }
     }
 
+    /**
+     * Enumeration of the strategies for choosing the 
+     * pending state to resume upon backtrack.
+     */
+    public static enum ExplorationStrategy {
+        /**
+         * Resumes the most recently created pending state
+         * (depth-first exploration).
+         */
+        DEPTH_FIRST(StateTree.ExplorationStrategy.DEPTH_FIRST),
+
+        /**
+         * Resumes the pending state with least depth
+         * (breadth-first exploration).
+         */
+        BREADTH_FIRST(StateTree.ExplorationStrategy.BREADTH_FIRST),
+
+        /**
+         * Resumes a random pending state, as if it was 
+         * selected by a random walk from the root of the 
+         * symbolic execution tree.
+         */
+        RANDOM_PATH(StateTree.ExplorationStrategy.RANDOM_PATH),
+
+        /**
+         * Resumes first the pending states that are about
+         * to execute a bytecode not yet executed.
+         */
+        NEW_COVERAGE_FIRST(StateTree.ExplorationStrategy.NEW_COVERAGE_FIRST),
+
+        /**
+         * Resumes the pending state with the shortest
+         * path condition.
+         */
+        SHORTEST_PATH_CONDITION_FIRST(StateTree.ExplorationStrategy.SHORTEST_PATH_CONDITION_FIRST),
+
+        /**
+         * Resumes the pending state with the least value
+         * of the exploration heuristic.
+         */
+        BEST_FIRST(StateTree.ExplorationStrategy.BEST_FIRST);
+
+        private final StateTree.ExplorationStrategy internal;
+
+        private ExplorationStrategy(StateTree.ExplorationStrategy internal) {
+            this.internal = internal;
+        }
+
+        public final StateTree.ExplorationStrategy toInternal() {
+            return this.internal;
+        }
+    }
+
     /** The state identification mode. */
     private StateIdentificationMode stateIdMode = StateIdentificationMode.COMPACT;
 
     /** The breadth mode. */
     private BreadthMode breadthMode = BreadthMode.MORE_THAN_ONE;
 
+    /** The exploration strategy. */
+    private ExplorationStrategy explorationStrategy = ExplorationStrategy.DEPTH_FIRST;
+
+    /** 
+     * The heuristic function for {@link ExplorationStrategy#BEST_FIRST},
+     * or {@code null} (default).
+     */
+    private ToDoubleFunction<State> explorationHeuristic = null;
+
     /** 
      * The initial {@link State} of the symbolic execution, or
      * {@code null} iff an initial state for a method invocation 
@@ -242,6 +306,24 @@ public final class EngineParameters implements Cloneable {
     /** The maximum size of the heap (number of objects). */
     private long maxHeapSize = 1_000_000;
     
+    /** The number of allocated objects that triggers a heap collection (0 for no collection). */
+    private int heapCollectionThreshold = 0;
+    
+    /** The maximum number of differing values of two merged states (0 for no merging). */
+    private int stateMergeMaxValues = 0;
+    
+    /** The heap occupancy percentage above which the frontier is resumed depth-first and stored as decisions (0 for never). */
+    private int frontierMemoryThreshold = 0;
+    
+    /** 
+     * Whether the pending states may be rebuilt by replaying their 
+     * decisions (effective only with a positive frontier memory threshold). 
+     */
+    private boolean frontierReplay = true;
+    
+    /** Whether the states subsumed by a previously explored state must be pruned. */
+    private boolean pruneSubsumedStates = false;
+    
     /** 
      * Whether the classes that are initialized during the
      * pre-initialization phase should be made symbolic, so
@@ -256,6 +338,13 @@ public final class EngineParameters implements Cloneable {
      */
     private boolean useHashMapModel = false;
 
+    /**
+     * Whether {@code java.lang.String} methods must be
+     * executed symbolically in the strings theory of the 
+     * decision procedure.
+     */
+    private boolean useStringTheory = false;
+
     /**
      * Constructor.
      */
@@ -327,6 +416,57 @@ public final class EngineParameters implements Cloneable {
         return this.breadthMode;
     }
 
+    /**
+     * Sets the exploration strategy, i.e., which 
+     * pending state will be resumed upon backtrack.
+     * 
+     * @param explorationStrategy an {@link ExplorationStrategy}.
+     * @throws NullPointerException if {@code explorationStrategy == null}.
+     */
+    public void setExplorationStrategy(ExplorationStrategy explorationStrategy) {
+        if (explorationStrategy == null) {
+            throw new NullPointerException();
+        }
+        this.explorationStrategy = explorationStrategy;
+    }
+
+    /**
+     * Gets the exploration strategy.
+     * 
+     * @return the {@link ExplorationStrategy} set by the
+     *         last call to {@link #setExplorationStrategy(ExplorationStrategy)}.
+     */
+    public ExplorationStrategy getExplorationStrategy() {
+        return this.explorationStrategy;
+    }
+
+    /**
+     * Sets the exploration heuristic, that is used
+     * by {@link ExplorationStrategy#BEST_FIRST}.
+     * 
+     * @param explorationHeuristic a {@link ToDoubleFunction}{@code <}{@link State}{@code >}
+     *        evaluating the pending states; those with lesser 
+     *        value are resumed first.
+     * @throws NullPointerException if {@code explorationHeuristic == null}.
+     */
+    public void setExplorationHeuristic(ToDoubleFunction<State> explorationHeuristic) {
+        if (explorationHeuristic == null) {
+            throw new NullPointerException();
+        }
+        this.explorationHeuristic = explorationHeuristic;
+    }
+
+    /**
+     * Gets the exploration heuristic.
+     * 
+     * @return the {@link ToDoubleFunction}{@code <}{@link State}{@code >} set by the
+     *         last call to {@link #setExplorationHeuristic(ToDoubleFunction)}, or
+     *         {@code null} if none was set.
+     */
+    public ToDoubleFunction<State> getExplorationHeuristic() {
+        return this.explorationHeuristic;
+    }
+
     /** 
      * Adds an {@link ExecutionObserver} performing additional
      * actions when a field changes its value.
@@ -1093,6 +1233,145 @@ public final class EngineParameters implements Cloneable {
         return this.maxHeapSize;
     }
     
+    /**
+     * Sets the heap collection threshold. When it is positive, 
+     * during the symbolic execution the heap objects that were
+     * allocated since the last collection and became unreachable 
+     * are disposed, when a frame returns and at least this number 
+     * of objects were allocated, or anyway when four times this 
+     * number of objects were allocated. By default it is 0, i.e., 
+     * the heap is collected only at the initial state.
+     * 
+     * @param heapCollectionThreshold an {@code int}.
+     */
+    public void setHeapCollectionThreshold(int heapCollectionThreshold) {
+        this.heapCollectionThreshold = heapCollectionThreshold;
+    }
+    
+    /**
+     * Returns the heap collection threshold.
+     * 
+     * @return an {@code int}.
+     */
+    public int getHeapCollectionThreshold() {
+        return this.heapCollectionThreshold;
+    }
+    
+    /**
+     * Sets the maximum number of differing primitive values
+     * that two states reaching the same program point may have 
+     * to be merged into a single state. When it is positive, 
+     * after each step the current state is merged, if possible, 
+     * with a state that remains to be explored and is at the 
+     * same program point; The differing values are replaced by 
+     * fresh values constrained by the disjunction of the (numeric)
+     * path condition clauses of the two states. By default it is 0, 
+     * i.e., no state is merged.
+     * 
+     * @param stateMergeMaxValues an {@code int}.
+     */
+    public void setStateMergeMaxValues(int stateMergeMaxValues) {
+        this.stateMergeMaxValues = stateMergeMaxValues;
+    }
+    
+    /**
+     * Returns the maximum number of differing primitive 
+     * values of two states that can be merged.
+     * 
+     * @return an {@code int}.
+     */
+    public int getStateMergeMaxValues() {
+        return this.stateMergeMaxValues;
+    }
+    
+    /**
+     * Sets the frontier memory threshold, a percentage of the 
+     * maximum heap size of the virtual machine. When it is positive,
+     * and the heap occupancy exceeds it, until the occupancy falls
+     * below the threshold the pending post-initial states are stored
+     * as the decisions that lead to them, and are rebuilt by replaying
+     * these decisions when they are resumed (see 
+     * {@link #setFrontierReplay(boolean)}). This is what frees memory, 
+     * under every exploration strategy, depth-first included. Moreover,
+     * the pending states are resumed depth-first independently on 
+     * the exploration strategy: This bounds the number of pending 
+     * states, but has no effect under the depth-first strategy. 
+     * By default it is 0, i.e., the exploration strategy is always 
+     * followed and the pending states are always stored as they are.
+     * 
+     * @param frontierMemoryThreshold an {@code int}.
+     */
+    public void setFrontierMemoryThreshold(int frontierMemoryThreshold) {
+        this.frontierMemoryThreshold = frontierMemoryThreshold;
+    }
+    
+    /**
+     * Returns the frontier memory threshold.
+     * 
+     * @return an {@code int}.
+     */
+    public int getFrontierMemoryThreshold() {
+        return this.frontierMemoryThreshold;
+    }
+    
+    /**
+     * Sets whether the pending states may be stored as the 
+     * sequence of the decisions that lead to them from the 
+     * initial state, rather than as states. When it is set and
+     * the heap occupancy exceeds the frontier memory threshold
+     * (see {@link #setFrontierMemoryThreshold(int)}), the pending
+     * post-initial states are dropped and are rebuilt by replaying 
+     * their decisions, without querying the decision procedure 
+     * for satisfiability, when they are resumed. It has no effect
+     * when the states are merged (see {@link #setStateMergeMaxValues(int)})
+     * or the execution is guided. By default it is set: Since the 
+     * pending states are stored as decisions only when the frontier 
+     * memory threshold is positive, and the latter is 0 by default, 
+     * this does not change how the pending states are stored unless
+     * a threshold is set. Unset it to keep the pending states as 
+     * they are also under memory pressure.
+     * 
+     * @param frontierReplay a {@code boolean}.
+     */
+    public void setFrontierReplay(boolean frontierReplay) {
+        this.frontierReplay = frontierReplay;
+    }
+    
+    /**
+     * Returns whether the pending states may be rebuilt 
+     * by replaying their decisions.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getFrontierReplay() {
+        return this.frontierReplay;
+    }
+    
+    /**
+     * Sets whether the states that are subsumed by a previously 
+     * explored state, i.e., that are at the same program point 
+     * with an isomorphic heap and a path condition that implies 
+     * the path condition of the previous state, must be pruned. 
+     * A state is not pruned because of a state with greater depth 
+     * or count, and the states are never pruned when the execution
+     * is guided, since the guided path might be pruned. By default
+     * they are not pruned.
+     * 
+     * @param pruneSubsumedStates a {@code boolean}.
+     */
+    public void setPruneSubsumedStates(boolean pruneSubsumedStates) {
+        this.pruneSubsumedStates = pruneSubsumedStates;
+    }
+    
+    /**
+     * Returns whether the subsumed states must be pruned.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getPruneSubsumedStates() {
+        return this.pruneSubsumedStates;
+    }
+    
     /**
      * Sets whether the classes created during
      * the pre-initialization phase shall be (pedantically)
@@ -1142,6 +1421,32 @@ public final class EngineParameters implements Cloneable {
     	return this.useHashMapModel;
     }
     
+    /**
+     * Sets whether some methods of {@code java.lang.String}
+     * must be executed at the meta-level on symbolic strings, 
+     * by representing their results as terms in the SMT-LIB 
+     * strings theory.
+     * 
+     * @param useStringTheory a {@code boolean}. If {@code true}
+     *        {@code equals} and {@code indexOf} on symbolic strings
+     *        will not branch on the characters of the strings. 
+     *        It requires a decision procedure supporting the 
+     *        strings theory.
+     */
+    public void setUseStringTheory(boolean useStringTheory) {
+    	this.useStringTheory = useStringTheory;
+    }
+    
+    /**
+     * Returns whether some methods of {@code java.lang.String}
+     * must be executed at the meta-level on symbolic strings.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getUseStringTheory() {
+    	return this.useStringTheory;
+    }
+    
     /**
      * Returns a map of the model class substitutions.
      * 
@@ -9,11 +9,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 import jbse.bc.Classpath;
 import jbse.bc.Signature;
 import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.jvm.EngineParameters.BreadthMode;
+import jbse.jvm.EngineParameters.ExplorationStrategy;
 import jbse.jvm.EngineParameters.StateIdentificationMode;
 import jbse.jvm.Runner.Actions;
 import jbse.mem.State;
@@ -151,6 +153,51 @@ public final class RunnerParameters implements Cloneable {
         return this.engineParameters.getBreadthMode();
     }
 
+    /**
+     * Sets the exploration strategy, i.e., which 
+     * pending state will be resumed upon backtrack.
+     * 
+     * @param explorationStrategy an {@link ExplorationStrategy}.
+     * @throws NullPointerException if {@code explorationStrategy == null}.
+     */
+    public void setExplorationStrategy(ExplorationStrategy explorationStrategy) {
+        this.engineParameters.setExplorationStrategy(explorationStrategy);
+    }
+
+    /**
+     * Gets the exploration strategy.
+     * 
+     * @return the {@link ExplorationStrategy} set by the
+     *         last call to {@link #setExplorationStrategy(ExplorationStrategy)}.
+     */
+    public ExplorationStrategy getExplorationStrategy() {
+        return this.engineParameters.getExplorationStrategy();
+    }
+
+    /**
+     * Sets the exploration heuristic, that is used
+     * by {@link ExplorationStrategy#BEST_FIRST}.
+     * 
+     * @param explorationHeuristic a {@link ToDoubleFunction}{@code <}{@link State}{@code >}
+     *        evaluating the pending states; those with lesser 
+     *        value are resumed first.
+     * @throws NullPointerException if {@code explorationHeuristic == null}.
+     */
+    public void setExplorationHeuristic(ToDoubleFunction<State> explorationHeuristic) {
+        this.engineParameters.setExplorationHeuristic(explorationHeuristic);
+    }
+
+    /**
+     * Gets the exploration heuristic.
+     * 
+     * @return the {@link ToDoubleFunction}{@code <}{@link State}{@code >} set by the
+     *         last call to {@link #setExplorationHeuristic(ToDoubleFunction)}, or
+     *         {@code null} if none was set.
+     */
+    public ToDoubleFunction<State> getExplorationHeuristic() {
+        return this.engineParameters.getExplorationHeuristic();
+    }
+
     /** 
      * Adds an {@link ExecutionObserver} performing additional
      * actions when a field changes its value.
@@ -785,6 +832,145 @@ public final class RunnerParameters implements Cloneable {
         return this.engineParameters.getMaxHeapSize();
     }
     
+    /**
+     * Sets the heap collection threshold. When it is positive, 
+     * during the symbolic execution the heap objects that were
+     * allocated since the last collection and became unreachable 
+     * are disposed, when a frame returns and at least this number 
+     * of objects were allocated, or anyway when four times this 
+     * number of objects were allocated. By default it is 0, i.e., 
+     * the heap is collected only at the initial state.
+     * 
+     * @param heapCollectionThreshold an {@code int}.
+     */
+    public void setHeapCollectionThreshold(int heapCollectionThreshold) {
+        this.engineParameters.setHeapCollectionThreshold(heapCollectionThreshold);
+    }
+    
+    /**
+     * Returns the heap collection threshold.
+     * 
+     * @return an {@code int}.
+     */
+    public int getHeapCollectionThreshold() {
+        return this.engineParameters.getHeapCollectionThreshold();
+    }
+    
+    /**
+     * Sets the maximum number of differing primitive values
+     * that two states reaching the same program point may have 
+     * to be merged into a single state. When it is positive, 
+     * after each step the current state is merged, if possible, 
+     * with a state that remains to be explored and is at the 
+     * same program point; The differing values are replaced by 
+     * fresh values constrained by the disjunction of the (numeric)
+     * path condition clauses of the two states. By default it is 0, 
+     * i.e., no state is merged.
+     * 
+     * @param stateMergeMaxValues an {@code int}.
+     */
+    public void setStateMergeMaxValues(int stateMergeMaxValues) {
+        this.engineParameters.setStateMergeMaxValues(stateMergeMaxValues);
+    }
+    
+    /**
+     * Returns the maximum number of differing primitive 
+     * values of two states that can be merged.
+     * 
+     * @return an {@code int}.
+     */
+    public int getStateMergeMaxValues() {
+        return this.engineParameters.getStateMergeMaxValues();
+    }
+    
+    /**
+     * Sets the frontier memory threshold, a percentage of the 
+     * maximum heap size of the virtual machine. When it is positive,
+     * and the heap occupancy exceeds it, until the occupancy falls
+     * below the threshold the pending post-initial states are stored
+     * as the decisions that lead to them, and are rebuilt by replaying
+     * these decisions when they are resumed (see 
+     * {@link #setFrontierReplay(boolean)}). This is what frees memory, 
+     * under every exploration strategy, depth-first included. Moreover,
+     * the pending states are resumed depth-first independently on 
+     * the exploration strategy: This bounds the number of pending 
+     * states, but has no effect under the depth-first strategy. 
+     * By default it is 0, i.e., the exploration strategy is always 
+     * followed and the pending states are always stored as they are.
+     * 
+     * @param frontierMemoryThreshold an {@code int}.
+     */
+    public void setFrontierMemoryThreshold(int frontierMemoryThreshold) {
+        this.engineParameters.setFrontierMemoryThreshold(frontierMemoryThreshold);
+    }
+    
+    /**
+     * Returns the frontier memory threshold.
+     * 
+     * @return an {@code int}.
+     */
+    public int getFrontierMemoryThreshold() {
+        return this.engineParameters.getFrontierMemoryThreshold();
+    }
+    
+    /**
+     * Sets whether the pending states may be stored as the 
+     * sequence of the decisions that lead to them from the 
+     * initial state, rather than as states. When it is set and
+     * the heap occupancy exceeds the frontier memory threshold
+     * (see {@link #setFrontierMemoryThreshold(int)}), the pending
+     * post-initial states are dropped and are rebuilt by replaying 
+     * their decisions, without querying the decision procedure 
+     * for satisfiability, when they are resumed. It has no effect
+     * when the states are merged (see {@link #setStateMergeMaxValues(int)})
+     * or the execution is guided. By default it is set: Since the 
+     * pending states are stored as decisions only when the frontier 
+     * memory threshold is positive, and the latter is 0 by default, 
+     * this does not change how the pending states are stored unless
+     * a threshold is set. Unset it to keep the pending states as 
+     * they are also under memory pressure.
+     * 
+     * @param frontierReplay a {@code boolean}.
+     */
+    public void setFrontierReplay(boolean frontierReplay) {
+        this.engineParameters.setFrontierReplay(frontierReplay);
+    }
+    
+    /**
+     * Returns whether the pending states may be rebuilt 
+     * by replaying their decisions.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getFrontierReplay() {
+        return this.engineParameters.getFrontierReplay();
+    }
+    
+    /**
+     * Sets whether the states that are subsumed by a previously 
+     * explored state, i.e., that are at the same program point 
+     * with an isomorphic heap and a path condition that implies 
+     * the path condition of the previous state, must be pruned. 
+     * A state is not pruned because of a state with greater depth 
+     * or count, and the states are never pruned when the execution
+     * is guided, since the guided path might be pruned. By default
+     * they are not pruned.
+     * 
+     * @param pruneSubsumedStates a {@code boolean}.
+     */
+    public void setPruneSubsumedStates(boolean pruneSubsumedStates) {
+        this.engineParameters.setPruneSubsumedStates(pruneSubsumedStates);
+    }
+    
+    /**
+     * Returns whether the subsumed states must be pruned.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getPruneSubsumedStates() {
+        return this.engineParameters.getPruneSubsumedStates();
+    }
+    
     /**
      * Sets whether the classes created during
      * the pre-initialization phase shall be (pedantically)
@@ -833,6 +1019,32 @@ public final class RunnerParameters implements Cloneable {
     public boolean getUseHashMapModel() {
     	return this.engineParameters.getUseHashMapModel();
     }
+    
+    /**
+     * Sets whether some methods of {@code java.lang.String}
+     * must be executed at the meta-level on symbolic strings, 
+     * by representing their results as terms in the SMT-LIB 
+     * strings theory.
+     * 
+     * @param useStringTheory a {@code boolean}. If {@code true}
+     *        {@code equals} and {@code indexOf} on symbolic strings
+     *        will not branch on the characters of the strings. 
+     *        It requires a decision procedure supporting the 
+     *        strings theory.
+     */
+    public void setUseStringTheory(boolean useStringTheory) {
+    	this.engineParameters.setUseStringTheory(useStringTheory);
+    }
+    
+    /**
+     * Returns whether some methods of {@code java.lang.String}
+     * must be executed at the meta-level on symbolic strings.
+     * 
+     * @return a {@code boolean}.
+     */
+    public boolean getUseStringTheory() {
+    	return this.engineParameters.getUseStringTheory();
+    }
 
     /**
      * Sets a timeout for execution.
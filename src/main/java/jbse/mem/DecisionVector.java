@@ -0,0 +1,213 @@
+package jbse.mem;
+
+import java.util.ArrayList;
+
+import jbse.common.exc.InvalidInputException;
+
+/**
+ * The sequence of the decisions taken along a path of the
+ * symbolic execution, starting from the initial state. Each
+ * decision records the branch number of the chosen
+ * {@link jbse.tree.DecisionAlternative}, the hash code of its
+ * identifier (to tell apart alternatives with the same branch
+ * number), the outcome of the decision procedure that
+ * depends on the alternatives that were satisfiable, and 
+ * whether the decision created a branch in the symbolic 
+ * execution tree. This is enough to rebuild a state from 
+ * the initial state without querying the decision procedure
+ * for satisfiability.
+ * A {@link DecisionVector} is immutable and shares its prefix
+ * with the vector it was obtained from, so the states on
+ * sibling branches share all but their last decisions.
+ * Each {@link DecisionVector} is also the last decision
+ * of the sequence it represents.
+ */
+public final class DecisionVector {
+    /** The empty {@link DecisionVector}. */
+    public static final DecisionVector EMPTY = new DecisionVector();
+
+    private static final int FLAG_SHOULD_REFINE = 1;
+    private static final int FLAG_BRANCHING_DECISION = 2;
+    private static final int FLAG_CREATED_BRANCH = 4;
+    private static final String SEPARATOR_DECISIONS = ",";
+    private static final String SEPARATOR_FIELDS = ":";
+
+    /** The vector without the last decision, or {@code null} for {@link #EMPTY}. */
+    private final DecisionVector previous;
+
+    /** The number of decisions. */
+    private final int length;
+
+    /** The branch number of the last decision. */
+    private final int branchNumber;
+
+    /** The hash code of the identifier of the last decision. */
+    private final int identifierHash;
+
+    /** The flags of the last decision. */
+    private final int flags;
+
+    private DecisionVector() {
+        this.previous = null;
+        this.length = 0;
+        this.branchNumber = 0;
+        this.identifierHash = 0;
+        this.flags = 0;
+    }
+
+    private DecisionVector(DecisionVector previous, int branchNumber, int identifierHash, int flags) {
+        this.previous = previous;
+        this.length = previous.length + 1;
+        this.branchNumber = branchNumber;
+        this.identifierHash = identifierHash;
+        this.flags = flags;
+    }
+
+    /**
+     * Factory method. Builds a {@link DecisionVector} by
+     * adding a decision at the end of this one.
+     *
+     * @param branchNumber an {@code int}, the branch number
+     *        of the chosen decision alternative.
+     * @param identifier a {@link String}, the identifier
+     *        of the chosen decision alternative.
+     * @param shouldRefine a {@code boolean}, whether the
+     *        state was refined on the chosen alternative.
+     * @param branchingDecision a {@code boolean}, whether
+     *        the decision was a branching one.
+     * @param createdBranch a {@code boolean}, whether the
+     *        decision created a branch in the symbolic 
+     *        execution tree.
+     * @return a {@link DecisionVector}.
+     */
+    public DecisionVector add(int branchNumber, String identifier, boolean shouldRefine, boolean branchingDecision, boolean createdBranch) {
+        final int flags = (shouldRefine ? FLAG_SHOULD_REFINE : 0) |
+                          (branchingDecision ? FLAG_BRANCHING_DECISION : 0) |
+                          (createdBranch ? FLAG_CREATED_BRANCH : 0);
+        return new DecisionVector(this, branchNumber, identifier.hashCode(), flags);
+    }
+
+    /**
+     * Returns the number of decisions.
+     *
+     * @return a nonnegative {@code int}.
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Returns the decisions in this vector.
+     *
+     * @return a {@link DecisionVector}{@code []} whose
+     *         {@code i}-th element is the prefix of this
+     *         vector with length {@code i + 1}, i.e.,
+     *         its last decision is the {@code i}-th
+     *         decision of this vector.
+     */
+    public DecisionVector[] decisions() {
+        final DecisionVector[] retVal = new DecisionVector[this.length];
+        for (DecisionVector d = this; d.previous != null; d = d.previous) {
+            retVal[d.length - 1] = d;
+        }
+        return retVal;
+    }
+
+    /**
+     * Returns the branch number of the last decision.
+     *
+     * @return an {@code int}.
+     */
+    public int getBranchNumber() {
+        return this.branchNumber;
+    }
+
+    /**
+     * Checks whether the last decision chose a given
+     * decision alternative.
+     *
+     * @param branchNumber an {@code int}, the branch number
+     *        of the decision alternative.
+     * @param identifier a {@link String}, the identifier of
+     *        the decision alternative.
+     * @return {@code true} iff the branch number and the
+     *         identifier match those of the last decision.
+     */
+    public boolean chose(int branchNumber, String identifier) {
+        return (this.length > 0 && this.branchNumber == branchNumber && this.identifierHash == identifier.hashCode());
+    }
+
+    /**
+     * Returns whether the state was refined on the
+     * last decision.
+     *
+     * @return a {@code boolean}.
+     */
+    public boolean shouldRefine() {
+        return (this.flags & FLAG_SHOULD_REFINE) != 0;
+    }
+
+    /**
+     * Returns whether the last decision was a branching one.
+     *
+     * @return a {@code boolean}.
+     */
+    public boolean branchingDecision() {
+        return (this.flags & FLAG_BRANCHING_DECISION) != 0;
+    }
+
+    /**
+     * Returns whether the last decision created a branch
+     * in the symbolic execution tree.
+     *
+     * @return a {@code boolean}.
+     */
+    public boolean createdBranch() {
+        return (this.flags & FLAG_CREATED_BRANCH) != 0;
+    }
+
+    /**
+     * Converts a {@link String} to a {@link DecisionVector}.
+     *
+     * @param s a {@link String}, as returned by {@link #toString()}.
+     * @return the {@link DecisionVector} represented by {@code s}.
+     * @throws InvalidInputException if {@code s} is {@code null}
+     *         or does not represent a {@link DecisionVector}.
+     */
+    public static DecisionVector valueOf(String s) throws InvalidInputException {
+        if (s == null) {
+            throw new InvalidInputException("Tried to parse a null decision vector.");
+        }
+        DecisionVector retVal = EMPTY;
+        if (s.isEmpty()) {
+            return retVal;
+        }
+        for (String decision : s.split(SEPARATOR_DECISIONS, -1)) {
+            final String[] fields = decision.split(SEPARATOR_FIELDS, -1);
+            if (fields.length != 3) {
+                throw new InvalidInputException("Ill-formed decision " + decision + " in decision vector " + s + ".");
+            }
+            try {
+                final int branchNumber = Integer.parseInt(fields[0]);
+                final int identifierHash = Integer.parseUnsignedInt(fields[1], 16);
+                final int flags = Integer.parseInt(fields[2]);
+                if (flags < 0 || flags > (FLAG_SHOULD_REFINE | FLAG_BRANCHING_DECISION | FLAG_CREATED_BRANCH)) {
+                    throw new InvalidInputException("Ill-formed decision " + decision + " in decision vector " + s + ".");
+                }
+                retVal = new DecisionVector(retVal, branchNumber, identifierHash, flags);
+            } catch (NumberFormatException e) {
+                throw new InvalidInputException("Ill-formed decision " + decision + " in decision vector " + s + ".");
+            }
+        }
+        return retVal;
+    }
+
+    @Override
+    public String toString() {
+        final ArrayList<String> decisions = new ArrayList<>(this.length);
+        for (DecisionVector d : decisions()) {
+            decisions.add(d.branchNumber + SEPARATOR_FIELDS + Integer.toHexString(d.identifierHash) + SEPARATOR_FIELDS + d.flags);
+        }
+        return String.join(SEPARATOR_DECISIONS, decisions);
+    }
+}
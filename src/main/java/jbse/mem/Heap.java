@@ -1,5 +1,8 @@
 package jbse.mem;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -18,6 +21,25 @@ final class Heap implements Cloneable {
     private TreeMap<Long, HeapObjekt> objects; //nonfinal to allow cloning
     private long nextIndex;
     
+    /** The positions greater or equal to this are in the young generation. */
+    private long youngStart;
+    
+    /** The number of objects allocated in the young generation. */
+    private int youngAllocations;
+    
+    /** 
+     * The positions of the old objects that were handed out 
+     * (and thus possibly modified) since the young generation 
+     * was started (remembered set).
+     */
+    private HashSet<Long> remembered; //nonfinal to allow cloning
+    
+    /** 
+     * Set when all the objects were handed out, so 
+     * the remembered set is the whole old generation. 
+     */
+    private boolean rememberedAll;
+    
     /**
      * Constructor.
      * 
@@ -29,6 +51,10 @@ final class Heap implements Cloneable {
         this.maxHeapSize = maxHeapSize;
         this.objects = new TreeMap<>();
         this.nextIndex = Util.POS_ROOT;
+        this.youngStart = Util.POS_ROOT;
+        this.youngAllocations = 0;
+        this.remembered = new HashSet<>();
+        this.rememberedAll = false;
     }
 
     /**
@@ -60,6 +86,7 @@ final class Heap implements Cloneable {
      */
     long addNewSurely(HeapObjektImpl item) {
         this.objects.put(this.nextIndex, item);
+        ++this.youngAllocations;
         long retVal = this.nextIndex;
         while (existsAt(this.nextIndex)) {
             if (this.nextIndex == Long.MAX_VALUE) {
@@ -93,6 +120,7 @@ final class Heap implements Cloneable {
      */
     void set(long pos, HeapObjekt item) {
         this.objects.put(pos, item);
+        remember(pos);
     }
 
     /**
@@ -105,6 +133,7 @@ final class Heap implements Cloneable {
      */
     HeapObjekt getObject(long pos) {
     	if (existsAt(pos)) {
+    		remember(pos);
     		final HeapObjekt localObjekt = this.objects.get(pos);
     		if (localObjekt == null) {
     			final HeapObjektImpl trueObjekt = getTheRealThing(pos);
@@ -141,6 +170,60 @@ final class Heap implements Cloneable {
 		}
     }
     
+    /**
+     * Gets an object from the heap for reading, without
+     * remembering its position and without copying it.
+     * 
+     * @param pos a {@code long}, the location where the object
+     *        must be stored.
+     * @return the {@link HeapObjekt} at position {@code pos}, or 
+     *         {@code null} if nothing is stored at {@code pos}.
+     *         It must not be modified.
+     */
+    HeapObjekt peekObject(long pos) {
+        if (existsAt(pos)) {
+            final HeapObjekt localObjekt = this.objects.get(pos);
+            return (localObjekt == null ? getTheRealThing(pos) : localObjekt);
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Returns the positions where this heap and another one
+     * may store different objects, i.e., the positions that 
+     * were set in either heap since their nearest common 
+     * delegate was lazily cloned. At all the other positions
+     * the two heaps store the same object.
+     * 
+     * @param other a {@link Heap}.
+     * @return a {@link TreeSet}{@code <}{@link Long}{@code >}, 
+     *         or {@code null} if the two heaps have no common 
+     *         delegate, and therefore all their positions may 
+     *         differ.
+     */
+    TreeSet<Long> divergingPositions(Heap other) {
+        final Set<Heap> chain = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Heap h = this; h != null; h = h.delegate) {
+            chain.add(h);
+        }
+        Heap common = other;
+        while (common != null && !chain.contains(common)) {
+            common = common.delegate;
+        }
+        if (common == null) {
+            return null;
+        }
+        final TreeSet<Long> retVal = new TreeSet<>();
+        for (Heap h = this; h != common; h = h.delegate) {
+            retVal.addAll(h.objects.keySet());
+        }
+        for (Heap h = other; h != common; h = h.delegate) {
+            retVal.addAll(h.objects.keySet());
+        }
+        return retVal;
+    }
+    
     private TreeSet<Long> filledPositions() {
     	final TreeSet<Long> retVal = new TreeSet<>();
     	for (long pos : this.objects.keySet()) {
@@ -174,9 +257,19 @@ final class Heap implements Cloneable {
      */
     SortedMap<Long, Objekt> getObjects() {
     	makeAllWrappers();
+    	this.rememberedAll = true;
         return new TreeMap<>(this.objects);
     }    
 
+    /**
+     * Returns the positions of the objects in the heap.
+     * 
+     * @return a {@link TreeSet}{@code <}{@link Long}{@code >}.
+     */
+    TreeSet<Long> positions() {
+        return filledPositions();
+    }
+
     /**
      * Returns the number of objects in the heap.
      * 
@@ -202,6 +295,99 @@ final class Heap implements Cloneable {
             this.objects.put(pos, null);
         }
     }
+    
+    private void remember(long pos) {
+        if (pos < this.youngStart && !this.rememberedAll) {
+            this.remembered.add(pos);
+        }
+    }
+    
+    /**
+     * Returns the number of objects allocated since the
+     * young generation was started.
+     * 
+     * @return a nonnegative {@code int}.
+     */
+    int getYoungAllocations() {
+        return this.youngAllocations;
+    }
+    
+    /**
+     * Checks whether a position is in the young 
+     * generation.
+     * 
+     * @param pos a {@code long}.
+     * @return {@code true} iff {@code pos} is in the 
+     *         young generation.
+     */
+    boolean isYoung(long pos) {
+        return pos >= this.youngStart;
+    }
+    
+    /**
+     * Returns the positions of the objects in the young 
+     * generation.
+     * 
+     * @return a {@link TreeSet}{@code <}{@link Long}{@code >}.
+     */
+    TreeSet<Long> youngPositions() {
+    	final TreeSet<Long> retVal = new TreeSet<>();
+    	youngPositions(retVal, new HashSet<>());
+    	return retVal;
+    }
+    
+    private void youngPositions(TreeSet<Long> retVal, HashSet<Long> masked) {
+    	for (Map.Entry<Long, HeapObjekt> e : this.objects.tailMap(this.youngStart).entrySet()) {
+    		if (masked.add(e.getKey()) && e.getValue() != null) {
+    			retVal.add(e.getKey());
+    		}
+    	}
+    	if (this.delegate != null) {
+    		this.delegate.youngPositions(retVal, masked);
+    	}
+    }
+    
+    /**
+     * Returns the remembered set, i.e., the positions 
+     * of the old objects that might have been modified 
+     * since the young generation was started.
+     * 
+     * @return a {@link Set}{@code <}{@link Long}{@code >}, 
+     *         or {@code null} if all the old objects might 
+     *         have been modified.
+     */
+    Set<Long> rememberedPositions() {
+        return (this.rememberedAll ? null : new HashSet<>(this.remembered));
+    }
+    
+    /**
+     * Deletes the objects in the young generation that 
+     * are not live.
+     * 
+     * @param livePos a {@link Set}{@code <}{@link Long}{@code >}.
+     *        The young objects at positions in {@code livePos}
+     *        will not be deleted, all the remaining young 
+     *        objects will.
+     */
+    void disposeYoungExcept(Set<Long> livePos) {
+        for (long pos : youngPositions()) {
+            if (livePos.contains(pos)) {
+                continue;
+            }
+            this.objects.put(pos, null);
+        }
+    }
+    
+    /**
+     * Promotes all the objects to the old generation
+     * and starts a new, empty young generation.
+     */
+    void startYoungGeneration() {
+        this.youngStart = this.nextIndex;
+        this.youngAllocations = 0;
+        this.remembered.clear();
+        this.rememberedAll = false;
+    }
 
     Heap lazyClone() {
         final Heap h;
@@ -213,6 +399,7 @@ final class Heap implements Cloneable {
 
         h.delegate = this;
         h.objects = new TreeMap<>();
+        h.remembered = new HashSet<>(this.remembered);
         
         return h;
     }
@@ -251,6 +438,7 @@ final class Heap implements Cloneable {
             objectsClone.put(pos, getTheRealThing(pos).clone());
         }
         h.objects = objectsClone;
+        h.remembered = new HashSet<>(this.remembered);
         
         return h;
     }
@@ -58,14 +58,7 @@ public final class MethodFrame extends Frame implements Cloneable {
 
     @Override
     public int getSourceRow() {
-        int retVal = UNKNOWN_SOURCE_ROW;
-        for (LineNumberTable.Row r : this.lnt) {
-            if (r.start > getProgramCounter()) {
-                break;
-            }
-            retVal = r.lineNumber;
-        }
-        return retVal;
+        return this.lnt.getLineNumber(getProgramCounter(), UNKNOWN_SOURCE_ROW);
     }
     
     @Override
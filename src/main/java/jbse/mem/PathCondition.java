@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -11,6 +12,7 @@ import jbse.bc.ClassFile;
 import jbse.common.exc.InvalidInputException;
 import jbse.mem.exc.ContradictionException;
 import jbse.val.Expression;
+import jbse.val.Operator;
 import jbse.val.Primitive;
 import jbse.val.ReferenceSymbolic;
 import jbse.val.Simplex;
@@ -19,10 +21,90 @@ import jbse.val.Simplex;
  * A path condition. It retains all the clauses gathered at the 
  * different branch points traversed during execution as a 
  * suitable {@link Collection}{@code <}{@link Clause}{@code >}. 
+ * The {@link ClauseAssume}s that are implied by the path condition,
+ * either because they are equal to a clause already in it, or 
+ * because they bound an operand more weakly than a clause already 
+ * in it, are not added. Clauses are only appended, so a path 
+ * condition is always a prefix of the path conditions derived 
+ * from it.
  */
 final class PathCondition implements Cloneable {
+    /** 
+     * A bound of an operand by a constant. It is immutable.
+     */
+    private static final class Bound {
+        /** The constant value, either a {@link Long} or a {@link Double}. */
+        final Number value;
+        
+        /** Whether the bound excludes {@link #value}. */
+        final boolean strict;
+        
+        Bound(Number value, boolean strict) {
+            this.value = value;
+            this.strict = strict;
+        }
+        
+        /**
+         * Compares the values of this and another bound.
+         * 
+         * @param other a {@link Bound}.
+         * @return a negative, zero or positive {@code int} 
+         *         if the value of this bound is less, equal 
+         *         or greater than the value of {@code other}.
+         */
+        int compareValue(Bound other) {
+            if (this.value instanceof Long && other.value instanceof Long) {
+                return Long.compare(this.value.longValue(), other.value.longValue());
+            } else {
+                return Double.compare(this.value.doubleValue(), other.value.doubleValue());
+            }
+        }
+        
+        /**
+         * Checks whether this lower bound implies another one.
+         * 
+         * @param other a {@link Bound}, a lower bound of the same operand.
+         * @return {@code true} iff this lower bound implies {@code other}. 
+         */
+        boolean impliesLower(Bound other) {
+            final int c = compareValue(other);
+            return c > 0 || (c == 0 && (this.strict || !other.strict));
+        }
+        
+        /**
+         * Checks whether this upper bound implies another one.
+         * 
+         * @param other a {@link Bound}, an upper bound of the same operand.
+         * @return {@code true} iff this upper bound implies {@code other}. 
+         */
+        boolean impliesUpper(Bound other) {
+            final int c = compareValue(other);
+            return c < 0 || (c == 0 && (this.strict || !other.strict));
+        }
+    }
+    
     /** {@link ArrayList} of all the {@link Clause}s forming the path condition. */
     private ArrayList<Clause> clauses;
+    
+    /**
+     * The conditions of all the {@link ClauseAssume}s in {@code clauses}.
+     * It is just a cache of information already contained in {@code clauses}.
+     */
+    private HashSet<Primitive> assumedConditions;
+    
+    /**
+     * Maps operands to the strongest lower bound that the 
+     * {@link ClauseAssume}s in {@code clauses} put on them. 
+     * It is just a cache of information already contained in {@code clauses}.
+     */
+    private HashMap<Primitive, Bound> lowerBounds;
+    
+    /**
+     * Maps operands to the strongest upper bound that the 
+     * {@link ClauseAssume}s in {@code clauses} put on them. 
+     * It is just a cache of information already contained in {@code clauses}.
+     */
+    private HashMap<Primitive, Bound> upperBounds;
 
     /** 
      * Maps symbolic references to their respective heap positions.
@@ -41,6 +123,9 @@ final class PathCondition implements Cloneable {
      */
     PathCondition() {
         this.clauses = new ArrayList<>();
+        this.assumedConditions = new HashSet<>();
+        this.lowerBounds = new HashMap<>();
+        this.upperBounds = new HashMap<>();
         this.referenceResolutionMap = new HashMap<>();
         this.objectCounters = new HashMap<>();
     }
@@ -55,17 +140,191 @@ final class PathCondition implements Cloneable {
 	 * @throws InvalidInputException if {@code condition == null} or 
 	 *         {@code condition} has not boolean type, or is not an 
 	 *         instance of either {@link Simplex} or {@link Expression}.
+	 * @return {@code true} iff the clause was added, {@code false}
+	 *         if it was not added because {@code condition} is 
+	 *         implied by the path condition.
 	 * @throws ContradictionException if {@code condition.}{@link Primitive#surelyFalse() surelyFalse}{@code ()}.
      */
-    void addClauseAssume(Primitive condition) throws InvalidInputException, ContradictionException {
+    boolean addClauseAssume(Primitive condition) throws InvalidInputException, ContradictionException {
     	final ClauseAssume clause = new ClauseAssume(condition);
     	if (condition.surelyTrue()) {
-    		return; //nothing to add
+    		return false; //nothing to add
     	}
     	if (condition.surelyFalse()) {
     		throw new ContradictionException("Attempted to invoke " + getClass().getName() + ".addClauseAssume with a surely false condition.");
     	}
+    	if (this.assumedConditions.contains(condition) || boundImplied(condition)) {
+    	    return false; //nothing to add
+    	}
         this.clauses.add(clause);
+        index(condition);
+        return true;
+    }
+    
+    /**
+     * Returns the operand of a condition that bounds 
+     * it with a constant.
+     * 
+     * @param condition a {@link Primitive}.
+     * @return the {@link Primitive} that {@code condition} 
+     *         compares with a numeric constant, or {@code null}
+     *         if {@code condition} is not such a comparison.
+     */
+    private static Primitive boundOperand(Primitive condition) {
+        if (!(condition instanceof Expression)) {
+            return null;
+        }
+        final Expression e = (Expression) condition;
+        final Operator operator = e.getOperator();
+        if (e.isUnary() || (operator != Operator.LT && operator != Operator.LE && operator != Operator.GT && operator != Operator.GE && operator != Operator.EQ)) {
+            return null;
+        }
+        final boolean firstConstant = (e.getFirstOperand() instanceof Simplex);
+        final boolean secondConstant = (e.getSecondOperand() instanceof Simplex);
+        if (firstConstant == secondConstant) {
+            return null;
+        }
+        return (firstConstant ? e.getSecondOperand() : e.getFirstOperand());
+    }
+    
+    /**
+     * Returns the bound that a condition puts on 
+     * its {@link #boundOperand(Primitive) boundOperand}.
+     * 
+     * @param condition a {@link Primitive} such that 
+     *        {@link #boundOperand(Primitive) boundOperand}{@code (condition) != null}.
+     * @param lower a {@code boolean}, whether the lower
+     *        or the upper bound must be returned.
+     * @return the {@link Bound}, or {@code null} if 
+     *         {@code condition} puts no such bound, or
+     *         the constant is not a number.
+     */
+    private static Bound bound(Primitive condition, boolean lower) {
+        final Expression e = (Expression) condition;
+        final boolean firstConstant = (e.getFirstOperand() instanceof Simplex);
+        final Object constant = ((Simplex) (firstConstant ? e.getFirstOperand() : e.getSecondOperand())).getActualValue();
+        final Number value;
+        if (constant instanceof Double || constant instanceof Float) {
+            final double d = ((Number) constant).doubleValue();
+            if (Double.isNaN(d)) {
+                return null;
+            }
+            value = d;
+        } else if (constant instanceof Number) {
+            value = ((Number) constant).longValue();
+        } else if (constant instanceof Character) {
+            value = (long) ((Character) constant).charValue();
+        } else {
+            return null;
+        }
+        
+        //normalizes to operand OP constant
+        Operator operator = e.getOperator();
+        if (firstConstant) {
+            operator = (operator == Operator.LT ? Operator.GT : 
+                        operator == Operator.LE ? Operator.GE : 
+                        operator == Operator.GT ? Operator.LT : 
+                        operator == Operator.GE ? Operator.LE : 
+                        operator);
+        }
+        if (operator == Operator.EQ) {
+            return new Bound(value, false);
+        } else if (lower && (operator == Operator.GT || operator == Operator.GE)) {
+            return new Bound(value, operator == Operator.GT);
+        } else if (!lower && (operator == Operator.LT || operator == Operator.LE)) {
+            return new Bound(value, operator == Operator.LT);
+        } else {
+            return null;
+        }
+    }
+    
+    /**
+     * Checks whether a condition bounds an operand 
+     * more weakly than the path condition does.
+     * 
+     * @param condition a {@link Primitive}.
+     * @return {@code true} iff {@code condition} is 
+     *         implied by the bounds in the path condition.
+     */
+    private boolean boundImplied(Primitive condition) {
+        final Primitive operand = boundOperand(condition);
+        if (operand == null) {
+            return false;
+        }
+        final Bound lower = bound(condition, true);
+        final Bound upper = bound(condition, false);
+        if (lower == null && upper == null) {
+            return false;
+        }
+        final Bound lowerPresent = this.lowerBounds.get(operand);
+        final Bound upperPresent = this.upperBounds.get(operand);
+        if (lower != null && upper != null) {
+            //an equality, implied only by the very same bounds
+            return lowerPresent != null && !lowerPresent.strict && lowerPresent.compareValue(lower) == 0 &&
+                   upperPresent != null && !upperPresent.strict && upperPresent.compareValue(upper) == 0;
+        } else if (lower != null) {
+            return lowerPresent != null && lowerPresent.impliesLower(lower);
+        } else {
+            return upperPresent != null && upperPresent.impliesUpper(upper);
+        }
+    }
+    
+    /**
+     * Updates the caches with the condition of 
+     * a {@link ClauseAssume} added to the path condition.
+     * 
+     * @param condition a {@link Primitive}.
+     */
+    private void index(Primitive condition) {
+        this.assumedConditions.add(condition);
+        final Primitive operand = boundOperand(condition);
+        if (operand == null) {
+            return;
+        }
+        final Bound lower = bound(condition, true);
+        if (lower != null) {
+            final Bound lowerPresent = this.lowerBounds.get(operand);
+            if (lowerPresent == null || !lowerPresent.impliesLower(lower)) {
+                this.lowerBounds.put(operand, lower);
+            }
+        }
+        final Bound upper = bound(condition, false);
+        if (upper != null) {
+            final Bound upperPresent = this.upperBounds.get(operand);
+            if (upperPresent == null || !upperPresent.impliesUpper(upper)) {
+                this.upperBounds.put(operand, upper);
+            }
+        }
+    }
+
+    /**
+     * Removes the last clauses of the path condition. 
+     * Only {@link ClauseAssume}s can be removed. 
+     * 
+     * @param length an {@code int}, the number of clauses
+     *        that must be retained.
+     * @throws InvalidInputException if some of the clauses 
+     *         to be removed is not a {@link ClauseAssume}.
+     */
+    void truncate(int length) throws InvalidInputException {
+        for (int i = length; i < this.clauses.size(); ++i) {
+            if (!(this.clauses.get(i) instanceof ClauseAssume)) {
+                throw new InvalidInputException("Attempted to remove a clause " + this.clauses.get(i) + " that does not assume a primitive condition.");
+            }
+        }
+        while (this.clauses.size() > length) {
+            this.clauses.remove(this.clauses.size() - 1);
+        }
+        
+        //rebuilds the caches
+        this.assumedConditions.clear();
+        this.lowerBounds.clear();
+        this.upperBounds.clear();
+        for (Clause c : this.clauses) {
+            if (c instanceof ClauseAssume) {
+                index(((ClauseAssume) c).getCondition());
+            }
+        }
     }
 
     /**
@@ -291,6 +550,9 @@ final class PathCondition implements Cloneable {
 
         //does a deep copy
         o.clauses = new ArrayList<>(this.clauses);
+        o.assumedConditions = new HashSet<>(this.assumedConditions);
+        o.lowerBounds = new HashMap<>(this.lowerBounds);
+        o.upperBounds = new HashMap<>(this.upperBounds);
         o.referenceResolutionMap = new HashMap<>(this.referenceResolutionMap);
         o.objectCounters = new HashMap<>(this.objectCounters);
 
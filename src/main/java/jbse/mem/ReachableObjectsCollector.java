@@ -92,6 +92,83 @@ public final class ReachableObjectsCollector {
             throw new NullPointerException();
         }
         
+        final HashSet<Long> reachable = roots(s, precise, rootObject, rootClass);
+        close(s, reachable, new HashSet<>(reachable), null);
+        return reachable;
+    }
+    
+    /**
+     * Returns the heap positions of the objects in the young 
+     * generation of a {@link State}'s heap that are reachable 
+     * from the (precise) collection roots. Only the young objects
+     * and the old objects in the remembered set are visited, the
+     * old objects are assumed to be all live.
+     * 
+     * @param s a {@link State}. It must not be {@code null}.
+     * @param remembered a {@link Set}{@code <}{@link Long}{@code >}, 
+     *        the heap positions of the old objects that might 
+     *        refer young objects.
+     * @return a {@link Set}{@code <}{@link Long}{@code >}
+     *         containing the heap positions of the young objects
+     *         reachable from the collection roots (and possibly 
+     *         some old objects).
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    Set<Long> reachableYoung(State s, Set<Long> remembered) throws FrozenStateException {
+        final HashSet<Long> reachable;
+        try {
+            final boolean emptyStack = s.getStack().isEmpty();
+            final Reference rootObjectReference = (emptyStack ? null : s.getRootObjectReference());
+            final long rootObjectPosition = (rootObjectReference == null ? -1 : rootObjectReference instanceof ReferenceConcrete ? ((ReferenceConcrete) rootObjectReference).getHeapPosition() : s.getResolution((ReferenceSymbolic) rootObjectReference));
+            final ClassFile rootClass = (emptyStack ? null : s.getRootClass());
+            reachable = roots(s, true, rootObjectPosition, rootClass);
+        } catch (ThreadStackEmptyException e) {
+            throw new UnexpectedInternalException(e);
+        }
+        
+        //the expanded objects are always live
+        for (Clause c : s.getPathCondition()) {
+            if (c instanceof ClauseAssumeExpands) {
+                reachable.add(((ClauseAssumeExpands) c).getHeapPosition());
+            }
+        }
+        
+        //the meta-level boxes are always live, because
+        //the collector cannot see what they refer
+        final Set<Long> young = s.youngHeapPositions();
+        for (long pos : young) {
+            if (s.getObject(new ReferenceConcrete(pos)) instanceof Instance_METALEVELBOX) {
+                reachable.add(pos);
+            }
+        }
+        
+        //visits the young roots and the remembered old objects
+        final HashSet<Long> toVisit = new HashSet<>();
+        for (long pos : reachable) {
+            if (young.contains(pos)) {
+                toVisit.add(pos);
+            }
+        }
+        for (long pos : remembered) {
+            if (s.getObject(new ReferenceConcrete(pos)) != null) {
+                toVisit.add(pos);
+            }
+        }
+        close(s, reachable, toVisit, young);
+        return reachable;
+    }
+    
+    /**
+     * Returns the heap positions of the collection roots.
+     * 
+     * @param s a {@link State}. It must not be {@code null}.
+     * @param precise see {@link #reachable(State, boolean, long, ClassFile)}.
+     * @param rootObject see {@link #reachable(State, boolean, long, ClassFile)}.
+     * @param rootClass see {@link #reachable(State, boolean, long, ClassFile)}.
+     * @return a {@link HashSet}{@code <}{@link Long}{@code >}.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    private HashSet<Long> roots(State s, boolean precise, long rootObject, ClassFile rootClass) throws FrozenStateException {
         final HashSet<Long> reachable = new HashSet<>();
         
         //if the state is stuck, possibly adds the return
@@ -172,8 +249,25 @@ public final class ReachableObjectsCollector {
         	reachable.add(s.getMainThreadGroup().getHeapPosition());
         }
 
-        //closes reachable
-        HashSet<Long> toVisit = new HashSet<>(reachable);
+        return reachable;
+    }
+    
+    /**
+     * Closes a set of heap positions under reachability.
+     * 
+     * @param s a {@link State}. It must not be {@code null}.
+     * @param reachable a {@link Set}{@code <}{@link Long}{@code >}
+     *        of heap positions. It will be updated with all the 
+     *        heap positions reachable from {@code toVisit}.
+     * @param toVisit a {@link Set}{@code <}{@link Long}{@code >}, 
+     *        the heap positions of the objects to be visited first.
+     * @param visitable a {@link Set}{@code <}{@link Long}{@code >}
+     *        of heap positions, or {@code null}. If not {@code null}
+     *        the objects at the positions not in {@code visitable}
+     *        are added to {@code reachable} but not visited.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    private void close(State s, Set<Long> reachable, Set<Long> toVisit, Set<Long> visitable) throws FrozenStateException {
         while (true) {
             final HashSet<Long> toVisitNext = new HashSet<>();
             for (long nextObject : toVisit) {
@@ -196,14 +290,15 @@ public final class ReachableObjectsCollector {
                     }
                 }
             }
+            if (visitable != null) {
+                toVisitNext.retainAll(visitable);
+            }
             if (toVisitNext.isEmpty()) {
                 break;
             } else {
                 toVisit = toVisitNext;
             }
         }
-        
-        return reachable;
     }
     
     private void addIfReference(Set<Long> set, State s, Value v) {
@@ -30,6 +30,8 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import jbse.bc.ClassFile;
 import jbse.bc.ClassFileFactory;
@@ -53,6 +55,9 @@ import jbse.bc.exc.MethodNotFoundException;
 import jbse.bc.exc.NullMethodReceiverException;
 import jbse.bc.exc.RenameUnsupportedException;
 import jbse.bc.exc.WrongClassNameException;
+import jbse.common.Metrics;
+import jbse.common.Metrics.Counter;
+import jbse.common.Metrics.Histogram;
 import jbse.common.Type;
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
@@ -106,6 +111,16 @@ public final class State implements Cloneable {
     /** The slot number of the "this" (method receiver) object. */
     private static final int ROOT_THIS_SLOT = 0;
     
+    /** Metrics of the lazy clone operations. */
+    private static final Counter LAZY_CLONE_COUNT = Metrics.counter("state.lazyClone.count");
+    private static final Counter LAZY_CLONE_BYTES = Metrics.counter("state.lazyClone.bytes");
+    private static final Histogram LAZY_CLONE_TIME = Metrics.histogram("state.lazyClone");
+    
+    /** Metrics of the (deep) clone operations. */
+    private static final Counter CLONE_COUNT = Metrics.counter("state.clone.count");
+    private static final Counter CLONE_BYTES = Metrics.counter("state.clone.bytes");
+    private static final Histogram CLONE_TIME = Metrics.histogram("state.clone");
+    
     /** 
      * {@code true} iff the bootstrap classloader should also load classes defined by the
      * extensions and application classloaders. 
@@ -133,6 +148,9 @@ public final class State implements Cloneable {
     /** The count of the state, i.e., the number of states from the previous branch point. */
     private int count = 0;
 
+    /** The decisions taken from the initial state to this state. */
+    private DecisionVector decisions = DecisionVector.EMPTY;
+
     /** The identifier of the next {@link Instance_JAVA_CLASSLOADER} to be created. */
     private int nextClassLoaderIdentifier = 1;
     
@@ -482,7 +500,7 @@ public final class State implements Cloneable {
      * @throws ThreadStackEmptyException if the stack is empty.
      */
     public ClassFile getCurrentClass() throws ThreadStackEmptyException {
-        return this.stack.currentFrame().getMethodClass();
+        return this.stack.peekCurrentFrame().getMethodClass();
     }
 
     /**
@@ -493,7 +511,7 @@ public final class State implements Cloneable {
      * @throws ThreadStackEmptyException if the stack is empty.
      */
     public Signature getCurrentMethodSignature() throws ThreadStackEmptyException {
-        return this.stack.currentFrame().getMethodSignature();
+        return this.stack.peekCurrentFrame().getMethodSignature();
     }
     
     /**
@@ -594,7 +612,7 @@ public final class State implements Cloneable {
     	if (this.frozen) {
     		throw new FrozenStateException();
     	}
-        getCurrentFrame().setLocalVariableValue(slot, this.stack.currentFrame().getProgramCounter(), val);
+        getCurrentFrame().setLocalVariableValue(slot, this.stack.peekCurrentFrame().getProgramCounter(), val);
     }
 
 
@@ -2665,7 +2683,9 @@ public final class State implements Cloneable {
     /**
      * Returns the root frame.
      * 
-     * @return a {@link Frame}, the root (first pushed) one.
+     * @return a {@link Frame}, the root (first pushed) one. 
+     *         It may be shared with other states, so it must 
+     *         not be modified.
      * @throws ThreadStackEmptyException if the 
      *         thread stack is empty.
      * @throws FrozenStateException if the state is frozen.
@@ -2697,7 +2717,8 @@ public final class State implements Cloneable {
      * 
      * @return a {@link List}{@code <}{@link Frame}{@code >} 
      *         of the method activation frames in the thread stack, 
-     *         in their push order.
+     *         in their push order. The frames may be shared with
+     *         other states, so they must not be modified.
      * @throws FrozenStateException if the state is frozen.
      */
     public List<Frame> getStack() throws FrozenStateException {
@@ -2707,6 +2728,22 @@ public final class State implements Cloneable {
         return this.stack.frames();
     }
 
+    /**
+     * Returns an immutable view of the thread stack, 
+     * whose frames can be modified.
+     * 
+     * @return a {@link List}{@code <}{@link Frame}{@code >} 
+     *         of the method activation frames in the thread stack, 
+     *         in their push order.
+     * @throws FrozenStateException if the state is frozen.
+     */
+    List<Frame> getStackForUpdate() throws FrozenStateException {
+    	if (this.frozen) {
+    		throw new FrozenStateException();
+    	}
+        return this.stack.framesForUpdate();
+    }
+
     /**
      * Returns the size of the thread stack.
      * 
@@ -2866,7 +2903,7 @@ public final class State implements Cloneable {
      * @throws ThreadStackEmptyException if the thread stack is empty.
      */
     public int getCurrentProgramCounter() throws ThreadStackEmptyException {
-        return this.stack.currentFrame().getProgramCounter();
+        return this.stack.peekCurrentFrame().getProgramCounter();
     }
 
     /**
@@ -2895,7 +2932,7 @@ public final class State implements Cloneable {
      * @throws ThreadStackEmptyException  if the thread stack is empty.
      */
     public int getReturnProgramCounter() throws ThreadStackEmptyException {
-        return this.stack.currentFrame().getReturnProgramCounter();
+        return this.stack.peekCurrentFrame().getReturnProgramCounter();
     }
 
     /**
@@ -2938,7 +2975,8 @@ public final class State implements Cloneable {
 
     /**
      * Assumes a predicate over primitive values (numeric assumption).
-     * Its effect is adding a clause to the path condition.
+     * Its effect is adding a clause to the path condition,
+     * unless the path condition already implies it.
      * 
      * @param condition the primitive clause which must be added to the state's 
      *        path condition. It must be {@code condition != null && 
@@ -2959,8 +2997,9 @@ public final class State implements Cloneable {
 			throw new InvalidInputException("Attempted to invoke " + getClass().getName() + ".assume with Primitive value " + condition.toString() + ".");
 		}
     	possiblyReset();
-        this.pathCondition.addClauseAssume(condition);
-        ++this.nPushedClauses;
+        if (this.pathCondition.addClauseAssume(condition)) {
+            ++this.nPushedClauses;
+        }
     }
 
     /**
@@ -3173,6 +3212,74 @@ public final class State implements Cloneable {
     public List<Clause> getPathCondition() {
         return this.pathCondition.getClauses();
     }
+    
+    /**
+     * Replaces the last clauses of the path condition
+     * with a single clause. Used by {@link StateMerger}.
+     * 
+     * @param length an {@code int}, the number of clauses of 
+     *        the path condition that must be retained.
+     * @param condition the {@link Primitive} condition of 
+     *        the clause to be added.
+     * @throws InvalidInputException if some of the clauses 
+     *         to be removed is not a {@link ClauseAssume}, or
+     *         {@code condition} is not a boolean {@link Expression}
+     *         or {@link Simplex}.
+     * @throws ContradictionException if {@code condition} is 
+     *         surely false.
+     */
+    void mergePathCondition(int length, Primitive condition) 
+    throws InvalidInputException, ContradictionException {
+        this.pathCondition.truncate(length);
+        this.pathCondition.addClauseAssume(condition);
+        this.nPushedClauses = 0;
+    }
+
+    /**
+     * Makes the symbols created by this state from now on 
+     * distinct from all the symbols created by another state.
+     * Used by {@link StateMerger}.
+     * 
+     * @param other a {@link State}.
+     */
+    void mergeSymbolFactory(State other) {
+        this.symbolFactory.advancePast(other.symbolFactory);
+    }
+
+    /**
+     * Returns the heap positions where this state and 
+     * another one may store different objects. Used by 
+     * {@link StateMerger}. Unlike {@link #getHeap()} it 
+     * does not expose the heap, so it does not prevent 
+     * the young generation collections.
+     * 
+     * @param other a {@link State}.
+     * @return a {@link SortedSet}{@code <}{@link Long}{@code >}.
+     *         It contains all the positions of the two heaps 
+     *         unless they were lazily cloned from a common heap.
+     */
+    SortedSet<Long> heapPositionsDivergingFrom(State other) {
+        final TreeSet<Long> retVal = this.heap.divergingPositions(other.heap);
+        if (retVal == null) {
+            final TreeSet<Long> all = this.heap.positions();
+            all.addAll(other.heap.positions());
+            return all;
+        }
+        return retVal;
+    }
+
+    /**
+     * Returns an object in the heap for reading. Used by 
+     * {@link StateMerger}.
+     * 
+     * @param pos a {@code long}, a heap position.
+     * @return the {@link Objekt} at {@code pos}, or {@code null}
+     *         if there is no object at {@code pos}. It must
+     *         not be modified.
+     */
+    Objekt peekObject(long pos) {
+        return this.heap.peekObject(pos);
+    }
 
     /**
      * Returns the path condition clauses that have been pushed since
@@ -3426,6 +3533,41 @@ public final class State implements Cloneable {
         ++this.depth;
     }
 
+    /**
+     * Gets the decisions taken from the initial
+     * state to this state.
+     * 
+     * @return a {@link DecisionVector}.
+     */
+    public DecisionVector getDecisions() {
+        return this.decisions;
+    }
+
+    /**
+     * Records a decision taken on this state.
+     * 
+     * @param branchNumber an {@code int}, the branch number
+     *        of the chosen decision alternative.
+     * @param identifier a {@link String}, the identifier
+     *        of the chosen decision alternative.
+     * @param shouldRefine a {@code boolean}, whether the
+     *        state was refined on the chosen alternative.
+     * @param branchingDecision a {@code boolean}, whether
+     *        the decision was a branching one.
+     * @param createdBranch a {@code boolean}, whether the
+     *        decision created a branch in the symbolic 
+     *        execution tree.
+     * @throws FrozenStateException if the state is frozen. 
+     * @see DecisionVector#add(int, String, boolean, boolean, boolean)
+     */
+    public void addDecision(int branchNumber, String identifier, boolean shouldRefine, boolean branchingDecision, boolean createdBranch) 
+    throws FrozenStateException {
+    	if (this.frozen) {
+    		throw new FrozenStateException();
+    	}
+        this.decisions = this.decisions.add(branchNumber, identifier, shouldRefine, branchingDecision, createdBranch);
+    }
+
     /**
      * Gets the state's count.
      * 
@@ -3865,6 +4007,54 @@ public final class State implements Cloneable {
     public void gc() throws FrozenStateException {
         final Set<Long> doNotDispose = new ReachableObjectsCollector().reachable(this, true);
         this.heap.disposeExcept(doNotDispose);
+        this.heap.startYoungGeneration();
+    }
+    
+    /**
+     * Collects and disposes the unreachable heap objects
+     * that were allocated after the last collection, and
+     * promotes the surviving ones. The objects referred 
+     * by the path condition are never disposed. The cost of 
+     * the collection is proportional to the number of 
+     * young objects, unless all the heap was accessed
+     * (see {@link #getHeap()}) since the last collection,
+     * in which case a full collection is performed. 
+     * 
+     * @throws FrozenStateException if the state is frozen.
+     */
+    public void gcYoung() throws FrozenStateException {
+    	if (this.frozen) {
+    		throw new FrozenStateException();
+    	}
+        final Set<Long> remembered = this.heap.rememberedPositions();
+        if (remembered == null) {
+            gc();
+        } else {
+            final Set<Long> doNotDispose = new ReachableObjectsCollector().reachableYoung(this, remembered);
+            this.heap.disposeYoungExcept(doNotDispose);
+            this.heap.startYoungGeneration();
+        }
+    }
+    
+    /**
+     * Returns the number of heap objects allocated 
+     * since the last collection.
+     * 
+     * @return a nonnegative {@code int}.
+     */
+    public int getHeapYoungAllocations() {
+        return this.heap.getYoungAllocations();
+    }
+    
+    /**
+     * Getter for garbage collection.
+     * 
+     * @return a {@link Set}{@code <}{@link Long}{@code >}, 
+     *         the heap positions of the objects allocated 
+     *         since the last collection.
+     */
+    Set<Long> youngHeapPositions() {
+        return this.heap.youngPositions();
     }
     
     /**
@@ -3920,6 +4110,8 @@ public final class State implements Cloneable {
     }
     
     public State lazyClone() {
+        final long start = Metrics.start();
+        final long allocatedBefore = Metrics.allocatedBytes();
     	final State o = deepCopyHeapAndStaticAreaExcluded();
     	
         //heap
@@ -3928,6 +4120,7 @@ public final class State implements Cloneable {
         //staticMethodArea
         o.staticMethodArea = o.staticMethodArea.lazyClone();
 
+        recordClone(LAZY_CLONE_COUNT, LAZY_CLONE_BYTES, LAZY_CLONE_TIME, start, allocatedBefore);
         return o;
     }
     
@@ -3942,8 +4135,8 @@ public final class State implements Cloneable {
                 tmp += "Return:" + this.val.toString() + ", ";
         } else {
             try {
-                tmp += "CurrentMethod:" + this.stack.currentFrame().getMethodSignature() + ", ";
-                tmp += "ProgramCounter:" + this.stack.currentFrame().getProgramCounter() + ", ";
+                tmp += "CurrentMethod:" + this.stack.peekCurrentFrame().getMethodSignature() + ", ";
+                tmp += "ProgramCounter:" + this.stack.peekCurrentFrame().getProgramCounter() + ", ";
             } catch (ThreadStackEmptyException e) {
                 //does nothing
             }
@@ -3957,6 +4150,8 @@ public final class State implements Cloneable {
 
     @Override
     public State clone() {
+        final long start = Metrics.start();
+        final long allocatedBefore = Metrics.allocatedBytes();
         final State o = deepCopyHeapAndStaticAreaExcluded();
 
         //heap
@@ -3965,6 +4160,33 @@ public final class State implements Cloneable {
         //staticMethodArea
         o.staticMethodArea = o.staticMethodArea.clone();
 
+        recordClone(CLONE_COUNT, CLONE_BYTES, CLONE_TIME, start, allocatedBefore);
         return o;
     }
+    
+    /**
+     * Records the metrics of a clone operation, 
+     * if metrics are enabled.
+     * 
+     * @param count the {@link Counter} of the clone operations.
+     * @param bytes the {@link Counter} of the bytes allocated 
+     *        by the clone operations.
+     * @param time the {@link Histogram} of the latency of 
+     *        the clone operations.
+     * @param start a {@code long}, the start time of the clone
+     *        operation as returned by {@link Metrics#start()}.
+     * @param allocatedBefore a {@code long}, the bytes allocated
+     *        by the current thread before the clone operation
+     *        as returned by {@link Metrics#allocatedBytes()}.
+     */
+    private static void recordClone(Counter count, Counter bytes, Histogram time, long start, long allocatedBefore) {
+        if (Metrics.isEnabled()) {
+            count.increment();
+            final long allocatedAfter = Metrics.allocatedBytes();
+            if (allocatedBefore >= 0 && allocatedAfter >= allocatedBefore) {
+                bytes.add(allocatedAfter - allocatedBefore);
+            }
+            time.stop(start);
+        }
+    }
 }
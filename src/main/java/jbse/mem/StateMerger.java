@@ -0,0 +1,432 @@
+package jbse.mem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import jbse.bc.ClassFile;
+import jbse.bc.Signature;
+import jbse.common.exc.InvalidInputException;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.mem.State.Phase;
+import jbse.mem.exc.ContradictionException;
+import jbse.mem.exc.FrozenStateException;
+import jbse.mem.exc.InvalidNumberOfOperandsException;
+import jbse.mem.exc.InvalidSlotException;
+import jbse.val.Calculator;
+import jbse.val.Primitive;
+import jbse.val.ReferenceConcrete;
+import jbse.val.Symbolic;
+import jbse.val.Value;
+import jbse.val.exc.InvalidOperandException;
+import jbse.val.exc.InvalidTypeException;
+
+/**
+ * Merges two {@link State}s that reached the same program point
+ * along different paths. Two states can be merged when they have the
+ * same thread stack shape, the same heap and static method area shape,
+ * their path conditions differ only by numeric clauses after a
+ * common prefix, and they differ only by a small number of primitive values
+ * (local variables, operands and instance fields). The merged state has
+ * the common prefix of the path conditions followed by a single clause
+ * <em>(guard<sub>1</sub> &amp;&amp; m<sub>1</sub> == a<sub>1</sub> &amp;&amp; ...)
+ * || (guard<sub>2</sub> &amp;&amp; m<sub>1</sub> == b<sub>1</sub> &amp;&amp; ...)</em>,
+ * where each fresh value <em>m<sub>i</sub></em> replaces the pair of differing
+ * values <em>a<sub>i</sub></em>, <em>b<sub>i</sub></em>, i.e., it is
+ * equivalent to <em>ite(guard<sub>1</sub>, a<sub>i</sub>, b<sub>i</sub>)</em>.
+ */
+public final class StateMerger {
+    private static final String MERGE_FUNCTION_CLASS = "jbse/meta/Merge";
+    private static final String MERGE_FUNCTION_NAME = "merge";
+
+    private final Calculator calc;
+    private final int maxMergedValues;
+    private int mergeCounter = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param maxMergedValues an {@code int}, the maximum number of
+     *        differing primitive values that two states can have to
+     *        be merged. This is the cost heuristic: The more values
+     *        are merged, the harder the path condition gets for the
+     *        decision procedure.
+     */
+    public StateMerger(Calculator calc, int maxMergedValues) {
+        this.calc = calc;
+        this.maxMergedValues = maxMergedValues;
+    }
+
+    /**
+     * The location of a primitive value that differs
+     * in the two merged states.
+     */
+    private static final class Difference {
+        final int frame; //-1 for a heap field
+        final int slot; //-1 for an operand or a heap field
+        final int operand; //-1 for a local variable or a heap field
+        final long heapPosition;
+        final Signature field;
+        final Primitive first;
+        final Primitive second;
+
+        Difference(int frame, int slot, int operand, long heapPosition, Signature field, Primitive first, Primitive second) {
+            this.frame = frame;
+            this.slot = slot;
+            this.operand = operand;
+            this.heapPosition = heapPosition;
+            this.field = field;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * Tries to merge two states.
+     *
+     * @param target a {@link State}. If the merge succeeds
+     *        it will be modified to represent both {@code target}
+     *        and {@code other}, otherwise it will not be modified.
+     * @param other a {@link State}. It will not be modified.
+     * @return {@code true} iff the states were merged.
+     * @throws FrozenStateException if {@code target} or {@code other}
+     *         is frozen.
+     */
+    public boolean merge(State target, State other) throws FrozenStateException {
+        if (target == other || target.phase() != Phase.POST_INITIAL || other.phase() != Phase.POST_INITIAL ||
+            target.isStuck() || other.isStuck() || target.getStackSize() != other.getStackSize()) {
+            return false;
+        }
+
+        //the path conditions must differ only by numeric clauses
+        final List<Clause> pcTarget = target.getPathCondition();
+        final List<Clause> pcOther = other.getPathCondition();
+        int prefixLength = 0;
+        while (prefixLength < pcTarget.size() && prefixLength < pcOther.size() &&
+               pcTarget.get(prefixLength).equals(pcOther.get(prefixLength))) {
+            ++prefixLength;
+        }
+        if (prefixLength == pcTarget.size() || prefixLength == pcOther.size() ||
+            !onlyClauseAssume(pcTarget, prefixLength) || !onlyClauseAssume(pcOther, prefixLength)) {
+            return false;
+        }
+
+        //compares the stacks, heaps and static method areas
+        final ArrayList<Difference> differences = new ArrayList<>();
+        if (!compareStacks(target, other, differences) ||
+            !compareHeaps(target, other, differences) ||
+            !compareStaticMethodAreas(target, other)) {
+            return false;
+        }
+
+        //builds the merged values and the merged clause
+        try {
+            Primitive guardTarget = conjunction(pcTarget, prefixLength);
+            Primitive guardOther = conjunction(pcOther, prefixLength);
+            final ArrayList<Primitive> mergedValues = new ArrayList<>();
+            for (Difference d : differences) {
+                final Primitive m = this.calc.applyFunctionPrimitiveAndPop(d.first.getType(), target.getHistoryPoint(),
+                                                                           MERGE_FUNCTION_CLASS + ":(I)" + d.first.getType() + ":" + MERGE_FUNCTION_NAME + d.first.getType(),
+                                                                           this.calc.valInt(this.mergeCounter++));
+                mergedValues.add(m);
+                final Primitive eqTarget = this.calc.push(m).eq(d.first).pop();
+                final Primitive eqOther = this.calc.push(m).eq(d.second).pop();
+                guardTarget = this.calc.push(guardTarget).and(eqTarget).pop();
+                guardOther = this.calc.push(guardOther).and(eqOther).pop();
+            }
+            final Primitive mergedClause = this.calc.push(guardTarget).or(guardOther).pop();
+
+            //modifies target
+            target.mergePathCondition(prefixLength, mergedClause);
+            target.mergeSymbolFactory(other);
+            final List<Frame> frames = target.getStackForUpdate();
+            for (int i = 0; i < differences.size(); ++i) {
+                final Difference d = differences.get(i);
+                final Primitive m = mergedValues.get(i);
+                if (d.frame < 0) {
+                    target.getObject(new ReferenceConcrete(d.heapPosition)).setFieldValue(d.field, m);
+                } else if (d.operand < 0) {
+                    final Frame f = frames.get(d.frame);
+                    f.setLocalVariableValue(d.slot, f.getProgramCounter(), m);
+                } else {
+                    final Frame f = frames.get(d.frame);
+                    final Value[] operands = f.operands(f.operands().size());
+                    operands[d.operand] = m;
+                    f.clear();
+                    for (Value v : operands) {
+                        f.push(v);
+                    }
+                }
+            }
+        } catch (InvalidInputException | InvalidTypeException | InvalidOperandException |
+                 ContradictionException | InvalidSlotException | InvalidNumberOfOperandsException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+        return true;
+    }
+
+    private static boolean onlyClauseAssume(List<Clause> pathCondition, int from) {
+        for (int i = from; i < pathCondition.size(); ++i) {
+            if (!(pathCondition.get(i) instanceof ClauseAssume)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Primitive conjunction(List<Clause> pathCondition, int from)
+    throws InvalidOperandException, InvalidTypeException {
+        Primitive retVal = ((ClauseAssume) pathCondition.get(from)).getCondition();
+        for (int i = from + 1; i < pathCondition.size(); ++i) {
+            retVal = this.calc.push(retVal).and(((ClauseAssume) pathCondition.get(i)).getCondition()).pop();
+        }
+        return retVal;
+    }
+
+    private boolean compareStacks(State target, State other, List<Difference> differences)
+    throws FrozenStateException {
+        final List<Frame> framesTarget = target.getStack();
+        final List<Frame> framesOther = other.getStack();
+        for (int i = 0; i < framesTarget.size(); ++i) {
+            final Frame fTarget = framesTarget.get(i);
+            final Frame fOther = framesOther.get(i);
+            if (fTarget.getClass() != fOther.getClass() ||
+                fTarget.getProgramCounter() != fOther.getProgramCounter() ||
+                fTarget.getReturnProgramCounter() != fOther.getReturnProgramCounter() ||
+                !fTarget.getMethodSignature().equals(fOther.getMethodSignature())) {
+                return false;
+            }
+
+            //local variables
+            final SortedMap<Integer, Variable> localsTarget = fTarget.localVariables();
+            final SortedMap<Integer, Variable> localsOther = fOther.localVariables();
+            if (!localsTarget.keySet().equals(localsOther.keySet())) {
+                return false;
+            }
+            for (Map.Entry<Integer, Variable> e : localsTarget.entrySet()) {
+                final Value vTarget = e.getValue().getValue();
+                final Value vOther = localsOther.get(e.getKey()).getValue();
+                if (!compareValues(vTarget, vOther, differences, i, e.getKey(), -1, -1, null)) {
+                    return false;
+                }
+            }
+
+            //operands
+            final int numOperands = fTarget.operands().size();
+            if (numOperands != fOther.operands().size()) {
+                return false;
+            }
+            try {
+                final Value[] operandsTarget = fTarget.operands(numOperands);
+                final Value[] operandsOther = fOther.operands(numOperands);
+                for (int j = 0; j < numOperands; ++j) {
+                    if (!compareValues(operandsTarget[j], operandsOther[j], differences, i, -1, j, -1, null)) {
+                        return false;
+                    }
+                }
+            } catch (InvalidNumberOfOperandsException e) {
+                //this should never happen
+                throw new UnexpectedInternalException(e);
+            }
+        }
+        return true;
+    }
+
+    private boolean compareHeaps(State target, State other, List<Difference> differences) {
+        //only the positions where the heaps may differ are 
+        //compared; the heaps are not exposed, so the young 
+        //generation collections are still possible
+        for (long pos : target.heapPositionsDivergingFrom(other)) {
+            final Objekt oTarget = target.peekObject(pos);
+            final Objekt oOther = other.peekObject(pos);
+            if (oTarget == oOther) {
+                continue;
+            }
+            if (oTarget == null || oOther == null) {
+                return false;
+            }
+            if (!oTarget.getType().equals(oOther.getType()) ||
+                oTarget.isSymbolic() != oOther.isSymbolic() ||
+                (oTarget.isSymbolic() && !sameValue(oTarget.getOrigin(), oOther.getOrigin())) ||
+                !sameValue(oTarget.getIdentityHashCode(), oOther.getIdentityHashCode())) {
+                return false;
+            }
+            if (oTarget instanceof HeapObjekt && oOther instanceof HeapObjekt &&
+                ((HeapObjekt) oTarget).isInitial() != ((HeapObjekt) oOther).isInitial()) {
+                return false;
+            }
+            if (oTarget instanceof Array || oOther instanceof Array) {
+                //arrays are not merged
+                if (!(oTarget instanceof Array && oOther instanceof Array) || 
+                    !sameArrays((Array) oTarget, (Array) oOther)) {
+                    return false;
+                }
+                continue;
+            }
+            if (!sameNonFieldContent(oTarget, oOther)) {
+                return false;
+            }
+            final Map<Signature, Variable> fieldsTarget = oTarget.fields();
+            final Map<Signature, Variable> fieldsOther = oOther.fields();
+            if (!fieldsTarget.keySet().equals(fieldsOther.keySet())) {
+                return false;
+            }
+            for (Map.Entry<Signature, Variable> f : fieldsTarget.entrySet()) {
+                final Value vTarget = f.getValue().getValue();
+                final Value vOther = fieldsOther.get(f.getKey()).getValue();
+                if (!compareValues(vTarget, vOther, differences, -1, -1, -1, pos, f.getKey())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the entries of two arrays structurally.
+     * 
+     * @param aTarget an {@link Array}.
+     * @param aOther an {@link Array}.
+     * @return {@code true} iff the two arrays have same length, 
+     *         index, and entries with same access conditions 
+     *         and values.
+     */
+    private static boolean sameArrays(Array aTarget, Array aOther) {
+        if (aTarget.isSimple() != aOther.isSimple() ||
+            !sameValue(aTarget.getLength(), aOther.getLength()) ||
+            !sameValue(aTarget.getIndex(), aOther.getIndex())) {
+            return false;
+        }
+        final List<Array.AccessOutcomeIn> entriesTarget = aTarget.values();
+        final List<Array.AccessOutcomeIn> entriesOther = aOther.values();
+        if (entriesTarget.size() != entriesOther.size()) {
+            return false;
+        }
+        for (int i = 0; i < entriesTarget.size(); ++i) {
+            final Array.AccessOutcomeIn eTarget = entriesTarget.get(i);
+            final Array.AccessOutcomeIn eOther = entriesOther.get(i);
+            if (!sameValue(eTarget.getAccessCondition(), eOther.getAccessCondition())) {
+                return false;
+            }
+            if (eTarget instanceof Array.AccessOutcomeInValue && eOther instanceof Array.AccessOutcomeInValue) {
+                if (!sameValue(((Array.AccessOutcomeInValue) eTarget).getValue(), ((Array.AccessOutcomeInValue) eOther).getValue())) {
+                    return false;
+                }
+            } else if (eTarget instanceof Array.AccessOutcomeInInitialArray && eOther instanceof Array.AccessOutcomeInInitialArray) {
+                final Array.AccessOutcomeInInitialArray iTarget = (Array.AccessOutcomeInInitialArray) eTarget;
+                final Array.AccessOutcomeInInitialArray iOther = (Array.AccessOutcomeInInitialArray) eOther;
+                if (!sameValue(iTarget.getInitialArray(), iOther.getInitialArray()) ||
+                    !sameValue(iTarget.getOffset(), iOther.getOffset())) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the content of two instances that is 
+     * not stored in their fields.
+     * 
+     * @param oTarget an {@link Objekt}.
+     * @param oOther an {@link Objekt}.
+     * @return {@code true} iff the two instances have 
+     *         the same kind and the same content outside
+     *         their fields.
+     */
+    private static boolean sameNonFieldContent(Objekt oTarget, Objekt oOther) {
+        if ((oTarget instanceof Instance_JAVA_CLASS) != (oOther instanceof Instance_JAVA_CLASS) ||
+            (oTarget instanceof Instance_JAVA_CLASSLOADER) != (oOther instanceof Instance_JAVA_CLASSLOADER) ||
+            (oTarget instanceof Instance_JAVA_THREAD) != (oOther instanceof Instance_JAVA_THREAD) ||
+            (oTarget instanceof Instance_METALEVELBOX) != (oOther instanceof Instance_METALEVELBOX)) {
+            return false;
+        }
+        if (oTarget instanceof Instance_JAVA_CLASS) {
+            final Instance_JAVA_CLASS cTarget = (Instance_JAVA_CLASS) oTarget;
+            final Instance_JAVA_CLASS cOther = (Instance_JAVA_CLASS) oOther;
+            return (cTarget.representedClass().equals(cOther.representedClass()) && 
+                    sameValue(cTarget.getSigners(), cOther.getSigners()));
+        }
+        if (oTarget instanceof Instance_JAVA_CLASSLOADER) {
+            return ((Instance_JAVA_CLASSLOADER) oTarget).classLoaderIdentifier() == ((Instance_JAVA_CLASSLOADER) oOther).classLoaderIdentifier();
+        }
+        if (oTarget instanceof Instance_JAVA_THREAD) {
+            return ((Instance_JAVA_THREAD) oTarget).isInterrupted() == ((Instance_JAVA_THREAD) oOther).isInterrupted();
+        }
+        if (oTarget instanceof Instance_METALEVELBOX) {
+            //the boxed objects are not comparable
+            return ((Instance_METALEVELBOX) oTarget).get() == ((Instance_METALEVELBOX) oOther).get();
+        }
+        return true;
+    }
+
+    private static boolean compareStaticMethodAreas(State target, State other)
+    throws FrozenStateException {
+        final Map<ClassFile, Klass> areaTarget = target.getStaticMethodArea();
+        final Map<ClassFile, Klass> areaOther = other.getStaticMethodArea();
+        if (!areaTarget.keySet().equals(areaOther.keySet())) {
+            return false;
+        }
+        for (Map.Entry<ClassFile, Klass> e : areaTarget.entrySet()) {
+            final Klass kTarget = e.getValue();
+            final Klass kOther = areaOther.get(e.getKey());
+            if (kTarget.initializationStarted() != kOther.initializationStarted() ||
+                kTarget.initializationCompleted() != kOther.initializationCompleted()) {
+                return false;
+            }
+            final Map<Signature, Variable> fieldsTarget = kTarget.fields();
+            final Map<Signature, Variable> fieldsOther = kOther.fields();
+            if (!fieldsTarget.keySet().equals(fieldsOther.keySet())) {
+                return false;
+            }
+            for (Map.Entry<Signature, Variable> f : fieldsTarget.entrySet()) {
+                if (!sameValue(f.getValue().getValue(), fieldsOther.get(f.getKey()).getValue())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean compareValues(Value vTarget, Value vOther, List<Difference> differences,
+                                  int frame, int slot, int operand, long heapPosition, Signature field) {
+        if (sameValue(vTarget, vOther)) {
+            return true;
+        }
+        if (vTarget instanceof Primitive && vOther instanceof Primitive &&
+            vTarget.getType() == vOther.getType() && differences.size() < this.maxMergedValues) {
+            differences.add(new Difference(frame, slot, operand, heapPosition, field, (Primitive) vTarget, (Primitive) vOther));
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean equalsOrNull(Object o1, Object o2) {
+        return (o1 == null ? o2 == null : o1.equals(o2));
+    }
+
+    /**
+     * Compares two values with {@code equals} and, if they are
+     * symbolic, by origin, since two symbols created on different
+     * paths may be printed the same.
+     * 
+     * @param v1 a {@link Value} or {@code null}.
+     * @param v2 a {@link Value} or {@code null}.
+     * @return {@code true} iff {@code v1} and {@code v2} are 
+     *         the same value.
+     */
+    private static boolean sameValue(Value v1, Value v2) {
+        if (!equalsOrNull(v1, v2)) {
+            return false;
+        }
+        if (v1 instanceof Symbolic && v2 instanceof Symbolic) {
+            return ((Symbolic) v1).asOriginString().equals(((Symbolic) v2).asOriginString());
+        }
+        return true;
+    }
+}
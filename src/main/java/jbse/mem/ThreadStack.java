@@ -7,7 +7,13 @@ import java.util.List;
 import jbse.mem.exc.ThreadStackEmptyException;
 
 /**
- * Class representing JVM thread stacks.
+ * Class representing JVM thread stacks. Cloning a thread stack
+ * does not clone its frames, that are shared between the clone 
+ * and the original. A shared frame is cloned (copy on write) 
+ * when it is accessed for modification, i.e., when it is
+ * the current frame, or all the frames are accessed by 
+ * {@link #framesForUpdate()}. This makes the cost of cloning a
+ * thread stack independent on the size of the frames.
  */
 class ThreadStack implements Cloneable {
     /** The stack position of the root frame. */
@@ -15,12 +21,20 @@ class ThreadStack implements Cloneable {
 
     /** The actual stack of {@link Frame}s. */
     private ArrayList<Frame> frameStack;
+    
+    /** 
+     * The number of {@link Frame}s, from the bottom of 
+     * {@link #frameStack}, that may be shared with other
+     * thread stacks.
+     */
+    private int numShared;
 
     /**
      * Constructor of stack.
      */
     ThreadStack() {
         this.frameStack = new ArrayList<Frame>();
+        this.numShared = 0;
     }
 
     /**
@@ -46,7 +60,9 @@ class ThreadStack implements Cloneable {
         if (isEmpty()) {
             throw new ThreadStackEmptyException();
         }
-        return this.frameStack.remove(this.frameStack.size() - 1);
+        final Frame retVal = this.frameStack.remove(this.frameStack.size() - 1);
+        this.numShared = Math.min(this.numShared, this.frameStack.size());
+        return retVal;
     }
 
     /**
@@ -63,10 +79,13 @@ class ThreadStack implements Cloneable {
      */
     void clear() {
         this.frameStack.clear();
+        this.numShared = 0;
     }
 
     /**
-     * Returns the current frame.
+     * Returns the current frame for modification. If
+     * the current frame is shared it is replaced by 
+     * a clone.
      * 
      * @return the current {@link Frame}, i.e., the 
      *         {@link Frame} on the top of the stack.
@@ -74,6 +93,27 @@ class ThreadStack implements Cloneable {
      *         is empty.
      */
     Frame currentFrame() throws ThreadStackEmptyException {
+        if (isEmpty()) {
+            throw new ThreadStackEmptyException();
+        }
+        final int top = this.frameStack.size() - 1;
+        if (top < this.numShared) {
+            this.frameStack.set(top, this.frameStack.get(top).clone());
+            this.numShared = top;
+        }
+        return this.frameStack.get(top);
+    }
+
+    /**
+     * Returns the current frame for inspection. 
+     * 
+     * @return the current {@link Frame}, i.e., the 
+     *         {@link Frame} on the top of the stack. 
+     *         It may be shared, so it must not be modified.
+     * @throws ThreadStackEmptyException if the stack
+     *         is empty.
+     */
+    Frame peekCurrentFrame() throws ThreadStackEmptyException {
         if (isEmpty()) {
             throw new ThreadStackEmptyException();
         }
@@ -84,7 +124,8 @@ class ThreadStack implements Cloneable {
      * Returns the root frame.
      * 
      * @return the current {@link Frame}, i.e., the 
-     *         one on the bottom of the stack.
+     *         one on the bottom of the stack. It may 
+     *         be shared, so it must not be modified.
      * @throws ThreadStackEmptyException if the stack
      *         is empty.
      */
@@ -101,11 +142,30 @@ class ThreadStack implements Cloneable {
      * 
      * @return a {@link List}{@code <}{@link Frame}{@code >} 
      *         of the frames in the stack, in their push order.
+     *         The frames may be shared, so they must not be 
+     *         modified.
      */
     List<Frame> frames() {
         return Collections.unmodifiableList(this.frameStack);
     }
 
+    /**
+     * Returns an unmodifiable list of all the frames
+     * in the stack, after replacing the shared ones 
+     * with clones.
+     * 
+     * @return a {@link List}{@code <}{@link Frame}{@code >} 
+     *         of the frames in the stack, in their push order.
+     *         The frames can be modified.
+     */
+    List<Frame> framesForUpdate() {
+        for (int i = 0; i < this.numShared; ++i) {
+            this.frameStack.set(i, this.frameStack.get(i).clone());
+        }
+        this.numShared = 0;
+        return Collections.unmodifiableList(this.frameStack);
+    }
+
     @Override
     public String toString() {
         final StringBuilder buf = new StringBuilder();
@@ -134,11 +194,9 @@ class ThreadStack implements Cloneable {
             throw new InternalError(e);
         }
 
-        final ArrayList<Frame> frameStackClone = new ArrayList<Frame>();
-        for (int i = 0; i < this.frameStack.size(); ++i) {
-            frameStackClone.add(this.frameStack.get(i).clone());
-        }
-        o.frameStack = frameStackClone;
+        //the frames become shared by this and the clone
+        o.frameStack = new ArrayList<Frame>(this.frameStack);
+        this.numShared = o.numShared = this.frameStack.size();
         return o;
     }   
 }
\ No newline at end of file
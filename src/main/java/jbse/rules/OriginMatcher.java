@@ -0,0 +1,153 @@
+package jbse.rules;
+
+import static jbse.rules.Util.ANY;
+import static jbse.rules.Util.makeOriginPatternAbsolute;
+
+import java.util.regex.Pattern;
+
+import jbse.val.PrimitiveSymbolicMemberArrayLength;
+import jbse.val.Symbolic;
+import jbse.val.SymbolicMember;
+import jbse.val.SymbolicMemberArray;
+import jbse.val.SymbolicMemberField;
+
+/**
+ * Matches the origins of symbolic values against an absolute
+ * origin expression. When the expression is a literal origin,
+ * possibly preceded by {@code {R_ANY}}, the matcher walks the
+ * chain of containers of the origin and compares it with the
+ * expression backwards, one field or array index at a time,
+ * without rendering the origin {@link String}s of the containers.
+ * Otherwise it falls back to matching the origin {@link String}
+ * against the regular expression pattern of the expression.
+ */
+final class OriginMatcher {
+	/** Characters that make an origin expression not literal. */
+	private static final String NOT_LITERAL = "{}()*+?|^\\";
+
+	/** The root marker, the only brace-delimited construct allowed in a literal. */
+	private static final String ROOT = "{ROOT}";
+
+	/** Signals that a suffix does not match. */
+	private static final int MISMATCH = -1;
+
+	/** Signals that a suffix matches and the rest is absorbed by {@code {R_ANY}}. */
+	private static final int MATCH_ANY = -2;
+
+	/**
+	 * The literal part of the origin expression, or {@code null}
+	 * if the origin expression is not literal.
+	 */
+	private final String literal;
+
+	/** Whether the literal is preceded by {@code {R_ANY}}. */
+	private final boolean anyPrefix;
+
+	/**
+	 * The pattern of the origin expression, or {@code null}
+	 * if the origin expression is literal.
+	 */
+	private final Pattern pattern;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param originExpAbsolute a {@link String}, an absolute
+	 *        origin expression. It must not be {@code null}.
+	 */
+	OriginMatcher(String originExpAbsolute) {
+		final boolean anyPrefix = originExpAbsolute.startsWith(ANY);
+		final String rest = (anyPrefix ? originExpAbsolute.substring(ANY.length()) : originExpAbsolute);
+		if (isLiteral(rest)) {
+			this.literal = rest;
+			this.anyPrefix = anyPrefix;
+			this.pattern = null;
+		} else {
+			this.literal = null;
+			this.anyPrefix = false;
+			this.pattern = makeOriginPatternAbsolute(originExpAbsolute);
+		}
+	}
+
+	private static boolean isLiteral(String s) {
+		final String withoutRoot = s.replace(ROOT, "");
+		for (int i = 0; i < withoutRoot.length(); ++i) {
+			if (NOT_LITERAL.indexOf(withoutRoot.charAt(i)) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether an origin matches the
+	 * origin expression.
+	 *
+	 * @param origin a {@link Symbolic}.
+	 * @return {@code true} iff the origin
+	 *         {@link String} of {@code origin}
+	 *         matches the origin expression.
+	 */
+	boolean matches(Symbolic origin) {
+		if (this.literal == null) {
+			return this.pattern.matcher(origin.asOriginString()).matches();
+		}
+		if (this.anyPrefix && this.literal.isEmpty()) {
+			return true;
+		}
+		int end = this.literal.length();
+		Symbolic node = origin;
+		while (true) {
+			if (node instanceof SymbolicMemberField) {
+				final SymbolicMemberField field = (SymbolicMemberField) node;
+				end = consume(field.getFieldName(), end);
+				end = consume(":", end);
+				end = consume(field.getFieldClass(), end);
+				end = consume(".", end);
+			} else if (node instanceof SymbolicMemberArray) {
+				final SymbolicMemberArray slot = (SymbolicMemberArray) node;
+				end = consume("]", end);
+				end = consume(slot.getIndex().isSymbolic() ? ((Symbolic) slot.getIndex()).asOriginString() : slot.getIndex().toString(), end);
+				end = consume("[", end);
+			} else if (node instanceof PrimitiveSymbolicMemberArrayLength) {
+				end = consume(".length", end);
+			} else {
+				//a root, or a member whose origin does not
+				//decompose in container plus field or index
+				end = consume(node.asOriginString(), end);
+				return (end == 0 || end == MATCH_ANY);
+			}
+			if (end == MISMATCH) {
+				return false;
+			} else if (end == MATCH_ANY || (end == 0 && this.anyPrefix)) {
+				return true;
+			}
+			node = ((SymbolicMember) node).getContainer();
+		}
+	}
+
+	/**
+	 * Matches a piece of an origin {@link String}
+	 * backwards against the literal.
+	 *
+	 * @param piece a {@link String}, the piece of the origin.
+	 * @param end an {@code int}, the position in the literal
+	 *        where {@code piece} must end, or {@link #MISMATCH},
+	 *        or {@link #MATCH_ANY}.
+	 * @return the position in the literal where {@code piece}
+	 *         starts, or {@link #MISMATCH} if {@code piece} does
+	 *         not match, or {@link #MATCH_ANY} if the literal
+	 *         starts inside {@code piece} and the rest of the
+	 *         origin is absorbed by {@code {R_ANY}}.
+	 */
+	private int consume(String piece, int end) {
+		if (end < 0) {
+			return end;
+		}
+		final int length = piece.length();
+		if (end >= length) {
+			return (this.literal.regionMatches(end - length, piece, 0, length) ? end - length : MISMATCH);
+		}
+		return (this.anyPrefix && this.literal.regionMatches(0, piece, length - end, end) ? MATCH_ANY : MISMATCH);
+	}
+}
@@ -3,7 +3,6 @@ package jbse.rules;
 import static jbse.rules.Util.ANY;
 import static jbse.rules.Util.makeOriginPatternAbsolute;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import jbse.val.ReferenceSymbolic;
@@ -18,6 +17,7 @@ import jbse.val.ReferenceSymbolic;
  */
 public abstract class Rule {
 	protected final Pattern originPattern;
+	private final OriginMatcher originMatcher;
 	
 	/**
 	 * Constructor.
@@ -29,6 +29,7 @@ public abstract class Rule {
 	 */
 	public Rule(String originExp) { 
 		this.originPattern = makeOriginPatternAbsolute(originExp == null ? ANY : originExp);
+		this.originMatcher = new OriginMatcher(originExp == null ? ANY : originExp);
 	}
 	
 	/**
@@ -39,10 +40,7 @@ public abstract class Rule {
 	 *         matches this rule.
 	 */
 	public final boolean matches(ReferenceSymbolic ref) {
-		//checks if the origin of ref origin matches the pattern
-		final String originString = ref.asOriginString();
-		final Matcher m = this.originPattern.matcher(originString);
-		final boolean retVal = m.matches();
-		return retVal;
+		//checks if the origin of ref matches the origin expression
+		return this.originMatcher.matches(ref);
 	}
 }
@@ -1,9 +1,6 @@
 package jbse.rules;
 
-import static jbse.rules.Util.makeOriginPatternRelative;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import static jbse.rules.Util.makeOriginMatcherRelative;
 
 import jbse.bc.Signature;
 import jbse.mem.Objekt;
@@ -55,13 +52,10 @@ public abstract class TriggerRule extends Rule {
 			return false;
 		}
 		
-		//makes the pattern
-		final Pattern p = makeOriginPatternRelative(this.triggerMethodParameter, originTarget, this.originPattern);
+		//makes the matcher
+		final OriginMatcher m = makeOriginMatcherRelative(this.triggerMethodParameter, originTarget, this.originPattern);
 
-		//checks if the origin of o matches the pattern
-		final String originString = originObject.asOriginString();
-		final Matcher m = p.matcher(originString);
-		final boolean retVal = m.matches();
-		return retVal;
+		//checks if the origin of o matches the origin expression
+		return m.matches(originObject);
 	}
 }
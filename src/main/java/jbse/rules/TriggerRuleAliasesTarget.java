@@ -1,9 +1,6 @@
 package jbse.rules;
 
-import static jbse.rules.Util.makeOriginPatternRelative;
-
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import static jbse.rules.Util.makeOriginMatcherRelative;
 
 import jbse.bc.Signature;
 import jbse.mem.Objekt;
@@ -42,14 +39,11 @@ public final class TriggerRuleAliasesTarget extends TriggerRuleAliases {
 
 	@Override
 	public boolean satisfies(ReferenceSymbolic ref, Objekt o) {
-		//makes the pattern
-		final Pattern p = makeOriginPatternRelative(this.targetExp, ref, this.originPattern);
+		//makes the matcher
+		final OriginMatcher m = makeOriginMatcherRelative(this.targetExp, ref, this.originPattern);
 		
-		//checks if the origin of o matches the pattern
-		final String originString = o.getOrigin().asOriginString();
-		final Matcher m = p.matcher(originString);
-		final boolean retVal = m.matches();
-		return retVal;
+		//checks if the origin of o matches the origin expression
+		return m.matches(o.getOrigin());
 	}
 	
 	@Override
@@ -32,7 +32,7 @@ public final class Util {
 	}
 	
 	/**
-	 * Makes a {@link Pattern} for a relative origin expression in 
+	 * Makes an {@link OriginMatcher} for a relative origin expression in 
 	 * a rule.
 	 * 
 	 * @param originExpRelative a {@link String}, the relative origin 
@@ -44,12 +44,12 @@ public final class Util {
 	 *        the {$R_ANY} in {@code originExpRelative}; {@code originExpRelative}
 	 *        must match it, and the first capture group will be used as
 	 *        {$R_ANY}.
-	 * @return a {@link Pattern} for {@code originExpRelative}.
+	 * @return an {@link OriginMatcher} for {@code originExpRelative}.
 	 */
-	static Pattern makeOriginPatternRelative(String originExpRelative, ReferenceSymbolic originTarget, Pattern originPattern) {
+	static OriginMatcher makeOriginMatcherRelative(String originExpRelative, ReferenceSymbolic originTarget, Pattern originPattern) {
 		final String valueForAny = findAny(originPattern, originTarget);
 		final String specializedOriginExpRelative = specializeAny(originExpRelative, valueForAny);
-		return makeOriginPatternAbsolute(translateOriginExpressionRelativeToAbsolute(specializedOriginExpRelative, originTarget));
+		return new OriginMatcher(translateOriginExpressionRelativeToAbsolute(specializedOriginExpRelative, originTarget));
 	}
 	
 	/* TODO this is really ugly, but it works with the current 
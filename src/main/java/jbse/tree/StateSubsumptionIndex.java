@@ -0,0 +1,495 @@
+package jbse.tree;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jbse.bc.ClassFile;
+import jbse.bc.Signature;
+import jbse.common.exc.InvalidInputException;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.DecisionProcedure;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Array;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.mem.ClauseAssumeAliases;
+import jbse.mem.ClauseAssumeExpands;
+import jbse.mem.ClauseAssumeNull;
+import jbse.mem.Frame;
+import jbse.mem.Klass;
+import jbse.mem.Objekt;
+import jbse.mem.State;
+import jbse.mem.Variable;
+import jbse.mem.exc.FrozenStateException;
+import jbse.val.Calculator;
+import jbse.val.Expression;
+import jbse.val.Primitive;
+import jbse.val.Reference;
+import jbse.val.ReferenceConcrete;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
+import jbse.val.Symbolic;
+import jbse.val.Value;
+import jbse.val.exc.InvalidOperandException;
+import jbse.val.exc.InvalidTypeException;
+
+/**
+ * An index of the states added to a {@link StateTree}, that
+ * detects whether a new state is subsumed by a state already
+ * in the index. A state is subsumed by another one when both
+ * are at the same program point with the same stack shape,
+ * their heaps (including the frames and the static fields)
+ * are isomorphic modulo the heap positions of the objects,
+ * and the path condition of the first implies the path
+ * condition of the second. All the paths from a subsumed
+ * state are thus also paths from the subsuming one. A state
+ * is not subsumed by a state with greater depth or count, 
+ * because the depth and count scopes might cut the paths from 
+ * the latter before the paths from the former. The index
+ * stores only an encoding of the states, not the states, and
+ * when it exceeds its maximum size it forgets the encodings 
+ * that were added first.
+ */
+public final class StateSubsumptionIndex {
+    /**
+     * Orders the fields of an object independently on
+     * the order of its field map.
+     */
+    private static final Comparator<Map.Entry<Signature, Variable>> FIELD_ORDER =
+        Comparator.comparing((Map.Entry<Signature, Variable> e) -> e.getKey().toString());
+
+    /**
+     * An entry of the index.
+     */
+    private static final class Entry {
+        /** The encodings of the clauses of the path condition. */
+        final HashSet<String> pathCondition;
+
+        /**
+         * The conditions of the {@link ClauseAssume}s in
+         * the path condition, indexed by their encoding.
+         */
+        final HashMap<String, Primitive> conditions;
+
+        /** The depth of the state. */
+        final int depth;
+
+        /** The count of the state. */
+        final int count;
+
+        /** The program point and stack shape of the state. */
+        final String key;
+
+        /** The heap digest of the state. */
+        final String digest;
+
+        Entry(HashSet<String> pathCondition, HashMap<String, Primitive> conditions, int depth, int count, String key, String digest) {
+            this.pathCondition = pathCondition;
+            this.conditions = conditions;
+            this.depth = depth;
+            this.count = count;
+            this.key = key;
+            this.digest = digest;
+        }
+    }
+
+    /** The default maximum number of entries in the index. */
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    /** The {@link Calculator}. */
+    private final Calculator calc;
+
+    /**
+     * The {@link DecisionProcedure} used to check the
+     * implications between path conditions.
+     */
+    private final DecisionProcedure decisionProcedure;
+
+    /**
+     * The index, mapping program point and stack shape
+     * to heap digest to the entries with that program
+     * point, stack shape and heap.
+     */
+    private final HashMap<String, HashMap<String, ArrayList<Entry>>> index = new HashMap<>();
+
+    /** The entries in the index, in insertion order. */
+    private final ArrayDeque<Entry> insertionOrder = new ArrayDeque<>();
+
+    /** The maximum number of entries in the index. */
+    private final int maxEntries;
+
+    /**
+     * Constructor. The index has at most 
+     * {@link #DEFAULT_MAX_ENTRIES} entries.
+     *
+     * @param calc a {@link Calculator}.
+     * @param decisionProcedure a {@link DecisionProcedure}. It
+     *        must be the decision procedure of the symbolic
+     *        execution, because the implications are checked
+     *        under its current assumptions.
+     */
+    public StateSubsumptionIndex(Calculator calc, DecisionProcedure decisionProcedure) {
+        this.calc = calc;
+        this.decisionProcedure = decisionProcedure;
+        this.maxEntries = DEFAULT_MAX_ENTRIES;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param calc a {@link Calculator}.
+     * @param decisionProcedure a {@link DecisionProcedure}. It
+     *        must be the decision procedure of the symbolic
+     *        execution, because the implications are checked
+     *        under its current assumptions.
+     * @param maxEntries a positive {@code int}, the maximum 
+     *        number of entries in the index. 
+     * @throws InvalidInputException if {@code maxEntries <= 0}.
+     */
+    public StateSubsumptionIndex(Calculator calc, DecisionProcedure decisionProcedure, int maxEntries) 
+    throws InvalidInputException {
+        if (maxEntries <= 0) {
+            throw new InvalidInputException("Attempted to create a " + StateSubsumptionIndex.class.getName() + " with nonpositive maximum number of entries.");
+        }
+        this.calc = calc;
+        this.decisionProcedure = decisionProcedure;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     *
+     * @return an {@code int}.
+     */
+    public int size() {
+        return this.insertionOrder.size();
+    }
+
+    /**
+     * Checks whether a state is subsumed by a state in the index,
+     * and if it is not adds it to the index. The state must be
+     * a successor of the current state of the symbolic execution,
+     * i.e., the assumptions of the decision procedure must be its
+     * path condition except for its last pushed clauses.
+     *
+     * @param s a {@link State}.
+     * @return {@code true} iff {@code s} is subsumed by a state
+     *         in the index.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    public boolean subsumedElseAdd(State s) throws FrozenStateException {
+        final Encoder enc = new Encoder(s);
+        final String key = enc.key();
+        final String heapDigest = enc.heap();
+        final HashMap<String, Primitive> conditions = new HashMap<>();
+        final HashSet<String> pathCondition = enc.pathCondition(conditions);
+        final String digest = digest(heapDigest + enc.heapPathCondition());
+
+        final HashMap<String, ArrayList<Entry>> byHeap = this.index.computeIfAbsent(key, k -> new HashMap<>());
+        final ArrayList<Entry> entries = byHeap.computeIfAbsent(digest, k -> new ArrayList<>());
+        for (Entry e : entries) {
+            if (e.depth <= s.getDepth() && e.count <= s.getCount() && implies(s, pathCondition, e)) {
+                return true;
+            }
+        }
+        final Entry added = new Entry(pathCondition, conditions, s.getDepth(), s.getCount(), key, digest);
+        entries.add(added);
+        this.insertionOrder.addLast(added);
+        if (this.insertionOrder.size() > this.maxEntries) {
+            evict(this.insertionOrder.removeFirst());
+        }
+        return false;
+    }
+
+    /**
+     * Removes an entry from the index.
+     *
+     * @param e the {@link Entry} to remove.
+     */
+    private void evict(Entry e) {
+        final HashMap<String, ArrayList<Entry>> byHeap = this.index.get(e.key);
+        final ArrayList<Entry> entries = byHeap.get(e.digest);
+        entries.remove(0); //the oldest entry of a list is its first one
+        if (entries.isEmpty()) {
+            byHeap.remove(e.digest);
+            if (byHeap.isEmpty()) {
+                this.index.remove(e.key);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the path condition of a state implies
+     * the path condition of an entry.
+     *
+     * @param s a {@link State}.
+     * @param pathCondition the encoding of the path condition of {@code s}.
+     * @param e an {@link Entry}.
+     * @return {@code true} if the path condition of {@code s} implies
+     *         the path condition of {@code e}; {@code false} if it does
+     *         not, or if the implication could not be checked.
+     */
+    private boolean implies(State s, HashSet<String> pathCondition, Entry e) {
+        //the clauses of e not in the path condition of s
+        final ArrayList<Primitive> missing = new ArrayList<>();
+        for (String c : e.pathCondition) {
+            if (!pathCondition.contains(c)) {
+                final Primitive condition = e.conditions.get(c);
+                if (condition == null) {
+                    return false; //only numeric clauses are checked
+                }
+                missing.add(condition);
+            }
+        }
+        if (missing.isEmpty()) {
+            return true;
+        }
+
+        //checks under the current assumptions, that are the path
+        //condition of s without its last pushed clauses, that
+        //these clauses imply the missing ones
+        try {
+            Primitive query = this.calc.valBoolean(true);
+            for (Clause c : s.getLastPathConditionPushedClauses()) {
+                if (!(c instanceof ClauseAssume)) {
+                    return false;
+                }
+                query = this.calc.push(query).and(((ClauseAssume) c).getCondition()).pop();
+            }
+            Primitive missingAll = this.calc.valBoolean(true);
+            for (Primitive p : missing) {
+                missingAll = this.calc.push(missingAll).and(p).pop();
+            }
+            query = this.calc.push(query).and(this.calc.push(missingAll).not().pop()).pop();
+            if (query instanceof Simplex) {
+                return !((Boolean) ((Simplex) query).getActualValue()).booleanValue();
+            }
+            return (query instanceof Expression && !this.decisionProcedure.isSat((Expression) query));
+        } catch (InvalidOperandException | InvalidTypeException | DecisionException | InvalidInputException exc) {
+            return false;
+        }
+    }
+
+    private static String digest(String s) {
+        try {
+            final MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return new BigInteger(1, md.digest(s.getBytes(StandardCharsets.UTF_8))).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+    }
+
+    /**
+     * Encodes a state, renaming its objects by
+     * their order of visit.
+     */
+    private static final class Encoder {
+        private final State s;
+        private final LinkedHashMap<Long, Integer> ids = new LinkedHashMap<>();
+        private final ArrayDeque<Long> toVisit = new ArrayDeque<>();
+        private final StringBuilder heap = new StringBuilder();
+
+        Encoder(State s) {
+            this.s = s;
+        }
+
+        /**
+         * Returns the index key of the state.
+         *
+         * @return a {@link String} encoding the
+         *         program point and the stack shape.
+         * @throws FrozenStateException if the state is frozen.
+         */
+        String key() throws FrozenStateException {
+            final StringBuilder sb = new StringBuilder();
+            for (Frame f : this.s.getStack()) {
+                sb.append(f.getMethodSignature()).append('@').append(f.getProgramCounter())
+                  .append('/').append(f.localVariables().size()).append('/').append(f.operands().size()).append(';');
+            }
+            if (this.s.isStuck()) {
+                sb.append("stuck");
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Encodes the frames, the static fields and the objects
+         * reachable from them.
+         *
+         * @return a {@link String}.
+         * @throws FrozenStateException if the state is frozen.
+         */
+        String heap() throws FrozenStateException {
+            final StringBuilder sb = new StringBuilder();
+
+            //the stuck return value and exception
+            if (this.s.isStuck()) {
+                sb.append("R").append(value(this.s.getStuckReturn())).append("E").append(value(this.s.getStuckException()));
+            }
+
+            //the frames
+            for (Frame f : this.s.getStack()) {
+                sb.append("F");
+                for (Map.Entry<Integer, Variable> e : f.localVariables().entrySet()) {
+                    sb.append(e.getKey()).append('=').append(value(e.getValue().getValue())).append(',');
+                }
+                sb.append('|');
+                for (Value v : f.operands()) {
+                    sb.append(value(v)).append(',');
+                }
+            }
+
+            //the static fields, by class
+            final ArrayList<Map.Entry<ClassFile, Klass>> klasses = new ArrayList<>(this.s.getStaticMethodArea().entrySet());
+            klasses.sort(Comparator.comparing((Map.Entry<ClassFile, Klass> e) -> e.getKey().getClassName())
+                                   .thenComparingInt(e -> e.getKey().getDefiningClassLoader()));
+            for (Map.Entry<ClassFile, Klass> e : klasses) {
+                final Klass k = e.getValue();
+                sb.append("K").append(e.getKey().getClassName()).append('/').append(e.getKey().getDefiningClassLoader())
+                  .append(k.initializationStarted() ? 's' : '-').append(k.initializationCompleted() ? 'c' : '-');
+                fields(sb, k);
+            }
+
+            //the main thread and thread group
+            sb.append("T").append(value(this.s.getMainThread())).append(value(this.s.getMainThreadGroup()));
+
+            visit();
+            return sb.append(this.heap).toString();
+        }
+
+        /**
+         * Encodes the path condition. Must be invoked after
+         * {@link #heap()}.
+         *
+         * @param conditions a {@link Map}, that will be filled
+         *        with the conditions of the {@link ClauseAssume}s,
+         *        indexed by their encoding.
+         * @return a {@link HashSet}{@code <}{@link String}{@code >},
+         *         the encodings of the clauses.
+         * @throws FrozenStateException if the state is frozen.
+         */
+        HashSet<String> pathCondition(Map<String, Primitive> conditions) throws FrozenStateException {
+            final HashSet<String> retVal = new HashSet<>();
+            for (Clause c : this.s.getPathCondition()) {
+                final String encoding;
+                if (c instanceof ClauseAssume) {
+                    final Primitive condition = ((ClauseAssume) c).getCondition();
+                    encoding = "C" + primitive(condition);
+                    conditions.put(encoding, condition);
+                } else if (c instanceof ClauseAssumeNull) {
+                    encoding = "N" + symbolic(((ClauseAssumeNull) c).getReference());
+                } else if (c instanceof ClauseAssumeExpands) {
+                    final ClauseAssumeExpands ce = (ClauseAssumeExpands) c;
+                    encoding = "E" + symbolic(ce.getReference()) + "@" + id(ce.getHeapPosition());
+                } else if (c instanceof ClauseAssumeAliases) {
+                    final ClauseAssumeAliases ca = (ClauseAssumeAliases) c;
+                    encoding = "A" + symbolic(ca.getReference()) + "@" + id(ca.getHeapPosition());
+                } else { //class initialization clauses
+                    encoding = c.toString();
+                }
+                retVal.add(encoding);
+            }
+            return retVal;
+        }
+
+        /**
+         * Encodes the objects that are reachable from the
+         * path condition but not from the frames and the
+         * static fields. Must be invoked after
+         * {@link #pathCondition(Map)}.
+         *
+         * @return a {@link String}.
+         * @throws FrozenStateException if the state is frozen.
+         */
+        String heapPathCondition() throws FrozenStateException {
+            this.heap.setLength(0);
+            visit();
+            return this.heap.toString();
+        }
+
+        private void visit() throws FrozenStateException {
+            while (!this.toVisit.isEmpty()) {
+                final long pos = this.toVisit.removeFirst();
+                final Objekt o = this.s.getObject(new ReferenceConcrete(pos));
+                this.heap.append("#").append(this.ids.get(pos)).append(':').append(o.getType().getClassName());
+                if (o.isSymbolic()) {
+                    this.heap.append('~').append(o.getOrigin().asOriginString());
+                }
+                fields(this.heap, o);
+                if (o instanceof Array) {
+                    final Array a = (Array) o;
+                    this.heap.append("L").append(primitive(a.getLength()));
+                    for (Array.AccessOutcomeIn entry : a.values()) {
+                        this.heap.append('[').append(entry.getAccessCondition() == null ? "" : primitive(entry.getAccessCondition())).append("->");
+                        if (entry instanceof Array.AccessOutcomeInInitialArray) {
+                            this.heap.append("I").append(value(((Array.AccessOutcomeInInitialArray) entry).getInitialArray()));
+                        } else { //(entry instanceof Array.AccessOutcomeInValue)
+                            this.heap.append(value(((Array.AccessOutcomeInValue) entry).getValue()));
+                        }
+                        this.heap.append(']');
+                    }
+                }
+            }
+        }
+
+        private void fields(StringBuilder sb, Objekt o) {
+            final List<Map.Entry<Signature, Variable>> fields = new ArrayList<>(o.fields().entrySet());
+            fields.sort(FIELD_ORDER);
+            sb.append('{');
+            for (Map.Entry<Signature, Variable> e : fields) {
+                sb.append(e.getKey().getName()).append('=').append(value(e.getValue().getValue())).append(',');
+            }
+            sb.append('}');
+        }
+
+        private String value(Value v) {
+            if (v == null) {
+                return "-";
+            } else if (v instanceof Reference) {
+                final Reference r = (Reference) v;
+                if (this.s.isNull(r)) {
+                    return "null";
+                } else if (r instanceof ReferenceConcrete) {
+                    return "@" + id(((ReferenceConcrete) r).getHeapPosition());
+                } else if (r instanceof ReferenceSymbolic) {
+                    final ReferenceSymbolic rs = (ReferenceSymbolic) r;
+                    return symbolic(rs) + (this.s.resolved(rs) ? "@" + id(this.s.getResolution(rs)) : "?");
+                } else {
+                    return r.toString();
+                }
+            } else {
+                return primitive((Primitive) v);
+            }
+        }
+
+        private String primitive(Primitive p) {
+            return (p instanceof Symbolic ? symbolic((Symbolic) p) : p.toString());
+        }
+
+        private static String symbolic(Symbolic s) {
+            return s.toString() + "~" + s.asOriginString();
+        }
+
+        private int id(long pos) {
+            final Integer id = this.ids.get(pos);
+            if (id == null) {
+                final int newId = this.ids.size();
+                this.ids.put(pos, newId);
+                this.toVisit.addLast(pos);
+                return newId;
+            }
+            return id.intValue();
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package jbse.tree;
 
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
 
+import jbse.bc.Signature;
+import jbse.common.Metrics;
+import jbse.common.Metrics.Counter;
+import jbse.common.Metrics.Gauge;
 import jbse.common.exc.InvalidInputException;
 import jbse.common.exc.UnexpectedInternalException;
+import jbse.mem.DecisionVector;
 import jbse.mem.State;
 import jbse.mem.State.Phase;
+import jbse.mem.StateMerger;
 import jbse.mem.exc.FrozenStateException;
+import jbse.mem.exc.ThreadStackEmptyException;
 import jbse.val.HistoryPoint;
 
 /**
  * Class storing the {@link State}s in the symbolic execution
  * tree which have been discovered but not yet analyzed. It stores
- * only the states at branch points.
+ * only the states at branch points. The order the pending states
+ * are resumed upon backtrack is established by an 
+ * {@link ExplorationStrategy}.
  * 
  * @author Pietro Braione
  * @author unknown
@@ -92,6 +111,55 @@ public class StateTree {
         ALL_DECISIONS;
     }
 
+    /**
+     * Enumeration of the strategies for choosing the 
+     * pending state to resume upon backtrack. Note that,
+     * independently on the strategy, the execution 
+     * always follows a path up to its end before 
+     * backtracking.
+     */
+    public static enum ExplorationStrategy {
+        /**
+         * Resumes the most recently added pending state
+         * (depth-first exploration).
+         */
+        DEPTH_FIRST,
+
+        /**
+         * Resumes the pending state with least depth, 
+         * the least recently added among those at the 
+         * same depth (breadth-first exploration).
+         */
+        BREADTH_FIRST,
+
+        /**
+         * Resumes a random pending state, with a probability
+         * that halves at each depth level, as if the state
+         * was selected by a random walk from the root of the
+         * symbolic execution tree. 
+         */
+        RANDOM_PATH,
+
+        /**
+         * Resumes first the pending states whose current 
+         * bytecode was not yet executed by any other state, 
+         * and breaks ties by least depth.
+         */
+        NEW_COVERAGE_FIRST,
+
+        /**
+         * Resumes the pending state with the least number
+         * of clauses in its path condition.
+         */
+        SHORTEST_PATH_CONDITION_FIRST,
+
+        /**
+         * Resumes the pending state with the least value
+         * of a user-provided heuristic function.
+         */
+        BEST_FIRST;
+    }
+
     /**
      * A Memento for tree branches.
      * 
@@ -99,6 +167,25 @@ public class StateTree {
      */
     public static class BranchPoint { }
 
+    /**
+     * Rebuilds a pending state from the decisions 
+     * that lead to it from the initial state.
+     */
+    @FunctionalInterface
+    public interface StateReplayer {
+        /**
+         * Rebuilds a state.
+         * 
+         * @param historyPoint the {@link HistoryPoint} of the 
+         *        state when it was added to the tree.
+         * @param decisions the {@link DecisionVector} of the 
+         *        state when it was added to the tree.
+         * @return the {@link State} as it was when it was 
+         *         added to the tree.
+         */
+        State replay(HistoryPoint historyPoint, DecisionVector decisions);
+    }
+
     /** 
      * Private class gathering information on a branch.
      * 
@@ -120,6 +207,12 @@ public class StateTree {
          */
         int emittedStates;
 
+        /** 
+         * The states of {@code branch} not yet emitted, in 
+         * emission order. 
+         */
+        final LinkedList<PendingState> pendingStates = new LinkedList<>();
+
         /** 
          * Constructor for branch identification.
          */
@@ -130,6 +223,93 @@ public class StateTree {
         }
     }
 
+    /** 
+     * Private class gathering information on a pending state.
+     */ 
+    private static class PendingState {
+        /** 
+         * The pending {@link State}, or {@code null} after it is 
+         * removed, so that the frontier does not retain it, or 
+         * while it is stored as {@code decisions}.
+         */
+        State state;
+
+        /** 
+         * The {@link HistoryPoint} of {@code state} while it is 
+         * stored as {@code decisions}, otherwise {@code null}.
+         */
+        HistoryPoint historyPoint;
+
+        /** 
+         * The {@link DecisionVector} of {@code state} while it is 
+         * stored as decisions, otherwise {@code null}.
+         */
+        DecisionVector decisions;
+
+        /** The {@link BranchInfo} of the branch of {@code state}. */
+        final BranchInfo branchInfo;
+
+        /** The insertion order of {@code state}, used to break ties. */
+        final long sequenceNumber;
+
+        /** 
+         * The priority of {@code state}, the lesser the sooner it
+         * is resumed. 
+         */
+        final double priority;
+
+        /** 
+         * Whether the current bytecode of {@code state} was not 
+         * executed when last checked. Used by 
+         * {@link ExplorationStrategy#NEW_COVERAGE_FIRST}.
+         */
+        boolean uncovered;
+
+        /** 
+         * Whether {@code state} was emitted or merged, and thus 
+         * must be skipped when it is polled from the frontier.
+         */
+        boolean removed;
+
+        /** 
+         * Whether {@code state} is subsumed by a state in the 
+         * subsumption index, and is pending only because it is
+         * the sole state of its branch.
+         */
+        boolean subsumed;
+
+        /** 
+         * Whether the history point of {@code state} is complete, 
+         * because it was resumed from a checkpoint, and thus it 
+         * must not be labelled when it is emitted.
+         */
+        boolean labelled;
+
+        PendingState(State state, BranchInfo branchInfo, long sequenceNumber, double priority, boolean uncovered) {
+            this.state = state;
+            this.branchInfo = branchInfo;
+            this.sequenceNumber = sequenceNumber;
+            this.priority = priority;
+            this.uncovered = uncovered;
+            this.removed = false;
+            this.subsumed = false;
+            this.labelled = false;
+        }
+    }
+
+    /** 
+     * The order of the {@link PendingState}s in the frontier: 
+     * first the uncovered ones, then by priority, then by
+     * insertion order.
+     */
+    private static final Comparator<PendingState> FRONTIER_ORDER = 
+        Comparator.comparing((PendingState p) -> !p.uncovered)
+                  .thenComparingDouble(p -> p.priority)
+                  .thenComparingLong(p -> p.sequenceNumber);
+
+    /** The seed of the random generator for {@link ExplorationStrategy#RANDOM_PATH}. */
+    private static final long RANDOM_SEED = 0L;
+
     /** State identification mode. */
     private final StateIdentificationMode stateIdMode;
 
@@ -139,12 +319,103 @@ public class StateTree {
     /** Breadth mode, after switching to post-initial phase. */
     private final BreadthMode breadthModePostInitial;
 
-    /** Buffer of the inserted {@link State}s. */
-    private final LinkedList<State> stateBuffer = new LinkedList<State>();
+    /** The {@link Gauge} of the number of {@link State}s in the buffer. */
+    private static final Gauge FRONTIER_SIZE = Metrics.gauge("tree.frontier");
 
-    /** Buffer of the inserted {@link BranchInfo}s. */
+    /** 
+     * The {@link Counter} of the backtracks that resumed a state depth-first 
+     * because of memory pressure.
+     */
+    private static final Counter FRONTIER_MEMORY_PRESSURE = Metrics.counter("tree.frontier.memoryPressure");
+
+    /** The {@link Counter} of the states pruned because subsumed. */
+    private static final Counter PRUNED = Metrics.counter("tree.pruned");
+
+    /** The {@link Counter} of the pending states stored as decisions. */
+    private static final Counter STORED_AS_DECISIONS = Metrics.counter("tree.frontier.storedAsDecisions");
+
+    /** The {@link Counter} of the pending states rebuilt from their decisions. */
+    private static final Counter REPLAYED = Metrics.counter("tree.frontier.replayed");
+
+    /** 
+     * The minimum number of removed {@link PendingState}s in the frontier
+     * that makes worth purging them. 
+     */
+    private static final int PURGE_MIN = 1024;
+
+    /** 
+     * Buffer of the inserted {@link BranchInfo}s, in depth-first 
+     * emission order.
+     */
     private final LinkedList<BranchInfo> branchList = new LinkedList<BranchInfo>();
 
+    /** The number of {@link State}s not yet emitted. */
+    private int numStates = 0;
+
+    /** The number of {@link State}s inserted so far. */
+    private long numStatesInserted = 0;
+
+    /** The exploration strategy. */
+    private ExplorationStrategy strategy = ExplorationStrategy.DEPTH_FIRST;
+
+    /** 
+     * The heuristic function for {@link ExplorationStrategy#BEST_FIRST},
+     * or {@code null}.
+     */
+    private ToDoubleFunction<State> heuristic = null;
+
+    /** 
+     * The {@link PendingState}s ordered according to the exploration strategy,
+     * or {@code null} if the strategy is {@link ExplorationStrategy#DEPTH_FIRST}. 
+     * It may contain removed {@link PendingState}s, that are skipped when polled.
+     */
+    private PriorityQueue<PendingState> frontier = null;
+
+    /** The number of removed {@link PendingState}s in {@link #frontier}. */
+    private int numRemovedInFrontier = 0;
+
+    /** 
+     * The percentage of the maximum heap size above which the 
+     * pending states are stored as decisions and resumed 
+     * depth-first, or 0 if the pending states must always be 
+     * stored as they are and the exploration strategy must 
+     * always be followed.
+     */
+    private int memoryThreshold = 0;
+
+    /** 
+     * The {@link StateSubsumptionIndex} of the added states, or 
+     * {@code null} if the subsumed states must not be pruned.
+     */
+    private StateSubsumptionIndex subsumptionIndex = null;
+
+    /** The number of {@link State}s pruned because subsumed. */
+    private long numPrunedStates = 0;
+
+    /** 
+     * The {@link StateReplayer} that rebuilds the pending states 
+     * stored as decisions, or {@code null} if the pending states
+     * must not be stored as decisions.
+     */
+    private StateReplayer replayer = null;
+
+    /** 
+     * The post-initial {@link PendingState}s that might be stored 
+     * as decisions, in insertion order. It may contain removed 
+     * {@link PendingState}s.
+     */
+    private final ArrayDeque<PendingState> storable = new ArrayDeque<>();
+
+    /** The random generator for {@link ExplorationStrategy#RANDOM_PATH}. */
+    private final Random random = new Random(RANDOM_SEED);
+
+    /** 
+     * The bytecodes executed so far, as a map from method signatures
+     * to the sets of the program counters. Used by 
+     * {@link ExplorationStrategy#NEW_COVERAGE_FIRST}.
+     */
+    private final HashMap<Signature, BitSet> covered = new HashMap<>();
+
     /** 
      * Flag indicating whether the tree level has been increased 
      * since the last inspection by invocation of {@link #createdBranch()}.
@@ -177,6 +448,103 @@ public class StateTree {
         this.breadthMode = this.breadthModePostInitial;
     }
 
+    /**
+     * Sets the exploration strategy. The tree must be empty.
+     * 
+     * @param strategy an {@link ExplorationStrategy}.
+     * @param heuristic a {@link ToDoubleFunction}{@code <}{@link State}{@code >}, 
+     *        the heuristic function for {@link ExplorationStrategy#BEST_FIRST}; 
+     *        the states with lesser value are resumed first. Ignored by the
+     *        other strategies.
+     * @throws InvalidInputException if {@code strategy == null}, or 
+     *         {@code strategy == }{@link ExplorationStrategy#BEST_FIRST BEST_FIRST}{@code  && heuristic == null},
+     *         or the tree is not empty.
+     */
+    public void setExplorationStrategy(ExplorationStrategy strategy, ToDoubleFunction<State> heuristic) throws InvalidInputException {
+        if (strategy == null || (strategy == ExplorationStrategy.BEST_FIRST && heuristic == null)) {
+            throw new InvalidInputException("Invoked " + StateTree.class.getName() + ".setExplorationStrategy() with a null strategy or heuristic.");
+        }
+        if (hasStates()) {
+            throw new InvalidInputException("Invoked " + StateTree.class.getName() + ".setExplorationStrategy() on a nonempty tree.");
+        }
+        this.strategy = strategy;
+        this.heuristic = heuristic;
+        this.frontier = (strategy == ExplorationStrategy.DEPTH_FIRST ? null : new PriorityQueue<>(FRONTIER_ORDER));
+    }
+
+    /**
+     * Sets the memory threshold. When it is positive and the
+     * heap occupancy of the virtual machine is above this 
+     * percentage of the maximum heap size:
+     * <ul>
+     * <li>When a branch is added and there is a replayer 
+     * (see {@link #setReplayer(StateReplayer)}), the pending 
+     * post-initial states are stored as their decisions, so 
+     * they can be garbage-collected. This is what frees memory,
+     * under every exploration strategy, depth-first included.</li>
+     * <li>Upon backtrack, {@link #prioritize()} resumes the most 
+     * recently added state independently on the exploration 
+     * strategy. This keeps the number of pending states bounded 
+     * by the depth of the tree times its fan-out, but has no 
+     * effect under the depth-first strategy, and frees no memory
+     * by itself.</li>
+     * </ul>
+     * 
+     * @param memoryThreshold an {@code int}.
+     */
+    public void setMemoryThreshold(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * Sets the subsumption index. When it is not {@code null}, 
+     * the post-initial states added to the tree that are subsumed 
+     * by a state previously added are pruned, i.e., they are not 
+     * explored. A subsumed state is pruned only if it is not the 
+     * sole state of its branch, so every branch has at least one 
+     * state to emit.
+     * 
+     * @param subsumptionIndex a {@link StateSubsumptionIndex}, 
+     *        or {@code null} for no pruning.
+     */
+    public void setSubsumptionIndex(StateSubsumptionIndex subsumptionIndex) {
+        this.subsumptionIndex = subsumptionIndex;
+    }
+
+    /**
+     * Sets the state replayer. When it is not {@code null}, 
+     * and the heap occupancy exceeds the memory threshold 
+     * (see {@link #setMemoryThreshold(int)}) when a branch 
+     * is added, the pending post-initial states are stored as 
+     * the decisions that lead to them from the initial state, 
+     * and are rebuilt by the replayer when they are needed.
+     * 
+     * @param replayer a {@link StateReplayer}, or {@code null}
+     *        for storing the pending states as they are.
+     */
+    public void setReplayer(StateReplayer replayer) {
+        this.replayer = replayer;
+    }
+
+    /**
+     * Returns the number of states pruned because 
+     * subsumed by some previously added state.
+     * 
+     * @return a {@code long}.
+     */
+    public long getNumPrunedStates() {
+        return this.numPrunedStates;
+    }
+
+    /**
+     * Returns the exploration strategy.
+     * 
+     * @return an {@link ExplorationStrategy}.
+     */
+    public ExplorationStrategy getExplorationStrategy() {
+        return this.strategy;
+    }
+
     /**
      * Returns the branch identification mode.
      * 
@@ -252,13 +620,15 @@ public class StateTree {
         if (s.phase() == Phase.POST_INITIAL) {
             if (this.stateIdMode == StateIdentificationMode.COMPACT) {
                 //in compact mode nextState() will update the history point            
-                add(s);
             } else if (this.stateIdMode == StateIdentificationMode.REPLICABLE) {
                 s.addBranchToHistoryPoint(String.valueOf(branchNumber));
-                add(s);
             } else { // (this.stateIdMode == StateIdentificationMode.LONG)
                 s.addBranchToHistoryPoint(branchIdentifier);
+            }
+            if (this.subsumptionIndex == null) {
                 add(s);
+            } else {
+                addOrPrune(s);
             }
         } else {  //phase == Phase.PRE_INITIAL || phase == Phase.INITIAL
             throw new InvalidInputException("Tried to add a " + (s.phase() == Phase.PRE_INITIAL ? "pre-" : "") + "initial state to a state tree branch.");
@@ -266,6 +636,78 @@ public class StateTree {
         this.userProvidedStartState = false;
     }
 
+    /**
+     * Adds to the tree the states that were pending when a 
+     * previous exploration was checkpointed. They form a new
+     * branch that is emitted before the states already in the 
+     * tree, and are emitted in the order they are listed. This 
+     * method works only for the post-initial states.
+     * 
+     * @param states a {@link List}{@code <}{@link State}{@code >}.
+     *        The history points of the states must already 
+     *        include their branch, as returned by 
+     *        {@link #getPendingDecisions()}.
+     * @throws InvalidInputException if some state in {@code states} 
+     *         is not post-initial or is frozen.
+     */
+    public void addStatesResumed(List<State> states) throws InvalidInputException {
+        if (states.isEmpty()) {
+            return;
+        }
+        for (State s : states) {
+            if (s.phase() != Phase.POST_INITIAL) {
+                throw new InvalidInputException("Tried to resume a " + (s.phase() == Phase.PRE_INITIAL ? "pre-" : "") + "initial state.");
+            }
+        }
+        final BranchInfo b = new BranchInfo();
+        this.branchList.addFirst(b);
+        for (int i = states.size() - 1; i >= 0; --i) {
+            add(states.get(i));
+            b.pendingStates.getFirst().labelled = true;
+        }
+        this.userProvidedStartState = false;
+    }
+
+    /**
+     * Returns the decisions of the states that remain to be 
+     * explored, so that they can be rebuilt later with a 
+     * {@link StateReplayer}.
+     * 
+     * @return a {@link LinkedHashMap}{@code <}{@link HistoryPoint}{@code , }{@link DecisionVector}{@code >}
+     *         mapping the history points the pending states will 
+     *         have when emitted (complete with their branch) to 
+     *         their decisions, in the order the states would be
+     *         emitted with the {@link ExplorationStrategy#DEPTH_FIRST} 
+     *         strategy, or {@code null} if some pending state is
+     *         not post-initial.
+     */
+    public LinkedHashMap<HistoryPoint, DecisionVector> getPendingDecisions() {
+        final LinkedHashMap<HistoryPoint, DecisionVector> retVal = new LinkedHashMap<>();
+        for (BranchInfo b : this.branchList) {
+            int label = b.emittedStates;
+            for (PendingState p : b.pendingStates) {
+                ++label;
+                final HistoryPoint historyPoint;
+                final DecisionVector decisions;
+                if (p.state == null) {
+                    historyPoint = p.historyPoint;
+                    decisions = p.decisions;
+                } else if (p.state.phase() == Phase.POST_INITIAL) {
+                    historyPoint = p.state.getHistoryPoint();
+                    decisions = p.state.getDecisions();
+                } else {
+                    return null;
+                }
+                if (this.stateIdMode == StateIdentificationMode.COMPACT && !p.labelled) {
+                    retVal.put(historyPoint.nextBranch(String.valueOf(label)), decisions);
+                } else {
+                    retVal.put(historyPoint, decisions);
+                }
+            }
+        }
+        return retVal;
+    }
+
     /**
      * Checks whether some {@link State} can be emitted.
      * 
@@ -273,7 +715,7 @@ public class StateTree {
      *              to emit.
      */
     public boolean hasStates() {
-        return !this.stateBuffer.isEmpty();
+        return this.numStates > 0;
     }
     
     /**
@@ -287,7 +729,7 @@ public class StateTree {
     public int getNumOfStatesAtBranch(BranchPoint bp) {
     	for (BranchInfo info : this.branchList) {
     		if (info.branch == bp) {
-    			return info.totalStates - info.emittedStates;
+    			return info.pendingStates.size();
     		}
     	}
     	return 0;
@@ -306,20 +748,14 @@ public class StateTree {
     	if (index < 0 || index >= getNumOfStatesAtBranch(bp)) {
     		throw new InvalidInputException("Tried to get state at branch " + bp + " with index " + index + " (total number of states at branch is " + getNumOfStatesAtBranch(bp) + ").");
     	}
-    	int position = 0;
-    	boolean found = false;
     	for (BranchInfo info : this.branchList) {
     		if (info.branch == bp) {
-    			found = true;
-    			break;
+    			final PendingState p = info.pendingStates.get(index);
+    			rebuild(p);
+    			return p.state;
     		}
-    		position += info.totalStates - info.emittedStates;
-    	}
-    	if (found) {
-    		return this.stateBuffer.get(position + index);
-    	} else {
-    		throw new InvalidInputException("Tried to get state at branch " + bp + " but no state seems to exist at branch.");
     	}
+    	throw new InvalidInputException("Tried to get state at branch " + bp + " but no state seems to exist at branch.");
     }
 
     /**
@@ -330,14 +766,17 @@ public class StateTree {
      * @throws NoSuchElementException if {@link #hasStates()} {@code == false}.
      */
     public State nextState() throws FrozenStateException {
-        final State s = this.stateBuffer.removeFirst();
         final BranchInfo b = this.branchList.getFirst();
+        final PendingState p = b.pendingStates.removeFirst();
+        rebuild(p);
+        final State s = p.state;
+        remove(p);
         ++b.emittedStates;
         if (b.emittedStates == b.totalStates) {
             this.branchList.removeFirst();
         }
         
-        if (!this.userProvidedStartState && this.stateIdMode == StateIdentificationMode.COMPACT && s.phase() == Phase.POST_INITIAL) {
+        if (!this.userProvidedStartState && this.stateIdMode == StateIdentificationMode.COMPACT && s.phase() == Phase.POST_INITIAL && !p.labelled) {
             s.addBranchToHistoryPoint(String.valueOf(b.emittedStates));
         } //else, the history point was already set by addState
         this.userProvidedStartState = false;
@@ -346,6 +785,164 @@ public class StateTree {
     }    
     
     
+    /**
+     * Makes the pending state that must be resumed next 
+     * according to the exploration strategy the next 
+     * state emitted by {@link #nextState()}. To be invoked
+     * upon backtrack. Does nothing if the strategy is 
+     * {@link ExplorationStrategy#DEPTH_FIRST} or if the
+     * tree is empty.
+     */
+    public void prioritize() {
+        if (this.frontier == null) {
+            return;
+        }
+        if (underMemoryPressure()) {
+            FRONTIER_MEMORY_PRESSURE.increment();
+            return;
+        }
+        while (!this.frontier.isEmpty()) {
+            final PendingState p = this.frontier.poll();
+            if (p.removed) {
+                --this.numRemovedInFrontier;
+                continue;
+            }
+            if (p.uncovered && p.state != null && isCovered(p.state)) {
+                //the state lost its priority since its insertion
+                p.uncovered = false;
+                this.frontier.add(p);
+                continue;
+            }
+            
+            //moves the branch and the state to the front
+            final BranchInfo b = p.branchInfo;
+            if (this.branchList.getFirst() != b) {
+                this.branchList.remove(b);
+                this.branchList.addFirst(b);
+            }
+            if (b.pendingStates.getFirst() != p) {
+                b.pendingStates.remove(p);
+                b.pendingStates.addFirst(p);
+            }
+            return;
+        }
+    }
+
+    private boolean underMemoryPressure() {
+        if (this.memoryThreshold <= 0) {
+            return false;
+        }
+        final Runtime rt = Runtime.getRuntime();
+        final long used = rt.totalMemory() - rt.freeMemory();
+        return used * 100 > rt.maxMemory() * this.memoryThreshold;
+    }
+
+    /**
+     * Marks a {@link PendingState} as removed, and purges 
+     * the frontier when too many removed {@link PendingState}s
+     * accumulate in it.
+     * 
+     * @param p the {@link PendingState} to remove.
+     */
+    private void remove(PendingState p) {
+        p.removed = true;
+        p.state = null;
+        p.historyPoint = null;
+        p.decisions = null;
+        --this.numStates;
+        FRONTIER_SIZE.set(this.numStates);
+        if (this.frontier != null) {
+            ++this.numRemovedInFrontier;
+            if (this.numRemovedInFrontier >= PURGE_MIN && 2 * this.numRemovedInFrontier > this.frontier.size()) {
+                this.frontier.removeIf(q -> q.removed);
+                this.numRemovedInFrontier = 0;
+            }
+        }
+    }
+
+    /**
+     * Records that the current bytecode of a state 
+     * was executed. Does nothing unless the exploration
+     * strategy is {@link ExplorationStrategy#NEW_COVERAGE_FIRST}.
+     * 
+     * @param s a {@link State}.
+     */
+    public void recordCoverage(State s) {
+        if (this.strategy != ExplorationStrategy.NEW_COVERAGE_FIRST || s.getStackSize() == 0) {
+            return;
+        }
+        try {
+            this.covered.computeIfAbsent(s.getCurrentMethodSignature(), k -> new BitSet()).set(s.getCurrentProgramCounter());
+        } catch (ThreadStackEmptyException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+    }
+
+    private boolean isCovered(State s) {
+        if (s.getStackSize() == 0) {
+            return true;
+        }
+        try {
+            final BitSet pcs = this.covered.get(s.getCurrentMethodSignature());
+            return (pcs != null && pcs.get(s.getCurrentProgramCounter()));
+        } catch (ThreadStackEmptyException e) {
+            //this should never happen
+            throw new UnexpectedInternalException(e);
+        }
+    }
+    
+    /**
+     * Tries to merge a state with one of the states 
+     * that remain to be explored. The states are scanned 
+     * starting from the next one to be emitted, and at most 
+     * {@code lookahead} states are considered. The first 
+     * state that can be merged is removed from the tree.
+     * 
+     * @param s the {@link State} to be merged. 
+     * @param merger the {@link StateMerger} to be used.
+     * @param lookahead an {@code int}, the maximum number 
+     *        of states to be considered.
+     * @return {@code true} iff {@code s} was merged.
+     * @throws FrozenStateException if {@code s} is frozen.
+     */
+    public boolean mergeWithPendingState(State s, StateMerger merger, int lookahead) throws FrozenStateException {
+    	if (s.getStackSize() == 0) {
+    		return false;
+    	}
+    	final int pc = currentProgramCounter(s);
+    	int i = 0;
+    	for (Iterator<BranchInfo> itBranches = this.branchList.iterator(); itBranches.hasNext() && i < lookahead; ) {
+    		final BranchInfo b = itBranches.next();
+    		for (Iterator<PendingState> itStates = b.pendingStates.iterator(); itStates.hasNext() && i < lookahead; ++i) {
+    			final PendingState p = itStates.next();
+    			final State other = p.state;
+    			if (other == null) {
+    				continue; //stored as decisions
+    			}
+    			if (other.getStackSize() == s.getStackSize() && currentProgramCounter(other) == pc && merger.merge(s, other)) {
+    				itStates.remove();
+    				remove(p);
+    				--b.totalStates;
+    				if (b.emittedStates == b.totalStates) {
+    					itBranches.remove();
+    				}
+    				return true;
+    			}
+    		}
+    	}
+    	return false;
+    }
+    
+    private static int currentProgramCounter(State s) {
+    	try {
+    		return s.getCurrentProgramCounter();
+    	} catch (ThreadStackEmptyException e) {
+    		//this should never happen
+    		throw new UnexpectedInternalException(e);
+    	}
+    }
+    
     /**
      * Possibly increases by one the level of the tree. 
      * Note that increasing the level without adding a 
@@ -363,6 +960,28 @@ public class StateTree {
      *         the tree level.
      */
     public boolean possiblyAddBranchPoint(boolean moreThanOne, boolean trivial, boolean concrete, boolean noDecision) {
+        final boolean retVal = wouldAddBranchPoint(moreThanOne, trivial, concrete, noDecision);
+        if (retVal) {
+            addBranchPoint();
+        }
+        return retVal;
+    }
+
+    /**
+     * Checks whether {@link #possiblyAddBranchPoint(boolean, boolean, boolean, boolean) possiblyAddBranchPoint}
+     * would increase the level of the tree, without increasing it.
+     * 
+     * @param moreThanOne {@code true} iff the 
+     *        created branch would have more than one state. 
+     * @param trivial iff the branch would originate from a 
+     *        trivial decision.
+     * @param concrete iff the branch would originate from a 
+     *        concrete decision.
+     * @param noDecision iff the branch would originate from a
+     *        bytecode that takes no decision.
+     * @return {@code true} iff the tree level would be increased.
+     */
+    public boolean wouldAddBranchPoint(boolean moreThanOne, boolean trivial, boolean concrete, boolean noDecision) {
         boolean retVal = moreThanOne;
         switch (this.breadthMode) {
         case MORE_THAN_ONE:
@@ -379,11 +998,6 @@ public class StateTree {
         default: 
             throw new UnexpectedInternalException("Unexpected breadth mode " + this.breadthMode + ".");	    		
         }
-
-        if (retVal) {
-            addBranchPoint();
-        }
-
         return retVal;
     }
 
@@ -393,10 +1007,44 @@ public class StateTree {
      * will crash the engine.
      */
     private void addBranchPoint() {
+        if (this.replayer != null && underMemoryPressure()) {
+            storeAsDecisions();
+        }
         this.branchList.addFirst(new BranchInfo());
         this.createdBranch = true;
     }
 
+    /**
+     * Stores the pending post-initial states as their
+     * decisions, so they can be garbage-collected.
+     */
+    private void storeAsDecisions() {
+        for (PendingState p : this.storable) {
+            if (!p.removed && p.state != null) {
+                p.historyPoint = p.state.getHistoryPoint();
+                p.decisions = p.state.getDecisions();
+                p.state = null;
+                STORED_AS_DECISIONS.increment();
+            }
+        }
+        this.storable.clear();
+    }
+
+    /**
+     * Rebuilds a {@link PendingState} stored as decisions. 
+     * Does nothing if it is not stored as decisions.
+     * 
+     * @param p a {@link PendingState}.
+     */
+    private void rebuild(PendingState p) {
+        if (p.state == null && p.decisions != null) {
+            p.state = this.replayer.replay(p.historyPoint, p.decisions);
+            p.historyPoint = null;
+            p.decisions = null;
+            REPLAYED.increment();
+        }
+    }
+
     /**
      * Checks whether a new level of the tree has been created 
      * since the last invocation of this method.
@@ -437,7 +1085,90 @@ public class StateTree {
      * @param s the {@link State} to be added.
      */
     private void add(State s) {
-        this.stateBuffer.addFirst(s);
-        ++(this.branchList.getFirst().totalStates);
+        final BranchInfo b = this.branchList.getFirst();
+        final boolean uncovered = (this.strategy == ExplorationStrategy.NEW_COVERAGE_FIRST && !isCovered(s));
+        final PendingState p = new PendingState(s, b, this.numStatesInserted++, priority(s), uncovered);
+        b.pendingStates.addFirst(p);
+        if (this.replayer != null && s.phase() == Phase.POST_INITIAL) {
+            if (this.storable.size() >= PURGE_MIN && this.storable.size() > 2 * this.numStates) {
+                this.storable.removeIf(q -> q.removed);
+            }
+            this.storable.add(p);
+        }
+        ++b.totalStates;
+        ++this.numStates;
+        FRONTIER_SIZE.set(this.numStates);
+        if (this.frontier != null) {
+            this.frontier.add(p);
+        }
+    }
+
+    /**
+     * Adds a state to the buffer, unless it is subsumed by 
+     * a state in the subsumption index and its branch has 
+     * other states. If it is not subsumed, it is added to 
+     * the subsumption index, and replaces the subsumed
+     * state previously added to the branch, if present.
+     * 
+     * @param s the {@link State} to be added.
+     * @throws InvalidInputException if {@code s} is frozen.
+     */
+    private void addOrPrune(State s) throws InvalidInputException {
+        final BranchInfo b = this.branchList.getFirst();
+        final boolean subsumed;
+        try {
+            subsumed = this.subsumptionIndex.subsumedElseAdd(s);
+        } catch (FrozenStateException e) {
+            throw new InvalidInputException("Tried to add a frozen state to a state tree branch.");
+        }
+        if (subsumed) {
+            if (b.pendingStates.isEmpty()) {
+                add(s);
+                b.pendingStates.getFirst().subsumed = true;
+            } else {
+                prune();
+            }
+        } else {
+            if (b.pendingStates.size() == 1 && b.pendingStates.getFirst().subsumed) {
+                remove(b.pendingStates.removeFirst());
+                --b.totalStates;
+                prune();
+            }
+            add(s);
+        }
+    }
+
+    private void prune() {
+        ++this.numPrunedStates;
+        PRUNED.increment();
+    }
+
+    /**
+     * Calculates the priority of a state according to
+     * the exploration strategy.
+     * 
+     * @param s a {@link State}.
+     * @return a {@code double}, the lesser the sooner
+     *         {@code s} will be resumed.
+     */
+    private double priority(State s) {
+        switch (this.strategy) {
+        case DEPTH_FIRST:
+            return 0;
+        case BREADTH_FIRST:
+        case NEW_COVERAGE_FIRST:
+            return s.getDepth();
+        case RANDOM_PATH:
+            //Gumbel-max trick: polling the least priority is the 
+            //same as sampling with probability 2^-depth 
+            final double u = Math.max(this.random.nextDouble(), Double.MIN_VALUE);
+            return s.getDepth() * Math.log(2) + Math.log(-Math.log(u));
+        case SHORTEST_PATH_CONDITION_FIRST:
+            return s.getPathCondition().size();
+        case BEST_FIRST:
+            return this.heuristic.applyAsDouble(s);
+        default:
+            throw new UnexpectedInternalException("Unexpected exploration strategy " + this.strategy + ".");
+        }
     }
 }
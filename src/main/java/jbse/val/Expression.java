@@ -29,8 +29,8 @@ public final class Expression extends PrimitiveSymbolicComputed {
     /** The string representation of this object. */
     private final String toString;
     
-    /** The origin String representation of this object. */
-    private final String asOriginString;
+    /** The origin String representation of this object, lazily calculated. */
+    private String asOriginString = null;
 
     /**
      * Factory method for verbatim expressions (binary).
@@ -132,9 +132,6 @@ public final class Expression extends PrimitiveSymbolicComputed {
 
     	//calculates toString
     	this.toString = stringify(true);
-    	
-    	//calculates originString
-    	this.asOriginString = stringify(false);
     }
     
     private String stringify(boolean toString) {
@@ -232,6 +229,9 @@ public final class Expression extends PrimitiveSymbolicComputed {
     
     @Override
     public String asOriginString() {
+        if (this.asOriginString == null) {
+            this.asOriginString = stringify(false);
+        }
         return this.asOriginString;
     }
     
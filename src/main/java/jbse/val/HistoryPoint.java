@@ -1,6 +1,8 @@
 package jbse.val;
 
-import java.util.ArrayList;
+import java.util.regex.Pattern;
+
+import jbse.common.exc.InvalidInputException;
 
 /**
  * Class for history points in symbolic execution. A history point identifies a
@@ -17,12 +19,123 @@ public final class HistoryPoint {
     public static final String BRANCH_IDENTIFIER_SEPARATOR_LONG = "|";
     public static final String BRANCH_IDENTIFIER_DEFAULT_LONG = "ROOT";
     
+    /**
+     * A node of a branch identifier. Branch identifiers are 
+     * persistent lists linked from the last branch to the
+     * first one, so that the branch identifiers of a 
+     * subbranch share all the nodes of the branch identifier
+     * of their parent branch. Every node also has a jump 
+     * pointer to an ancestor, chosen as in skew-binary 
+     * random access lists, so that the ancestor at a given 
+     * depth is found in a number of steps logarithmic in the 
+     * depth of the node. It is immutable.
+     */
+    private static final class Branch {
+        /** The empty branch identifier. */
+        static final Branch EMPTY = new Branch();
+        
+        /** The parent node, or {@code null} for {@link #EMPTY}. */
+        final Branch parent;
+        
+        /** The jump node, or {@code null} for {@link #EMPTY}. */
+        final Branch jump;
+        
+        /** The last branch in the identifier. */
+        final String label;
+        
+        /** The number of branches in the identifier. */
+        final int depth;
+        
+        /** The hash code of this node. */
+        final int hashCode;
+        
+        private Branch() {
+            this.parent = null;
+            this.jump = null;
+            this.label = null;
+            this.depth = 0;
+            this.hashCode = 1;
+        }
+        
+        private Branch(Branch parent, String label) {
+            this.parent = parent;
+            if (parent.jump != null && parent.jump.jump != null && 
+                parent.depth - parent.jump.depth == parent.jump.depth - parent.jump.jump.depth) {
+                this.jump = parent.jump.jump;
+            } else {
+                this.jump = parent;
+            }
+            this.label = label;
+            this.depth = parent.depth + 1;
+            this.hashCode = 31 * parent.hashCode + label.hashCode();
+        }
+        
+        Branch child(String label) {
+            return new Branch(this, label);
+        }
+        
+        /**
+         * Returns the ancestor of this node at a given depth.
+         * 
+         * @param depth an {@code int}, not greater than {@link #depth}.
+         * @return the {@link Branch} that is the ancestor of this 
+         *         node (possibly this node itself) with depth 
+         *         {@code depth}.
+         */
+        Branch ancestor(int depth) {
+            Branch retVal = this;
+            while (retVal.depth > depth) {
+                retVal = (retVal.jump.depth >= depth ? retVal.jump : retVal.parent);
+            }
+            return retVal;
+        }
+        
+        /**
+         * Checks whether this node and another one represent 
+         * equal branch identifiers. The check stops at the 
+         * first shared node.
+         * 
+         * @param other a {@link Branch}.
+         * @return {@code true} iff this and {@code other} 
+         *         represent the same branch identifier.
+         */
+        boolean sameAs(Branch other) {
+            if (this.depth != other.depth) {
+                return false;
+            }
+            Branch a = this, b = other;
+            while (a != b) {
+                if (a.hashCode != b.hashCode || !a.label.equals(b.label)) {
+                    return false;
+                }
+                a = a.parent;
+                b = b.parent;
+            }
+            return true;
+        }
+        
+        void appendTo(StringBuilder buf, String separator) {
+            final String[] labels = new String[this.depth];
+            int i = this.depth;
+            for (Branch b = this; b.parent != null; b = b.parent) {
+                labels[--i] = b.label;
+            }
+            for (String label : labels) {
+                buf.append(separator);
+                buf.append(label);
+            }
+        }
+    }
+    
     private final boolean compact;
     
-    private final ArrayList<String> branchIdentifier;
+    private final Branch branchIdentifier;
     
     private final int sequenceNumber;
     
+    /** The {@link String} representation of this object, lazily calculated. */
+    private String toString = null;
+    
     /**
      * Constructor for the unknown history point.
      */
@@ -36,10 +149,10 @@ public final class HistoryPoint {
      * Constructor for any (known) history point.
      * 
      * @param compact a {@code boolean}.
-     * @param branchIdentifier an {@link ArrayList}{@code <}{@link String}{@code >}.
+     * @param branchIdentifier a {@link Branch}.
      * @param sequenceNumber an {@code int}.
      */
-    private HistoryPoint(boolean compact, ArrayList<String> branchIdentifier, int sequenceNumber) {
+    private HistoryPoint(boolean compact, Branch branchIdentifier, int sequenceNumber) {
         this.compact = compact;
         this.branchIdentifier = branchIdentifier;
         this.sequenceNumber = sequenceNumber;
@@ -61,8 +174,7 @@ public final class HistoryPoint {
      * @return a {@link HistoryPoint}.
      */
     public static HistoryPoint startingPreInitial(boolean compact) {
-        final ArrayList<String> preInitialBranchIdentifier = new ArrayList<>();
-        return new HistoryPoint(compact, preInitialBranchIdentifier, 0);
+        return new HistoryPoint(compact, Branch.EMPTY, 0);
     }
     
     /**
@@ -71,9 +183,7 @@ public final class HistoryPoint {
      * @return a {@link HistoryPoint}.
      */
     public HistoryPoint startingInitial() {
-        final ArrayList<String> initialBranchIdentifier = new ArrayList<>();
-        initialBranchIdentifier.add(this.compact ? BRANCH_IDENTIFIER_DEFAULT_COMPACT : BRANCH_IDENTIFIER_DEFAULT_LONG);
-        return new HistoryPoint(this.compact, initialBranchIdentifier, 0);
+        return new HistoryPoint(this.compact, Branch.EMPTY.child(this.compact ? BRANCH_IDENTIFIER_DEFAULT_COMPACT : BRANCH_IDENTIFIER_DEFAULT_LONG), 0);
     }
     
     /**
@@ -88,7 +198,7 @@ public final class HistoryPoint {
     
     /**
      * Factory method. Builds a {@link HistoryPoint} next in time
-     * on a subbranch.
+     * on a subbranch. It takes constant time.
      * 
      * @param additionalBranch a {@link String} that identifies the
      *        subbranch.
@@ -97,11 +207,38 @@ public final class HistoryPoint {
      *         the unknown {@link HistoryPoint}.
      */
     public HistoryPoint nextBranch(String additionalBranch) {
-        final ArrayList<String> nextBranchIdentifier = new ArrayList<>(this.branchIdentifier);
-        nextBranchIdentifier.add(additionalBranch);
-        return new HistoryPoint(this.compact, nextBranchIdentifier, 0);
+        return new HistoryPoint(this.compact, this.branchIdentifier.child(additionalBranch), 0);
     }
     
+    /**
+     * Factory method. Builds the {@link HistoryPoint} at the start
+     * of a branch, given its branch identifier. The branch identifier
+     * must be in the same format as the ones of this {@link HistoryPoint}.
+     *
+     * @param branchIdentifier a {@link String}, as returned by
+     *        {@link #getBranchIdentifier()}.
+     * @return a {@link HistoryPoint} with branch identifier
+     *         {@code branchIdentifier} and sequence number {@code 0}.
+     * @throws InvalidInputException if {@code branchIdentifier} is
+     *         {@code null} or ill-formed.
+     */
+    public HistoryPoint atBranch(String branchIdentifier) throws InvalidInputException {
+        final String separator = (this.compact ? BRANCH_IDENTIFIER_SEPARATOR_COMPACT : BRANCH_IDENTIFIER_SEPARATOR_LONG);
+        if (branchIdentifier == null || !(branchIdentifier.isEmpty() || branchIdentifier.startsWith(separator))) {
+            throw new InvalidInputException("Ill-formed branch identifier " + branchIdentifier + ".");
+        }
+        Branch b = Branch.EMPTY;
+        if (!branchIdentifier.isEmpty()) {
+            for (String label : branchIdentifier.substring(separator.length()).split(Pattern.quote(separator), -1)) {
+                if (label.isEmpty()) {
+                    throw new InvalidInputException("Ill-formed branch identifier " + branchIdentifier + ".");
+                }
+                b = b.child(label);
+            }
+        }
+        return new HistoryPoint(this.compact, b, 0);
+    }
+
     /**
      * Returns the branch identifier as a {@link String}.
      * 
@@ -109,13 +246,32 @@ public final class HistoryPoint {
      */
     public String getBranchIdentifier() {
         final StringBuilder retVal = new StringBuilder();
-        for (String b : this.branchIdentifier) {
-            retVal.append(this.compact ? BRANCH_IDENTIFIER_SEPARATOR_COMPACT : BRANCH_IDENTIFIER_SEPARATOR_LONG);
-            retVal.append(b);
-        }
+        this.branchIdentifier.appendTo(retVal, this.compact ? BRANCH_IDENTIFIER_SEPARATOR_COMPACT : BRANCH_IDENTIFIER_SEPARATOR_LONG);
         return retVal.toString();
     }
     
+    /**
+     * Returns the number of branches in the branch identifier.
+     * 
+     * @return an {@code int}, {@code 0} for the pre-initial 
+     *         history points.
+     */
+    public int getBranchDepth() {
+        return this.branchIdentifier.depth;
+    }
+    
+    /**
+     * Returns a branch in the branch identifier.
+     * 
+     * @param depth an {@code int} between {@code 1} and 
+     *        {@link #getBranchDepth()}.
+     * @return the {@link String} that identifies the 
+     *         {@code depth}-th branch in the branch identifier.
+     */
+    public String getBranch(int depth) {
+        return this.branchIdentifier.ancestor(depth).label;
+    }
+    
     /**
      * Returns the sequence number.
      * 
@@ -128,6 +284,9 @@ public final class HistoryPoint {
     /**
      * Checks whether this {@link HistoryPoint} weakly comes before
      * (i.e., comes before or {@link #equals(Object) equals}) another one.
+     * It takes time logarithmic in the length of the branch identifier
+     * of {@code other} when the two branch identifiers share their 
+     * nodes, as it happens when one derives from the other.
      * 
      * @param other a {@link HistoryPoint}. It must not be {@code null}.
      * @return {@code true} iff this object's branch identifier is a 
@@ -137,17 +296,15 @@ public final class HistoryPoint {
      * @throws NullPointerException if {@code other == null}.
      */
     public boolean weaklyBefore(HistoryPoint other) {
-        if (this.branchIdentifier.size() > other.branchIdentifier.size()) {
+        if (this.branchIdentifier.depth > other.branchIdentifier.depth) {
             return false;
         }
         
-        for (int i = 0; i < this.branchIdentifier.size(); ++i) {
-            if (!this.branchIdentifier.get(i).equals(other.branchIdentifier.get(i))) {
-                return false;
-            }
+        if (!this.branchIdentifier.sameAs(other.branchIdentifier.ancestor(this.branchIdentifier.depth))) {
+            return false;
         }
         
-        if (this.branchIdentifier.size() == other.branchIdentifier.size() && this.sequenceNumber > other.sequenceNumber) {
+        if (this.branchIdentifier.depth == other.branchIdentifier.depth && this.sequenceNumber > other.sequenceNumber) {
             return false;
         }
         
@@ -158,7 +315,7 @@ public final class HistoryPoint {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + (this.branchIdentifier == null ? 0 : this.branchIdentifier.hashCode());
+        result = prime * result + (this.branchIdentifier == null ? 0 : this.branchIdentifier.hashCode);
         result = prime * result + this.sequenceNumber;
         return result;
     }
@@ -175,14 +332,14 @@ public final class HistoryPoint {
             return false;
         }
         final HistoryPoint other = (HistoryPoint) obj;
+        if (this.sequenceNumber != other.sequenceNumber) {
+            return false;
+        }
         if (this.branchIdentifier == null) {
         	if (other.branchIdentifier != null) {
         		return false;
         	}
-        } else if (!this.branchIdentifier.equals(other.branchIdentifier)) {
-            return false;
-        }
-        if (this.sequenceNumber != other.sequenceNumber) {
+        } else if (other.branchIdentifier == null || !this.branchIdentifier.sameAs(other.branchIdentifier)) {
             return false;
         }
         return true;
@@ -193,7 +350,10 @@ public final class HistoryPoint {
     	if (this.branchIdentifier == null) {
     		return "?";
     	} else {
-    		return getBranchIdentifier() + "[" + getSequenceNumber() + "]";
+    		if (this.toString == null) {
+    			this.toString = getBranchIdentifier() + "[" + getSequenceNumber() + "]";
+    		}
+    		return this.toString;
     	}
     }
 }
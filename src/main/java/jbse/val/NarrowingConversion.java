@@ -17,7 +17,7 @@ import jbse.val.exc.InvalidTypeException;
 public final class NarrowingConversion extends PrimitiveSymbolicComputed {
     private final Primitive arg;
     private final String toString;
-    private final String asOriginString;
+    private String asOriginString = null;
     private final int hashCode;
 
     private NarrowingConversion(char type, Primitive arg) 
@@ -37,9 +37,6 @@ public final class NarrowingConversion extends PrimitiveSymbolicComputed {
         //calculates toString
         this.toString = "NARROW-"+ getType() + "(" + arg.toString() + ")";
 
-        //calculates asOriginString
-        this.asOriginString = "NARROW-"+ getType() + "(" + (arg.isSymbolic() ? ((Symbolic) arg).asOriginString(): arg.toString()) + ")";
-
         //calculates hashCode
         final int prime = 311;
         int result = 1;
@@ -75,6 +72,9 @@ public final class NarrowingConversion extends PrimitiveSymbolicComputed {
 
 	@Override
 	public String asOriginString() {
+		if (this.asOriginString == null) {
+			this.asOriginString = "NARROW-"+ getType() + "(" + (this.arg.isSymbolic() ? ((Symbolic) this.arg).asOriginString(): this.arg.toString()) + ")";
+		}
 		return this.asOriginString;
 	}
 
@@ -9,7 +9,7 @@ import jbse.val.exc.InvalidTypeException;
  */
 public final class PrimitiveSymbolicMemberArray extends PrimitiveSymbolicMember implements SymbolicMemberArray {
     private final Primitive index;
-    private final String originString;
+    private String originString = null;
     private final int hashCode;
     
     /**
@@ -33,7 +33,6 @@ public final class PrimitiveSymbolicMemberArray extends PrimitiveSymbolicMember
     	}
     	
     	this.index = index;
-    	this.originString = getContainer().asOriginString() + "[" + (this.index.isSymbolic() ? ((Symbolic) this.index).asOriginString() : this.index.toString()) + "]";
 
     	//calculates hashCode
 		final int prime = 2003;
@@ -50,6 +49,9 @@ public final class PrimitiveSymbolicMemberArray extends PrimitiveSymbolicMember
     
     @Override
     public String asOriginString() {
+        if (this.originString == null) {
+            this.originString = getContainer().asOriginString() + "[" + (this.index.isSymbolic() ? ((Symbolic) this.index).asOriginString() : this.index.toString()) + "]";
+        }
         return this.originString;
     }
 
@@ -10,7 +10,7 @@ import jbse.val.exc.InvalidTypeException;
  * length of an array.
  */
 public final class PrimitiveSymbolicMemberArrayLength extends PrimitiveSymbolicMember {
-	private final String originString;
+	private String originString = null;
 	private final int hashCode;
 	
     /**
@@ -30,7 +30,6 @@ public final class PrimitiveSymbolicMemberArrayLength extends PrimitiveSymbolicM
     PrimitiveSymbolicMemberArrayLength(ReferenceSymbolic container, int id) 
     throws InvalidTypeException, InvalidInputException {
     	super(container, id, INT);
-    	this.originString = getContainer().asOriginString() + ".length";
 
     	//calculates hashCode
 		final int prime = 2357;
@@ -41,6 +40,9 @@ public final class PrimitiveSymbolicMemberArrayLength extends PrimitiveSymbolicM
     
     @Override
     public String asOriginString() {
+        if (this.originString == null) {
+            this.originString = getContainer().asOriginString() + ".length";
+        }
         return this.originString;
     }
     
@@ -10,7 +10,7 @@ import jbse.val.exc.InvalidTypeException;
 public final class PrimitiveSymbolicMemberField extends PrimitiveSymbolicMember implements SymbolicMemberField {
     private final String fieldName;
     private final String fieldClass;
-    private final String asOriginString;
+    private String asOriginString = null;
     private final int hashCode;
 
     /**
@@ -38,7 +38,6 @@ public final class PrimitiveSymbolicMemberField extends PrimitiveSymbolicMember
         }
         this.fieldName = fieldName;
         this.fieldClass = fieldClass;
-        this.asOriginString = getContainer().asOriginString() + "." + this.fieldClass + ":" + this.fieldName;
 
         //calculates hashCode
         final int prime = 7211;
@@ -61,6 +60,9 @@ public final class PrimitiveSymbolicMemberField extends PrimitiveSymbolicMember
 
     @Override
     public String asOriginString() {
+        if (this.asOriginString == null) {
+            this.asOriginString = getContainer().asOriginString() + "." + this.fieldClass + ":" + this.fieldName;
+        }
         return this.asOriginString;
     }
 
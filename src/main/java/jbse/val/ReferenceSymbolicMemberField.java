@@ -21,8 +21,8 @@ public final class ReferenceSymbolicMemberField extends ReferenceSymbolicMember
      */
     private final String fieldClass;
     
-    /** The origin String representation of this object. */
-    private final String asOriginString;
+    /** The origin String representation of this object, lazily calculated. */
+    private String asOriginString = null;
     
     /** The hash code of this object. */
     private final int hashCode;
@@ -56,7 +56,6 @@ public final class ReferenceSymbolicMemberField extends ReferenceSymbolicMember
         }
         this.fieldName = fieldName;
         this.fieldClass = fieldClass;
-        this.asOriginString = getContainer().asOriginString() + "." + this.fieldClass + ":" + this.fieldName;
 
         //calculates hashCode
         final int prime = 3671;
@@ -79,6 +78,9 @@ public final class ReferenceSymbolicMemberField extends ReferenceSymbolicMember
 
     @Override
     public String asOriginString() {
+        if (this.asOriginString == null) {
+            this.asOriginString = getContainer().asOriginString() + "." + this.fieldClass + ":" + this.fieldName;
+        }
         return this.asOriginString;
     }
     
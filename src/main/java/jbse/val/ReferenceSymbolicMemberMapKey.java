@@ -16,8 +16,8 @@ public final class ReferenceSymbolicMemberMapKey extends ReferenceSymbolicMember
 	/** The key origin specifier. */
 	private final String keyOriginSpecifier;
 	
-    /** The origin String representation of this object. */
-    private final String asOriginString;
+    /** The origin String representation of this object, lazily calculated. */
+    private String asOriginString = null;
     
 	/** The hash code of this object. */
     private final int hashCode;
@@ -45,7 +45,6 @@ public final class ReferenceSymbolicMemberMapKey extends ReferenceSymbolicMember
     	}
     	
     	this.keyOriginSpecifier = keyOriginSpecifier;
-    	this.asOriginString = getContainer().asOriginString() + "::" + this.keyOriginSpecifier;
 
     	//calculates hashCode
 		final int prime = 131111;
@@ -57,6 +56,9 @@ public final class ReferenceSymbolicMemberMapKey extends ReferenceSymbolicMember
 
     @Override
     public String asOriginString() {
+        if (this.asOriginString == null) {
+            this.asOriginString = getContainer().asOriginString() + "::" + this.keyOriginSpecifier;
+        }
         return this.asOriginString;
     }
     
@@ -19,8 +19,8 @@ public final class ReferenceSymbolicMemberMapValue extends ReferenceSymbolicMemb
     /** The current {@link HistoryPoint} (to disambiguate the state of {@link #key}). */
     private final HistoryPoint historyPoint;
     
-    /** The origin String representation of this object. */
-    private final String asOriginString;
+    /** The origin String representation of this object, lazily calculated. */
+    private String asOriginString = null;
     
 	/** The hash code of this object. */
     private final int hashCode;
@@ -47,7 +47,6 @@ public final class ReferenceSymbolicMemberMapValue extends ReferenceSymbolicMemb
     	
     	this.key = key;
     	this.historyPoint = historyPoint;
-    	this.asOriginString = getContainer().asOriginString() + "::GET[" + (this.key.isSymbolic() ? ((Symbolic) this.key).asOriginString() : this.key.toString()) + "@" + historyPoint.toString() + "]";
 
     	//calculates hashCode
 		final int prime = 131071;
@@ -78,6 +77,9 @@ public final class ReferenceSymbolicMemberMapValue extends ReferenceSymbolicMemb
     
     @Override
     public String asOriginString() {
+        if (this.asOriginString == null) {
+            this.asOriginString = getContainer().asOriginString() + "::GET[" + (this.key.isSymbolic() ? ((Symbolic) this.key).asOriginString() : this.key.toString()) + "@" + this.historyPoint.toString() + "]";
+        }
         return this.asOriginString;
     }
     
@@ -286,6 +286,18 @@ public final class SymbolFactory implements Cloneable {
         }
     }
 
+    /**
+     * Makes this factory create symbols with identifiers
+     * that another factory did not use yet, so the symbols
+     * created by the two factories are kept distinct.
+     * 
+     * @param other a {@link SymbolFactory}.
+     */
+    public void advancePast(SymbolFactory other) {
+        this.nextIdRefSym = Math.max(this.nextIdRefSym, other.nextIdRefSym);
+        this.nextIdPrimSym = Math.max(this.nextIdPrimSym, other.nextIdPrimSym);
+    }
+
     private int getNextIdPrimitiveSymbolic() {
         final int retVal = this.nextIdPrimSym++;
         return retVal;
@@ -18,7 +18,7 @@ import jbse.val.exc.InvalidTypeException;
 public final class WideningConversion extends PrimitiveSymbolicComputed {
     private final Primitive arg;
     private final String toString;
-    private final String asOriginString;
+    private String asOriginString = null;
     private final int hashCode;
 
     private WideningConversion(char type, Primitive arg) 
@@ -38,9 +38,6 @@ public final class WideningConversion extends PrimitiveSymbolicComputed {
         //calculates toString
         this.toString = "WIDEN-"+ getType() + "(" + arg.toString() + ")";
 
-        //calculates asOriginString
-        this.asOriginString = "WIDEN-"+ getType() + "(" + (arg.isSymbolic() ? ((Symbolic) arg).asOriginString(): arg.toString()) + ")";;
-
         //calculates hashCode
         final int prime = 281;
         int result = 1;
@@ -76,6 +73,9 @@ public final class WideningConversion extends PrimitiveSymbolicComputed {
     
 	@Override
 	public String asOriginString() {
+		if (this.asOriginString == null) {
+			this.asOriginString = "WIDEN-"+ getType() + "(" + (this.arg.isSymbolic() ? ((Symbolic) this.arg).asOriginString(): this.arg.toString()) + ")";
+		}
 		return this.asOriginString;
 	}
 
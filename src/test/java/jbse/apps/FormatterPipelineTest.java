@@ -0,0 +1,108 @@
+package jbse.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.mem.State;
+
+public class FormatterPipelineTest {
+    /**
+     * A {@link Formatter} that formats the prologue and the
+     * epilogue as fixed strings, and fails if asked to.
+     */
+    private static final class FormatterStub implements Formatter {
+        private final boolean fail;
+        private String text = "";
+
+        FormatterStub(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public void formatPrologue() {
+            if (this.fail) {
+                throw new IllegalStateException();
+            }
+            this.text = "prologue";
+        }
+
+        @Override
+        public void formatState(State s) {
+            this.text = "state";
+        }
+
+        @Override
+        public void formatEpilogue() {
+            this.text = "epilogue";
+        }
+
+        @Override
+        public String emit() {
+            return this.text;
+        }
+
+        @Override
+        public void cleanup() {
+            this.text = "";
+        }
+    }
+
+    @Test
+    public void testOutputAndActionsAreOrdered() {
+        final List<String> printed = Collections.synchronizedList(new ArrayList<>());
+        final FormatterPipeline p = new FormatterPipeline(new FormatterStub(false), printed::add, 2);
+        p.formatPrologue();
+        p.emit("out");
+        p.perform(() -> printed.add("log"));
+        p.formatEpilogue();
+        p.perform(() -> printed.add("err"));
+        p.close();
+        assertEquals(Arrays.asList("prologue", "out", "log", "epilogue", "err"), printed);
+    }
+
+    @Test
+    public void testPerformDoesNotWait() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch performed = new CountDownLatch(1);
+        final FormatterPipeline p = new FormatterPipeline(new FormatterStub(false), s -> { }, 2);
+        p.perform(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        p.perform(performed::countDown); //the queue has room, so it does not block
+        assertEquals(1, performed.getCount());
+        release.countDown();
+        assertTrue(performed.await(10, TimeUnit.SECONDS));
+        p.close();
+    }
+
+    @Test(expected = UnexpectedInternalException.class)
+    public void testFailureIsRethrown() {
+        final FormatterPipeline p = new FormatterPipeline(new FormatterStub(true), s -> { }, 2);
+        p.formatPrologue();
+        p.drain();
+    }
+
+    @Test
+    public void testCloseIsIdempotent() {
+        final List<String> printed = Collections.synchronizedList(new ArrayList<>());
+        final FormatterPipeline p = new FormatterPipeline(new FormatterStub(false), printed::add, 1);
+        p.emit("out");
+        p.close();
+        p.close();
+        assertEquals(Arrays.asList("out"), printed);
+    }
+}
@@ -0,0 +1,103 @@
+package jbse.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.apps.StateFormatterJUnitTestSuite.Writer;
+import jbse.common.Type;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterExpressionOrConversionOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.Simplex;
+import jbse.val.SymbolFactory;
+
+public class StateFormatterJUnitTestSuiteTest {
+    private CalculatorRewriting calc;
+    private PrimitiveSymbolic x, y;
+    private Writer writer;
+
+    @Before
+    public void setUp() throws Exception {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterExpressionOrConversionOnSimplex());
+        final SymbolFactory symbolFactory = new SymbolFactory();
+        this.x = symbolFactory.createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "I", "x");
+        this.y = symbolFactory.createSymbolLocalVariablePrimitive(HistoryPoint.unknown(), "I", "y");
+        this.writer = new Writer(Paths.get("."), 0); //not started
+    }
+
+    private List<Clause> pathCondition(Primitive... conditions) throws Exception {
+        final Clause[] retVal = new Clause[conditions.length];
+        for (int i = 0; i < conditions.length; ++i) {
+            retVal[i] = new ClauseAssume(conditions[i]);
+        }
+        return Arrays.asList(retVal);
+    }
+
+    private Map<PrimitiveSymbolic, Simplex> model(int xValue, int yValue) {
+        final HashMap<PrimitiveSymbolic, Simplex> retVal = new HashMap<>();
+        retVal.put(this.x, this.calc.valInt(xValue));
+        retVal.put(this.y, this.calc.valInt(yValue));
+        return retVal;
+    }
+
+    @Test
+    public void testDistinctTestCasesAreWritten() throws Exception {
+        final Primitive xGt0 = this.calc.push(this.x).gt(this.calc.valInt(0)).pop();
+        final Primitive xLe0 = this.calc.push(this.x).le(this.calc.valInt(0)).pop();
+        assertTrue(this.writer.firstOccurrence(pathCondition(xGt0), model(1, 0)));
+        assertTrue(this.writer.firstOccurrence(pathCondition(xLe0), model(1, 0)));
+        
+        //same path condition, different models
+        assertTrue(this.writer.firstOccurrence(pathCondition(xGt0), model(1, -1)));
+        assertTrue(this.writer.firstOccurrence(pathCondition(xGt0), model(-1, 1)));
+        assertTrue(this.writer.firstOccurrence(pathCondition(xGt0), null));
+        
+        //same clauses, different order
+        assertTrue(this.writer.firstOccurrence(pathCondition(xGt0, xLe0), null));
+        assertTrue(this.writer.firstOccurrence(pathCondition(xLe0, xGt0), null));
+    }
+
+    @Test
+    public void testDuplicateTestCaseIsDropped() throws Exception {
+        assertTrue(this.writer.firstOccurrence(pathCondition(this.calc.push(this.x).gt(this.y).pop()), model(2, 1)));
+        assertFalse(this.writer.firstOccurrence(pathCondition(this.calc.push(this.x).gt(this.y).pop()), model(2, 1)));
+        assertTrue(this.writer.firstOccurrence(Collections.emptyList(), null));
+        assertFalse(this.writer.firstOccurrence(Collections.emptyList(), null));
+    }
+
+    @Test
+    public void testResumeDeletesClassesAfterCheckpoint() throws Exception {
+        final Path dir = Files.createTempDirectory("suite");
+        for (int i = 0; i < 3; ++i) {
+            Files.write(dir.resolve("TestSuite_" + i + ".java"), new byte[0]);
+        }
+        final StateFormatterJUnitTestSuite f = new StateFormatterJUnitTestSuite(null, null, dir, 2);
+        f.resume(3, 1);
+        f.formatPrologue();
+        f.sync();
+        assertEquals(3, f.getTestCount());
+        assertEquals(1, f.getTestClassCount());
+        f.formatEpilogue();
+        assertTrue(Files.exists(dir.resolve("TestSuite_0.java")));
+        assertFalse(Files.exists(dir.resolve("TestSuite_1.java")));
+        assertFalse(Files.exists(dir.resolve("TestSuite_2.java")));
+    }
+}
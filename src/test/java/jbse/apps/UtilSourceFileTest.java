@@ -0,0 +1,107 @@
+package jbse.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the line index of the source files read by
+ * {@link Util#getSrcFileRow(String, List, String, int)}.
+ */
+public class UtilSourceFileTest {
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("src");
+    }
+
+    private List<Path> source(String className, String content) throws IOException {
+        Files.write(this.dir.resolve(className + ".java"), content.getBytes(StandardCharsets.UTF_8));
+        return Collections.singletonList(this.dir);
+    }
+
+    private static String row(String className, List<Path> srcPath, int row) {
+        return Util.getSrcFileRow(className, srcPath, File.separator, row);
+    }
+
+    @Test
+    public void testLineFeed() throws IOException {
+        final List<Path> srcPath = source("LF", "a\nbb\n\nccc\n");
+        assertEquals("a", row("LF", srcPath, 1));
+        assertEquals("bb", row("LF", srcPath, 2));
+        assertEquals("", row("LF", srcPath, 3));
+        assertEquals("ccc", row("LF", srcPath, 4));
+        assertNull(row("LF", srcPath, 5));
+    }
+
+    @Test
+    public void testCarriageReturn() throws IOException {
+        final List<Path> srcPath = source("CR", "a\rbb\r\rccc\r");
+        assertEquals("a", row("CR", srcPath, 1));
+        assertEquals("bb", row("CR", srcPath, 2));
+        assertEquals("", row("CR", srcPath, 3));
+        assertEquals("ccc", row("CR", srcPath, 4));
+        assertNull(row("CR", srcPath, 5));
+    }
+
+    @Test
+    public void testCarriageReturnLineFeed() throws IOException {
+        final List<Path> srcPath = source("CRLF", "a\r\nbb\r\n\r\nccc\r\n");
+        assertEquals("a", row("CRLF", srcPath, 1));
+        assertEquals("bb", row("CRLF", srcPath, 2));
+        assertEquals("", row("CRLF", srcPath, 3));
+        assertEquals("ccc", row("CRLF", srcPath, 4));
+        assertNull(row("CRLF", srcPath, 5));
+    }
+
+    @Test
+    public void testMixedTerminators() throws IOException {
+        final List<Path> srcPath = source("Mixed", "a\r\r\nb\n\rc");
+        assertEquals("a", row("Mixed", srcPath, 1));
+        assertEquals("", row("Mixed", srcPath, 2));
+        assertEquals("b", row("Mixed", srcPath, 3));
+        assertEquals("", row("Mixed", srcPath, 4));
+        assertEquals("c", row("Mixed", srcPath, 5));
+        assertNull(row("Mixed", srcPath, 6));
+    }
+
+    @Test
+    public void testLastLineWithoutTerminator() throws IOException {
+        final List<Path> srcPath = source("NoEOL", "a\nbb");
+        assertEquals("a", row("NoEOL", srcPath, 1));
+        assertEquals("bb", row("NoEOL", srcPath, 2));
+        assertNull(row("NoEOL", srcPath, 3));
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        final List<Path> srcPath = source("Empty", "");
+        assertNull(row("Empty", srcPath, 1));
+    }
+
+    @Test
+    public void testNestedClassAndZip() throws IOException {
+        final Path zip = this.dir.resolve("src.zip");
+        try (final ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zip))) {
+            zos.putNextEntry(new ZipEntry("p/Zipped.java"));
+            zos.write("a\r\nbb".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+        final List<Path> srcPath = Collections.singletonList(zip);
+        assertEquals("bb", row("p/Zipped$Inner", srcPath, 2));
+        assertNull(row("p/Missing", srcPath, 1));
+    }
+}
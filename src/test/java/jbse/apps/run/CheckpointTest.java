@@ -0,0 +1,85 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import org.junit.Test;
+
+import jbse.apps.run.DistributedCoordinator.SubtreeStats;
+import jbse.mem.DecisionVector;
+
+public class CheckpointTest {
+    private static Checkpoint checkpoint(long pathsTotal, int testCount, int testClassCount, String... branchIdentifiers) {
+        final SubtreeStats stats = new SubtreeStats();
+        stats.pathsTotal = pathsTotal;
+        stats.pathsSafe = pathsTotal;
+        final LinkedHashMap<String, DecisionVector> pending = new LinkedHashMap<>();
+        DecisionVector decisions = DecisionVector.EMPTY;
+        for (String branchIdentifier : branchIdentifiers) {
+            decisions = decisions.add(2, "IFX_False", true, true, true);
+            pending.put(branchIdentifier, decisions);
+        }
+        return new Checkpoint(stats, testCount, testClassCount, pending);
+    }
+
+    @Test
+    public void testNoFile() throws IOException {
+        final Path dir = Files.createTempDirectory("checkpoint");
+        assertNull(Checkpoint.readLast(dir.resolve("missing")));
+    }
+
+    @Test
+    public void testReadLast() throws IOException {
+        final Path file = Files.createTempFile("checkpoint", ".txt");
+        try {
+            checkpoint(1, 1, 1, ".1.2", ".1.1.2").appendTo(file);
+            checkpoint(3, 2, 2, ".1.1.2.2", ".1.2", ".1.1.2.1.3").appendTo(file);
+            final Checkpoint c = Checkpoint.readLast(file);
+            assertEquals(3, c.stats.pathsTotal);
+            assertEquals(3, c.stats.pathsSafe);
+            assertEquals(2, c.testCount);
+            assertEquals(2, c.testClassCount);
+            assertEquals(Arrays.asList(".1.1.2.2", ".1.2", ".1.1.2.1.3"), new ArrayList<>(c.pending.keySet()));
+            assertEquals(3, c.pending.get(".1.1.2.1.3").length());
+            assertTrue(c.pending.get(".1.2").chose(2, "IFX_False"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testIgnoreIncompleteCheckpoint() throws IOException {
+        final Path file = Files.createTempFile("checkpoint", ".txt");
+        try {
+            checkpoint(1, 0, 0, ".1.2").appendTo(file);
+            checkpoint(2, 0, 0, ".1.2.2", ".1.2.3").appendTo(file);
+
+            //simulates a crash while writing the last checkpoint
+            final byte[] content = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(content, content.length - 4));
+            assertEquals(1, Checkpoint.readLast(file).stats.pathsTotal);
+
+            //the next checkpoint is appended after the garbage
+            checkpoint(4, 0, 0).appendTo(file);
+            final Checkpoint c = Checkpoint.readLast(file);
+            assertEquals(4, c.stats.pathsTotal);
+            assertTrue(c.pending.isEmpty());
+
+            //an empty file has no checkpoints
+            Files.write(file, "CHECKPOINT\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+            assertNull(Checkpoint.readLast(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.jdi.VirtualMachine;
+
+import jbse.apps.run.DecisionProcedureGuidanceJDI.JVMJDI;
+import jbse.apps.run.DecisionProcedureGuidanceJDI.VMPool;
+import jbse.bc.Signature;
+import jbse.jvm.RunnerParameters;
+import jbse.rewr.CalculatorRewriting;
+
+public class DecisionProcedureGuidanceJDIVMPoolTest {
+    private static final String TARGET_CLASS = "jbse/apps/run/DecisionProcedureGuidanceJDIVMPoolTest$Target";
+
+    /** The program run by the target VMs. */
+    public static final class Target {
+        private int count = 0;
+
+        public void run() {
+            target();
+        }
+
+        private int target() {
+            return ++this.count;
+        }
+    }
+
+    private RunnerParameters runnerParameters;
+    private Signature stopSignature;
+
+    @Before
+    public void setUp() {
+        this.runnerParameters = new RunnerParameters();
+        this.runnerParameters.addUserClasspath(System.getProperty("java.class.path").split(File.pathSeparator));
+        this.runnerParameters.setJBSELibPath(Paths.get("."));
+        this.runnerParameters.setMethodSignature(TARGET_CLASS, "()V", "run");
+        this.stopSignature = new Signature(TARGET_CLASS, "()I", "target");
+    }
+
+    @Test
+    public void testReleasedVmIsNeverReused() throws Exception {
+        final VMPool pool = new VMPool(new CalculatorRewriting(), this.runnerParameters, this.stopSignature, 1, 1);
+        try {
+            final JVMJDI first = pool.take();
+            final VirtualMachine vm = first.vm;
+            pool.release(first);
+            assertNull(first.vm);
+            for (int i = 0; i < 3; ++i) {
+                final JVMJDI next = pool.take();
+                assertNotNull(next.vm);
+                assertNotSame(vm, next.vm);
+                pool.release(next);
+            }
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SortedMap;
+
+import org.junit.Test;
+
+import jbse.apps.run.DistributedCoordinator.SubtreeResult;
+import jbse.apps.run.DistributedCoordinator.SubtreeStats;
+import jbse.apps.run.RunParameters.PathTypes;
+
+public class DistributedCoordinatorTest {
+    private static void explore(DistributedWorker worker, String subtree) throws IOException {
+        worker.pathEnded(subtree + ".1", PathTypes.SAFE, " path is safe.");
+        worker.pathEnded(subtree + ".2", PathTypes.UNSAFE, " path violates an assertion.");
+        final SubtreeStats stats = new SubtreeStats();
+        stats.pathsTotal = 2;
+        stats.pathsSafe = 1;
+        stats.pathsUnsafe = 1;
+        worker.subtreeDone(stats);
+    }
+
+    private static Thread startWorker(int port, ArrayList<Throwable> failures) {
+        final Thread t = new Thread(() -> {
+            try (final DistributedWorker worker = new DistributedWorker("localhost", port)) {
+                String subtree;
+                while ((subtree = worker.nextSubtree()) != null) {
+                    explore(worker, subtree);
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            }
+        });
+        t.start();
+        return t;
+    }
+
+    @Test
+    public void testSeveralWorkers() throws IOException, InterruptedException {
+        final ArrayList<Throwable> failures = new ArrayList<>();
+        try (final DistributedCoordinator coordinator = new DistributedCoordinator(0, 0)) {
+            final Thread[] workers = new Thread[3];
+            for (int i = 0; i < workers.length; ++i) {
+                workers[i] = startWorker(coordinator.getLocalPort(), failures);
+            }
+            for (String subtree : Arrays.asList(".1.2.1", ".1.1.10", ".1.1.2", ".1.1.1")) {
+                coordinator.submit(subtree);
+            }
+            coordinator.closeSubmissions();
+            final SortedMap<String, SubtreeResult> results = coordinator.awaitResults();
+            for (Thread t : workers) {
+                t.join();
+            }
+            assertTrue(failures.isEmpty());
+            assertEquals(Arrays.asList(".1.1.1", ".1.1.2", ".1.1.10", ".1.2.1"), new ArrayList<>(results.keySet()));
+            final SubtreeStats total = new SubtreeStats();
+            for (SubtreeResult r : results.values()) {
+                assertEquals(2, r.paths.size());
+                total.add(r.stats);
+            }
+            assertEquals(8, total.pathsTotal);
+            assertEquals(4, total.pathsSafe);
+            assertEquals(".1.1.10.2", results.get(".1.1.10").paths.get(1).branchIdentifier);
+            assertTrue(coordinator.getFailedSubtrees().isEmpty());
+        }
+    }
+
+    @Test
+    public void testReassignFromFailedWorker() throws IOException, InterruptedException {
+        final ArrayList<Throwable> failures = new ArrayList<>();
+        try (final DistributedCoordinator coordinator = new DistributedCoordinator(0, 0)) {
+            coordinator.submit(".1.1");
+            coordinator.submit(".1.2");
+            coordinator.closeSubmissions();
+
+            //a worker that dies in the middle of a subtree
+            final String lost;
+            try (final DistributedWorker worker = new DistributedWorker("localhost", coordinator.getLocalPort())) {
+                lost = worker.nextSubtree();
+                worker.pathEnded(lost + ".1", PathTypes.SAFE, " path is safe.");
+            }
+
+            //a worker that explores everything, including the lost subtree
+            final Thread t = startWorker(coordinator.getLocalPort(), failures);
+            final SortedMap<String, SubtreeResult> results = coordinator.awaitResults();
+            t.join();
+            assertTrue(failures.isEmpty());
+            assertEquals(2, results.size());
+            assertEquals(2, results.get(lost).paths.size());
+            assertTrue(coordinator.getFailedSubtrees().isEmpty());
+        }
+    }
+
+    @Test
+    public void testAbandonAfterMaxAttempts() throws IOException, InterruptedException {
+        try (final DistributedCoordinator coordinator = new DistributedCoordinator(0, 0)) {
+            coordinator.submit(".1.1");
+            coordinator.closeSubmissions();
+            for (int i = 0; i < DistributedCoordinator.MAX_ATTEMPTS; ++i) {
+                try (final DistributedWorker worker = new DistributedWorker("localhost", coordinator.getLocalPort())) {
+                    assertEquals(".1.1", worker.nextSubtree());
+                    worker.subtreeFailed();
+                    if (i == DistributedCoordinator.MAX_ATTEMPTS - 1) {
+                        assertNull(worker.nextSubtree());
+                    }
+                }
+            }
+            assertTrue(coordinator.awaitResults().isEmpty());
+            assertEquals(Arrays.asList(".1.1"), new ArrayList<>(coordinator.getFailedSubtrees()));
+        }
+    }
+}
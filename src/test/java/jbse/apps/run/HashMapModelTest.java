@@ -0,0 +1,61 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import jbse.apps.run.DistributedCoordinator.SubtreeStats;
+import jbse.apps.run.RunParameters.DecisionProcedureType;
+import jbse.apps.run.RunParameters.StepShowMode;
+
+/**
+ * Checks the lookup of the keys in the bucketed {@code HashMap}
+ * model. The analyzed program is {@code jbse.apps.run.testdata.Maps},
+ * whose methods throw an {@link AssertionError} if a lookup in a
+ * {@code HashMap} gives a wrong answer: across a rehash, with
+ * concrete and symbolic keys, and after a clone.
+ */
+public class HashMapModelTest {
+    private static final String TARGET_CLASS = "jbse/apps/run/testdata/Maps";
+
+    private static SubtreeStats run(String descriptor, String methodName) {
+        final RunParameters p = new RunParameters();
+        p.setJBSELibPath(Paths.get("build/classes/java/main"));
+        p.addUserClasspath(Paths.get("src/test/resources/jbse/apps/run/testdata"));
+        p.setMethodSignature(TARGET_CLASS, descriptor, methodName);
+        p.setDecisionProcedureType(DecisionProcedureType.ALL_SAT);
+        p.setUseHashMapModels(true);
+        p.setStepShowMode(StepShowMode.NONE);
+        p.setShowOnConsole(false);
+        p.setShowInfo(false);
+        final Run r = new Run(p);
+        assertEquals(0, r.run());
+        return r.getSubtreeStats();
+    }
+
+    private static void assertAllSafe(SubtreeStats stats) {
+        assertTrue(stats.pathsSafe > 0);
+        assertEquals(0, stats.pathsUnsafe);
+        assertEquals(0, stats.pathsOutOfScope);
+    }
+
+    @Test
+    public void testPutGetRemoveAcrossRehash() {
+        final SubtreeStats stats = run("()I", "rehash");
+        assertAllSafe(stats);
+        assertEquals(1, stats.pathsSafe); //no key is symbolic
+    }
+
+    @Test
+    public void testMixedConcreteAndSymbolicKeys() {
+        assertAllSafe(run("(Ljava/lang/Integer;Ljava/lang/String;)I", "mixed"));
+    }
+
+    @Test
+    public void testClone() {
+        assertAllSafe(run("(Ljava/lang/Integer;)I", "cloned"));
+    }
+}
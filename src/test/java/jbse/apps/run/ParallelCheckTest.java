@@ -0,0 +1,106 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import jbse.apps.run.DistributedCoordinator.SubtreeStats;
+import jbse.apps.run.RunParameters.DecisionProcedureType;
+import jbse.apps.run.RunParameters.StepShowMode;
+
+/**
+ * Checks that the concretization checks yield the same results
+ * when they are run in parallel and when they are run sequentially.
+ * The analyzed program is {@code jbse.apps.run.testdata.TwoLists}, 
+ * an object with two linked lists whose concretization methods
+ * bound the length of the lists.
+ */
+public class ParallelCheckTest {
+    private static final String TARGET_CLASS = "jbse/apps/run/testdata/TwoLists";
+    private static final String NODE_CLASS = TARGET_CLASS + "$Node";
+
+    private static final class Outcome {
+        final SubtreeStats stats;
+        final List<String> concretizationLines;
+        
+        Outcome(SubtreeStats stats, List<String> concretizationLines) {
+            this.stats = stats;
+            this.concretizationLines = concretizationLines;
+        }
+    }
+
+    private static Outcome run(int heapCheckParallelism, int concretizationParallelism) throws IOException {
+        final Path out = Files.createTempFile("parallel", ".txt");
+        try {
+            final RunParameters p = new RunParameters();
+            p.setJBSELibPath(Paths.get("build/classes/java/main"));
+            p.addUserClasspath(Paths.get("src/test/resources/jbse/apps/run/testdata"));
+            p.setMethodSignature(TARGET_CLASS, "()I", "sum");
+            p.setDecisionProcedureType(DecisionProcedureType.ALL_SAT);
+            p.setDoConcretization(true);
+            p.addConcretizationMethod(TARGET_CLASS, "concretize");
+            p.addConcretizationMethod(NODE_CLASS, "concretize");
+            p.setHeapScope(NODE_CLASS, 4);
+            p.setDepthScope(200);
+            p.setCountScope(2000);
+            p.setHeapCheckParallelism(heapCheckParallelism);
+            p.setConcretizationParallelism(concretizationParallelism);
+            p.setStepShowMode(StepShowMode.NONE);
+            p.setShowOnConsole(false);
+            p.setShowInfo(false);
+            p.setShowWarnings(true);
+            p.setOutputFilePath(out);
+            final Run r = new Run(p);
+            assertEquals(0, r.run());
+            
+            final ArrayList<String> lines = new ArrayList<>();
+            for (String line : Files.readAllLines(out, StandardCharsets.UTF_8)) {
+                if (line.contains("concretizable")) {
+                    lines.add(line);
+                }
+            }
+            Collections.sort(lines);
+            return new Outcome(r.getSubtreeStats(), lines);
+        } finally {
+            Files.delete(out);
+        }
+    }
+    
+    private static void assertSameOutcome(Outcome expected, Outcome actual) {
+        assertEquals(expected.stats.analyzedStates, actual.stats.analyzedStates);
+        assertEquals(expected.stats.pathsTotal, actual.stats.pathsTotal);
+        assertEquals(expected.stats.pathsSafe, actual.stats.pathsSafe);
+        assertEquals(expected.stats.pathsUnsafe, actual.stats.pathsUnsafe);
+        assertEquals(expected.stats.pathsOutOfScope, actual.stats.pathsOutOfScope);
+        assertEquals(expected.stats.pathsConcretizableSafe, actual.stats.pathsConcretizableSafe);
+        assertEquals(expected.stats.pathsConcretizableUnsafe, actual.stats.pathsConcretizableUnsafe);
+        assertEquals(expected.stats.pathsConcretizableOutOfScope, actual.stats.pathsConcretizableOutOfScope);
+        assertEquals(expected.concretizationLines, actual.concretizationLines);
+    }
+
+    @Test
+    public void testParallelHeapCheck() throws IOException {
+        final Outcome sequential = run(1, 1);
+        assertFalse(sequential.concretizationLines.isEmpty());
+        assertTrue(sequential.stats.pathsConcretizableSafe > 0);
+        assertSameOutcome(sequential, run(4, 1));
+    }
+
+    @Test
+    public void testParallelConcretization() throws IOException {
+        final Outcome sequential = run(1, 1);
+        assertSameOutcome(sequential, run(1, 4));
+        assertSameOutcome(sequential, run(4, 4));
+    }
+}
@@ -0,0 +1,51 @@
+package jbse.apps.run;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import jbse.apps.run.DistributedCoordinator.SubtreeStats;
+import jbse.apps.run.RunParameters.DecisionProcedureType;
+import jbse.apps.run.RunParameters.StepShowMode;
+
+/**
+ * Checks the merging of states at join points. The analyzed
+ * program is {@code jbse.apps.run.testdata.Loop}, a loop with 
+ * a symbolic bound {@code n} whose body branches on a 
+ * symbolic value {@code x} and joins.
+ */
+public class StateMergingTest {
+    private static final String TARGET_CLASS = "jbse/apps/run/testdata/Loop";
+
+    private static SubtreeStats run(int stateMergeMaxValues) {
+        final RunParameters p = new RunParameters();
+        p.setJBSELibPath(Paths.get("build/classes/java/main"));
+        p.addUserClasspath(Paths.get("src/test/resources/jbse/apps/run/testdata"));
+        p.setMethodSignature(TARGET_CLASS, "(II)I", "count");
+        p.setDecisionProcedureType(DecisionProcedureType.ALL_SAT);
+        p.setStateMergeMaxValues(stateMergeMaxValues);
+        p.setDepthScope(12);
+        p.setStepShowMode(StepShowMode.NONE);
+        p.setShowOnConsole(false);
+        p.setShowInfo(false);
+        final Run r = new Run(p);
+        assertEquals(0, r.run());
+        return r.getSubtreeStats();
+    }
+
+    @Test
+    public void testLoopWithSymbolicBound() {
+        final SubtreeStats unmerged = run(0);
+        final SubtreeStats merged = run(1);
+        
+        //every iteration doubles the paths, unless the 
+        //two branches of the loop body are merged
+        assertTrue(merged.pathsTotal > 0);
+        assertTrue(merged.pathsTotal < unmerged.pathsTotal);
+        assertTrue(merged.analyzedStates < unmerged.analyzedStates);
+        assertEquals(0, merged.pathsUnsafe);
+    }
+}
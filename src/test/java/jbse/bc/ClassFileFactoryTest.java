@@ -977,5 +977,22 @@ public class ClassFileFactoryTest {
         c.getMethodCodeBySignature(sig);
     }
 
+    /**
+     * Line numbers, looked up by program counter.
+     */
+    @Test
+    public void testGetLineNumberTable1() throws IOException, ClassFileIllFormedException, InvalidInputException, MethodNotFoundException, MethodCodeNotFoundException {
+        String className = "tsafe/main/SimpleCalculator";
+        byte[] b = getFromFile(className);
+        ClassFile c = f.newClassFileClass(0, className, b, null, null);         
+        Signature sig = new Signature(className, "(Ltsafe/data/LatLonBounds;)V", "<init>");
+        LineNumberTable lnt = c.getLineNumberTable(sig);
+        assertEquals(46, lnt.getLineNumber(0, -1));
+        assertEquals(47, lnt.getLineNumber(11, -1));
+        assertEquals(48, lnt.getLineNumber(12, -1));
+        assertEquals(49, lnt.getLineNumber(20, -1));
+        assertSame(lnt, c.getLineNumberTable(sig));
+    }
+
     //TODO hasField/getLocalVariableTable/getMethodCodeBySignature (to complete), array classes
 }
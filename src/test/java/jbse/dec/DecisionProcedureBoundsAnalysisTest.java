@@ -0,0 +1,165 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFile;
+import jbse.bc.exc.InvalidClassFileFactoryClassException;
+import jbse.common.Type;
+import jbse.common.exc.InvalidInputException;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.mem.Objekt;
+import jbse.mem.exc.ContradictionException;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterNegationElimination;
+import jbse.rewr.RewriterExpressionOrConversionOnSimplex;
+import jbse.rewr.RewriterFunctionApplicationOnSimplex;
+import jbse.rewr.RewriterZeroUnit;
+import jbse.val.Calculator;
+import jbse.val.Expression;
+import jbse.val.HistoryPoint;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Term;
+import jbse.val.exc.InvalidOperandException;
+import jbse.val.exc.InvalidTypeException;
+
+public class DecisionProcedureBoundsAnalysisTest {
+	HistoryPoint hist;
+	CalculatorRewriting calc;
+	DecisionProcedureBoundsAnalysis dec;
+
+	static class NoDecisionException extends DecisionException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	static class DecisionProcedureNoDecision implements DecisionProcedure {
+		private final CalculatorRewriting calc;
+		protected DecisionProcedureNoDecision(CalculatorRewriting calc) { this.calc = calc; }
+
+		@Override
+		public Calculator getCalculator() { return this.calc; }
+
+		@Override
+		public void pushAssumption(Clause c) { }
+
+		@Override
+		public void clearAssumptions() { }
+
+		@Override
+		public List<Clause> getAssumptions()
+		throws DecisionException { return null; }
+
+		@Override
+		public boolean isSat(Expression exp)
+		throws DecisionException { throw new NoDecisionException(); }
+
+		@Override
+		public boolean isSatNull(ReferenceSymbolic r)
+		throws DecisionException { throw new NoDecisionException(); }
+
+		@Override
+		public boolean isSatAliases(ReferenceSymbolic r, long heapPos, Objekt o)
+		throws DecisionException { throw new NoDecisionException(); }
+
+		@Override
+		public boolean isSatExpands(ReferenceSymbolic r, ClassFile classFile)
+		throws DecisionException { throw new NoDecisionException(); }
+
+		@Override
+		public boolean isSatInitialized(ClassFile classFile)
+		throws DecisionException { throw new NoDecisionException(); }
+
+		@Override
+		public boolean isSatNotInitialized(ClassFile classFile)
+		throws DecisionException { throw new NoDecisionException(); }
+	}
+
+	@Before
+	public void setUp() throws InvalidClassFileFactoryClassException, IOException, InvalidInputException {
+		this.hist = HistoryPoint.unknown();
+		this.calc = new CalculatorRewriting();
+		this.calc.addRewriter(new RewriterExpressionOrConversionOnSimplex());
+		this.calc.addRewriter(new RewriterFunctionApplicationOnSimplex());
+		this.calc.addRewriter(new RewriterZeroUnit());
+		this.calc.addRewriter(new RewriterNegationElimination());
+		this.dec = new DecisionProcedureBoundsAnalysis(new DecisionProcedureNoDecision(this.calc));
+	}
+
+	@Test
+	public void simpleTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+		//|-/- I < L && I >= L + 1
+		final Term I = this.calc.valTerm(Type.INT, "I");
+		final Term L = this.calc.valTerm(Type.INT, "L");
+		assertFalse(this.dec.isSat((Expression) this.calc.push(I).lt(L).and(this.calc.push(I).ge(this.calc.push(L).add(this.calc.valInt(1)).pop()).pop()).pop()));
+	}
+
+	@Test
+	public void simpleTest2()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+		//A >= 0, A < 10 |- A == 5
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).ge(this.calc.valInt(0)).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).lt(this.calc.valInt(10)).pop()));
+		assertTrue(this.dec.isSat((Expression) this.calc.push(A).eq(this.calc.valInt(5)).pop()));
+	}
+
+	@Test
+	public void transitiveTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+		//A - B <= 3, B - C < 3 |-/- A - C > 5
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		final Term C = this.calc.valTerm(Type.INT, "C");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).sub(B).le(this.calc.valInt(3)).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(B).sub(C).lt(this.calc.valInt(3)).pop()));
+		assertFalse(this.dec.isSat((Expression) this.calc.push(A).sub(C).gt(this.calc.valInt(5)).pop()));
+	}
+
+	@Test
+	public void disequalityTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+		//A != 3, A >= 3 |-/- A <= 3
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).ne(this.calc.valInt(3)).pop()));
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).ge(this.calc.valInt(3)).pop()));
+		assertFalse(this.dec.isSat((Expression) this.calc.push(A).le(this.calc.valInt(3)).pop()));
+	}
+
+	@Test(expected=NoDecisionException.class)
+	public void outOfTheoryTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+		//A * B > 0 |-?- A > 0
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).mul(B).gt(this.calc.valInt(0)).pop()));
+		this.dec.isSat((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop());
+	}
+
+	@Test
+	public void popTest1()
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+		//X > 0, Y > 0, A > 5, then back to X > 0, Y > 0 |- A <= 5
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term X = this.calc.valTerm(Type.INT, "X");
+		final Term Y = this.calc.valTerm(Type.INT, "Y");
+		final ClauseAssume xPos = new ClauseAssume((Expression) this.calc.push(X).gt(this.calc.valInt(0)).pop());
+		final ClauseAssume yPos = new ClauseAssume((Expression) this.calc.push(Y).gt(this.calc.valInt(0)).pop());
+		this.dec.pushAssumption(xPos);
+		this.dec.pushAssumption(yPos);
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valInt(5)).pop()));
+		assertFalse(this.dec.isSat((Expression) this.calc.push(A).le(this.calc.valInt(5)).pop()));
+		this.dec.setAssumptions(Arrays.asList(xPos, yPos));
+		assertTrue(this.dec.isSat((Expression) this.calc.push(A).le(this.calc.valInt(5)).pop()));
+	}
+}
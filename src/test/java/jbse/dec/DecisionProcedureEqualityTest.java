@@ -1,8 +1,10 @@
 package jbse.dec;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -201,4 +203,43 @@ public class DecisionProcedureEqualityTest {
         this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).add(this.calc.pushInt(-1).mul(B).pop()).eq(this.calc.valInt(0)).pop()));
         assertFalse(this.dec.isSat((Expression) this.calc.push(A).add(this.calc.pushInt(-1).mul(B).pop()).ne(this.calc.valInt(0)).pop()));
     }	
+
+    @Test(expected=NoDecisionException.class)
+    public void popTest1() 
+    throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+        //X == Y, A == B, B == C, then back to X == Y, A == B |-/- A != B, |-?- A != C
+    	final Term A = this.calc.valTerm(Type.INT, "A");
+    	final Term B = this.calc.valTerm(Type.INT, "B");
+    	final Term C = this.calc.valTerm(Type.INT, "C");
+    	final Term X = this.calc.valTerm(Type.INT, "X");
+    	final Term Y = this.calc.valTerm(Type.INT, "Y");
+    	final ClauseAssume xEqY = new ClauseAssume((Expression) this.calc.push(X).eq(Y).pop());
+    	final ClauseAssume aEqB = new ClauseAssume((Expression) this.calc.push(A).eq(B).pop());
+        this.dec.pushAssumption(xEqY);
+        this.dec.pushAssumption(aEqB);
+        this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(B).eq(C).pop()));
+        this.dec.setAssumptions(Arrays.asList(xEqY, aEqB));
+        assertFalse(this.dec.isSat((Expression) this.calc.push(A).ne(B).pop()));
+        this.dec.isSat((Expression) this.calc.push(A).ne(C).pop());
+    }
+
+    @Test
+    public void rawAssumptionsTest1() 
+    throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+        //X == Y, f(X) == A, f(Y) == B: one of the last two is unified,
+        //but the local assumptions are the clauses as pushed
+    	final Term A = this.calc.valTerm(Type.INT, "A");
+    	final Term B = this.calc.valTerm(Type.INT, "B");
+    	final Term X = this.calc.valTerm(Type.INT, "X");
+    	final Term Y = this.calc.valTerm(Type.INT, "Y");
+    	final ClauseAssume xEqY = new ClauseAssume((Expression) this.calc.push(X).eq(Y).pop());
+    	final ClauseAssume fxEqA = new ClauseAssume((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "f", X).eq(A).pop());
+    	final ClauseAssume fyEqB = new ClauseAssume((Expression) this.calc.applyFunctionPrimitive(Type.INT, this.hist, "f", Y).eq(B).pop());
+        this.dec.pushAssumption(xEqY);
+        this.dec.pushAssumption(fxEqA);
+        this.dec.pushAssumption(fyEqB);
+        assertEquals(Arrays.asList(xEqY, fxEqA, fyEqB), this.dec.getAssumptionsLocal());
+        this.dec.setAssumptions(Arrays.asList(xEqY, fxEqA));
+        assertEquals(Arrays.asList(xEqY, fxEqA), this.dec.getAssumptionsLocal());
+    }
 }
@@ -0,0 +1,202 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.common.Type;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterExpressionOrConversionOnSimplex;
+import jbse.val.Primitive;
+import jbse.val.Term;
+import jbse.val.exc.InvalidOperandException;
+import jbse.val.exc.InvalidTypeException;
+
+/**
+ * Tests the time budget of the queries and the portfolio of
+ * solvers with fake solvers, shell scripts that answer success
+ * to all the commands and misbehave on {@code check-sat}.
+ */
+public class DecisionProcedureExternalInterfacePortfolioTest {
+    private CalculatorRewriting calc;
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterExpressionOrConversionOnSimplex());
+        this.dir = Files.createTempDirectory("solver");
+    }
+
+    /**
+     * Makes a fake solver that logs all the received lines.
+     *
+     * @param name the name of the solver.
+     * @param checkSat the shell commands executed upon a {@code check-sat}.
+     *        A command that hangs must be {@code exec}uted, so that 
+     *        killing the solver closes its output. The variable 
+     *        {@code d} holds the number of pushed scopes.
+     * @return the command line of the solver.
+     */
+    private List<String> solver(String name, String checkSat) throws IOException {
+        final Path script = this.dir.resolve(name + ".sh");
+        final String log = this.dir.resolve(name + ".log").toString();
+        final String marker = this.dir.resolve(name + ".marker").toString();
+        Files.write(script, (
+            "while IFS= read -r l; do\n" +
+            "  echo \"$l\" >> " + log + "\n" +
+            "  case \"$l\" in\n" +
+            "    \"(check-sat)\") " + checkSat.replace("MARKER", marker) + ";;\n" +
+            "    \"(push 1)\") d=$((d+1)); echo success;;\n" +
+            "    \"(pop 1)\") d=$((d-1)); echo success;;\n" +
+            "    \"(exit)\") exit 0;;\n" +
+            "    *) echo success;;\n" +
+            "  esac\n" +
+            "done\n").getBytes(StandardCharsets.UTF_8));
+        return Arrays.asList("/bin/sh", script.toString());
+    }
+
+    private long count(String name, String line) throws IOException {
+        return Files.readAllLines(this.dir.resolve(name + ".log")).stream().filter(line::equals).count();
+    }
+
+    private Primitive gt(String symbol, int value) throws InvalidOperandException, InvalidTypeException {
+        final Term t = this.calc.valTerm(Type.INT, symbol);
+        return this.calc.push(t).gt(this.calc.valInt(value)).pop();
+    }
+
+    @Test
+    public void testTimeoutRestartsSolver() throws Exception {
+        //hangs on the first check-sat, answers unsat to the next ones
+        final List<String> hangOnce = solver("hangOnce", "if [ -e MARKER ]; then echo unsat; else touch MARKER; exec sleep 60; fi");
+        final DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extIf =
+            new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(this.calc, hangOnce, false, 300, true);
+        extIf.sendClauseAssume(gt("A", 0));
+        extIf.pushAssumption(true);
+
+        extIf.sendClauseAssume(gt("B", 1));
+        assertTrue(extIf.checkSat(true)); //timed out, treated as sat
+        extIf.retractClause();
+        assertEquals(1, extIf.getQueriesTimedOut());
+        assertTrue(extIf.isWorking());
+        assertEquals(2, count("hangOnce", "(set-logic AUFNIRA)")); //restarted
+        assertEquals(2, count("hangOnce", "(assert (> A 0))")); //assumption pushed again
+
+        extIf.sendClauseAssume(gt("B", 2));
+        assertFalse(extIf.checkSat(true));
+        extIf.retractClause();
+        assertEquals(1, extIf.getQueriesTimedOut());
+        extIf.quit();
+    }
+
+    @Test
+    public void testTimeoutWithAnswerKeepsAssumptions() throws Exception {
+        //answers at once, and logs the number of scopes pushed 
+        //at every check-sat
+        final List<String> prompt = solver("prompt", "echo $d >> MARKER; echo unsat");
+        final DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extIf =
+            new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(this.calc, prompt, false, 100, true);
+        extIf.sendClauseAssume(gt("A", 0));
+        extIf.pushAssumption(true);
+
+        //the alarm fires after the answer is read
+        extIf.afterAnswer = () -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        extIf.sendClauseAssume(gt("B", 1));
+        assertFalse(extIf.checkSat(true)); //the answer is kept
+        extIf.retractClause();
+        assertEquals(0, extIf.getQueriesTimedOut());
+        assertTrue(extIf.isWorking());
+        assertEquals(2, count("prompt", "(set-logic AUFNIRA)")); //restarted
+        assertEquals(0, count("prompt", "(pop 1)")); //the restart pops the query
+
+        //the assumption is still there
+        extIf.afterAnswer = null;
+        extIf.sendClauseAssume(gt("B", 2));
+        assertFalse(extIf.checkSat(true));
+        extIf.retractClause();
+        assertEquals(2, count("prompt", "(set-logic AUFNIRA)"));
+        assertEquals(1, count("prompt", "(pop 1)"));
+        
+        //the prologue scope, the assumption and the query
+        assertEquals(Arrays.asList("3", "3"), Files.readAllLines(this.dir.resolve("prompt.marker")));
+        extIf.quit();
+    }
+
+    @Test
+    public void testUnknownIsUndecided() throws Exception {
+        final List<String> unknown = solver("unknown", "echo unknown");
+        final DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extIf =
+            new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(this.calc, unknown, false, 0, false);
+        extIf.sendClauseAssume(gt("A", 0));
+        assertFalse(extIf.checkSat(true)); //path killed
+        extIf.retractClause();
+        assertEquals(0, extIf.getQueriesTimedOut());
+        assertEquals(1, extIf.getQueriesUnknown());
+        extIf.quit();
+    }
+
+    @Test
+    public void testPortfolioTakesFirstDefiniteAnswer() throws Exception {
+        final List<String> slow = solver("slow", "exec sleep 60");
+        final List<String> unknown = solver("unknown", "echo unknown");
+        final List<String> fast = solver("fast", "echo unsat");
+        final DecisionProcedureExternalInterfacePortfolio extIf =
+            new DecisionProcedureExternalInterfacePortfolio(this.calc, Arrays.asList(slow, unknown, fast), false, 0, true);
+        extIf.sendClauseAssume(gt("A", 0));
+        extIf.pushAssumption(true);
+        for (int i = 1; i <= 2; ++i) {
+            extIf.sendClauseAssume(gt("B", i));
+            assertFalse(extIf.checkSat(true));
+            extIf.retractClause();
+        }
+        assertEquals(0, extIf.getQueriesTimedOut());
+        assertEquals(0, extIf.getQueriesUnknown());
+
+        //the slow solver was killed and restarted at every race
+        assertEquals(3, count("slow", "(set-logic AUFNIRA)"));
+        assertEquals(3, count("slow", "(assert (> A 0))"));
+        extIf.quit();
+    }
+
+    @Test
+    public void testPortfolioDropsFailedSolver() throws Exception {
+        final List<String> crash = solver("crash", "exit 1");
+        final List<String> unknown = solver("unknown", "echo unknown");
+        final DecisionProcedureExternalInterfacePortfolio extIf =
+            new DecisionProcedureExternalInterfacePortfolio(this.calc, Arrays.asList(crash, unknown), false, 0, true);
+        extIf.sendClauseAssume(gt("A", 0));
+        assertTrue(extIf.checkSat(true)); //undecided, treated as sat
+        extIf.retractClause();
+        assertEquals(1, extIf.getQueriesUnknown());
+        assertTrue(extIf.isWorking());
+        extIf.sendClauseAssume(gt("A", 1));
+        extIf.pushAssumption(true);
+        extIf.quit();
+    }
+
+    @Test(expected = IOException.class)
+    public void testPortfolioFailsWhenAllSolversFail() throws Exception {
+        final List<String> crash1 = solver("crash1", "exit 1");
+        final List<String> crash2 = solver("crash2", "exit 1");
+        final DecisionProcedureExternalInterfacePortfolio extIf =
+            new DecisionProcedureExternalInterfacePortfolio(this.calc, Arrays.asList(crash1, crash2), false, 0, true);
+        extIf.sendClauseAssume(gt("A", 0));
+        extIf.checkSat(true);
+    }
+}
@@ -0,0 +1,136 @@
+package jbse.dec;
+
+import static jbse.bc.Signatures.JAVA_STRING;
+import static jbse.bc.Signatures.JAVA_STRING_EQUALS;
+import static jbse.bc.Signatures.JAVA_STRING_INDEXOF_INT;
+import static jbse.bc.Signatures.JAVA_STRING_LENGTH;
+import static jbse.bc.Signatures.JAVA_STRING_VALUE;
+import static jbse.common.Type.INT;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterExpressionOrConversionOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Primitive;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.SymbolFactory;
+
+/**
+ * Tests the translation to the SMTLIB2 strings theory with a fake
+ * solver, a shell script that answers success to all the commands,
+ * sat to all the {@code check-sat}s, and logs all the received lines.
+ */
+public class DecisionProcedureExternalInterfaceStringTheoryTest {
+    private CalculatorRewriting calc;
+    private SymbolFactory symbolFactory;
+    private Path log;
+    private DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extIf;
+
+    @Before
+    public void setUp() throws Exception {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterExpressionOrConversionOnSimplex());
+        this.symbolFactory = new SymbolFactory();
+        final Path dir = Files.createTempDirectory("solver");
+        final Path script = dir.resolve("solver.sh");
+        this.log = dir.resolve("solver.log");
+        Files.write(script, (
+            "while IFS= read -r l; do\n" +
+            "  echo \"$l\" >> " + this.log + "\n" +
+            "  case \"$l\" in\n" +
+            "    \"(check-sat)\") echo sat;;\n" +
+            "    \"(exit)\") exit 0;;\n" +
+            "    *) echo success;;\n" +
+            "  esac\n" +
+            "done\n").getBytes(StandardCharsets.UTF_8));
+        final List<String> solver = Arrays.asList("/bin/sh", script.toString());
+        this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(this.calc, solver, true, 0, true);
+    }
+
+    private ReferenceSymbolic string(String name) throws Exception {
+        return this.symbolFactory.createSymbolLocalVariableReference(HistoryPoint.unknown(), "L" + JAVA_STRING + ";", "L" + JAVA_STRING + ";", name);
+    }
+
+    private ReferenceSymbolic value(ReferenceSymbolic string) throws Exception {
+        return this.symbolFactory.createSymbolMemberFieldReference(JAVA_STRING_VALUE.getDescriptor(), JAVA_STRING_VALUE.getDescriptor(), string, JAVA_STRING_VALUE.getName(), JAVA_STRING_VALUE.getClassName());
+    }
+
+    private String toSMTLIB2(Object symbol) {
+        final String s = symbol.toString();
+        return (s.charAt(0) == '{' ? s.substring(1, s.length() - 1) : s);
+    }
+
+    private List<String> check(Primitive clause) throws Exception {
+        this.extIf.sendClauseAssume(clause);
+        assertTrue(this.extIf.checkSat(true));
+        this.extIf.retractClause();
+        this.extIf.quit();
+        return Files.readAllLines(this.log);
+    }
+
+    private static void assertContains(List<String> lines, String line) {
+        assertTrue("missing " + line + " in " + lines, lines.contains(line));
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        final ReferenceSymbolic s = string("s");
+        final ReferenceSymbolic t = string("t");
+        final Primitive equals = this.calc.applyFunctionPrimitive(INT, HistoryPoint.unknown(), JAVA_STRING_EQUALS.toString(), s, t).pop();
+        final List<String> lines = check(this.calc.push(equals).ne(this.calc.valInt(0)).pop());
+        assertContains(lines, "(declare-fun STR_" + toSMTLIB2(s) + " () String)");
+        assertContains(lines, "(declare-fun STR_" + toSMTLIB2(t) + " () String)");
+        assertContains(lines, "(assert (not (= (ite (= STR_" + toSMTLIB2(s) + " STR_" + toSMTLIB2(t) + ") 1 0) 0)))");
+    }
+
+    @Test
+    public void testIndexOf() throws Exception {
+        final ReferenceSymbolic s = string("s");
+        final Primitive indexOf = this.calc.applyFunctionPrimitive(INT, HistoryPoint.unknown(), JAVA_STRING_INDEXOF_INT.toString(), s, this.calc.valInt('a')).pop();
+        final List<String> lines = check(this.calc.push(indexOf).ge(this.calc.valInt(0)).pop());
+        assertContains(lines, "(assert (>= (ite (and (<= 0 97) (<= 97 65535)) (str.indexof STR_" + toSMTLIB2(s) + " (str.from_code 97) 0) (- 1)) 0))");
+    }
+
+    @Test
+    public void testLength() throws Exception {
+        final ReferenceSymbolic s = string("s");
+        final Primitive length = this.calc.applyFunctionPrimitive(INT, HistoryPoint.unknown(), JAVA_STRING_LENGTH.toString(), s).pop();
+        final List<String> lines = check(this.calc.push(length).gt(this.calc.valInt(3)).pop());
+        assertContains(lines, "(assert (> (str.len STR_" + toSMTLIB2(s) + ") 3))");
+    }
+
+    @Test
+    public void testLengthAxiom() throws Exception {
+        final ReferenceSymbolic s = string("s");
+        final Primitive arrayLength = this.symbolFactory.createSymbolMemberArrayLength(value(s));
+        final Primitive length = this.calc.applyFunctionPrimitive(INT, HistoryPoint.unknown(), JAVA_STRING_LENGTH.toString(), s).pop();
+        final List<String> lines = check(this.calc.push(arrayLength).eq(length).pop());
+        assertContains(lines, "(assert (= " + toSMTLIB2(arrayLength) + " (str.len STR_" + toSMTLIB2(s) + ")))");
+    }
+
+    @Test
+    public void testCharacterAxiom() throws Exception {
+        final ReferenceSymbolic s = string("s");
+        final Primitive ch = this.symbolFactory.createSymbolMemberArrayPrimitive("C", value(s), this.calc.valInt(2));
+        final Primitive length = this.calc.applyFunctionPrimitive(INT, HistoryPoint.unknown(), JAVA_STRING_LENGTH.toString(), s).pop();
+        final List<String> lines = check(this.calc.push(ch).widen(INT).gt(length).pop());
+        assertContains(lines, "(assert (=> (and (<= 0 2) (< 2 (str.len STR_" + toSMTLIB2(s) + "))) (= " + toSMTLIB2(ch) + " (str.to_code (str.at STR_" + toSMTLIB2(s) + " 2)))))");
+    }
+
+    @Test
+    public void testCharConstantIsItsCode() throws Exception {
+        final ReferenceSymbolic s = string("s");
+        final Primitive ch = this.symbolFactory.createSymbolMemberArrayPrimitive("C", value(s), this.calc.valInt(0));
+        final List<String> lines = check(this.calc.push(ch).eq(this.calc.valChar('a')).pop());
+        assertContains(lines, "(assert (= " + toSMTLIB2(ch) + " 97))");
+    }
+}
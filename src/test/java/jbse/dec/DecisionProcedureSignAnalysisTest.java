@@ -4,6 +4,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -447,4 +448,21 @@ public class DecisionProcedureSignAnalysisTest {
 		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.pushDouble(-1.0d).mul(f).add(this.calc.push(E).mul(F).pop()).div(this.calc.pushDouble(-1.0d).mul(E).pop()).lt(this.calc.valInt(0)).pop()));
 		assertFalse(this.dec.isSat((Expression) this.calc.push(f).sub(this.calc.push(E).mul(F).pop()).ge(this.calc.valInt(0)).pop()));
 	}
-}
\ No newline at end of file
+	
+	@Test(expected=NoDecisionException.class)
+	public void popTest1() 
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException, NoSuchElementException, ContradictionException {
+		//B > 0, C > 0, A > 0, then back to B > 0, C > 0 |-/- B <= 0, |-?- A <= 0
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		final Term C = this.calc.valTerm(Type.INT, "C");
+		final ClauseAssume bPos = new ClauseAssume((Expression) this.calc.push(B).gt(this.calc.valInt(0)).pop());
+		final ClauseAssume cPos = new ClauseAssume((Expression) this.calc.push(C).gt(this.calc.valInt(0)).pop());
+		this.dec.pushAssumption(bPos);
+		this.dec.pushAssumption(cPos);
+		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.push(A).gt(this.calc.valInt(0)).pop()));
+		this.dec.setAssumptions(Arrays.asList(bPos, cPos));
+		assertFalse(this.dec.isSat((Expression) this.calc.push(B).le(this.calc.valInt(0)).pop()));
+		this.dec.isSat((Expression) this.calc.push(A).le(this.calc.valInt(0)).pop());
+	}
+}
@@ -0,0 +1,88 @@
+package jbse.dec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.dec.SMTLIB2Tokenizer.Token;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterExpressionOrConversionOnSimplex;
+import jbse.val.Simplex;
+
+public class SMTLIB2TokenizerTest {
+    private CalculatorRewriting calc;
+
+    @Before
+    public void setUp() {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterExpressionOrConversionOnSimplex());
+    }
+
+    private static SMTLIB2Tokenizer tokenizer(String s) {
+        return new SMTLIB2Tokenizer(new BufferedReader(new StringReader(s)));
+    }
+
+    @Test
+    public void testTokens() throws IOException {
+        final SMTLIB2Tokenizer t = tokenizer("((X1 5)\n (|a b| \"x\"\"y\"))");
+        assertEquals(Token.OPEN, t.next());
+        assertEquals(Token.OPEN, t.next());
+        assertEquals(Token.ATOM, t.next());
+        assertTrue(t.atomEquals("X1"));
+        assertEquals(Token.ATOM, t.next());
+        assertEquals("5", t.atom());
+        assertEquals(Token.CLOSE, t.next());
+        assertEquals(Token.OPEN, t.next());
+        assertEquals(Token.ATOM, t.next());
+        assertEquals("|a b|", t.atom());
+        assertEquals(Token.ATOM, t.next());
+        assertEquals("\"x\"\"y\"", t.atom());
+        t.pushBack();
+        assertEquals(Token.ATOM, t.next());
+        assertEquals(Token.CLOSE, t.next());
+        assertEquals(Token.CLOSE, t.next());
+        assertEquals(Token.EOF, t.next());
+    }
+
+    @Test
+    public void testValues() throws IOException {
+        final SMTLIB2Tokenizer t = tokenizer("42 (- 7) 2.5 (/ 1.0 4.0) (- (/ 3 2)) (+ 1 2 3) (* 2 (- 1.5)) 9223372036854775807");
+        assertEquals(this.calc.valLong(42), t.readValue(this.calc));
+        assertEquals(this.calc.valLong(-7), t.readValue(this.calc));
+        assertEquals(this.calc.valDouble(2.5), t.readValue(this.calc));
+        assertEquals(this.calc.valDouble(0.25), t.readValue(this.calc));
+        assertEquals(this.calc.valLong(-1), t.readValue(this.calc));
+        assertEquals(this.calc.valLong(6), t.readValue(this.calc));
+        assertEquals(this.calc.valDouble(-3.0), t.readValue(this.calc));
+        assertEquals(this.calc.valLong(Long.MAX_VALUE), t.readValue(this.calc));
+        assertEquals(Token.EOF, t.next());
+    }
+
+    @Test
+    public void testUnsupportedValuesAreConsumed() throws IOException {
+        final SMTLIB2Tokenizer t = tokenizer("(root-obj (+ (^ x 2) (- 2)) 1) true (- (f 1) 2) 3");
+        assertNull(t.readValue(this.calc));
+        assertNull(t.readValue(this.calc));
+        assertNull(t.readValue(this.calc));
+        final Simplex three = t.readValue(this.calc);
+        assertEquals(this.calc.valLong(3), three);
+        assertEquals(Token.EOF, t.next());
+    }
+
+    @Test
+    public void testSkipLine() throws IOException {
+        final BufferedReader in = new BufferedReader(new StringReader("((X1 1)) \nsuccess\n"));
+        final SMTLIB2Tokenizer t = new SMTLIB2Tokenizer(in);
+        t.next();
+        t.skipList(1);
+        t.skipLine();
+        assertEquals("success", in.readLine());
+    }
+}
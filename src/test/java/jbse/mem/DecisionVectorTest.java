@@ -0,0 +1,58 @@
+package jbse.mem;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import jbse.common.exc.InvalidInputException;
+
+public class DecisionVectorTest {
+    @Test
+    public void testAddSharesPrefix() {
+        final DecisionVector prefix = DecisionVector.EMPTY.add(1, "IFX_True", true, true, true);
+        final DecisionVector left = prefix.add(2, "IFX_False", true, true, false);
+        final DecisionVector right = prefix.add(1, "IFX_True", false, true, true);
+        assertEquals(0, DecisionVector.EMPTY.length());
+        assertEquals(2, left.length());
+        assertSame(left.decisions()[0], right.decisions()[0]);
+        assertTrue(left.chose(2, "IFX_False"));
+        assertFalse(left.chose(2, "IFX_True"));
+        assertFalse(left.createdBranch());
+        assertTrue(right.createdBranch());
+        assertFalse(right.shouldRefine());
+        assertFalse(DecisionVector.EMPTY.chose(0, ""));
+    }
+
+    @Test
+    public void testDecisionsInOrder() {
+        DecisionVector v = DecisionVector.EMPTY;
+        for (int i = 1; i <= 5; ++i) {
+            v = v.add(i, "A" + i, false, true, false);
+        }
+        final DecisionVector[] decisions = v.decisions();
+        assertEquals(5, decisions.length);
+        for (int i = 0; i < 5; ++i) {
+            assertEquals(i + 1, decisions[i].getBranchNumber());
+            assertTrue(decisions[i].chose(i + 1, "A" + (i + 1)));
+        }
+        assertSame(v, decisions[4]);
+    }
+
+    @Test
+    public void testValueOfToString() throws InvalidInputException {
+        final DecisionVector v = DecisionVector.EMPTY.add(3, "XSWITCH:3", true, true, true).add(1, "XLOAD_GETX_Null", true, false, false);
+        final DecisionVector w = DecisionVector.valueOf(v.toString());
+        assertEquals(v.toString(), w.toString());
+        assertTrue(w.chose(1, "XLOAD_GETX_Null"));
+        assertTrue(w.shouldRefine());
+        assertFalse(w.branchingDecision());
+        assertTrue(w.decisions()[0].chose(3, "XSWITCH:3"));
+        assertTrue(w.decisions()[0].createdBranch());
+        assertEquals(0, DecisionVector.valueOf("").length());
+    }
+
+    @Test(expected = InvalidInputException.class)
+    public void testValueOfIllFormed() throws InvalidInputException {
+        DecisionVector.valueOf("1:ab");
+    }
+}
@@ -0,0 +1,158 @@
+package jbse.mem;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_BOOT;
+import static jbse.bc.Signatures.JAVA_OBJECT;
+import static jbse.bc.Signatures.JAVA_THREAD;
+import static jbse.bc.Signatures.JAVA_THREADGROUP;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.ClassHierarchy;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterExpressionOrConversionOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Null;
+import jbse.val.ReferenceConcrete;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.SymbolFactory;
+
+public class HeapGenerationalCollectionTest {
+    private static final String JAVA_ATOMICREFERENCE = "java/util/concurrent/atomic/AtomicReference";
+    private static final Signature THREAD_TARGET = new Signature(JAVA_THREAD, "Ljava/lang/Runnable;", "target");
+    private static final Signature ATOMICREFERENCE_VALUE = new Signature(JAVA_ATOMICREFERENCE, "Ljava/lang/Object;", "value");
+
+    private CalculatorRewriting calc;
+    private SymbolFactory symbolFactory;
+    private State state;
+    private ClassFile cf_arrayOfObject;
+    private ClassFile cf_atomicReference;
+    private ReferenceConcrete mainThread;
+
+    @Before
+    public void setUp() throws Exception {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterExpressionOrConversionOnSimplex());
+        final Classpath cp = new Classpath(Paths.get(".", "build", "classes"), Paths.get(System.getProperty("java.home", "")),
+                                           new ArrayList<>(Arrays.stream(System.getProperty("java.ext.dirs", "").split(File.pathSeparator)).map(s -> Paths.get(s)).collect(Collectors.toList())),
+                                           Collections.emptyList());
+        this.symbolFactory = new SymbolFactory();
+        this.state = new State(true, HistoryPoint.unknown(), 10, 100, cp, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), this.symbolFactory);
+        final ClassHierarchy hier = this.state.getClassHierarchy();
+        this.cf_arrayOfObject = hier.loadCreateClass(CLASSLOADER_BOOT, "[L" + JAVA_OBJECT + ";", true);
+        this.cf_atomicReference = hier.loadCreateClass(CLASSLOADER_BOOT, JAVA_ATOMICREFERENCE, true);
+        final ClassFile cf_thread = hier.loadCreateClass(CLASSLOADER_BOOT, JAVA_THREAD, true);
+        final ClassFile cf_threadGroup = hier.loadCreateClass(CLASSLOADER_BOOT, JAVA_THREADGROUP, true);
+        this.state.setMainThreadGroup(this.state.createInstance(this.calc, cf_threadGroup));
+        this.mainThread = this.state.createInstance(this.calc, cf_thread);
+        this.state.setMainThread(this.mainThread);
+        this.state.gc();
+    }
+
+    private ReferenceConcrete newArray() throws Exception {
+        return this.state.createArray(this.calc, Null.getInstance(), this.calc.valInt(1), this.cf_arrayOfObject);
+    }
+
+    /**
+     * Creates an array that is referred by the main thread,
+     * and makes it old.
+     */
+    private ReferenceConcrete newOldArray() throws Exception {
+        final ReferenceConcrete retVal = newArray();
+        this.state.getObject(this.mainThread).setFieldValue(THREAD_TARGET, retVal);
+        this.state.gcYoung();
+        return retVal;
+    }
+
+    @Test
+    public void testUnreachableYoungObjectIsCollected() throws Exception {
+        final ReferenceConcrete young = newArray();
+        this.state.gcYoung();
+        assertNull(this.state.getObject(young));
+        assertNotNull(this.state.getObject(this.mainThread));
+    }
+
+    @Test
+    public void testYoungObjectReachableFromRememberedSetSurvives() throws Exception {
+        final ReferenceConcrete old = newOldArray();
+
+        //the young object is only referred by the old object
+        final ReferenceConcrete young = newArray();
+        ((Array) this.state.getObject(old)).setFast(this.calc.valInt(0), young);
+        final ReferenceConcrete garbage = newArray();
+        this.state.gcYoung();
+        assertNotNull(this.state.getObject(young));
+        assertNull(this.state.getObject(garbage));
+
+        //the young object was promoted, so it survives
+        //even if it is not referred by the remembered set
+        this.state.gcYoung();
+        assertNotNull(this.state.getObject(young));
+    }
+
+    @Test
+    public void testYoungObjectReachableFromPathConditionSurvives() throws Exception {
+        final ReferenceSymbolic ref = this.symbolFactory.createSymbolLocalVariableReference(this.state.getHistoryPoint(), "L" + JAVA_ATOMICREFERENCE + ";", null, "ref");
+        this.state.assumeExpands(this.calc, ref, this.cf_atomicReference);
+        final ReferenceConcrete expanded = new ReferenceConcrete(this.state.getResolution(ref));
+
+        //the young object is only referred by the expanded object
+        final ReferenceConcrete young = newArray();
+        this.state.getObject(expanded).setFieldValue(ATOMICREFERENCE_VALUE, young);
+        this.state.gcYoung();
+        assertNotNull(this.state.getObject(young));
+    }
+
+    @Test
+    public void testExpandedObjectSurvives() throws Exception {
+        final ReferenceSymbolic ref = this.symbolFactory.createSymbolLocalVariableReference(this.state.getHistoryPoint(), "L" + JAVA_ATOMICREFERENCE + ";", null, "ref");
+        this.state.assumeExpands(this.calc, ref, this.cf_atomicReference);
+        final ReferenceConcrete expanded = new ReferenceConcrete(this.state.getResolution(ref));
+        this.state.gcYoung();
+        assertNotNull(this.state.getObject(expanded));
+        this.state.gc();
+        assertNotNull(this.state.getObject(expanded));
+    }
+
+    @Test
+    public void testOldObjectSurvivesYoungCollection() throws Exception {
+        final ReferenceConcrete old = newOldArray();
+
+        //the old object is no more reachable, but young
+        //collections assume that all the old objects are live
+        this.state.getObject(this.mainThread).setFieldValue(THREAD_TARGET, Null.getInstance());
+        this.state.gcYoung();
+        assertNotNull(this.state.getObject(old));
+    }
+
+    @Test
+    public void testFallbackToFullCollection() throws Exception {
+        final ReferenceConcrete old = newOldArray();
+        this.state.getObject(this.mainThread).setFieldValue(THREAD_TARGET, Null.getInstance());
+
+        //exposes the whole heap, so the next young
+        //collection must be a full one
+        this.state.getHeap();
+        this.state.gcYoung();
+        assertNull(this.state.getObject(old));
+
+        //the full collection started a new young generation
+        final ReferenceConcrete young = newArray();
+        this.state.gcYoung();
+        assertNull(this.state.getObject(young));
+        assertNotNull(this.state.getObject(this.mainThread));
+    }
+}
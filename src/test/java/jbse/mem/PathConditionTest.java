@@ -0,0 +1,105 @@
+package jbse.mem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.common.Type;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterExpressionOrConversionOnSimplex;
+import jbse.val.Primitive;
+import jbse.val.Term;
+import jbse.val.exc.InvalidTypeException;
+
+public class PathConditionTest {
+    private CalculatorRewriting calc;
+    private Term x, y;
+
+    @Before
+    public void setUp() throws InvalidTypeException {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterExpressionOrConversionOnSimplex());
+        this.x = this.calc.valTerm(Type.INT, "x");
+        this.y = this.calc.valTerm(Type.INT, "y");
+    }
+
+    private List<Primitive> conditions(PathCondition pc) {
+        final Primitive[] retVal = new Primitive[pc.getClauses().size()];
+        for (int i = 0; i < retVal.length; ++i) {
+            retVal[i] = ((ClauseAssume) pc.getClauses().get(i)).getCondition();
+        }
+        return Arrays.asList(retVal);
+    }
+
+    @Test
+    public void testDuplicatesAreNotAdded() throws Exception {
+        final PathCondition pc = new PathCondition();
+        final Primitive c = this.calc.push(this.x).mul(this.y).ne(this.calc.valInt(3)).pop();
+        assertTrue(pc.addClauseAssume(c));
+        assertFalse(pc.addClauseAssume(this.calc.push(this.x).mul(this.y).ne(this.calc.valInt(3)).pop()));
+        assertEquals(1, pc.getClauses().size());
+    }
+
+    @Test
+    public void testWeakerBoundsAreNotAdded() throws Exception {
+        final PathCondition pc = new PathCondition();
+        final Primitive xGt5 = this.calc.push(this.x).gt(this.calc.valInt(5)).pop();
+        final Primitive yLt0 = this.calc.push(this.y).lt(this.calc.valInt(0)).pop();
+        assertTrue(pc.addClauseAssume(xGt5));
+        assertTrue(pc.addClauseAssume(yLt0));
+        assertFalse(pc.addClauseAssume(this.calc.push(this.x).gt(this.calc.valInt(0)).pop()));
+        assertFalse(pc.addClauseAssume(this.calc.push(this.x).ge(this.calc.valInt(5)).pop()));
+        assertFalse(pc.addClauseAssume(this.calc.push(this.calc.valInt(2)).lt(this.x).pop()));
+        assertFalse(pc.addClauseAssume(this.calc.push(this.y).le(this.calc.valInt(0)).pop()));
+
+        //stronger or unrelated bounds are appended
+        final Primitive xGe7 = this.calc.push(this.x).ge(this.calc.valInt(7)).pop();
+        final Primitive xLt10 = this.calc.push(this.x).lt(this.calc.valInt(10)).pop();
+        assertTrue(pc.addClauseAssume(xGe7));
+        assertTrue(pc.addClauseAssume(xLt10));
+        assertFalse(pc.addClauseAssume(this.calc.push(this.x).gt(this.calc.valInt(6)).pop()));
+        assertEquals(Arrays.asList(xGt5, yLt0, xGe7, xLt10), conditions(pc));
+    }
+
+    @Test
+    public void testEqualityBounds() throws Exception {
+        final PathCondition pc = new PathCondition();
+        final Primitive xEq3 = this.calc.push(this.x).eq(this.calc.valInt(3)).pop();
+        assertTrue(pc.addClauseAssume(xEq3));
+        assertFalse(pc.addClauseAssume(this.calc.push(this.x).ge(this.calc.valInt(0)).pop()));
+        assertFalse(pc.addClauseAssume(this.calc.push(this.x).le(this.calc.valInt(3)).pop()));
+        assertTrue(pc.addClauseAssume(this.calc.push(this.x).lt(this.calc.valInt(3)).pop())); //not implied (contradictory)
+
+        final PathCondition pc2 = new PathCondition();
+        assertTrue(pc2.addClauseAssume(this.calc.push(this.x).ge(this.calc.valInt(3)).pop()));
+        assertTrue(pc2.addClauseAssume(this.calc.push(this.x).le(this.calc.valInt(3)).pop()));
+        assertFalse(pc2.addClauseAssume(xEq3));
+    }
+
+    @Test
+    public void testTruncateAndClone() throws Exception {
+        final PathCondition pc = new PathCondition();
+        final Primitive xGt5 = this.calc.push(this.x).gt(this.calc.valInt(5)).pop();
+        final Primitive xGt0 = this.calc.push(this.x).gt(this.calc.valInt(0)).pop();
+        assertTrue(pc.addClauseAssume(xGt0));
+        final PathCondition clone = pc.clone();
+        assertTrue(pc.addClauseAssume(xGt5));
+        assertFalse(pc.addClauseAssume(xGt0));
+
+        //the clone is not affected
+        assertTrue(clone.addClauseAssume(this.calc.push(this.x).gt(this.calc.valInt(3)).pop()));
+        assertEquals(2, clone.getClauses().size());
+
+        //truncation forgets the removed bounds
+        pc.truncate(1);
+        assertTrue(pc.addClauseAssume(this.calc.push(this.x).gt(this.calc.valInt(2)).pop()));
+        assertTrue(pc.addClauseAssume(xGt5));
+        assertEquals(3, pc.getClauses().size());
+    }
+}
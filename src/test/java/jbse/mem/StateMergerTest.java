@@ -0,0 +1,194 @@
+package jbse.mem;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_BOOT;
+import static jbse.bc.Signatures.JAVA_THREAD;
+import static jbse.bc.Signatures.JAVA_THREADGROUP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.ClassHierarchy;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterExpressionOrConversionOnSimplex;
+import jbse.val.HistoryPoint;
+import jbse.val.Null;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.PrimitiveSymbolicApply;
+import jbse.val.ReferenceConcrete;
+import jbse.val.Simplex;
+import jbse.val.Symbolic;
+import jbse.val.SymbolFactory;
+import jbse.val.Value;
+
+public class StateMergerTest {
+    private static final String JAVA_ATOMICINTEGER = "java/util/concurrent/atomic/AtomicInteger";
+    private static final Signature ATOMICINTEGER_VALUE = new Signature(JAVA_ATOMICINTEGER, "I", "value");
+    private static final Signature THREAD_TARGET = new Signature(JAVA_THREAD, "Ljava/lang/Runnable;", "target");
+
+    private CalculatorRewriting calc;
+    private State state;
+    private ClassFile cf_atomicInteger;
+    private ReferenceConcrete mainThread;
+    private PrimitiveSymbolic x;
+
+    @Before
+    public void setUp() throws Exception {
+        this.calc = new CalculatorRewriting();
+        this.calc.addRewriter(new RewriterExpressionOrConversionOnSimplex());
+        final Classpath cp = new Classpath(Paths.get(".", "build", "classes"), Paths.get(System.getProperty("java.home", "")),
+                                           new ArrayList<>(Arrays.stream(System.getProperty("java.ext.dirs", "").split(File.pathSeparator)).map(s -> Paths.get(s)).collect(Collectors.toList())),
+                                           Collections.emptyList());
+        this.state = new State(true, HistoryPoint.unknown(), 10, 100, cp, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+        final ClassHierarchy hier = this.state.getClassHierarchy();
+        this.cf_atomicInteger = hier.loadCreateClass(CLASSLOADER_BOOT, JAVA_ATOMICINTEGER, true);
+        final ClassFile cf_thread = hier.loadCreateClass(CLASSLOADER_BOOT, JAVA_THREAD, true);
+        final ClassFile cf_threadGroup = hier.loadCreateClass(CLASSLOADER_BOOT, JAVA_THREADGROUP, true);
+        this.state.setMainThreadGroup(this.state.createInstance(this.calc, cf_threadGroup));
+        this.mainThread = this.state.createInstance(this.calc, cf_thread);
+        this.state.setMainThread(this.mainThread);
+        this.state.setPhasePostInitial();
+        this.state.gc();
+        this.x = (PrimitiveSymbolic) this.state.createSymbolLocalVariable("I", "I", "x");
+    }
+
+    /**
+     * Creates the two states after the branch of an if
+     * statement on {@code x > 0}, each storing a different
+     * value in the field of an {@code AtomicInteger}.
+     */
+    private State[] branch(ReferenceConcrete counter) throws Exception {
+        final State thenBranch = this.state.lazyClone();
+        final State elseBranch = this.state.lazyClone();
+        thenBranch.assume(this.calc.push(this.x).gt(this.calc.valInt(0)).pop());
+        elseBranch.assume(this.calc.push(this.x).le(this.calc.valInt(0)).pop());
+        thenBranch.getObject(counter).setFieldValue(ATOMICINTEGER_VALUE, this.calc.valInt(1));
+        elseBranch.getObject(counter).setFieldValue(ATOMICINTEGER_VALUE, this.calc.valInt(2));
+        return new State[] { thenBranch, elseBranch };
+    }
+
+    private ReferenceConcrete newCounter() throws Exception {
+        final ReferenceConcrete retVal = this.state.createInstance(this.calc, this.cf_atomicInteger);
+        this.state.getObject(this.mainThread).setFieldValue(THREAD_TARGET, retVal);
+        return retVal;
+    }
+
+    @Test
+    public void testMergeDiamond() throws Exception {
+        final ReferenceConcrete counter = newCounter();
+        final int prefixLength = this.state.getPathCondition().size();
+        final State[] branches = branch(counter);
+        assertTrue(new StateMerger(this.calc, 1).merge(branches[0], branches[1]));
+
+        //the differing field is replaced by a fresh value
+        final Value merged = branches[0].getObject(counter).getFieldValue(ATOMICINTEGER_VALUE);
+        assertTrue(merged instanceof PrimitiveSymbolicApply);
+
+        //the branch clauses are replaced by a single clause
+        assertEquals(prefixLength + 1, branches[0].getPathCondition().size());
+
+        //the other state is not modified
+        assertEquals(this.calc.valInt(2), branches[1].getObject(counter).getFieldValue(ATOMICINTEGER_VALUE));
+    }
+
+    @Test
+    public void testNoMergeTooManyValues() throws Exception {
+        final ReferenceConcrete counter = newCounter();
+        final State[] branches = branch(counter);
+        assertFalse(new StateMerger(this.calc, 0).merge(branches[0], branches[1]));
+        assertEquals(this.calc.valInt(1), branches[0].getObject(counter).getFieldValue(ATOMICINTEGER_VALUE));
+    }
+
+    @Test
+    public void testNoMergeDifferentHeaps() throws Exception {
+        final ReferenceConcrete counter = newCounter();
+        final State[] branches = branch(counter);
+        branches[1].createInstance(this.calc, this.cf_atomicInteger);
+        assertFalse(new StateMerger(this.calc, 1).merge(branches[0], branches[1]));
+    }
+
+    @Test
+    public void testMergeOfUnrelatedStates() throws Exception {
+        //the clones share no heap, so all the heap is compared
+        final ReferenceConcrete counter = newCounter();
+        final State thenBranch = this.state.clone();
+        final State elseBranch = this.state.clone();
+        thenBranch.assume(this.calc.push(this.x).gt(this.calc.valInt(0)).pop());
+        elseBranch.assume(this.calc.push(this.x).le(this.calc.valInt(0)).pop());
+        thenBranch.getObject(counter).setFieldValue(ATOMICINTEGER_VALUE, this.calc.valInt(1));
+        elseBranch.getObject(counter).setFieldValue(ATOMICINTEGER_VALUE, this.calc.valInt(2));
+        assertTrue(new StateMerger(this.calc, 1).merge(thenBranch, elseBranch));
+    }
+
+    @Test
+    public void testMergeDoesNotPreventYoungCollection() throws Exception {
+        //makes an old object that is not reachable
+        final ReferenceConcrete old = this.state.createInstance(this.calc, this.cf_atomicInteger);
+        this.state.getObject(this.mainThread).setFieldValue(THREAD_TARGET, old);
+        this.state.gcYoung();
+        this.state.getObject(this.mainThread).setFieldValue(THREAD_TARGET, Null.getInstance());
+
+        final ReferenceConcrete counter = newCounter();
+        final State[] branches = branch(counter);
+        assertTrue(new StateMerger(this.calc, 1).merge(branches[0], branches[1]));
+
+        //a full collection would dispose the old object
+        branches[0].gcYoung();
+        assertNotNull(branches[0].getObject(old));
+    }
+
+    @Test
+    public void testMergedStateCreatesFreshSymbols() throws Exception {
+        final ReferenceConcrete counter = newCounter();
+        final State[] branches = branch(counter);
+        final Symbolic symbolOther = branches[1].createSymbolLocalVariable("I", "I", "y");
+        assertTrue(new StateMerger(this.calc, 1).merge(branches[0], branches[1]));
+        final Symbolic symbolMerged = branches[0].createSymbolLocalVariable("I", "I", "z");
+        assertFalse(symbolOther.toString().equals(symbolMerged.toString()));
+    }
+
+    @Test
+    public void testMergeIdenticalValues() throws Exception {
+        final ReferenceConcrete counter = newCounter();
+        final State thenBranch = this.state.lazyClone();
+        final State elseBranch = this.state.lazyClone();
+        thenBranch.assume(this.calc.push(this.x).gt(this.calc.valInt(0)).pop());
+        elseBranch.assume(this.calc.push(this.x).le(this.calc.valInt(0)).pop());
+        assertTrue(new StateMerger(this.calc, 0).merge(thenBranch, elseBranch));
+        final Simplex zero = this.calc.valInt(0);
+        assertEquals(zero, thenBranch.getObject(counter).getFieldValue(ATOMICINTEGER_VALUE));
+    }
+
+    @Test
+    public void testNoMergeArraysWithSymbolsPrintedTheSame() throws Exception {
+        final ClassFile cf_arrayOfInt = this.state.getClassHierarchy().loadCreateClass(CLASSLOADER_BOOT, "[I", true);
+        final ReferenceConcrete array = this.state.createArray(this.calc, this.calc.valInt(0), this.calc.valInt(1), cf_arrayOfInt);
+        this.state.getObject(this.mainThread).setFieldValue(THREAD_TARGET, array);
+        final State thenBranch = this.state.lazyClone();
+        final State elseBranch = this.state.lazyClone();
+        thenBranch.assume(this.calc.push(this.x).gt(this.calc.valInt(0)).pop());
+        elseBranch.assume(this.calc.push(this.x).le(this.calc.valInt(0)).pop());
+        
+        //fresh symbols with same name and different origins
+        final PrimitiveSymbolic y = (PrimitiveSymbolic) thenBranch.createSymbolLocalVariable("I", "I", "y");
+        final PrimitiveSymbolic z = (PrimitiveSymbolic) elseBranch.createSymbolLocalVariable("I", "I", "z");
+        assertEquals(y.toString(), z.toString());
+        ((Array) thenBranch.getObject(array)).setFast(this.calc.valInt(0), y);
+        ((Array) elseBranch.getObject(array)).setFast(this.calc.valInt(0), z);
+        assertFalse(new StateMerger(this.calc, 1).merge(thenBranch, elseBranch));
+    }
+}
@@ -0,0 +1,101 @@
+package jbse.mem;
+
+import static jbse.bc.ClassLoaders.CLASSLOADER_APP;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFile;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.ClassHierarchy;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.bc.exc.BadClassFileVersionException;
+import jbse.bc.exc.ClassFileIllFormedException;
+import jbse.bc.exc.ClassFileNotAccessibleException;
+import jbse.bc.exc.ClassFileNotFoundException;
+import jbse.bc.exc.IncompatibleClassFileException;
+import jbse.bc.exc.InvalidClassFileFactoryClassException;
+import jbse.bc.exc.MethodCodeNotFoundException;
+import jbse.bc.exc.MethodNotFoundException;
+import jbse.bc.exc.PleaseLoadClassException;
+import jbse.bc.exc.RenameUnsupportedException;
+import jbse.bc.exc.WrongClassNameException;
+import jbse.common.exc.InvalidInputException;
+import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.val.Null;
+
+public class ThreadStackTest {
+    private Signature sigMethod;
+    private ClassFile cf;
+
+    @Before
+    public void setUp() throws InvalidClassFileFactoryClassException, IOException, InvalidInputException, 
+    ClassFileNotFoundException, ClassFileIllFormedException, BadClassFileVersionException, WrongClassNameException, 
+    IncompatibleClassFileException, ClassFileNotAccessibleException, PleaseLoadClassException, RenameUnsupportedException {
+        //environment
+        final ArrayList<Path> userPath = new ArrayList<>();
+        userPath.add(Paths.get("src/test/resources/jbse/bc/testdata"));
+        final Classpath env = new Classpath(Paths.get("."), Paths.get(System.getProperty("java.home", "")), Collections.emptyList(), userPath);
+
+        //class hierarchy and method
+        final ClassHierarchy hier = new ClassHierarchy(env, ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap());
+        final String className = "tsafe/engine/TsafeEngine";
+        this.cf = hier.loadCreateClass(CLASSLOADER_APP, className, true);
+        this.sigMethod = new Signature(className, "()V", "start");
+    }
+
+    @Test
+    public void testCloneSharesFrames() throws MethodNotFoundException, MethodCodeNotFoundException, ThreadStackEmptyException {
+        final ThreadStack s = new ThreadStack();
+        final MethodFrame f1 = new MethodFrame(this.sigMethod, this.cf);
+        final MethodFrame f2 = new MethodFrame(this.sigMethod, this.cf);
+        s.push(f1);
+        s.push(f2);
+        final ThreadStack c = s.clone();
+        assertSame(f1, c.frames().get(0));
+        assertSame(f2, c.peekCurrentFrame());
+        final Frame f2Clone = c.currentFrame();
+        assertNotSame(f2, f2Clone);
+        assertSame(f2Clone, c.currentFrame());
+        assertSame(f1, c.frames().get(0));
+    }
+
+    @Test
+    public void testCopyOnWriteAfterPop() throws MethodNotFoundException, MethodCodeNotFoundException, ThreadStackEmptyException {
+        final ThreadStack s = new ThreadStack();
+        final MethodFrame f1 = new MethodFrame(this.sigMethod, this.cf);
+        final MethodFrame f2 = new MethodFrame(this.sigMethod, this.cf);
+        s.push(f1);
+        s.push(f2);
+        final ThreadStack c = s.clone();
+        c.pop();
+        final Frame f1Clone = c.currentFrame();
+        assertNotSame(f1, f1Clone);
+        f1Clone.push(Null.getInstance());
+        assertEquals(0, f1.operands().size());
+        assertEquals(1, f1Clone.operands().size());
+        assertSame(f1, s.frames().get(0));
+    }
+
+    @Test
+    public void testFramesForUpdate() throws MethodNotFoundException, MethodCodeNotFoundException, ThreadStackEmptyException {
+        final ThreadStack s = new ThreadStack();
+        final MethodFrame f1 = new MethodFrame(this.sigMethod, this.cf);
+        final MethodFrame f2 = new MethodFrame(this.sigMethod, this.cf);
+        s.push(f1);
+        s.push(f2);
+        final ThreadStack c = s.clone();
+        final Frame f1Clone = c.framesForUpdate().get(0);
+        assertNotSame(f1, f1Clone);
+        assertNotSame(f2, c.peekCurrentFrame());
+        assertSame(f1Clone, c.rootFrame());
+    }
+}
@@ -1,11 +1,13 @@
 package jbse.tree;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 
 import org.junit.Test;
@@ -15,8 +17,11 @@ import jbse.bc.Classpath;
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
 import jbse.common.exc.InvalidInputException;
 import jbse.mem.State;
+import jbse.mem.exc.FrozenStateException;
+import jbse.rewr.CalculatorRewriting;
 import jbse.tree.StateTree.BranchPoint;
 import jbse.tree.StateTree.BreadthMode;
+import jbse.tree.StateTree.ExplorationStrategy;
 import jbse.tree.StateTree.StateIdentificationMode;
 import jbse.val.SymbolFactory;
 
@@ -124,4 +129,115 @@ public class StateTreeTest {
 		final State statePicked = tree.getStateAtBranch(bp_1_2, 1);
 		assertSame(_1_2_6, statePicked);
 	}
+	
+	@Test
+	public void testBreadthFirst() throws InvalidClassFileFactoryClassException, IOException, InvalidInputException, FrozenStateException {
+		final StateTree tree = new StateTree(StateIdentificationMode.COMPACT, BreadthMode.MORE_THAN_ONE);
+		tree.setExplorationStrategy(ExplorationStrategy.BREADTH_FIRST, null);
+		final State _1_1 = new State(true, tree.getPreInitialHistoryPoint().startingInitial(), 100, 100, new Classpath(Paths.get("."), Paths.get("."), Collections.emptyList(), Collections.emptyList()), ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+		_1_1.setPhasePostInitial();
+		final State _1_2 = _1_1.clone();
+		tree.possiblyAddBranchPoint(true, false, false, false);
+		tree.addState(_1_2, 0, null);
+		tree.addState(_1_1, 0, null);
+		assertSame(_1_1, tree.nextState());
+		final State _1_1_1 = _1_1.clone();
+		_1_1_1.incDepth();
+		final State _1_1_2 = _1_1_1.clone();
+		tree.possiblyAddBranchPoint(true, false, false, false);
+		tree.addState(_1_1_2, 0, null);
+		tree.addState(_1_1_1, 0, null);
+		assertSame(_1_1_1, tree.nextState()); //the path goes on depth-first
+		tree.prioritize();
+		assertSame(_1_2, tree.nextState()); //backtracks to the shallowest
+		tree.prioritize();
+		assertSame(_1_1_2, tree.nextState());
+		assertFalse(tree.hasStates());
+		assertEquals(".1.2", _1_2.getBranchIdentifier().toString());
+		assertEquals(".1.1.2", _1_1_2.getBranchIdentifier().toString());
+	}
+	
+	@Test
+	public void testPruneSubsumed() throws InvalidClassFileFactoryClassException, IOException, InvalidInputException, FrozenStateException {
+		final StateTree tree = new StateTree(StateIdentificationMode.COMPACT, BreadthMode.MORE_THAN_ONE);
+		tree.setSubsumptionIndex(new StateSubsumptionIndex(new CalculatorRewriting(), null));
+		final State _1_1 = new State(true, tree.getPreInitialHistoryPoint().startingInitial(), 100, 100, new Classpath(Paths.get("."), Paths.get("."), Collections.emptyList(), Collections.emptyList()), ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+		_1_1.setPhasePostInitial();
+		final State _1_2 = _1_1.clone();
+		final State _1_3 = _1_1.clone();
+		tree.possiblyAddBranchPoint(true, false, false, false);
+		tree.addState(_1_3, 0, null);
+		tree.addState(_1_2, 0, null); //same heap and path condition as _1_3
+		tree.addState(_1_1, 0, null); //ditto
+		assertEquals(2, tree.getNumPrunedStates());
+		assertSame(_1_3, tree.nextState());
+		assertFalse(tree.hasStates());
+	}
+	
+	@Test
+	public void testMemoryPressureDepthFirst() throws InvalidClassFileFactoryClassException, IOException, InvalidInputException, FrozenStateException {
+		final StateTree tree = new StateTree(StateIdentificationMode.COMPACT, BreadthMode.MORE_THAN_ONE);
+		final ArrayList<State> replayed = new ArrayList<>();
+		final State _1_1 = new State(true, tree.getPreInitialHistoryPoint().startingInitial(), 100, 100, new Classpath(Paths.get("."), Paths.get("."), Collections.emptyList(), Collections.emptyList()), ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+		_1_1.setPhasePostInitial();
+		tree.setMemoryThreshold(1);
+		tree.setReplayer((historyPoint, decisions) -> {
+			final State s = _1_1.clone();
+			replayed.add(s);
+			return s;
+		});
+		final byte[] ballast = new byte[(int) Math.min(Runtime.getRuntime().maxMemory() / 50, Integer.MAX_VALUE - 8)]; //keeps the occupancy above 1%
+		final State _1_2 = _1_1.clone();
+		tree.possiblyAddBranchPoint(true, false, false, false);
+		tree.addState(_1_2, 0, null);
+		tree.addState(_1_1, 0, null);
+		assertSame(_1_1, tree.nextState());
+		final State _1_1_1 = _1_1.clone();
+		final State _1_1_2 = _1_1.clone();
+		tree.possiblyAddBranchPoint(true, false, false, false); //stores _1_2 as decisions
+		tree.addState(_1_1_2, 0, null);
+		tree.addState(_1_1_1, 0, null);
+		assertSame(_1_1_1, tree.nextState());
+		assertSame(_1_1_2, tree.nextState());
+		final State rebuilt = tree.nextState();
+		assertEquals(1, replayed.size());
+		assertSame(replayed.get(0), rebuilt);
+		assertFalse(tree.hasStates());
+		assertTrue(ballast.length > 0); //keeps the ballast reachable
+	}
+	
+	@Test
+	public void testNoPruneByDeeperState() throws InvalidClassFileFactoryClassException, IOException, InvalidInputException, FrozenStateException {
+		final StateTree tree = new StateTree(StateIdentificationMode.COMPACT, BreadthMode.MORE_THAN_ONE);
+		tree.setSubsumptionIndex(new StateSubsumptionIndex(new CalculatorRewriting(), null));
+		final State _1_1 = new State(true, tree.getPreInitialHistoryPoint().startingInitial(), 100, 100, new Classpath(Paths.get("."), Paths.get("."), Collections.emptyList(), Collections.emptyList()), ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+		_1_1.setPhasePostInitial();
+		final State _1_2 = _1_1.clone();
+		final State _1_3 = _1_1.clone();
+		_1_3.incDepth();
+		tree.possiblyAddBranchPoint(true, false, false, false);
+		tree.addState(_1_3, 0, null);
+		tree.addState(_1_2, 0, null); //the depth scope might cut _1_3 before _1_2
+		tree.addState(_1_1, 0, null); //subsumed by _1_2
+		assertEquals(1, tree.getNumPrunedStates());
+		assertSame(_1_2, tree.nextState());
+		assertSame(_1_3, tree.nextState());
+		assertFalse(tree.hasStates());
+	}
+	
+	@Test
+	public void testSubsumptionIndexBound() throws InvalidClassFileFactoryClassException, IOException, InvalidInputException, FrozenStateException {
+		final StateSubsumptionIndex index = new StateSubsumptionIndex(new CalculatorRewriting(), null, 1);
+		final StateTree tree = new StateTree(StateIdentificationMode.COMPACT, BreadthMode.MORE_THAN_ONE);
+		final State shallow = new State(true, tree.getPreInitialHistoryPoint().startingInitial(), 100, 100, new Classpath(Paths.get("."), Paths.get("."), Collections.emptyList(), Collections.emptyList()), ClassFileFactoryJavassist.class, Collections.emptyMap(), Collections.emptyMap(), new SymbolFactory());
+		shallow.setPhasePostInitial();
+		final State deep = shallow.clone();
+		deep.incDepth();
+		assertFalse(index.subsumedElseAdd(deep));
+		assertFalse(index.subsumedElseAdd(shallow));
+		assertEquals(1, index.size()); //deep was evicted
+		assertTrue(index.subsumedElseAdd(shallow.clone()));
+		assertTrue(index.subsumedElseAdd(deep.clone()));
+		assertEquals(1, index.size());
+	}
 }